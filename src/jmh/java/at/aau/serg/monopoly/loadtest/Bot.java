@@ -0,0 +1,292 @@
+package at.aau.serg.monopoly.loadtest;
+
+import at.aau.serg.monopoly.websoket.PropertyService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import model.properties.BaseProperty;
+
+import java.net.http.WebSocket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Simulated player. On its turn it rolls, buys the field it landed on, draws cards, chats,
+ * proposes trades and ends the turn. Incoming trade proposals are accepted or declined at random.
+ * <p>
+ * Every command is followed by a RESYNC, which the server answers only to this session.
+ * Because a room handles its commands one after another, the snapshot arrives after all frames
+ * of the command, so the bot knows when the command is finished. The latency of a command is
+ * the time until the first frame it caused.
+ */
+class Bot implements WebSocket.Listener {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String FENCE = "{\"type\":\"RESYNC\"}";
+    private static final String SNAPSHOT_PREFIX = "{\"type\":\"STATE_SNAPSHOT\"";
+    private static final String ERROR_PREFIX = "{\"type\":\"ERROR\"";
+    private static final String BUY = "BUY";
+
+    final String userId;
+    private final String roomId;
+    private final List<String> opponents;
+    private final PropertyService board;
+    private final LoadStats stats;
+    private final SplittableRandom random;
+    final LoadStats.Latencies latencies = new LoadStats.Latencies();
+
+    private final StringBuilder partial = new StringBuilder();
+    private final Deque<String> plan = new ArrayDeque<>();
+    private CompletableFuture<WebSocket> sending;
+    private long sentAt;
+    private long stepStartedAt;
+    private boolean awaitingFence;
+    private boolean myTurn;
+    private boolean finished;
+    private boolean stopped;
+    private int position;
+
+    Bot(String userId, String roomId, List<String> opponents, PropertyService board, LoadStats stats, long seed) {
+        this.userId = userId;
+        this.roomId = roomId;
+        this.opponents = opponents;
+        this.board = board;
+        this.stats = stats;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public synchronized void onOpen(WebSocket webSocket) {
+        sending = CompletableFuture.completedFuture(webSocket);
+        ObjectNode init = MAPPER.createObjectNode();
+        init.put("type", "INIT");
+        init.put("userId", userId);
+        init.put("name", "Bot " + userId);
+        init.put("roomId", roomId);
+        send(init.toString());
+        webSocket.request(1);
+    }
+
+    @Override
+    public synchronized CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String frame = partial.toString();
+            partial.setLength(0);
+            try {
+                handle(frame);
+            } catch (Exception e) {
+                stats.errors.increment();
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public synchronized CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (!stopped) {
+            stats.errors.increment();
+            stopped = true;
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void onError(WebSocket webSocket, Throwable error) {
+        stats.errors.increment();
+        stopped = true;
+    }
+
+    /**
+     * Called by the generator before it closes the connections, so the close is not counted as error
+     */
+    synchronized void stop() {
+        stopped = true;
+        plan.clear();
+    }
+
+    synchronized CompletableFuture<WebSocket> close() {
+        return sending.thenCompose(ws -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+    }
+
+    /**
+     * Counts a command as timed out if its RESYNC did not come back in time and goes on with the turn
+     */
+    synchronized void checkTimeout(long now, long timeoutNanos) {
+        if (awaitingFence && now - stepStartedAt > timeoutNanos) {
+            stats.timeouts.increment();
+            awaitingFence = false;
+            sentAt = 0;
+            nextStep();
+        }
+    }
+
+    private void handle(String frame) throws Exception {
+        stats.frames.increment();
+        if (sentAt != 0) {
+            latencies.add(System.nanoTime() - sentAt);
+            sentAt = 0;
+        }
+
+        if (frame.startsWith(SNAPSHOT_PREFIX)) {
+            if (awaitingFence) {
+                awaitingFence = false;
+                nextStep();
+            }
+        } else if (frame.startsWith(ERROR_PREFIX)) {
+            stats.rejected.increment();
+        } else if (frame.startsWith("GAME_STATE:")) {
+            readPosition(frame.substring("GAME_STATE:".length()));
+        } else if (frame.startsWith("PLAYER_TURN:")) {
+            onTurn(frame.substring("PLAYER_TURN:".length()).trim());
+        } else if (frame.startsWith("{")) {
+            handleJson(MAPPER.readTree(frame));
+        }
+    }
+
+    private void handleJson(JsonNode json) {
+        String type = json.path("type").asText();
+        switch (type) {
+            case "DEAL_PROPOSAL" -> {
+                if (userId.equals(json.path("toPlayerId").asText()) && !stopped && !finished) {
+                    ObjectNode response = MAPPER.createObjectNode();
+                    response.put("type", "DEAL_RESPONSE");
+                    response.put("fromPlayerId", userId);
+                    response.put("toPlayerId", json.path("fromPlayerId").asText());
+                    response.put("responseType", random.nextBoolean() ? "ACCEPT" : "DECLINE");
+                    response.putArray("counterPropertyIds");
+                    response.put("counterMoney", 0);
+                    stats.command("DEAL_RESPONSE");
+                    send(response.toString());
+                }
+            }
+            case "IS_BANKRUPT" -> {
+                if (userId.equals(json.path("userId").asText())) {
+                    finish();
+                }
+            }
+            case "HAS_WON", "RESET" -> finish();
+            default -> {
+                // Würfel, Miete, Steuern, Chat und gezogene Karten ändern nichts am Plan
+            }
+        }
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            plan.clear();
+            stats.gamesFinished.increment();
+        }
+    }
+
+    private void readPosition(String playersJson) throws Exception {
+        for (JsonNode player : MAPPER.readTree(playersJson)) {
+            if (userId.equals(player.path("id").asText())) {
+                position = player.path("position").asInt();
+                return;
+            }
+        }
+    }
+
+    private void onTurn(String currentPlayerId) {
+        if (!currentPlayerId.equals(userId)) {
+            myTurn = false;
+            return;
+        }
+        // PLAYER_TURN kommt nach jedem eigenen Befehl erneut, geplant wird nur beim Wechsel
+        if (myTurn || stopped || finished || awaitingFence) {
+            return;
+        }
+        myTurn = true;
+        planTurn();
+        nextStep();
+    }
+
+    private void planTurn() {
+        plan.add("ROLL");
+        plan.add(BUY);
+        if (random.nextInt(100) < 30) {
+            plan.add(pullCard());
+        }
+        if (random.nextInt(100) < 30) {
+            plan.add(chat());
+        }
+        if (random.nextInt(100) < 10 && !opponents.isEmpty()) {
+            plan.add(dealProposal());
+        }
+        plan.add("NEXT_TURN");
+    }
+
+    private void nextStep() {
+        while (!plan.isEmpty() && !stopped) {
+            String command = plan.poll();
+            if (BUY.equals(command)) {
+                // Gekauft wird das Feld, auf dem der Bot nach dem Wurf steht
+                BaseProperty property = board.getPropertyByPosition(position);
+                if (property == null) {
+                    continue;
+                }
+                command = "BUY_PROPERTY:" + property.getId();
+            }
+            stats.command(commandType(command));
+            sentAt = System.nanoTime();
+            stepStartedAt = sentAt;
+            awaitingFence = true;
+            send(command);
+            send(FENCE);
+            return;
+        }
+    }
+
+    private static String commandType(String command) {
+        if (command.startsWith("{")) {
+            int start = command.indexOf(':') + 2;
+            return command.substring(start, command.indexOf('"', start));
+        }
+        int colon = command.indexOf(':');
+        return colon < 0 ? command : command.substring(0, colon);
+    }
+
+    private String pullCard() {
+        ObjectNode pull = MAPPER.createObjectNode();
+        pull.put("type", "PULL_CARD");
+        pull.put("playerId", userId);
+        pull.put("cardType", random.nextBoolean() ? "CHANCE" : "COMMUNITY_CHEST");
+        return pull.toString();
+    }
+
+    private String chat() {
+        ObjectNode chat = MAPPER.createObjectNode();
+        chat.put("type", "CHAT_MESSAGE");
+        chat.put("playerId", userId);
+        chat.put("message", "gg " + random.nextInt(1000));
+        return chat.toString();
+    }
+
+    private String dealProposal() {
+        ObjectNode deal = MAPPER.createObjectNode();
+        deal.put("type", "DEAL_PROPOSAL");
+        deal.put("fromPlayerId", userId);
+        deal.put("toPlayerId", opponents.get(random.nextInt(opponents.size())));
+        deal.putArray("requestedPropertyIds");
+        deal.putArray("offeredPropertyIds");
+        deal.put("offeredMoney", 10);
+        return deal.toString();
+    }
+
+    /**
+     * java.net.http erlaubt nur einen offenen sendText pro Verbindung, deshalb werden die Sendungen verkettet
+     */
+    private void send(String text) {
+        sending = sending.thenCompose(ws -> ws.sendText(text, true));
+        sending.exceptionally(error -> {
+            stats.errors.increment();
+            return null;
+        });
+    }
+}
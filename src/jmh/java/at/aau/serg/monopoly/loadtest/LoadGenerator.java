@@ -0,0 +1,181 @@
+package at.aau.serg.monopoly.loadtest;
+
+import at.aau.serg.monopoly.firebase.FirestoreProvider;
+import at.aau.serg.monopoly.websoket.Application;
+import at.aau.serg.monopoly.websoket.PropertyService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless load test: opens one WebSocket per bot, puts {@code players} bots into each of {@code rooms} rooms
+ * and lets them play for {@code duration} seconds. Without {@code url} a local server is started in this JVM
+ * on a free port, with a stub Firestore so the test runs offline.
+ * <p>
+ * Options (key=value, with or without leading dashes): rooms=10 players=4 duration=30 url=ws://host:8080/monopoly
+ * seed=1 timeout-ms=5000
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int rooms = Integer.parseInt(options.getOrDefault("rooms", "10"));
+        int players = Integer.parseInt(options.getOrDefault("players", "4"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout-ms", "5000")));
+        String url = options.get("url");
+
+        LoadStats stats = new LoadStats();
+        ConfigurableApplicationContext server = null;
+        if (url == null) {
+            server = startServer(stats);
+            url = "ws://localhost:" + ((WebServerApplicationContext) server).getWebServer().getPort() + "/monopoly";
+        }
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        try {
+            System.out.printf("Load test against %s: %d rooms x %d bots for %d s, seed %d%n",
+                    url, rooms, players, durationSeconds, seed);
+            run(URI.create(url), rooms, players, durationSeconds, seed, timeoutNanos, stats);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startServer(LoadStats stats) {
+        return new SpringApplicationBuilder(Application.class)
+                .initializers(context -> ((GenericApplicationContext) context).registerBean("stubFirestoreProvider",
+                        FirestoreProvider.class, () -> StubFirestore.provider(stats.historyWrites),
+                        definition -> definition.setPrimary(true)))
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "logging.level.at.aau.serg.monopoly=ERROR",
+                        "monopoly.stats.rebuild-on-startup=false")
+                .run();
+    }
+
+    private static void run(URI uri, int rooms, int players, int durationSeconds, long seed, long timeoutNanos,
+                            LoadStats stats) throws Exception {
+        PropertyService board = new PropertyService();
+        board.init();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        String runId = Long.toHexString(seed);
+
+        List<Bot> bots = new ArrayList<>();
+        for (int room = 0; room < rooms; room++) {
+            List<String> userIds = new ArrayList<>();
+            for (int player = 0; player < players; player++) {
+                userIds.add("bot-" + runId + "-" + room + "-" + player);
+            }
+            for (String userId : userIds) {
+                List<String> opponents = new ArrayList<>(userIds);
+                opponents.remove(userId);
+                bots.add(new Bot(userId, "load-" + runId + "-" + room, opponents, board, stats, seeds.nextLong()));
+            }
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<WebSocket>> connecting = new ArrayList<>();
+        for (Bot bot : bots) {
+            connecting.add(client.newWebSocketBuilder().buildAsync(uri, bot));
+        }
+        CompletableFuture.allOf(connecting.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastCommands = 0;
+        while (System.nanoTime() < end) {
+            Thread.sleep(1000);
+            long now = System.nanoTime();
+            for (Bot bot : bots) {
+                bot.checkTimeout(now, timeoutNanos);
+            }
+            long commands = stats.commands.sum();
+            System.out.printf("  %3d s: %,8d commands/s, %d errors%n",
+                    TimeUnit.NANOSECONDS.toSeconds(now - start), commands - lastCommands, stats.errors.sum());
+            lastCommands = commands;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (Bot bot : bots) {
+            bot.stop();
+        }
+        List<CompletableFuture<WebSocket>> closing = new ArrayList<>();
+        for (Bot bot : bots) {
+            closing.add(bot.close());
+        }
+        try {
+            CompletableFuture.allOf(closing.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Bereits geschlossene Verbindungen sind schon als Fehler gezählt
+        }
+
+        List<LoadStats.Latencies> latencies = new ArrayList<>();
+        for (Bot bot : bots) {
+            latencies.add(bot.latencies);
+        }
+        report(stats, LoadStats.Latencies.merge(latencies), rooms, bots.size(), seconds);
+    }
+
+    private static void report(LoadStats stats, long[] latencies, int rooms, int bots, double seconds) {
+        long commands = stats.commands.sum();
+        long frames = stats.frames.sum();
+        System.out.println();
+        System.out.printf("Rooms: %d, bots: %d, measured: %.1f s%n", rooms, bots, seconds);
+        System.out.printf("Throughput: %,.0f commands/s, %,.0f frames/s received (%,d commands, %,d frames)%n",
+                commands / seconds, frames / seconds, commands, frames);
+        System.out.printf("Command-to-broadcast latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms (%,d samples)%n",
+                millis(LoadStats.Latencies.percentile(latencies, 50)),
+                millis(LoadStats.Latencies.percentile(latencies, 99)),
+                millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]),
+                latencies.length);
+        System.out.printf("Errors: %d, timeouts: %d, rejected by game rules: %d%n",
+                stats.errors.sum(), stats.timeouts.sum(), stats.rejected.sum());
+        System.out.printf("Finished games (per bot): %d, game history writes: %d%n",
+                stats.gamesFinished.sum(), stats.historyWrites.get());
+        System.out.println("Commands by type: " + stats.commandsByType());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Liest key=value-Paare, auch mehrere durch Leerzeichen getrennt in einem Argument (wie von exec:exec übergeben)
+     */
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String token : arg.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                String option = token.replaceFirst("^-+", "");
+                int equals = option.indexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("Expected key=value but got " + token);
+                }
+                options.put(option.substring(0, equals), option.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+}
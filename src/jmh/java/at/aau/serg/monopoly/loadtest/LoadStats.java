@@ -0,0 +1,80 @@
+package at.aau.serg.monopoly.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by all bots. Latencies are kept per bot and merged once at the end.
+ */
+class LoadStats {
+    final LongAdder commands = new LongAdder();
+    final LongAdder frames = new LongAdder();
+    // Fehlerantworten des Servers, z.B. "Not your turn!" oder ein Kauf ohne genug Geld
+    final LongAdder rejected = new LongAdder();
+    // Verbindungsfehler, unerwartet geschlossene Sessions und Befehle ohne Antwort
+    final LongAdder errors = new LongAdder();
+    final LongAdder timeouts = new LongAdder();
+    final LongAdder gamesFinished = new LongAdder();
+    final AtomicLong historyWrites = new AtomicLong();
+    private final Map<String, LongAdder> commandsByType = new ConcurrentHashMap<>();
+
+    void command(String type) {
+        commands.increment();
+        commandsByType.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    Map<String, Long> commandsByType() {
+        Map<String, Long> counts = new TreeMap<>();
+        commandsByType.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Growable array of latencies in nanoseconds, owned by one bot
+     */
+    static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        int size() {
+            return size;
+        }
+
+        static long[] merge(Iterable<Latencies> all) {
+            int total = 0;
+            for (Latencies latencies : all) {
+                total += latencies.size;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Latencies latencies : all) {
+                System.arraycopy(latencies.values, 0, merged, offset, latencies.size);
+                offset += latencies.size;
+            }
+            Arrays.sort(merged);
+            return merged;
+        }
+
+        /**
+         * Nearest-rank percentile of a sorted array, 0 if empty
+         */
+        static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package at.aau.serg.monopoly.loadtest;
+
+import at.aau.serg.monopoly.firebase.FirestoreProvider;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Firestore without network for the load test. Transactions (the game history writes) succeed
+ * immediately without writing anything, every other call fails like an unreachable database.
+ */
+final class StubFirestore {
+
+    private StubFirestore() {
+    }
+
+    /**
+     * Provider that hands the stub to all services and counts the dropped transactions
+     */
+    static FirestoreProvider provider(AtomicLong transactions) {
+        Firestore firestore = create(transactions);
+        return new FirestoreProvider() {
+            @Override
+            public Firestore get() {
+                return firestore;
+            }
+        };
+    }
+
+    static Firestore create(AtomicLong transactions) {
+        return (Firestore) Proxy.newProxyInstance(Firestore.class.getClassLoader(), new Class<?>[]{Firestore.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "runTransaction" -> {
+                        transactions.incrementAndGet();
+                        yield ApiFutures.immediateFuture(null);
+                    }
+                    case "toString" -> "StubFirestore";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("Stub-Firestore: " + method.getName());
+                });
+    }
+}
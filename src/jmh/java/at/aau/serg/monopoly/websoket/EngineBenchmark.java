@@ -0,0 +1,48 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Complete games with the {@link GameEngine} alone: one game per call, and a batch across a ForkJoinPool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+    private static final int BATCH = 1000;
+
+    private GameSimulator simulator;
+    private ForkJoinPool pool;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        simulator = new GameSimulator(new GameEngine(), 4, 1000, 80);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public GameSimulator.Outcome playGame() {
+        return simulator.play(seed++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public GameSimulator.Summary playGamesInParallel() {
+        return simulator.run(BATCH, seed++, pool);
+    }
+}
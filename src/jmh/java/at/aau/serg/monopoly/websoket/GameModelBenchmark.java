@@ -0,0 +1,94 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.DiceManager;
+import model.Game;
+import model.Player;
+import model.RandomSource;
+import model.cards.Card;
+import model.cards.CardType;
+import model.properties.BaseProperty;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Property lookups, rent, card draws and dice rolls of a single room.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class GameModelBenchmark {
+
+    private PropertyService propertyService;
+    private RentCalculationService rentCalculationService;
+    private CardDeckService cardDeckService;
+    private DiceManager diceManager;
+    private BaseProperty street;
+    private BaseProperty station;
+    private BaseProperty utility;
+    private Player owner;
+    private Player renter;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        propertyService = new PropertyService(new Game());
+        propertyService.init();
+        rentCalculationService = new RentCalculationService(propertyService);
+        owner = new Player("owner", "Owner");
+        renter = new Player("renter", "Renter");
+        street = propertyService.getPropertyByPosition(1);
+        station = propertyService.getPropertyByPosition(5);
+        utility = propertyService.getPropertyByPosition(12);
+        for (BaseProperty property : new BaseProperty[]{street, station, utility, propertyService.getPropertyByPosition(15)}) {
+            property.setOwnerId(owner.getId());
+        }
+
+        cardDeckService = new CardDeckService(new ObjectMapper());
+        cardDeckService.init();
+        cardDeckService.reset(RandomSource.seeded(1));
+
+        diceManager = new DiceManager(RandomSource.seeded(1));
+        diceManager.initializeStandardDices();
+    }
+
+    @Benchmark
+    public BaseProperty propertyByPosition() {
+        position = (position + 1) % PropertyService.BOARD_SIZE;
+        return propertyService.getPropertyByPosition(position);
+    }
+
+    @Benchmark
+    public BaseProperty propertyById() {
+        return propertyService.getPropertyById(street.getId());
+    }
+
+    @Benchmark
+    public int rentStreet() {
+        return rentCalculationService.calculateRent(street, owner, renter);
+    }
+
+    @Benchmark
+    public int rentTrainStation() {
+        return rentCalculationService.calculateRent(station, owner, renter);
+    }
+
+    @Benchmark
+    public int rentUtility() {
+        return rentCalculationService.calculateRent(utility, owner, renter);
+    }
+
+    @Benchmark
+    public Card drawCard() {
+        return cardDeckService.drawCard(CardType.CHANCE);
+    }
+
+    @Benchmark
+    public int rollDices() {
+        return diceManager.rollDices();
+    }
+}
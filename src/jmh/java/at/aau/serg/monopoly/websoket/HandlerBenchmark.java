@@ -0,0 +1,189 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.Player;
+import model.properties.BaseProperty;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Message dispatch, GAME_STATE serialization and the bankruptcy check of a started four-player room.
+ * Commands that change the game for good ({@link Command}) run against a new room per invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class HandlerBenchmark {
+
+    private GameWebSocketHandler handler;
+    private GameRoom room;
+    private BenchmarkSession session;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        handler = newHandler();
+        session = joinFourPlayers(handler);
+        room = handler.roomRegistry.getRoomForSession(session.getId());
+    }
+
+    /**
+     * One message type per parameter, each against its own started room.
+     */
+    @State(Scope.Thread)
+    public static class Dispatch {
+        @Param({"CHAT_MESSAGE", "UPDATE_MONEY", "RESYNC", "UNKNOWN"})
+        public String messageType;
+
+        GameWebSocketHandler handler;
+        BenchmarkSession session;
+        TextMessage message;
+        TextMessage undo;
+        boolean flip;
+
+        @Setup
+        public void setUp() {
+            handler = newHandler();
+            session = joinFourPlayers(handler);
+            switch (messageType) {
+                case "CHAT_MESSAGE" -> message = new TextMessage("{\"type\":\"CHAT_MESSAGE\",\"playerId\":\"p0\",\"message\":\"hello\"}");
+                case "UPDATE_MONEY" -> {
+                    message = new TextMessage("UPDATE_MONEY:10");
+                    undo = new TextMessage("UPDATE_MONEY:-10");
+                }
+                case "RESYNC" -> message = new TextMessage("{\"type\":\"RESYNC\"}");
+                default -> message = new TextMessage("HELLO SERVER");
+            }
+        }
+
+        TextMessage next() {
+            // UPDATE_MONEY wechselt zwischen +10 und -10, damit der Spielstand stabil bleibt
+            return undo != null && (flip = !flip) ? undo : message;
+        }
+    }
+
+    /**
+     * Commands that change the game for good. Every invocation gets a freshly started room, prepared so that the
+     * command succeeds. The setup is not part of the measured time.
+     */
+    @State(Scope.Thread)
+    public static class Command {
+        @Param({"ROLL", "NEXT_TURN", "BUY_PROPERTY", "PULL_CARD", "RENT_PAYMENT", "DEAL_PROPOSAL", "DEAL_RESPONSE"})
+        public String messageType;
+
+        GameWebSocketHandler handler;
+        BenchmarkSession session;
+        TextMessage message;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+        public void setUp() {
+            handler = newHandler();
+            BenchmarkSession[] sessions = joinPlayers(handler, 4);
+            session = sessions[0];
+            GameRoom room = handler.roomRegistry.getRoomForSession(session.getId());
+            Player p0 = room.getGame().getPlayerById("p0").orElseThrow();
+            BaseProperty property = room.getPropertyService().getPropertyByPosition(1);
+            switch (messageType) {
+                case "ROLL" -> message = new TextMessage("Roll");
+                case "NEXT_TURN" -> {
+                    handler.handleTextMessage(session, new TextMessage("Roll"));
+                    message = new TextMessage("NEXT_TURN");
+                }
+                case "BUY_PROPERTY" -> {
+                    p0.setPosition(1);
+                    message = new TextMessage("BUY_PROPERTY:" + property.getId());
+                }
+                case "PULL_CARD" -> message = new TextMessage("{\"type\":\"PULL_CARD\",\"playerId\":\"p0\",\"cardType\":\"CHANCE\"}");
+                case "RENT_PAYMENT" -> {
+                    property.setOwnerId("p1");
+                    message = new TextMessage("{\"type\":\"RENT_PAYMENT\",\"playerId\":\"p0\",\"propertyId\":" + property.getId() + "}");
+                }
+                case "DEAL_PROPOSAL" -> {
+                    property.setOwnerId("p0");
+                    message = new TextMessage(dealProposal(property.getId()));
+                }
+                default -> {
+                    property.setOwnerId("p0");
+                    handler.handleTextMessage(session, new TextMessage(dealProposal(property.getId())));
+                    session = sessions[1];
+                    message = new TextMessage("{\"type\":\"DEAL_RESPONSE\",\"fromPlayerId\":\"p1\",\"toPlayerId\":\"p0\","
+                            + "\"responseType\":\"ACCEPT\",\"counterPropertyIds\":[],\"counterMoney\":0}");
+                }
+            }
+        }
+
+        private static String dealProposal(int propertyId) {
+            return "{\"type\":\"DEAL_PROPOSAL\",\"fromPlayerId\":\"p0\",\"toPlayerId\":\"p1\",\"requestedPropertyIds\":[],"
+                    + "\"offeredPropertyIds\":[" + propertyId + "],\"offeredMoney\":100}";
+        }
+    }
+
+    @Benchmark
+    public long dispatch(Dispatch state) {
+        state.handler.handleTextMessage(state.session, state.next());
+        return state.session.sentFrames;
+    }
+
+    @Benchmark
+    public long command(Command state) {
+        state.handler.handleTextMessage(state.session, state.message);
+        return state.session.sentFrames;
+    }
+
+    @Benchmark
+    public long broadcastGameState() {
+        // Jede Änderung erzwingt eine neue Serialisierung statt des zwischengespeicherten Frames
+        room.getGame().updatePlayerMoney("p1", (flip = !flip) ? 1 : -1);
+        handler.broadcastGameState(room);
+        return session.sentFrames;
+    }
+
+    @Benchmark
+    public long checkAllPlayersForBankruptcy() {
+        handler.checkAllPlayersForBankruptcy(room);
+        return session.sentFrames;
+    }
+
+    /**
+     * Handler ohne Spring-Kontext, wie in den Unit-Tests
+     */
+    static GameWebSocketHandler newHandler() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        GameWebSocketHandler handler = new GameWebSocketHandler();
+        handler.roomRegistry = new GameRoomRegistry();
+        handler.roomRegistry.journal = new GameJournal();
+        handler.outboxes = new SessionOutboxRegistry();
+        handler.gameTimer = new GameTimer();
+        handler.metrics = new GameMetrics();
+        handler.rentCalculationService = new RentCalculationService(null);
+        handler.rentCollectionService = new RentCollectionService(new PropertyService(), handler.rentCalculationService);
+        return handler;
+    }
+
+    /**
+     * Vier Spieler treten dem Standardraum bei, danach läuft das Spiel. Liefert die Session des ersten Spielers.
+     */
+    static BenchmarkSession joinFourPlayers(GameWebSocketHandler handler) {
+        return joinPlayers(handler, 4)[0];
+    }
+
+    /**
+     * Die Spieler p0, p1, ... treten dem Standardraum bei, die Session i gehört zu Spieler pi.
+     */
+    static BenchmarkSession[] joinPlayers(GameWebSocketHandler handler, int count) {
+        BenchmarkSession[] sessions = new BenchmarkSession[count];
+        for (int i = 0; i < count; i++) {
+            sessions[i] = new BenchmarkSession("s" + i);
+            handler.afterConnectionEstablished(sessions[i]);
+            handler.handleTextMessage(sessions[i], new TextMessage(
+                    "{\"type\":\"INIT\",\"userId\":\"p" + i + "\",\"name\":\"Player" + i + "\"}"));
+        }
+        return sessions;
+    }
+}
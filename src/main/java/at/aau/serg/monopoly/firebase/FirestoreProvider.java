@@ -0,0 +1,17 @@
+package at.aau.serg.monopoly.firebase;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.firebase.cloud.FirestoreClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Liefert die Firestore-Instanz der Firebase-App.
+ * Die Services holen sie bei jedem Zugriff hier ab, damit z.B. der Lasttest eine Attrappe ohne Netzwerk einsetzen kann.
+ */
+@Component
+public class FirestoreProvider {
+
+    public Firestore get() {
+        return FirestoreClient.getFirestore();
+    }
+}
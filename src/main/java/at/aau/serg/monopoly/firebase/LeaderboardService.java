@@ -1,9 +1,10 @@
 package at.aau.serg.monopoly.firebase;
 
+import at.aau.serg.monopoly.websoket.GameMetrics;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
 import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,12 @@ import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 
+/**
+ * Hält für jede Kennzahl eine Top-50-Rangliste im Speicher ({@link TopKBoard}).
+ * Neue Statistiken werden über {@link #onStatsUpdated(String, UserStats)} eingerechnet,
+ * geänderte Ranglisten werden gesammelt in einem Firestore-Batch geschrieben.
+ * Einmal täglich werden die Ranglisten mit einer orderBy-Abfrage abgeglichen.
+ */
 @Service
 @EnableScheduling
 @Log
@@ -24,11 +31,32 @@ public class LeaderboardService {
     private static final String LEADERBOARD_GAMES_PLAYED = "leaderboard_gamesPlayed";
     private static final int LEADERBOARD_SIZE = 50;
 
+    private final Map<String, TopKBoard> boards = new LinkedHashMap<>();
+    @Autowired
+    private FirestoreProvider firestoreProvider;
+    @Autowired
+    private GameMetrics metrics;
+
+    public LeaderboardService() {
+        addBoard(UserStats.WINS, LEADERBOARD_WINS);
+        addBoard(UserStats.LEVEL, LEADERBOARD_LEVEL);
+        addBoard(UserStats.AVERAGE_MONEY, LEADERBOARD_MONEY);
+        addBoard(UserStats.HIGHEST_MONEY, LEADERBOARD_HIGH_MONEY);
+        addBoard(UserStats.GAMES_PLAYED, LEADERBOARD_GAMES_PLAYED);
+    }
+
+    private void addBoard(String field, String collection) {
+        boards.put(field, new TopKBoard(field, collection, LEADERBOARD_SIZE));
+    }
+
+    /**
+     * Täglicher Abgleich aller Ranglisten mit den Benutzerdokumenten, läuft auch direkt beim Start
+     */
     @Scheduled(fixedRate = 86400000)
     public void updateAllLeaderboards() {
         log.info("Starte Leaderboard-Aktualisierung: " + new Date());
         try {
-            Firestore firestore = FirestoreClient.getFirestore();
+            Firestore firestore = firestoreProvider.get();
             if (firestore == null) {
                 log.severe("Firestore ist nicht initialisiert");
                 return;
@@ -66,33 +94,32 @@ public class LeaderboardService {
         updateLeaderboard(firestore, "gamesPlayed", LEADERBOARD_GAMES_PLAYED);
     }
 
+    /**
+     * Lädt die Top 50 für eine Kennzahl neu aus den Benutzerdokumenten und schreibt die Rangliste
+     */
     void updateLeaderboard(Firestore firestore, String fieldName, String leaderboardCollection) {
+        TopKBoard board = boards.get(fieldName);
         try {
             ApiFuture<QuerySnapshot> query = firestore.collection(USERS_COLLECTION)
                     .orderBy(fieldName, Query.Direction.DESCENDING)
                     .limit(LEADERBOARD_SIZE)
                     .get();
 
-            List<QueryDocumentSnapshot> users = query.get().getDocuments();
-            deleteCollection(firestore, leaderboardCollection);
-
-            int rank = 1;
-            for (DocumentSnapshot user : users) {
+            List<TopKBoard.Entry> ranked = new ArrayList<>();
+            for (DocumentSnapshot user : metrics.firestore("leaderboard.query", query::get).getDocuments()) {
                 Map<String, Object> userData = user.getData();
                 if (userData == null) continue;
 
-                Map<String, Object> entry = new HashMap<>();
-                entry.put("userId", user.getId());
-                entry.put("name", userData.getOrDefault("name", "Unbekannt"));
-                entry.put("rank", rank);
-                entry.put(fieldName, userData.getOrDefault(fieldName, 0));
-
-                firestore.collection(leaderboardCollection)
-                        .document(String.valueOf(rank))
-                        .set(entry);
-                rank++;
+                Object name = userData.getOrDefault("name", "Unbekannt");
+                Object value = userData.getOrDefault(fieldName, 0);
+                ranked.add(new TopKBoard.Entry(user.getId(), String.valueOf(name),
+                        value instanceof Number number ? number.longValue() : 0));
             }
+            board.replaceAll(ranked);
 
+            WriteBatch batch = firestore.batch();
+            int size = writeBoard(firestore, batch, board);
+            commit(batch, List.of(board), List.of(size));
             log.info(leaderboardCollection + " aktualisiert");
         } catch (InterruptedException | ExecutionException e) {
             log.severe("Fehler bei " + leaderboardCollection + ": " + e.getMessage());
@@ -100,11 +127,91 @@ public class LeaderboardService {
         }
     }
 
-    void deleteCollection(Firestore firestore, String collectionPath) throws ExecutionException, InterruptedException {
-        CollectionReference collection = firestore.collection(collectionPath);
-        ApiFuture<QuerySnapshot> future = collection.limit(100).get();
-        for (DocumentSnapshot document : future.get().getDocuments()) {
-            document.getReference().delete();
+    /**
+     * Rechnet die neue Statistik eines Benutzers in alle Ranglisten ein.
+     * Geschrieben wird erst beim nächsten {@link #flushLeaderboards()}.
+     */
+    public void onStatsUpdated(String userId, UserStats stats) {
+        for (TopKBoard board : boards.values()) {
+            board.update(userId, stats.getName(), stats.get(board.getField()));
+        }
+    }
+
+    /**
+     * Schreibt alle seit dem letzten Aufruf geänderten Ranglisten in einem einzigen Batch.
+     * Ranglisten, die noch nie aus Firestore geladen wurden, werden übersprungen: sie kennen nur die Benutzer
+     * seit dem Start und würden die gespeicherte Rangliste sonst verkürzen.
+     */
+    @Scheduled(fixedDelayString = "${monopoly.leaderboard.flush-interval-ms:10000}",
+            initialDelayString = "${monopoly.leaderboard.flush-interval-ms:10000}")
+    public void flushLeaderboards() {
+        List<TopKBoard> dirty = new ArrayList<>();
+        for (TopKBoard board : boards.values()) {
+            if (board.isDirty() && board.isSeeded()) {
+                dirty.add(board);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Firestore firestore = firestoreProvider.get();
+        if (firestore == null) {
+            log.severe("Firestore ist nicht initialisiert");
+            return;
+        }
+        // 5 Ranglisten mit je höchstens 50 Plätzen bleiben unter dem Limit von 500 Schreibvorgängen pro Batch
+        WriteBatch batch = firestore.batch();
+        List<Integer> sizes = new ArrayList<>();
+        for (TopKBoard board : dirty) {
+            sizes.add(writeBoard(firestore, batch, board));
+        }
+        try {
+            commit(batch, dirty, sizes);
+        } catch (InterruptedException e) {
+            log.severe("Fehler beim Schreiben der Leaderboards: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.severe("Fehler beim Schreiben der Leaderboards: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Liefert die aktuelle Rangliste einer Kennzahl aus dem Speicher, leer für unbekannte Kennzahlen
+     */
+    public List<TopKBoard.Entry> getLeaderboard(String fieldName) {
+        TopKBoard board = boards.get(fieldName);
+        return board == null ? List.of() : board.getEntries();
+    }
+
+    TopKBoard getBoard(String fieldName) {
+        return boards.get(fieldName);
+    }
+
+    /**
+     * Überschreibt die Rang-Dokumente "1".."n" und löscht nur die Plätze, die seit dem letzten Schreiben weggefallen sind
+     */
+    private int writeBoard(Firestore firestore, WriteBatch batch, TopKBoard board) {
+        CollectionReference collection = firestore.collection(board.getCollection());
+        List<Map<String, Object>> documents = board.takeDocuments();
+        for (Map<String, Object> document : documents) {
+            batch.set(collection.document(String.valueOf(document.get("rank"))), document);
+        }
+        for (int rank = documents.size() + 1; rank <= board.getPersistedSize(); rank++) {
+            batch.delete(collection.document(String.valueOf(rank)));
+        }
+        return documents.size();
+    }
+
+    private void commit(WriteBatch batch, List<TopKBoard> written, List<Integer> sizes)
+            throws InterruptedException, ExecutionException {
+        try {
+            metrics.firestore("leaderboard.commit", () -> batch.commit().get());
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            written.forEach(TopKBoard::markDirty);
+            throw e;
+        }
+        for (int i = 0; i < written.size(); i++) {
+            written.get(i).setPersistedSize(sizes.get(i));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package at.aau.serg.monopoly.firebase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-Memory-Rangliste der besten K Benutzer für eine Kennzahl (z.B. wins).
+ * Wird bei jeder neuen Statistik eines Benutzers aktualisiert, Leser bekommen eine unveränderliche Kopie.
+ * Sinkt der Wert eines Benutzers (nur bei averageMoney möglich), bleibt er auf einem hinteren Platz stehen,
+ * auch wenn ein Benutzer außerhalb der Liste inzwischen besser wäre. Das korrigiert der tägliche Abgleich
+ * in {@link LeaderboardService#updateAllLeaderboards()}.
+ */
+public class TopKBoard {
+
+    public record Entry(String userId, String name, long value) {
+    }
+
+    private final String field;
+    private final String collection;
+    private final int capacity;
+
+    // Absteigend nach Wert sortiert, bei Gleichstand nach userId. Alles wird über "this" synchronisiert
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean dirty;
+    // Erst nach einem replaceAll mit dem Abfrageergebnis bildet die Liste alle Benutzer ab
+    private boolean seeded;
+    // Anzahl der Rang-Dokumente, die zuletzt in Firestore geschrieben wurden
+    private int persistedSize;
+
+    public TopKBoard(String field, String collection, int capacity) {
+        this.field = field;
+        this.collection = collection;
+        this.capacity = capacity;
+        // Vor dem ersten Schreiben ist unbekannt, wie viele Plätze in Firestore stehen
+        this.persistedSize = capacity;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * Rechnet den neuen Wert eines Benutzers ein.
+     * @return true, wenn sich die Rangliste dadurch geändert hat
+     */
+    public synchronized boolean update(String userId, String name, long value) {
+        int previous = indexOf(userId);
+        if (previous >= 0) {
+            Entry old = entries.get(previous);
+            if (old.value() == value && sameName(old.name(), name)) {
+                return false;
+            }
+            entries.remove(previous);
+        }
+        Entry entry = new Entry(userId, name, value);
+        int index = insertionPoint(entry);
+        if (index >= capacity) {
+            return false;
+        }
+        entries.add(index, entry);
+        if (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Ersetzt die ganze Rangliste, z.B. mit dem Ergebnis einer orderBy-Abfrage, und markiert sie als vollständig
+     */
+    public synchronized void replaceAll(List<Entry> ranked) {
+        entries.clear();
+        for (Entry entry : ranked) {
+            int previous = indexOf(entry.userId());
+            if (previous >= 0) {
+                entries.remove(previous);
+            }
+            entries.add(insertionPoint(entry), entry);
+        }
+        while (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+        dirty = true;
+        seeded = true;
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return List.copyOf(entries);
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    public synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Liefert die Rang-Dokumente für Firestore und setzt das Dirty-Flag zurück.
+     * Scheitert das Schreiben, muss {@link #markDirty()} aufgerufen werden.
+     */
+    synchronized List<Map<String, Object>> takeDocuments() {
+        List<Map<String, Object>> documents = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            Map<String, Object> document = new HashMap<>();
+            document.put("userId", entry.userId());
+            document.put("name", entry.name() != null ? entry.name() : "Unbekannt");
+            document.put("rank", i + 1);
+            document.put(field, entry.value());
+            documents.add(document);
+        }
+        dirty = false;
+        return documents;
+    }
+
+    synchronized int getPersistedSize() {
+        return persistedSize;
+    }
+
+    synchronized void setPersistedSize(int persistedSize) {
+        this.persistedSize = persistedSize;
+    }
+
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    private int indexOf(String userId) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).userId().equals(userId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int insertionPoint(Entry entry) {
+        int index = 0;
+        while (index < entries.size() && ranksBefore(entries.get(index), entry)) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean ranksBefore(Entry a, Entry b) {
+        if (a.value() != b.value()) {
+            return a.value() > b.value();
+        }
+        return a.userId().compareTo(b.userId()) < 0;
+    }
+
+    private static boolean sameName(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
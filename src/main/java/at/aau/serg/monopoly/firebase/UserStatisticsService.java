@@ -1,14 +1,22 @@
 package at.aau.serg.monopoly.firebase;
 
+import at.aau.serg.monopoly.websoket.GameMetrics;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
 import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 
+/**
+ * Die Statistik wird beim Speichern jeder Spielhistorie laufend mitgeschrieben (siehe {@link UserStats}).
+ * Dieser Service berechnet sie nur noch vollständig aus der gameHistory neu, z.B. für alte Benutzer ohne moneySum.
+ */
 @Service
 @Log
 public class UserStatisticsService {
@@ -16,9 +24,52 @@ public class UserStatisticsService {
     private static final String USERS_COLLECTION = "users";
     private static final String GAME_HISTORY_COLLECTION = "gameHistory";
 
+    @Value("${monopoly.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
+    private FirestoreProvider firestoreProvider;
+    @Autowired
+    private GameMetrics metrics;
+
+    /**
+     * Einmaliger Rebuild-Job, wird mit monopoly.stats.rebuild-on-startup=true beim Start im Hintergrund ausgeführt
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        Thread job = new Thread(this::rebuildAllUserStats, "stats-rebuild");
+        job.setDaemon(true);
+        job.start();
+    }
+
+    /**
+     * Berechnet die Statistik aller Benutzer aus ihrer gameHistory neu
+     */
+    public void rebuildAllUserStats() {
+        try {
+            Firestore firestore = firestoreProvider.get();
+            if (firestore == null) {
+                log.severe("Firestore ist nicht initialisiert");
+                return;
+            }
+            List<String> userIds = new ArrayList<>();
+            for (DocumentReference user : firestore.collection(USERS_COLLECTION).listDocuments()) {
+                userIds.add(user.getId());
+            }
+            updateStatsForUsers(userIds);
+            log.info("Statistiken für " + userIds.size() + " Benutzer neu berechnet");
+        } catch (Exception e) {
+            log.severe("Fehler beim Neuberechnen der Benutzerstatistiken: " + e.getMessage());
+        }
+    }
+
     public void updateStatsForUsers(List<String> userIds) {
         try {
-            Firestore firestore = FirestoreClient.getFirestore();
+            Firestore firestore = firestoreProvider.get();
             if (firestore == null) {
                 log.severe("Firestore ist nicht initialisiert");
                 return;
@@ -37,48 +88,34 @@ public class UserStatisticsService {
             CollectionReference historyRef = firestore.collection(USERS_COLLECTION)
                     .document(userId).collection(GAME_HISTORY_COLLECTION);
             ApiFuture<QuerySnapshot> historySnapshot = historyRef.get();
-            List<QueryDocumentSnapshot> games = historySnapshot.get().getDocuments();
+            List<QueryDocumentSnapshot> games = metrics.firestore("stats.history", historySnapshot::get).getDocuments();
 
             if (games.isEmpty()) return;
 
-            int wins = 0;
-            int totalGames = games.size();
-            int totalMoney = 0;
-            int highestMoney = 0;
-
+            UserStats stats = new UserStats();
             for (DocumentSnapshot game : games) {
                 Map<String, Object> gameData = game.getData();
-                if (gameData == null) continue;
-
-                if (Boolean.TRUE.equals(gameData.get("won"))) wins++;
-                if (gameData.get("endMoney") != null) {
-                    int endMoney = ((Number) gameData.get("endMoney")).intValue();
-                    totalMoney += endMoney;
-                    highestMoney = Math.max(highestMoney, endMoney);
-                }
+                // Spiele ohne Daten zählen mit, aber ohne Geld
+                boolean won = gameData != null && Boolean.TRUE.equals(gameData.get("won"));
+                Object endMoney = gameData == null ? null : gameData.get("endMoney");
+                stats.record(endMoney != null ? ((Number) endMoney).intValue() : 0, won);
             }
 
-            int averageMoney = totalGames > 0 ? totalMoney / totalGames : 0;
-            int level = totalGames / 2;
-
             DocumentReference userRef = firestore.collection(USERS_COLLECTION).document(userId);
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("gamesPlayed", totalGames);
-            updates.put("wins", wins);
-            updates.put("level", level);
-            updates.put("averageMoney", averageMoney);
-            updates.put("highestMoney", highestMoney);
-
-            DocumentSnapshot userDoc = userRef.get().get();
+            Map<String, Object> updates = stats.toFields();
+
+            DocumentSnapshot userDoc = metrics.firestore("stats.user", () -> userRef.get().get());
             if (userDoc.exists() && userDoc.contains("name")) {
                 updates.put("name", userDoc.getString("name"));
+                stats.setName(userDoc.getString("name"));
             }
 
             userRef.set(updates, SetOptions.merge());
+            leaderboardService.onStatsUpdated(userId, stats);
 
         } catch (InterruptedException | ExecutionException e) {
             log.severe("Fehler bei Statistiken für " + userId + ": " + e.getMessage());
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
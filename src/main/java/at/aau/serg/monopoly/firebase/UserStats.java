@@ -0,0 +1,98 @@
+package at.aau.serg.monopoly.firebase;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Laufende Statistik eines Benutzers, wie sie im Benutzerdokument gespeichert ist.
+ * Jedes neue Spiel wird mit {@link #record(int, boolean)} eingerechnet, ohne die gameHistory erneut zu lesen.
+ * averageMoney und level werden aus den Summen abgeleitet, damit die Leaderboards weiter danach sortieren können.
+ */
+@Getter
+public class UserStats {
+    public static final String GAMES_PLAYED = "gamesPlayed";
+    public static final String WINS = "wins";
+    public static final String MONEY_SUM = "moneySum";
+    public static final String HIGHEST_MONEY = "highestMoney";
+    public static final String AVERAGE_MONEY = "averageMoney";
+    public static final String LEVEL = "level";
+
+    private int gamesPlayed;
+    private int wins;
+    private long moneySum;
+    private int highestMoney;
+    // Nur für die Leaderboards, wird nicht von toFields() geschrieben
+    @Setter
+    private String name;
+
+    /**
+     * Liest die Statistik aus einem Benutzerdokument.
+     * Alte Dokumente ohne moneySum werden aus averageMoney * gamesPlayed fortgeführt,
+     * der Rebuild-Job in {@link UserStatisticsService} stellt die exakten Werte wieder her.
+     */
+    public static UserStats fromDocument(DocumentSnapshot document) {
+        UserStats stats = new UserStats();
+        if (document == null || !document.exists()) {
+            return stats;
+        }
+        stats.gamesPlayed = intField(document, GAMES_PLAYED);
+        stats.wins = intField(document, WINS);
+        stats.highestMoney = intField(document, HIGHEST_MONEY);
+        Long sum = document.getLong(MONEY_SUM);
+        stats.moneySum = sum != null ? sum : (long) intField(document, AVERAGE_MONEY) * stats.gamesPlayed;
+        stats.name = document.getString("name");
+        return stats;
+    }
+
+    public void record(int endMoney, boolean won) {
+        gamesPlayed++;
+        if (won) {
+            wins++;
+        }
+        moneySum += endMoney;
+        highestMoney = Math.max(highestMoney, endMoney);
+    }
+
+    public int getAverageMoney() {
+        return gamesPlayed > 0 ? (int) (moneySum / gamesPlayed) : 0;
+    }
+
+    public int getLevel() {
+        return gamesPlayed / 2;
+    }
+
+    /**
+     * Liefert den Wert einer Kennzahl über ihren Feldnamen, z.B. für die Leaderboards
+     */
+    public long get(String field) {
+        return switch (field) {
+            case GAMES_PLAYED -> gamesPlayed;
+            case WINS -> wins;
+            case MONEY_SUM -> moneySum;
+            case HIGHEST_MONEY -> highestMoney;
+            case AVERAGE_MONEY -> getAverageMoney();
+            case LEVEL -> getLevel();
+            default -> throw new IllegalArgumentException("Unknown statistic " + field);
+        };
+    }
+
+    public Map<String, Object> toFields() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(GAMES_PLAYED, gamesPlayed);
+        fields.put(WINS, wins);
+        fields.put(MONEY_SUM, moneySum);
+        fields.put(HIGHEST_MONEY, highestMoney);
+        fields.put(AVERAGE_MONEY, getAverageMoney());
+        fields.put(LEVEL, getLevel());
+        return fields;
+    }
+
+    private static int intField(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value == null ? 0 : value.intValue();
+    }
+}
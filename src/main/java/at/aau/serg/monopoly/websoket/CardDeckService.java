@@ -2,27 +2,52 @@ package at.aau.serg.monopoly.websoket;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
+import model.RandomSource;
 import model.cards.Card;
 import model.cards.CardType;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.util.*;
 
-@Component
+/**
+ * Chance and community chest decks of one room.
+ * Each deck is an array with a cursor; once all cards were drawn, the same array is shuffled again in place.
+ * The cards parsed from ChanceAndChestCards.json are loaded once and shared by all rooms, cards are never modified.
+ * A room only draws from its mailbox, so draws are not synchronized.
+ * Not a Spring bean: every {@link GameRoom} creates its own instance and calls {@link #init()}.
+ */
 public class CardDeckService {
+    private static Map<CardType, List<Card>> sharedTemplates;
+
     private final ObjectMapper mapper;
-    private final Map<CardType, Deque<Card>> decks = new EnumMap<>(CardType.class);
-    private final Map<CardType, List<Card>> discards = new EnumMap<>(CardType.class);
+    private final Map<CardType, Deck> decks = new EnumMap<>(CardType.class);
+    // Karten in der Reihenfolge der JSON-Datei, Ausgangspunkt für jedes Mischen
+    private Map<CardType, List<Card>> templates = Map.of();
+    private RandomSource random = RandomSource.fast();
+
+    private static final class Deck {
+        private final Card[] cards;
+        private int cursor;
+
+        private Deck(Card[] cards) {
+            this.cards = cards;
+        }
+    }
 
     public CardDeckService(ObjectMapper mapper) {
         this.mapper = mapper;
     }
 
-    // Construct the card decks, load & shuffle them
-    @PostConstruct
+    // Load the shared card templates & shuffle the decks
     public void init() {
+        templates = loadTemplates(mapper);
+        reset(random);
+    }
+
+    private static synchronized Map<CardType, List<Card>> loadTemplates(ObjectMapper mapper) {
+        if (sharedTemplates != null) {
+            return sharedTemplates;
+        }
         try {
             // ReadJSON file in a Map
             var resource = new ClassPathResource("ChanceAndChestCards.json");
@@ -30,33 +55,55 @@ public class CardDeckService {
             Map<String, List<Card>> raw =
                     mapper.readValue(resource.getInputStream(), typeRef);
 
-            // For each entry: convert, shuffle and wrap in Deque
+            Map<CardType, List<Card>> loaded = new EnumMap<>(CardType.class);
             for (var entry : raw.entrySet()) {
-                CardType type = CardType.valueOf(entry.getKey());
-                List<Card> list = new ArrayList<>(entry.getValue());
-                Collections.shuffle(list);
-                decks.put(type, new ArrayDeque<>(list));
-                discards.put(type, new ArrayList<>());
+                loaded.put(CardType.valueOf(entry.getKey()), List.copyOf(entry.getValue()));
             }
+            sharedTemplates = Collections.unmodifiableMap(loaded);
+            return sharedTemplates;
         } catch (IOException e) {
             throw new IllegalStateException(
                     "Failed to load ChanceAndChestCards.json", e);
         }
     }
 
+    /**
+     * Builds fresh decks from the loaded cards and shuffles them with the given source.
+     * With a seeded source the deck order of a game can be reproduced exactly.
+     */
+    public void reset(RandomSource random) {
+        this.random = random;
+        // For each type (in enum order, so the order of shuffles is fixed): copy and shuffle
+        for (var entry : templates.entrySet()) {
+            Card[] cards = entry.getValue().toArray(new Card[0]);
+            random.shuffle(Arrays.asList(cards));
+            decks.put(entry.getKey(), new Deck(cards));
+        }
+    }
+
     // Method to draw the next card:
-    public synchronized Card drawCard(CardType type) {
-        Deque<Card> deck = decks.get(type);
-        if (deck.isEmpty()) {
-            // move discards back into deck
-            List<Card> pile = discards.get(type);
-            Collections.shuffle(pile);
-            deck.addAll(pile);
-            pile.clear();
+    public Card drawCard(CardType type) {
+        Deck deck = decks.get(type);
+        if (deck.cursor == deck.cards.length) {
+            // every card was drawn, shuffle the whole deck again
+            random.shuffle(Arrays.asList(deck.cards));
+            deck.cursor = 0;
         }
-        Card drawn = deck.pop();
-        discards.get(type).add(drawn);
-        return drawn;
+        return deck.cards[deck.cursor++];
     }
-}
 
+    /**
+     * @return number of cards left before the deck is shuffled again
+     */
+    public int remaining(CardType type) {
+        Deck deck = decks.get(type);
+        return deck.cards.length - deck.cursor;
+    }
+
+    /**
+     * @return the unmodifiable cards of a type in file order, shared by all rooms
+     */
+    public List<Card> getTemplates(CardType type) {
+        return templates.getOrDefault(type, List.of());
+    }
+}
@@ -44,6 +44,13 @@ public class DealService {
         logger.log(Level.INFO, "DealProposal removed for {0}", playerId);
     }
 
+    /**
+     * @return the deal that waits for the answer of the player, or null
+     */
+    public DealProposalMessage getProposalFor(String playerId) {
+        return pendingDeals.get(playerId);
+    }
+
     private DealProposalMessage getPendingDeal(DealResponseMessage response) {
         DealProposalMessage proposal = pendingDeals.get(response.getToPlayerId());
         if (proposal == null) {
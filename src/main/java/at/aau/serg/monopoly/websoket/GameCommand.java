@@ -0,0 +1,32 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.cards.CardType;
+
+/**
+ * A player action for the {@link GameEngine}, independent of how it reached the server.
+ */
+public sealed interface GameCommand {
+
+    String playerId();
+
+    record Roll(String playerId) implements GameCommand {
+    }
+
+    record BuyProperty(String playerId, int propertyId) implements GameCommand {
+    }
+
+    record DrawCard(String playerId, CardType cardType) implements GameCommand {
+    }
+
+    record EndTurn(String playerId) implements GameCommand {
+    }
+
+    record GiveUp(String playerId) implements GameCommand {
+    }
+
+    /**
+     * Ends the game early, the richest player wins (like END_GAME from a client)
+     */
+    record EndGame(String playerId) implements GameCommand {
+    }
+}
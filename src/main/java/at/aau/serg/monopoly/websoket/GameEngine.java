@@ -0,0 +1,286 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.DiceManagerInterface;
+import model.Game;
+import model.Player;
+import model.cards.Card;
+import model.properties.BaseProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Die Spielregeln ohne WebSocket: Befehle gehen hinein, Ereignisse kommen heraus.
+ * Der Zustand liegt im {@link GameRoom}, die Engine selbst hält keinen und kann von beliebig vielen Räumen
+ * gleichzeitig benutzt werden, solange jeder Raum nur von einem Thread bearbeitet wird.
+ * <p>
+ * {@link #execute(GameRoom, GameCommand)} führt einen Befehl vollständig aus, inklusive Landen und Bankrott-Prüfung.
+ * Der {@link GameWebSocketHandler} ruft die einzelnen Schritte selbst auf, weil er zwischen ihnen GAME_STATE sendet.
+ */
+public class GameEngine {
+    static final int INCOME_TAX_POSITION = 4;
+    static final int INCOME_TAX = 200;
+    static final int GO_TO_JAIL_POSITION = 30;
+    static final int LUXURY_TAX_POSITION = 38;
+    static final int LUXURY_TAX = 100;
+    static final String NOT_YOUR_TURN = "Not your turn!";
+
+    private final RentCalculationService rentCalculationService;
+    private final RentCollectionService rentCollectionService;
+
+    public GameEngine() {
+        this(new RentCalculationService(null));
+    }
+
+    private GameEngine(RentCalculationService rentCalculationService) {
+        this(rentCalculationService, new RentCollectionService(null, rentCalculationService));
+    }
+
+    public GameEngine(RentCalculationService rentCalculationService, RentCollectionService rentCollectionService) {
+        this.rentCalculationService = rentCalculationService;
+        this.rentCollectionService = rentCollectionService;
+    }
+
+    /**
+     * Führt einen Befehl aus und liefert alle Ereignisse in der Reihenfolge, in der sie passiert sind.
+     * Nach jedem angenommenen Befehl scheiden bankrotte Spieler aus, bleibt nur einer übrig, endet das Spiel mit {@link GameEvent.GameWon}.
+     */
+    public List<GameEvent> execute(GameRoom room, GameCommand command) {
+        List<GameEvent> events = new ArrayList<>(4);
+        String playerId = command.playerId();
+        boolean accepted;
+        if (command instanceof GameCommand.Roll) {
+            accepted = roll(room, playerId, events);
+            if (accepted) {
+                room.getGame().getPlayerById(playerId).ifPresent(player -> land(room, player, events));
+            }
+        } else if (command instanceof GameCommand.BuyProperty buy) {
+            accepted = buyProperty(room, playerId, buy.propertyId(), events);
+        } else if (command instanceof GameCommand.DrawCard draw) {
+            accepted = drawCard(room, playerId, draw, events);
+        } else if (command instanceof GameCommand.EndTurn) {
+            accepted = endTurn(room, playerId, events);
+        } else if (command instanceof GameCommand.EndGame) {
+            endGame(room, events);
+            return events;
+        } else {
+            Game game = room.getGame();
+            Optional<Player> player = game.getPlayerById(playerId);
+            accepted = player.isPresent() && game.getPlayers().size() > 1;
+            if (accepted) {
+                giveUp(room, playerId, durationPlayed(game), player.get().getMoney(), events);
+            }
+        }
+        if (accepted && !(last(events) instanceof GameEvent.GameWon)) {
+            eliminateBankruptPlayers(room, events);
+        }
+        return events;
+    }
+
+    /**
+     * Würfelt für den Spieler und zieht ihn weiter. Das Landen auf dem neuen Feld ist ein eigener Schritt ({@link #land}).
+     *
+     * @return true, wenn gewürfelt wurde
+     */
+    boolean roll(GameRoom room, String playerId, List<GameEvent> events) {
+        Game game = room.getGame();
+        if (!game.isPlayerTurn(playerId)) {
+            events.add(new GameEvent.Rejected(playerId, NOT_YOUR_TURN));
+            return false;
+        }
+        Player player = game.getPlayerById(playerId).orElse(null);
+        if (player == null) {
+            return false;
+        }
+        if (player.isInJail()) {
+            events.add(new GameEvent.Rejected(playerId, "You are in jail and cannot roll. End your turn."));
+            return false;
+        }
+        if (player.hasRolledThisTurn()) {
+            events.add(new GameEvent.Rejected(playerId, "You already rolled this turn."));
+            return false;
+        }
+
+        DiceManagerInterface diceManager = room.getDiceManager();
+        int roll = diceManager.rollDices();
+        boolean isPasch = diceManager.isPasch();
+        // Nach einem Pasch darf der Spieler noch einmal würfeln
+        player.setHasRolledThisTurn(!isPasch);
+        events.add(new GameEvent.DiceRolled(playerId, roll, isPasch));
+
+        if (game.updatePlayerPosition(roll, playerId)) {
+            events.add(new GameEvent.PassedGo(playerId));
+        }
+        return true;
+    }
+
+    /**
+     * Wendet das Feld an, auf dem der Spieler steht: Gefängnis, Steuern und Miete
+     */
+    void land(GameRoom room, Player player, List<GameEvent> events) {
+        Game game = room.getGame();
+        String playerId = player.getId();
+        int position = player.getPosition();
+
+        if (position == GO_TO_JAIL_POSITION) {
+            game.sendToJail(playerId);
+            events.add(new GameEvent.SentToJail(playerId));
+        } else if (position == INCOME_TAX_POSITION) {
+            game.updatePlayerMoney(playerId, -INCOME_TAX);
+            events.add(new GameEvent.TaxPaid(playerId, INCOME_TAX, "EINKOMMENSTEUER"));
+        } else if (position == LUXURY_TAX_POSITION) {
+            game.updatePlayerMoney(playerId, -LUXURY_TAX);
+            events.add(new GameEvent.TaxPaid(playerId, LUXURY_TAX, "ZUSATZSTEUER"));
+        }
+
+        BaseProperty property = room.getPropertyService().getPropertyByPosition(position);
+        if (property == null) {
+            return;
+        }
+        Player owner = game.getPlayerById(property.getOwnerId()).orElse(null);
+        // Auf dem eigenen Grundstück ist keine Miete fällig
+        if (owner != null && owner != player) {
+            int rentAmount = rentCalculationService.calculateRent(property, owner, player);
+            boolean collected = rentCollectionService.collectRent(player, property, owner);
+            events.add(new GameEvent.RentCharged(playerId, owner.getId(), property.getId(), property.getName(),
+                    rentAmount, collected));
+        }
+    }
+
+    /**
+     * @return true, wenn das Grundstück gekauft wurde
+     */
+    boolean buyProperty(GameRoom room, String playerId, int propertyId, List<GameEvent> events) {
+        Game game = room.getGame();
+        PropertyTransactionService propertyTransactionService = room.getPropertyTransactionService();
+
+        Optional<Player> playerOpt = game.getPlayerById(playerId);
+        if (playerOpt.isEmpty()) {
+            events.add(new GameEvent.Rejected(playerId, "Player not found."));
+            return false;
+        }
+        Player player = playerOpt.get();
+
+        if (!propertyTransactionService.canBuyProperty(player, propertyId)) {
+            events.add(new GameEvent.Rejected(playerId, game.isPlayerTurn(playerId)
+                    ? "Cannot buy property (insufficient funds or already owned)."
+                    : "Cannot buy property - it's not your turn."));
+            return false;
+        }
+        if (!propertyTransactionService.buyProperty(player, propertyId)) {
+            events.add(new GameEvent.Rejected(playerId, "Failed to buy property due to server error."));
+            return false;
+        }
+        events.add(new GameEvent.PropertyBought(playerId, propertyId));
+        return true;
+    }
+
+    /**
+     * Zieht die oberste Karte des Stapels und wendet sie auf den Spieler an
+     *
+     * @return true, wenn eine Karte gezogen wurde
+     */
+    boolean drawCard(GameRoom room, String playerId, GameCommand.DrawCard draw, List<GameEvent> events) {
+        Game game = room.getGame();
+        if (game.getPlayerById(playerId).isEmpty()) {
+            events.add(new GameEvent.Rejected(playerId, "Player not found."));
+            return false;
+        }
+        Card card = room.getCardDeckService().drawCard(draw.cardType());
+        card.apply(game, playerId);
+        events.add(new GameEvent.CardDrawn(playerId, draw.cardType(), card));
+        return true;
+    }
+
+    /**
+     * Beendet den Zug. Ein Spieler im Gefängnis sitzt dabei eine Runde ab.
+     *
+     * @return false, wenn der Spieler nicht am Zug war
+     */
+    boolean endTurn(GameRoom room, String playerId, List<GameEvent> events) {
+        Game game = room.getGame();
+        if (!game.isPlayerTurn(playerId)) {
+            events.add(new GameEvent.Rejected(playerId, NOT_YOUR_TURN));
+            return false;
+        }
+
+        Optional<Player> playerOpt = game.getPlayerById(playerId);
+        if (playerOpt.isPresent()) {
+            Player player = playerOpt.get();
+            if (player.isInJail()) {
+                player.reduceJailTurns();
+                if (!player.isInJail()) {
+                    events.add(new GameEvent.ReleasedFromJail(playerId));
+                }
+            }
+            game.nextPlayer();
+            Player next = game.getCurrentPlayer();
+            events.add(new GameEvent.TurnEnded(playerId, next == null ? null : next.getId()));
+        }
+        return true;
+    }
+
+    /**
+     * Spieler, deren Bargeld plus Liquidationswert der Grundstücke nicht mehr positiv ist
+     */
+    List<Player> findBankruptPlayers(GameRoom room) {
+        PropertyService propertyService = room.getPropertyService();
+        // Nur bei einem Treffer wird eine Liste angelegt, das ist der Normalfall nach jedem Befehl
+        List<Player> bankruptPlayers = null;
+        for (Player p : room.getGame().getPlayers()) {
+            if (netWorth(propertyService, p) <= 0) {
+                if (bankruptPlayers == null) {
+                    bankruptPlayers = new ArrayList<>(1);
+                }
+                bankruptPlayers.add(p);
+            }
+        }
+        return bankruptPlayers == null ? List.of() : bankruptPlayers;
+    }
+
+    static int netWorth(PropertyService propertyService, Player player) {
+        return player.getMoney() + propertyService.getLiquidationValue(player.getId());
+    }
+
+    /**
+     * Nimmt den Spieler aus dem Spiel. Ist danach nur noch ein Spieler übrig, hat dieser gewonnen.
+     */
+    void giveUp(GameRoom room, String playerId, int durationMinutes, int endMoney, List<GameEvent> events) {
+        Game game = room.getGame();
+        game.giveUp(playerId);
+        events.add(new GameEvent.PlayerGaveUp(playerId, durationMinutes, endMoney));
+        if (game.getPlayers().size() == 1) {
+            events.add(new GameEvent.GameWon(game.getPlayers().get(0).getId()));
+        }
+    }
+
+    /**
+     * Beendet das Spiel vorzeitig, gewonnen hat der Spieler mit dem meisten Bargeld
+     */
+    void endGame(GameRoom room, List<GameEvent> events) {
+        String winnerId = room.getGame().determineWinner();
+        if (winnerId != null) {
+            events.add(new GameEvent.GameWon(winnerId));
+        }
+    }
+
+    private void eliminateBankruptPlayers(GameRoom room, List<GameEvent> events) {
+        Game game = room.getGame();
+        for (Player p : findBankruptPlayers(room)) {
+            events.add(new GameEvent.PlayerBankrupt(p.getId(), netWorth(room.getPropertyService(), p)));
+            giveUp(room, p.getId(), durationPlayed(game), p.getMoney(), events);
+            if (last(events) instanceof GameEvent.GameWon) {
+                return;
+            }
+        }
+    }
+
+    private static int durationPlayed(Game game) {
+        return game.getStartTime() == null ? 0 : game.getDurationPlayed();
+    }
+
+    private static GameEvent last(List<GameEvent> events) {
+        return events.isEmpty() ? null : events.get(events.size() - 1);
+    }
+}
@@ -0,0 +1,57 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.cards.Card;
+import model.cards.CardType;
+
+/**
+ * Something that happened in a game, as reported by the {@link GameEngine}.
+ * The {@link GameWebSocketHandler} turns these into the messages the clients already understand.
+ */
+public sealed interface GameEvent {
+
+    /**
+     * The command was not allowed, nothing changed. The reason is sent to the client as is.
+     */
+    record Rejected(String playerId, String reason) implements GameEvent {
+    }
+
+    record DiceRolled(String playerId, int roll, boolean pasch) implements GameEvent {
+    }
+
+    record PassedGo(String playerId) implements GameEvent {
+    }
+
+    record SentToJail(String playerId) implements GameEvent {
+    }
+
+    record TaxPaid(String playerId, int amount, String taxType) implements GameEvent {
+    }
+
+    /**
+     * Rent was due on landing. It is only transferred if the renter can pay it ({@code collected}).
+     */
+    record RentCharged(String playerId, String ownerId, int propertyId, String propertyName, int amount,
+                       boolean collected) implements GameEvent {
+    }
+
+    record PropertyBought(String playerId, int propertyId) implements GameEvent {
+    }
+
+    record CardDrawn(String playerId, CardType cardType, Card card) implements GameEvent {
+    }
+
+    record ReleasedFromJail(String playerId) implements GameEvent {
+    }
+
+    record TurnEnded(String playerId, String nextPlayerId) implements GameEvent {
+    }
+
+    record PlayerBankrupt(String playerId, int netWorth) implements GameEvent {
+    }
+
+    record PlayerGaveUp(String playerId, int durationMinutes, int endMoney) implements GameEvent {
+    }
+
+    record GameWon(String winnerId) implements GameEvent {
+    }
+}
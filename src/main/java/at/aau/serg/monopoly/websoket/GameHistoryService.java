@@ -1,51 +1,88 @@
 package at.aau.serg.monopoly.websoket;
 
-import com.google.api.core.ApiFuture;
+import at.aau.serg.monopoly.firebase.FirestoreProvider;
+import at.aau.serg.monopoly.firebase.LeaderboardService;
+import at.aau.serg.monopoly.firebase.UserStats;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.WriteResult;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
 import data.GameHistoryRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import model.GameHistory;
 import model.Player;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Speichert die Spielhistorie in Firestore.
+ * Im laufenden Server werden die Einträge nur in eine Queue gestellt und von einem Hintergrund-Thread
+ * gebündelt geschrieben (siehe {@link GameHistoryWriteBehind}), damit kein Spiel-Thread auf das Netzwerk wartet.
+ * Ohne Spring (z.B. in Unit-Tests) wird direkt auf dem aufrufenden Thread gespeichert.
+ */
 @Service
-public class GameHistoryService {
+public class GameHistoryService implements MeterBinder {
 
     private static final Logger logger = Logger.getLogger(GameHistoryService.class.getName());
     private static final String COLLECTION_NAME = "users";
     private static final String SUBCOLLECTION_NAME = "gameHistory";
 
+    @Value("${monopoly.history.write-behind:true}")
+    private boolean writeBehind = false;
+    @Value("${monopoly.history.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+    // Firestore erlaubt 500 Schreibvorgänge pro Batch, jeder Eintrag braucht zwei
+    @Value("${monopoly.history.batch-size:200}")
+    private int batchSize = 200;
+    @Value("${monopoly.history.max-attempts:5}")
+    private int maxAttempts = 5;
+    @Value("${monopoly.history.retry-backoff-ms:500}")
+    private long retryBackoffMillis = 500;
+    @Value("${monopoly.history.spill-file:${java.io.tmpdir}/monopoly-game-history.spill}")
+    private String spillFile;
+    private GameHistoryWriteBehind writer;
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
+    private FirestoreProvider firestoreProvider;
+    @Autowired
+    private GameMetrics metrics;
 
-    private void ensureGameHistorySubcollection(String userId) {
-        try {
-            Firestore firestore = FirestoreClient.getFirestore();
-            DocumentReference userDocRef = firestore.collection(COLLECTION_NAME).document(userId);
-
-            ApiFuture<DocumentSnapshot> future = userDocRef.get();
-            DocumentSnapshot document = future.get();
-
-            if (!document.exists()) {
-                userDocRef.set(Collections.emptyMap()).get();
-                logger.log(Level.INFO, "Benutzerdokument-gameHistory für {0} angelegt", userId);
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            if (logger.isLoggable(Level.WARNING)) {
-                logger.log(Level.WARNING, "Fehler beim Prüfen der Subcollection für Benutzer: " + userId, e);
-            }
-            Thread.currentThread().interrupt();
+    @PostConstruct
+    void startWriter() {
+        if (!writeBehind) {
+            return;
         }
+        writer = new GameHistoryWriteBehind(this::writeBatch, queueCapacity, batchSize, maxAttempts,
+                retryBackoffMillis, Path.of(spillFile));
+        writer.start();
+        logger.log(Level.INFO, "Spielhistorie wird asynchron geschrieben, Spill-Datei: {0}", spillFile);
     }
 
+    @PreDestroy
+    void stopWriter() {
+        if (writer != null) {
+            writer.stop(5000);
+        }
+    }
 
 
     /**
@@ -55,32 +92,21 @@ public class GameHistoryService {
      * @return true, wenn das Speichern erfolgreich war, sonst false
      */
     public boolean saveGameHistory(GameHistoryRequest req) {
-        try {
-            ensureGameHistorySubcollection(req.getUserId());
-            Firestore firestore = FirestoreClient.getFirestore();
-
-            GameHistory gameHistory = new GameHistory();
-            gameHistory.setId(UUID.randomUUID().toString());
-            gameHistory.setUserId(req.getUserId());
-            gameHistory.setDurationMinutes(req.getDurationMinutes());
-            gameHistory.setEndMoney(req.getEndMoney());
-            gameHistory.setTimestamp(new Date());
-            gameHistory.setWon(req.isWon());
+        return save(toGameHistory(req));
+    }
 
-            // Pfad: users/UID/gameHistory/ID
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                    .document(req.getUserId())
-                    .collection(SUBCOLLECTION_NAME)
-                    .document(gameHistory.getId())
-                    .set(gameHistory);
-
-            result.get(); // Warten auf das Ergebnis
-            logger.log(Level.INFO, "Spielhistorie für Benutzer {0} erfolgreich gespeichert", req.getUserId());
+    private boolean save(GameHistory entry) {
+        try {
+            writeBatch(List.of(entry));
+            logger.log(Level.INFO, "Spielhistorie für Benutzer {0} erfolgreich gespeichert", entry.getUserId());
             return true;
-        } catch (InterruptedException | ExecutionException e) {
-            logger.log(Level.SEVERE, "Fehler beim Speichern der Spielhistorie für Benutzer {0}", req.getUserId());
+        } catch (InterruptedException e) {
+            logger.log(Level.SEVERE, "Fehler beim Speichern der Spielhistorie für Benutzer {0}", entry.getUserId());
             Thread.currentThread().interrupt(); // Guter Umgang mit InterruptedException
             return false;
+        } catch (ExecutionException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Fehler beim Speichern der Spielhistorie für Benutzer {0}", entry.getUserId());
+            return false;
         }
     }
 
@@ -95,6 +121,15 @@ public class GameHistoryService {
      */
     public void saveGameHistoryForAllPlayers(java.util.List<Player> players, int durationMinutes,
                                              String winnerId) {
+        saveGameHistoryForAllPlayers(players, durationMinutes, winnerId, null);
+    }
+
+    /**
+     * Wie {@link #saveGameHistoryForAllPlayers(List, int, String)}, speichert zusätzlich den Seed der Runde,
+     * damit das Spiel offline nachgespielt werden kann
+     */
+    public void saveGameHistoryForAllPlayers(java.util.List<Player> players, int durationMinutes,
+                                             String winnerId, Long seed) {
         if (players == null || players.isEmpty()) {
             logger.warning("Keine Spieler zum Speichern der Spielhistorie vorhanden");
             return;
@@ -109,7 +144,7 @@ public class GameHistoryService {
                     player.getMoney(),
                     won
             );
-            saveGameHistory(req);
+            submit(req, seed);
         }
 
         logger.info("Spielhistorie für alle Spieler gespeichert");
@@ -119,13 +154,103 @@ public class GameHistoryService {
      * Speichert einen Spielabbruch (Give Up) und Bankrupt als verlorenes Spiel für einen Spieler
      */
     public void markPlayerAsLoser(String userId, int durationMinutes, int endMoney) {
+        markPlayerAsLoser(userId, durationMinutes, endMoney, null);
+    }
+
+    public void markPlayerAsLoser(String userId, int durationMinutes, int endMoney, Long seed) {
 
-        saveGameHistory(new GameHistoryRequest(
+        submit(new GameHistoryRequest(
                 userId, durationMinutes, endMoney, false
-        ));
+        ), seed);
 
         if (logger.isLoggable(Level.INFO)) {
             logger.info("Spielabbruch als Niederlage für " + userId + " gespeichert.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stellt den Eintrag in die Schreib-Queue, ohne Write-Behind wird sofort gespeichert
+     */
+    private void submit(GameHistoryRequest req, Long seed) {
+        GameHistory entry = toGameHistory(req);
+        entry.setSeed(seed);
+        if (writer == null) {
+            save(entry);
+        } else {
+            writer.enqueue(entry);
+        }
+    }
+
+    int pendingWrites() {
+        return writer == null ? 0 : writer.pending();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("monopoly.history.pending.writes", this, GameHistoryService::pendingWrites)
+                .description("Game history entries waiting to be written to Firestore").register(registry);
+    }
+
+    /**
+     * Schreibt mehrere Einträge (auch verschiedener Spieler und Spiele) in einer Firestore-Transaktion
+     * und rechnet sie dabei in die laufende Statistik der Benutzer ein (siehe {@link UserStats}).
+     * Pro Eintrag werden nur das Benutzerdokument und das eigene Historie-Dokument gelesen.
+     * Schon vorhandene Einträge werden übersprungen, ein erneuter Versuch zählt also nichts doppelt.
+     * Nach dem Commit gehen die neuen Statistiken an die Leaderboards.
+     */
+    void writeBatch(List<GameHistory> entries) throws InterruptedException, ExecutionException {
+        Firestore firestore = firestoreProvider.get();
+        Map<String, UserStats> stats = metrics.firestore("history.write", () -> firestore.runTransaction(
+                transaction -> appendEntries(firestore, transaction, entries)).get());
+        if (stats != null) {
+            stats.forEach(leaderboardService::onStatsUpdated);
+        }
+    }
+
+    private Map<String, UserStats> appendEntries(Firestore firestore, Transaction transaction, List<GameHistory> entries)
+            throws InterruptedException, ExecutionException {
+        Map<String, DocumentReference> userRefs = new LinkedHashMap<>();
+        List<DocumentReference> refs = new ArrayList<>();
+        for (GameHistory entry : entries) {
+            userRefs.computeIfAbsent(entry.getUserId(), id -> firestore.collection(COLLECTION_NAME).document(id));
+        }
+        refs.addAll(userRefs.values());
+        for (GameHistory entry : entries) {
+            // Pfad: users/UID/gameHistory/ID
+            refs.add(userRefs.get(entry.getUserId()).collection(SUBCOLLECTION_NAME).document(entry.getId()));
+        }
+
+        // In einer Transaktion müssen alle Lesezugriffe vor dem ersten Schreiben passieren
+        List<DocumentSnapshot> snapshots = transaction.getAll(refs.toArray(new DocumentReference[0])).get();
+        Map<String, UserStats> stats = new HashMap<>();
+        int index = 0;
+        for (String userId : userRefs.keySet()) {
+            stats.put(userId, UserStats.fromDocument(snapshots.get(index++)));
+        }
+
+        for (GameHistory entry : entries) {
+            DocumentSnapshot existing = snapshots.get(index);
+            DocumentReference historyRef = refs.get(index++);
+            if (existing.exists()) {
+                continue;
+            }
+            stats.get(entry.getUserId()).record(entry.getEndMoney(), entry.isWon());
+            transaction.set(historyRef, entry);
+        }
+        for (Map.Entry<String, DocumentReference> user : userRefs.entrySet()) {
+            transaction.set(user.getValue(), stats.get(user.getKey()).toFields(), SetOptions.merge());
+        }
+        return stats;
+    }
+
+    private static GameHistory toGameHistory(GameHistoryRequest req) {
+        GameHistory gameHistory = new GameHistory();
+        gameHistory.setId(UUID.randomUUID().toString());
+        gameHistory.setUserId(req.getUserId());
+        gameHistory.setDurationMinutes(req.getDurationMinutes());
+        gameHistory.setEndMoney(req.getEndMoney());
+        gameHistory.setTimestamp(new Date());
+        gameHistory.setWon(req.isWon());
+        return gameHistory;
+    }
+}
@@ -0,0 +1,266 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.GameHistory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background writer for game history entries.
+ * Entries are queued without blocking, grouped into batches by a single worker thread and
+ * written with retries. If the backend stays unreachable (or the queue is full) the worker
+ * appends the entries to a local spill file, which the worker writes first the next time the writer starts.
+ */
+class GameHistoryWriteBehind {
+
+    /**
+     * Writes one batch to the backend, throws if the batch could not be stored.
+     */
+    @FunctionalInterface
+    interface BatchSink {
+        void write(List<GameHistory> batch) throws Exception;
+    }
+
+    private static final Logger logger = Logger.getLogger(GameHistoryWriteBehind.class.getName());
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<GameHistory> queue;
+    private final BatchSink sink;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Path spillFile;
+    private final Thread worker;
+    // Einträge, die bei voller Queue ankamen, der Worker schreibt sie in die Spill-Datei
+    private final Queue<GameHistory> overflow = new ConcurrentLinkedQueue<>();
+    // Nach dem Timeout von stop(): keine neuen Versuche mehr, Wartezeiten enden sofort
+    private final CountDownLatch abort = new CountDownLatch(1);
+    private volatile boolean stopping;
+    private volatile boolean stopped;
+
+    GameHistoryWriteBehind(BatchSink sink, int capacity, int batchSize, int maxAttempts, long backoffMillis, Path spillFile) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.spillFile = spillFile;
+        this.worker = new Thread(this::run, "history-writer");
+        this.worker.setDaemon(true);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Queues the entry, never blocks and never touches the disk. If the queue is full the entry
+     * is handed to the worker, which spills it. Only after {@link #stop} it is spilled directly.
+     */
+    void enqueue(GameHistory entry) {
+        if (stopped) {
+            spill(List.of(entry));
+        } else if (!queue.offer(entry)) {
+            logger.log(Level.WARNING, "Spielhistorie-Queue voll, {0} wird in die Spill-Datei geschrieben", entry.getUserId());
+            overflow.add(entry);
+        }
+    }
+
+    int pending() {
+        return queue.size() + overflow.size();
+    }
+
+    /**
+     * Lets the worker write the remaining queue for up to the timeout. After that it gets no further
+     * retries: the batch it is writing is allowed to finish (a failure is spilled), everything still
+     * queued is spilled. A running write is never interrupted.
+     */
+    void stop(long timeoutMillis) {
+        stopping = true;
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        abort.countDown();
+        stopped = true;
+        List<GameHistory> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        drainOverflow(rest);
+        if (!rest.isEmpty()) {
+            spill(rest);
+        }
+    }
+
+    private void run() {
+        try {
+            replaySpillFile();
+        } catch (InterruptedException e) {
+            // Die .replaying-Datei bleibt liegen und wird beim nächsten Start erneut geschrieben
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<GameHistory> batch = new ArrayList<>(batchSize);
+        while (!stopping || !queue.isEmpty()) {
+            spillOverflow();
+            if (abort.getCount() == 0) {
+                break;
+            }
+            try {
+                GameHistory first = queue.poll(stopping ? 0 : 1000, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                if (!batch.isEmpty()) {
+                    spill(batch);
+                }
+                batch.clear();
+            }
+        }
+        spillOverflow();
+    }
+
+    private void spillOverflow() {
+        List<GameHistory> entries = new ArrayList<>();
+        drainOverflow(entries);
+        if (!entries.isEmpty()) {
+            spill(entries);
+        }
+    }
+
+    private void drainOverflow(List<GameHistory> target) {
+        GameHistory entry;
+        while ((entry = overflow.poll()) != null) {
+            target.add(entry);
+        }
+    }
+
+    private void writeWithRetry(List<GameHistory> batch) throws InterruptedException {
+        long delay = backoffMillis;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                sink.write(batch);
+                logger.log(Level.INFO, "{0} Spielhistorie-Einträge gespeichert", batch.size());
+                batch.clear();
+                return;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Speichern der Spielhistorie fehlgeschlagen (Versuch {0}/{1}): {2}",
+                        new Object[]{attempt, maxAttempts, e.getMessage()});
+            }
+            if (attempt < maxAttempts) {
+                if (abort.await(delay, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                delay *= 2;
+            }
+        }
+        spill(batch);
+        batch.clear();
+    }
+
+    private synchronized void spill(List<GameHistory> entries) {
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (GameHistory entry : entries) {
+                writer.write(mapper.writeValueAsString(entry));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Spielhistorie konnte nicht in {0} gesichert werden: {1}",
+                    new Object[]{spillFile, e.getMessage()});
+        }
+    }
+
+    /**
+     * Writes the entries of the spill file before the queue. The file is first renamed to a ".replaying" sibling
+     * and only deleted once all its entries were written or spilled again, so a crash during the replay loses nothing.
+     */
+    private void replaySpillFile() throws InterruptedException {
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        // Eine Datei von einem abgebrochenen Lauf zuerst
+        if (Files.exists(replaying)) {
+            replay(replaying, readSpilled(replaying));
+        }
+        List<GameHistory> entries;
+        // Unter demselben Lock wie spill(), ein gleichzeitiges Anhängen landet sonst in der umbenannten Datei
+        synchronized (this) {
+            if (!Files.exists(spillFile)) {
+                return;
+            }
+            try {
+                Files.move(spillFile, replaying);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Spill-Datei {0} konnte nicht umbenannt werden: {1}",
+                        new Object[]{spillFile, e.getMessage()});
+                return;
+            }
+            entries = readSpilled(replaying);
+        }
+        replay(replaying, entries);
+    }
+
+    private void replay(Path file, List<GameHistory> entries) throws InterruptedException {
+        if (entries == null) {
+            return;
+        }
+        logger.log(Level.INFO, "{0} Spielhistorie-Einträge aus der Spill-Datei übernommen", entries.size());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<GameHistory> batch = new ArrayList<>(entries.subList(from, Math.min(entries.size(), from + batchSize)));
+            if (abort.getCount() == 0) {
+                spill(batch);
+            } else {
+                writeWithRetry(batch);
+            }
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Spill-Datei {0} konnte nicht gelöscht werden: {1}",
+                    new Object[]{file, e.getMessage()});
+        }
+    }
+
+    /**
+     * @return the entries of the file, or null if it could not be read
+     */
+    private List<GameHistory> readSpilled(Path file) {
+        List<GameHistory> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    entries.add(mapper.readValue(line, GameHistory.class));
+                }
+            }
+            return entries;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Spill-Datei {0} konnte nicht gelesen werden: {1}",
+                    new Object[]{file, e.getMessage()});
+            return null;
+        }
+    }
+}
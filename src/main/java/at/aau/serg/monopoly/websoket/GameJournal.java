@@ -0,0 +1,173 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a {@link RoomJournal} for every room into {@code monopoly.journal.dir}, so running matches survive a restart.
+ * On startup {@link GameRoomRegistry} rebuilds all rooms found there. Without a directory (the default) nothing is written.
+ * <p>
+ * When the application shuts down the journals are closed before the WebSocket sessions are,
+ * otherwise the players leaving on disconnect would end up in the log and the matches could not be resumed.
+ */
+@Component
+public class GameJournal implements ApplicationListener<ContextClosedEvent> {
+    private static final Logger logger = Logger.getLogger(GameJournal.class.getName());
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Value("${monopoly.journal.dir:}")
+    private String directory = "";
+    // Nach so vielen Records wird ein Snapshot geschrieben und das Log geleert
+    @Value("${monopoly.journal.snapshot-every:1000}")
+    private int snapshotEvery = 1000;
+
+    private final Map<String, RoomJournal> journals = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public boolean isEnabled() {
+        return directory != null && !directory.isBlank() && !closed;
+    }
+
+    /**
+     * Starts a new, empty journal for a room that was just created
+     */
+    synchronized void attach(GameRoom room) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir());
+            RoomJournal journal = RoomJournal.create(logFile(room.getId()), snapshotFile(room.getId()), room, snapshotEvery);
+            journals.put(room.getId(), journal);
+            room.setJournal(journal);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot create journal for room {0}: {1}", new Object[]{room.getId(), e.getMessage()});
+        }
+    }
+
+    /**
+     * Rebuilds every room that has a journal in the directory
+     *
+     * @param roomFactory creates an empty room for the given id
+     */
+    synchronized List<GameRoom> recover(Function<String, GameRoom> roomFactory) {
+        List<GameRoom> rooms = new ArrayList<>();
+        if (!isEnabled() || !Files.isDirectory(dir())) {
+            return rooms;
+        }
+        for (String key : journalKeys()) {
+            String roomId;
+            try {
+                roomId = new String(HEX.parseHex(key), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Ignoring journal file {0}", key);
+                continue;
+            }
+            GameRoom room = roomFactory.apply(roomId);
+            try {
+                RoomJournal journal = RoomJournal.recover(logFile(roomId), snapshotFile(roomId), room, snapshotEvery);
+                journals.put(roomId, journal);
+                room.setJournal(journal);
+                rooms.add(room);
+            } catch (IOException | RuntimeException e) {
+                // Die Dateien bleiben liegen, damit man sie sich ansehen kann
+                logger.log(Level.SEVERE, "Cannot recover room {0}: {1}", new Object[]{roomId, e.getMessage()});
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Removes the journal of a room that was closed normally
+     */
+    synchronized void discard(GameRoom room) {
+        RoomJournal journal = room.getJournal();
+        if (journal == null || closed) {
+            return;
+        }
+        room.setJournal(null);
+        try {
+            // Ein neuer Raum mit derselben ID schreibt schon in dieselben Dateien
+            if (journals.remove(room.getId(), journal)) {
+                journal.delete();
+            } else {
+                journal.close();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot delete journal of room {0}: {1}", new Object[]{room.getId(), e.getMessage()});
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ContextClosedEvent event) {
+        close();
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (RoomJournal journal : journals.values()) {
+            closeQuietly(journal);
+        }
+        journals.clear();
+    }
+
+    private Set<String> journalKeys() {
+        Set<String> keys = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir(), "*{" + LOG_SUFFIX + "," + SNAPSHOT_SUFFIX + "}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                keys.add(name.substring(0, name.lastIndexOf('.')));
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot list journals in {0}: {1}", new Object[]{directory, e.getMessage()});
+        }
+        return keys;
+    }
+
+    private static void closeQuietly(RoomJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot close journal: {0}", e.getMessage());
+        }
+    }
+
+    private Path dir() {
+        return Paths.get(directory);
+    }
+
+    private Path logFile(String roomId) {
+        return dir().resolve(fileKey(roomId) + LOG_SUFFIX);
+    }
+
+    private Path snapshotFile(String roomId) {
+        return dir().resolve(fileKey(roomId) + SNAPSHOT_SUFFIX);
+    }
+
+    // Raum-IDs kommen vom Client, als Hex sind sie immer gültige Dateinamen
+    private static String fileKey(String roomId) {
+        return HEX.formatHex(roomId.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package at.aau.serg.monopoly.websoket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the hot paths: message handling, broadcasts, the room mailboxes and Firestore calls.
+ * Gauges for sessions, rooms and queues are bound by the components that own them ({@code MeterBinder}).
+ * With Spring everything is exported under /actuator/prometheus, without Spring (e.g. in unit tests)
+ * the meters go to a private {@link SimpleMeterRegistry}.
+ */
+@Component
+public class GameMetrics {
+    // Tag für Nachrichten, die keinem Befehl zugeordnet werden können, hält die Zahl der Zeitreihen klein
+    static final String UNKNOWN_TYPE = "unknown";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> messageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> firestoreTimers = new ConcurrentHashMap<>();
+    private final Timer broadcastDuration;
+    private final DistributionSummary broadcastRecipients;
+    private final Timer mailboxWait;
+
+    /**
+     * Firestore call that waits for its ApiFuture
+     */
+    @FunctionalInterface
+    public interface FirestoreCall<T> {
+        T call() throws InterruptedException, ExecutionException;
+    }
+
+    public GameMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public GameMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.broadcastDuration = Timer.builder("monopoly.broadcast.duration")
+                .description("Time to hand one frame to the outboxes of all recipients")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.broadcastRecipients = DistributionSummary.builder("monopoly.broadcast.recipients")
+                .description("Sessions that received one broadcast frame")
+                .register(registry);
+        this.mailboxWait = Timer.builder("monopoly.room.mailbox.wait")
+                .description("Time a client message waits for its room's mailbox")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @param type command the message was dispatched to, or {@link #UNKNOWN_TYPE}
+     */
+    public void messageHandled(String type, long nanos) {
+        messageTimers.computeIfAbsent(type, t -> Timer.builder("monopoly.messages")
+                .description("Client messages by type and how long handling them took")
+                .tag("type", t)
+                .publishPercentileHistogram()
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void broadcastSent(int recipients, long nanos) {
+        broadcastRecipients.record(recipients);
+        broadcastDuration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void mailboxWaited(long nanos) {
+        mailboxWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs the Firestore call and records how long it took, failed calls are tagged with outcome=error
+     */
+    public <T> T firestore(String operation, FirestoreCall<T> call) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } finally {
+            String outcomeTag = outcome;
+            firestoreTimers.computeIfAbsent(operation + '/' + outcome, key -> Timer.builder("monopoly.firestore")
+                    .description("Latency of Firestore calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcomeTag)
+                    .publishPercentileHistogram()
+                    .register(registry)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.PlayerInfo;
+import lombok.AccessLevel;
+import lombok.Getter;
+import model.DiceManager;
+import model.DiceManagerInterface;
+import model.Game;
+import model.RandomSource;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * A single, independent match hosted by the server.
+ * Every room owns its own game, dice, card decks, property ownership and pending deals,
+ * so several tables can be played at the same time inside one JVM.
+ * All commands for a room are executed one after another through its {@link RoomMailbox}.
+ */
+@Getter
+public class GameRoom {
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+    // Wird mit dem Seed verknüpft, damit die Karten einen eigenen Zufallsstrom bekommen
+    private static final long CARD_STREAM = 0x9E3779B97F4A7C15L;
+
+    private final String id;
+    private final RoomMailbox mailbox;
+    final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    final Map<String, String> sessionToUserId = new ConcurrentHashMap<>();
+    final Map<String, Set<String>> kickVotes = new ConcurrentHashMap<>();
+    // Sessions, die das Delta-Protokoll statt voller GAME_STATE-Frames nutzen
+    final Set<String> deltaSessionIds = ConcurrentHashMap.newKeySet();
+    // Sessions, die nummerierte Frames bekommen und nach einem Verbindungsabbruch weitermachen können
+    final Set<String> resumableSessionIds = ConcurrentHashMap.newKeySet();
+    // Token -> userId, mit dem Token übernimmt eine neue Verbindung den Platz
+    final Map<String, String> resumeTokens = new ConcurrentHashMap<>();
+    // Spieler ohne Verbindung, deren Platz noch bis zum Timeout freigehalten wird
+    final Map<String, AwaySeat> awaySeats = new ConcurrentHashMap<>();
+    // Empfänger -> Timeout des Deals, auf dessen Antwort er gerade warten lässt
+    final Map<String, GameTimer.Timeout> dealTimeouts = new ConcurrentHashMap<>();
+    // Spieler, auf dessen Zug der Zug-Timer wartet, null solange keiner läuft
+    @Getter(AccessLevel.PACKAGE)
+    private String turnTimerPlayerId;
+    @Getter(AccessLevel.NONE)
+    private GameTimer.Timeout turnTimeout;
+    @Getter(AccessLevel.NONE)
+    private long turnTimerNumber;
+    // Wie viele gesendete Frames für Wiederverbindungen aufgehoben werden
+    int replayCapacity = 128;
+    @Getter(AccessLevel.PACKAGE)
+    private ReplayBuffer replayBuffer;
+
+    private Game game;
+    private DiceManagerInterface diceManager;
+    private PropertyService propertyService;
+    private PropertyTransactionService propertyTransactionService;
+    private DealService dealService;
+    private CardDeckService cardDeckService;
+    // Ohne SecureRandom-Modus bestimmt der Seed Würfel und Kartenmischung einer Runde, er wird mit dem Spiel gespeichert
+    private Long seed;
+    @Getter(AccessLevel.NONE)
+    private final boolean secureRandom;
+    @Getter(AccessLevel.NONE)
+    private final Long fixedSeed;
+
+    // Zuletzt gesendeter Spielerstand und sein fertig kodierter GAME_STATE-Frame
+    @Getter(AccessLevel.NONE)
+    private List<PlayerInfo> lastGameStateSnapshot;
+    @Getter(AccessLevel.NONE)
+    private TextMessage lastGameStateFrame;
+
+    // Verschachtelungstiefe des laufenden Befehls und ob GAME_STATE danach gesendet werden muss
+    @Getter(AccessLevel.NONE)
+    private int commandDepth;
+    @Getter(AccessLevel.NONE)
+    private boolean gameStateDirty;
+
+    @Getter(AccessLevel.NONE)
+    final StateDeltaTracker deltaTracker = new StateDeltaTracker();
+
+    // Schreibt nach jedem Befehl die Änderungen mit, null solange kein Journal-Verzeichnis konfiguriert ist
+    @Getter(AccessLevel.PACKAGE)
+    private RoomJournal journal;
+
+    public GameRoom(String id, ObjectMapper mapper, Executor worker) {
+        this(id, mapper, worker, RandomSource.FAST, null);
+    }
+
+    /**
+     * @param randomSource "fast" for seeded, replayable rounds or "secure" for SecureRandom without a seed
+     * @param fixedSeed    seed used for every round (e.g. to replay a recorded game), null for a new seed per round
+     */
+    public GameRoom(String id, ObjectMapper mapper, Executor worker, String randomSource, Long fixedSeed) {
+        if (!RandomSource.FAST.equals(randomSource) && !RandomSource.SECURE.equals(randomSource)) {
+            throw new IllegalArgumentException("Unknown random source: " + randomSource);
+        }
+        this.id = id;
+        this.mailbox = new RoomMailbox(worker);
+        this.game = new Game();
+        this.secureRandom = RandomSource.SECURE.equals(randomSource);
+        this.fixedSeed = fixedSeed;
+
+        this.propertyService = new PropertyService(game);
+        this.propertyService.init();
+        this.propertyTransactionService = new PropertyTransactionService(propertyService);
+
+        this.dealService = new DealService(propertyTransactionService);
+        this.dealService.setGame(game);
+
+        this.cardDeckService = new CardDeckService(mapper);
+        this.cardDeckService.init();
+
+        startRound();
+    }
+
+    /**
+     * Picks the seed of the next round and sets up dice and card decks with it.
+     * Dice and cards get separate streams, so an extra card draw does not shift the following rolls.
+     */
+    private void startRound() {
+        RandomSource diceRandom;
+        RandomSource cardRandom;
+        if (secureRandom) {
+            seed = null;
+            diceRandom = RandomSource.secure();
+            cardRandom = RandomSource.secure();
+        } else {
+            seed = fixedSeed != null ? fixedSeed : SEED_SOURCE.nextLong();
+            diceRandom = RandomSource.seeded(seed);
+            cardRandom = RandomSource.seeded(seed ^ CARD_STREAM);
+        }
+        diceManager = new DiceManager(diceRandom);
+        diceManager.initializeStandardDices();
+        cardDeckService.reset(cardRandom);
+    }
+
+    /**
+     * Prepares the room for a new round after a game has ended.
+     * The connected sessions stay in the room, but have to send INIT again.
+     */
+    void reset() {
+        game.getPlayers().clear();
+        lastGameStateSnapshot = null;
+        lastGameStateFrame = null;
+        gameStateDirty = false;
+        sessionToUserId.clear();
+        deltaSessionIds.clear();
+        resumableSessionIds.clear();
+        resumeTokens.clear();
+        awaySeats.values().forEach(seat -> seat.timeout().cancel());
+        awaySeats.clear();
+        dealTimeouts.values().forEach(GameTimer.Timeout::cancel);
+        dealTimeouts.clear();
+        cancelTurnTimer();
+        deltaTracker.reset();
+
+        propertyService.init();
+        startRound();
+    }
+
+    /**
+     * @return the encoded GAME_STATE frame if the snapshot equals the last one that was sent, otherwise null
+     */
+    TextMessage cachedGameStateFrame(List<PlayerInfo> snapshot) {
+        return snapshot.equals(lastGameStateSnapshot) ? lastGameStateFrame : null;
+    }
+
+    void cacheGameStateFrame(List<PlayerInfo> snapshot, TextMessage frame) {
+        lastGameStateSnapshot = snapshot;
+        lastGameStateFrame = frame;
+    }
+
+    void beginCommand() {
+        commandDepth++;
+    }
+
+    /**
+     * Ends the current command. After the outermost command its changes are written to the journal.
+     * @return true if this was the outermost command and a GAME_STATE update is pending
+     */
+    boolean endCommand() {
+        commandDepth--;
+        if (commandDepth > 0) {
+            return false;
+        }
+        if (journal != null) {
+            journal.append(this);
+        }
+        if (!gameStateDirty) {
+            return false;
+        }
+        gameStateDirty = false;
+        return true;
+    }
+
+    boolean isInCommand() {
+        return commandDepth > 0;
+    }
+
+    void markGameStateDirty() {
+        gameStateDirty = true;
+    }
+
+    /**
+     * Seat of a resumable player whose connection dropped
+     * @param delta whether the player used the delta protocol
+     */
+    record AwaySeat(GameTimer.Timeout timeout, boolean delta) {
+    }
+
+    /**
+     * Gives the player a new token to resume the seat with, the old token stops working
+     */
+    String issueResumeToken(String userId) {
+        resumeTokens.values().remove(userId);
+        byte[] bytes = new byte[16];
+        SEED_SOURCE.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        resumeTokens.put(token, userId);
+        if (replayBuffer == null) {
+            replayBuffer = new ReplayBuffer(replayCapacity);
+        }
+        return token;
+    }
+
+    /**
+     * Numbers a broadcast frame and keeps it for reconnecting clients
+     * @return the numbered frame, or null if no player of this room can resume
+     */
+    TextMessage numberFrame(TextMessage frame, byte audience) {
+        return resumeTokens.isEmpty() ? null : replayBuffer.add(frame, audience);
+    }
+
+    long getFrameSequence() {
+        return replayBuffer == null ? 0 : replayBuffer.getSequence();
+    }
+
+    /**
+     * @return true if a player who is away uses the delta protocol, deltas have to be kept for them
+     */
+    boolean hasAwayDeltaSeat() {
+        for (AwaySeat seat : awaySeats.values()) {
+            if (seat.delta()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts waiting for the turn of the player, a running turn timer is cancelled
+     * @return number of this turn timer, a timeout of an older one is ignored
+     */
+    long startTurnTimer(String playerId) {
+        cancelTurnTimer();
+        turnTimerPlayerId = playerId;
+        return turnTimerNumber;
+    }
+
+    void setTurnTimeout(GameTimer.Timeout timeout) {
+        turnTimeout = timeout;
+    }
+
+    boolean isTurnTimer(long number) {
+        return turnTimerPlayerId != null && number == turnTimerNumber;
+    }
+
+    void cancelTurnTimer() {
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+        }
+        turnTimerPlayerId = null;
+        turnTimeout = null;
+        turnTimerNumber++;
+    }
+
+    void setJournal(RoomJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return true if no session is connected and no seat is kept for a player who is away
+     */
+    public boolean isEmpty() {
+        return sessions.isEmpty() && awaySeats.isEmpty();
+    }
+}
@@ -0,0 +1,255 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import model.RandomSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of all running game rooms and which session belongs to which room.
+ * Rooms are created lazily on the first INIT that names them and are dropped again
+ * once the last session has left.
+ * The rooms share a small worker pool that drains their mailboxes. Without Spring
+ * (e.g. in unit tests) the mailboxes are drained directly on the calling thread.
+ * If a {@link GameJournal} directory is configured, the rooms found there are rebuilt on startup.
+ */
+@Component
+public class GameRoomRegistry implements MeterBinder {
+    public static final String DEFAULT_ROOM_ID = "default";
+
+    private static final Logger logger = Logger.getLogger(GameRoomRegistry.class.getName());
+    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final Map<String, GameRoom> roomsBySessionId = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${monopoly.rooms.worker-threads:4}")
+    private int workerThreads = 0;
+    // "fast" (SplittableRandom mit Seed pro Runde, nachspielbar) oder "secure" (SecureRandom pro Raum, ohne Seed)
+    @Value("${monopoly.dice.random-source:fast}")
+    private String randomSource = RandomSource.FAST;
+    // Fester Seed für alle Räume, z.B. um ein aufgezeichnetes Spiel oder einen Lasttest nachzuspielen
+    @Value("${monopoly.replay.seed:#{null}}")
+    private Long replaySeed;
+    private Executor roomExecutor = Runnable::run;
+    private ExecutorService workerPool;
+    @Autowired
+    GameJournal journal;
+
+    @PostConstruct
+    void start() {
+        startWorkers();
+        recoverRooms();
+    }
+
+    void startWorkers() {
+        if (workerThreads <= 0) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "room-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        roomExecutor = workerPool;
+        logger.log(Level.INFO, "Started {0} room worker threads", workerThreads);
+    }
+
+    /**
+     * Rebuilds the rooms of the journal. They wait without sessions until their players send INIT again.
+     */
+    void recoverRooms() {
+        long start = System.nanoTime();
+        List<GameRoom> recovered = journal.recover(this::newRoom);
+        for (GameRoom room : recovered) {
+            rooms.put(room.getId(), room);
+        }
+        if (!recovered.isEmpty()) {
+            logger.log(Level.INFO, "Recovered {0} game rooms from the journal in {1} ms",
+                    new Object[]{recovered.size(), (System.nanoTime() - start) / 1_000_000});
+        }
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
+
+    public GameRoom getOrCreateRoom(String roomId) {
+        GameRoom room = rooms.computeIfAbsent(roomId, this::createRoom);
+        room.getMailbox().start();
+        return room;
+    }
+
+    /**
+     * Runs inside compute of the room map. The journal creates files, so it is attached later,
+     * as the first task of the room's mailbox, which still runs before any command of the room.
+     */
+    private GameRoom createRoom(String roomId) {
+        logger.log(Level.INFO, "Creating game room {0}", roomId);
+        GameRoom room = newRoom(roomId);
+        room.getMailbox().enqueue(() -> attachJournal(room));
+        return room;
+    }
+
+    private void attachJournal(GameRoom room) {
+        journal.attach(room);
+        // Wurde der Raum inzwischen schon wieder entfernt, gehören seine Dateien weg
+        if (rooms.get(room.getId()) != room) {
+            journal.discard(room);
+        }
+    }
+
+    /**
+     * Adds the session to the room with this id, the room is created if it does not exist.
+     * Finding the room and adding the session happen atomically with {@link #removeIfEmpty},
+     * so a joining session never ends up in a room that was just dropped from the registry.
+     */
+    public GameRoom joinRoom(String roomId, WebSocketSession session) {
+        GameRoom room = rooms.compute(roomId, (id, existing) -> {
+            GameRoom target = existing != null ? existing : createRoom(id);
+            target.sessions.addIfAbsent(session);
+            return target;
+        });
+        room.getMailbox().start();
+        bindSession(session, room);
+        return room;
+    }
+
+    /**
+     * Like {@link #joinRoom}, but only joins a room that still exists
+     * @return the room, or null if there is none with this id
+     */
+    public GameRoom rejoinRoom(String roomId, WebSocketSession session) {
+        GameRoom room = rooms.computeIfPresent(roomId, (id, existing) -> {
+            existing.sessions.addIfAbsent(session);
+            return existing;
+        });
+        if (room != null) {
+            bindSession(session, room);
+        }
+        return room;
+    }
+
+    private GameRoom newRoom(String roomId) {
+        return new GameRoom(roomId, objectMapper, roomExecutor, randomSource, replaySeed);
+    }
+
+    public GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    public GameRoom getRoomForSession(String sessionId) {
+        return roomsBySessionId.get(sessionId);
+    }
+
+    /**
+     * Adds the session to the given room. A session can only be part of one room,
+     * so it is removed from its previous room first.
+     */
+    public void bindSession(WebSocketSession session, GameRoom room) {
+        GameRoom previous = roomsBySessionId.put(session.getId(), room);
+        if (previous != null && previous != room) {
+            previous.sessions.remove(session);
+            previous.sessionToUserId.remove(session.getId());
+            previous.deltaSessionIds.remove(session.getId());
+            removeIfEmpty(previous);
+        }
+        room.sessions.addIfAbsent(session);
+    }
+
+    /**
+     * Removes the session from its room.
+     * @return the room the session was part of, or null if it never joined one
+     */
+    public GameRoom unbindSession(WebSocketSession session) {
+        GameRoom room = roomsBySessionId.remove(session.getId());
+        if (room != null) {
+            room.sessions.remove(session);
+            room.deltaSessionIds.remove(session.getId());
+        }
+        return room;
+    }
+
+    public void removeIfEmpty(GameRoom room) {
+        if (!room.isEmpty()) {
+            return;
+        }
+        // Erneut unter dem Lock des Eintrags prüfen, ein gleichzeitiges joinRoom kann den Raum gerade füllen
+        rooms.computeIfPresent(room.getId(), (id, existing) -> {
+            if (existing != room || !room.isEmpty()) {
+                return existing;
+            }
+            journal.discard(room);
+            logger.log(Level.INFO, "Removed empty game room {0}", id);
+            return null;
+        });
+    }
+
+    /**
+     * Assigns the user to the session in its room unless the user is already connected in any room.
+     * Check and assignment are one step for all rooms, so two INITs for the same user, even in
+     * different rooms, cannot both succeed.
+     * @return false if the user is already connected
+     */
+    public synchronized boolean claimUser(GameRoom room, String sessionId, String userId) {
+        if (isUserConnected(userId)) {
+            return false;
+        }
+        room.sessionToUserId.put(sessionId, userId);
+        return true;
+    }
+
+    public boolean isUserConnected(String userId) {
+        for (GameRoom room : rooms.values()) {
+            if (room.sessionToUserId.containsValue(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Collection<GameRoom> getRooms() {
+        return Collections.unmodifiableCollection(rooms.values());
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * @return the sessions that joined a room
+     */
+    public int getSessionCount() {
+        return roomsBySessionId.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("monopoly.rooms.active", this, GameRoomRegistry::getRoomCount)
+                .description("Game rooms, including rooms that keep seats of disconnected players").register(registry);
+        Gauge.builder("monopoly.sessions.active", this, GameRoomRegistry::getSessionCount)
+                .description("Sessions that joined a room").register(registry);
+    }
+}
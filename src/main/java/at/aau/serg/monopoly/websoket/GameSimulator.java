@@ -0,0 +1,191 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Game;
+import model.Player;
+import model.RandomSource;
+import model.cards.CardType;
+import model.properties.BaseProperty;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Spielt komplette Partien nur mit der {@link GameEngine}, ohne Server und Netzwerk,
+ * z.B. um die Auswirkung einer Regeländerung über viele Spiele zu messen oder die Engine allein zu benchmarken.
+ * <p>
+ * Jede Partie bekommt einen eigenen {@link GameRoom} mit eigenem Seed und ist damit reproduzierbar.
+ * Die Partien laufen parallel auf einem {@link ForkJoinPool}, eine Partie selbst bleibt auf einem Thread.
+ */
+public class GameSimulator {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Eigener Zufallsstrom für die Entscheidungen der Spieler, unabhängig von Würfeln und Karten
+    private static final long POLICY_STREAM = 0xC2B2AE3D27D4EB4FL;
+    private static final int MAX_ROLLS_PER_TURN = 3;
+
+    private final GameEngine engine;
+    private final int players;
+    private final int maxTurns;
+    private final int buyPercent;
+
+    /**
+     * @param players    Spieler pro Partie, 2 bis 4
+     * @param maxTurns   Züge, nach denen eine Partie wie mit END_GAME beendet wird (der reichste Spieler gewinnt)
+     * @param buyPercent Wahrscheinlichkeit in Prozent, dass ein Spieler ein freies Grundstück kauft
+     */
+    public GameSimulator(GameEngine engine, int players, int maxTurns, int buyPercent) {
+        if (players < 2) {
+            throw new IllegalArgumentException("At least two players are needed, got " + players);
+        }
+        this.engine = engine;
+        this.players = players;
+        this.maxTurns = maxTurns;
+        this.buyPercent = buyPercent;
+    }
+
+    /**
+     * Ergebnis einer Partie. timedOut ist true, wenn nach maxTurns noch mehr als ein Spieler übrig war.
+     */
+    public record Outcome(long seed, String winnerId, int turns, int commands, boolean timedOut) {
+        /**
+         * @return true, wenn alle anderen Spieler bankrott gegangen sind
+         */
+        public boolean isFinished() {
+            return !timedOut;
+        }
+    }
+
+    /**
+     * Summen über alle Partien eines {@link #run}. finished zählt die Partien, die durch Bankrott entschieden wurden,
+     * winsBySeat alle Siege nach Sitzplatz (p0 beginnt).
+     */
+    public record Summary(int games, int finished, long turns, long commands, int[] winsBySeat, long elapsedNanos) {
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Spielt {@code games} Partien parallel. Die Seeds werden aus {@code seed} abgeleitet, derselbe Aufruf liefert dieselben Partien.
+     */
+    public Summary run(int games, long seed, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long[] seeds = new SplittableRandom(seed).longs(games).toArray();
+        List<Outcome> outcomes = pool.submit(() -> LongStream.of(seeds).parallel().mapToObj(this::play).toList()).join();
+        long elapsed = System.nanoTime() - start;
+
+        int finished = 0;
+        long turns = 0;
+        long commands = 0;
+        int[] winsBySeat = new int[players];
+        for (Outcome outcome : outcomes) {
+            turns += outcome.turns();
+            commands += outcome.commands();
+            if (outcome.isFinished()) {
+                finished++;
+            }
+            if (outcome.winnerId() != null) {
+                winsBySeat[seat(outcome.winnerId())]++;
+            }
+        }
+        return new Summary(games, finished, turns, commands, winsBySeat, elapsed);
+    }
+
+    /**
+     * Spielt eine Partie bis zum Sieg oder bis maxTurns, danach gewinnt der reichste Spieler. Jeder Spieler würfelt, kauft mit buyPercent Wahrscheinlichkeit
+     * das freie Grundstück, auf dem er landet, zieht auf Ereignis- und Gemeinschaftsfeldern eine Karte und beendet den Zug.
+     */
+    public Outcome play(long seed) {
+        GameRoom room = new GameRoom("sim-" + seed, MAPPER, Runnable::run, RandomSource.FAST, seed);
+        Game game = room.getGame();
+        for (int i = 0; i < players; i++) {
+            game.addPlayer("p" + i, "Player " + i);
+        }
+        game.start();
+        SplittableRandom policy = new SplittableRandom(seed ^ POLICY_STREAM);
+
+        int turns = 0;
+        int commands = 0;
+        while (turns < maxTurns) {
+            String playerId = game.getCurrentPlayer().getId();
+            turns++;
+            boolean again = true;
+            for (int rolls = 0; again && rolls < MAX_ROLLS_PER_TURN; rolls++) {
+                List<GameEvent> events = engine.execute(room, new GameCommand.Roll(playerId));
+                commands++;
+                String winner = winnerOf(events);
+                if (winner != null) {
+                    return new Outcome(seed, winner, turns, commands, false);
+                }
+                Player player = game.getPlayerById(playerId).orElse(null);
+                if (player == null || !rolled(events)) {
+                    break;
+                }
+                again = pasch(events) && !player.isInJail();
+
+                GameCommand followUp = followUp(room, player, policy);
+                if (followUp != null) {
+                    events = engine.execute(room, followUp);
+                    commands++;
+                    winner = winnerOf(events);
+                    if (winner != null) {
+                        return new Outcome(seed, winner, turns, commands, false);
+                    }
+                }
+            }
+            if (game.getPlayerById(playerId).isPresent()) {
+                String winner = winnerOf(engine.execute(room, new GameCommand.EndTurn(playerId)));
+                commands++;
+                if (winner != null) {
+                    return new Outcome(seed, winner, turns, commands, false);
+                }
+            }
+        }
+        String winner = winnerOf(engine.execute(room, new GameCommand.EndGame(game.getCurrentPlayer().getId())));
+        return new Outcome(seed, winner, turns, commands + 1, true);
+    }
+
+    private GameCommand followUp(GameRoom room, Player player, SplittableRandom policy) {
+        int position = player.getPosition();
+        CardType cardType = cardField(position);
+        if (cardType != null) {
+            return new GameCommand.DrawCard(player.getId(), cardType);
+        }
+        BaseProperty property = room.getPropertyService().getPropertyByPosition(position);
+        if (property != null && property.getOwnerId() == null
+                && player.getMoney() >= property.getPurchasePrice()
+                && policy.nextInt(100) < buyPercent) {
+            return new GameCommand.BuyProperty(player.getId(), property.getId());
+        }
+        return null;
+    }
+
+    /**
+     * Ereignis- und Gemeinschaftsfelder des Standard-Spielbretts
+     */
+    static CardType cardField(int position) {
+        return switch (position) {
+            case 7, 22, 36 -> CardType.CHANCE;
+            case 2, 17, 33 -> CardType.COMMUNITY_CHEST;
+            default -> null;
+        };
+    }
+
+    private static boolean rolled(List<GameEvent> events) {
+        return !events.isEmpty() && events.get(0) instanceof GameEvent.DiceRolled;
+    }
+
+    private static boolean pasch(List<GameEvent> events) {
+        return events.get(0) instanceof GameEvent.DiceRolled rolled && rolled.pasch();
+    }
+
+    private static String winnerOf(List<GameEvent> events) {
+        return !events.isEmpty() && events.get(events.size() - 1) instanceof GameEvent.GameWon won ? won.winnerId() : null;
+    }
+
+    private static int seat(String playerId) {
+        return Integer.parseInt(playerId.substring(1));
+    }
+}
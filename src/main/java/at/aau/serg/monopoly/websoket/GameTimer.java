@@ -0,0 +1,268 @@
+package at.aau.serg.monopoly.websoket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs delayed tasks for all rooms, e.g. giving up the seat of a player who did not reconnect in time
+ * or ending the turn of a player who stopped playing.
+ * <p>
+ * The tasks sit in a hashed timing wheel: a ring of buckets that one thread visits tick by tick.
+ * A task lands in the bucket of its due tick and remembers how many more turns of the ring it has to wait.
+ * Scheduling and cancelling only touch a queue, so tens of thousands of rooms re-arming their turn timers
+ * cost no more than the few tasks that actually come due. Tasks never run early and at most one tick late.
+ * <p>
+ * A task should only hand its work to the room's mailbox, the timer thread never touches game state itself.
+ * Without Spring (e.g. in unit tests) there is no timer thread, the wheel only turns on {@link #tick()}
+ * or {@link #runPending()}.
+ */
+@Component
+public class GameTimer {
+    private static final Logger logger = Logger.getLogger(GameTimer.class.getName());
+    private static final int WAITING = 0;
+    private static final int IN_WHEEL = 1;
+    private static final int CANCELLED = 2;
+    private static final int EXPIRED = 3;
+
+    @Value("${monopoly.timer.tick-ms:100}")
+    long tickMillis = 100;
+    // Anzahl der Buckets, wird auf die nächste Zweierpotenz aufgerundet
+    @Value("${monopoly.timer.wheel-size:512}")
+    int wheelSize = 512;
+
+    // Neue und abgebrochene Timeouts, der Timer-Thread übernimmt sie beim nächsten Tick
+    private final Queue<WheelTimeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+    // Geplante Timeouts, die weder gelaufen noch aus dem Rad entfernt sind
+    private final AtomicInteger pending = new AtomicInteger();
+    private Bucket[] wheel;
+    private long ticks;
+    // Spätester Tick, in dem ein übernommener Timeout fällig wird
+    private long lastDue;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * Handle of a scheduled task
+     */
+    public interface Timeout {
+        /**
+         * Stops the task if it has not run yet
+         */
+        void cancel();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::turn, "game-timer");
+        worker.setDaemon(true);
+        worker.start();
+        logger.log(Level.INFO, "Started game timer, tick {0} ms", tickMillis);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public Timeout schedule(long delayMillis, Runnable task) {
+        // Aufgerundet, damit ein Task nie zu früh läuft
+        long delayTicks = (Math.max(0, delayMillis) + tickMillis - 1) / tickMillis;
+        WheelTimeout timeout = new WheelTimeout(this, delayTicks, task);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of tasks that are scheduled and neither ran nor were removed after cancel()
+     */
+    int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Turns the wheel until every task scheduled so far is due, only without the timer thread.
+     * Tasks those tasks schedule in turn only run if they are due by then.
+     */
+    void runPending() {
+        createWheel();
+        transferAdded();
+        long end = lastDue;
+        while (ticks <= end) {
+            tick();
+        }
+    }
+
+    private void turn() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        long startNanos = System.nanoTime();
+        while (running) {
+            long sleepNanos = startNanos + (ticks + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            tick();
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick and runs the tasks that came due. Only one thread may call this.
+     */
+    void tick() {
+        createWheel();
+        transferAdded();
+        removeCancelled();
+        wheel[(int) (ticks & (wheel.length - 1))].expire();
+        ticks++;
+    }
+
+    private void createWheel() {
+        if (wheel == null) {
+            wheel = new Bucket[Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1];
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+    }
+
+    private void transferAdded() {
+        WheelTimeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (!timeout.state.compareAndSet(WAITING, IN_WHEEL)) {
+                pending.decrementAndGet();
+                continue;
+            }
+            // Der Bucket des aktuellen Ticks wird gleich abgearbeitet, er gehört also schon zur Verzögerung 0
+            long due = ticks + timeout.delayTicks;
+            lastDue = Math.max(lastDue, due);
+            timeout.rounds = timeout.delayTicks / wheel.length;
+            wheel[(int) (due & (wheel.length - 1))].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        WheelTimeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // Noch nicht im Rad, dann verwirft transferAdded() den Timeout
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void run(WheelTimeout timeout) {
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Timer task failed: {0}", e.getMessage());
+        }
+    }
+
+    private static final class WheelTimeout implements Timeout {
+        private final GameTimer timer;
+        private final long delayTicks;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // Nur vom Timer-Thread benutzt
+        private long rounds;
+        private Bucket bucket;
+        private WheelTimeout prev;
+        private WheelTimeout next;
+
+        private WheelTimeout(GameTimer timer, long delayTicks, Runnable task) {
+            this.timer = timer;
+            this.delayTicks = delayTicks;
+            this.task = task;
+        }
+
+        @Override
+        public void cancel() {
+            // Wiederholen, falls der Timer-Thread den Timeout gerade ins Rad übernimmt
+            while (true) {
+                int current = state.get();
+                if (current == WAITING && state.compareAndSet(WAITING, CANCELLED)) {
+                    return;
+                }
+                if (current == IN_WHEEL && state.compareAndSet(IN_WHEEL, CANCELLED)) {
+                    timer.cancelled.add(this);
+                    return;
+                }
+                if (current == CANCELLED || current == EXPIRED) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts due in one slot of the wheel, so a cancelled timeout is removed in O(1)
+     */
+    private final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        private void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(WheelTimeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void expire() {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                } else if (timeout.state.compareAndSet(IN_WHEEL, EXPIRED)) {
+                    remove(timeout);
+                    pending.decrementAndGet();
+                    run(timeout);
+                }
+                // Abgebrochene Timeouts entfernt removeCancelled() beim nächsten Tick
+                timeout = next;
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package at.aau.serg.monopoly.websoket;
 
-import at.aau.serg.monopoly.firebase.UserStatisticsService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,18 +8,14 @@ import data.*;
 import data.deals.CounterProposalMessage;
 import jakarta.annotation.PostConstruct;
 import lombok.NonNull;
-import model.DiceManager;
-import model.DiceManagerInterface;
 import model.Game;
 import model.Player;
 import model.properties.BaseProperty;
 import data.deals.DealProposalMessage;
 import data.deals.DealResponseMessage;
 import data.deals.DealResponseType;
-import model.properties.HouseableProperty;
-import model.properties.TrainStation;
-import model.properties.Utility;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -28,7 +23,6 @@ import model.ChatMessage;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,48 +37,49 @@ import java.util.logging.Logger;
 public class GameWebSocketHandler extends TextWebSocketHandler {
     private static final String PLAYER_PREFIX = "Player ";
     private final Logger logger = Logger.getLogger(GameWebSocketHandler.class.getName());
-    protected final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-    final Map<String, String> sessionToUserId = new ConcurrentHashMap<>();
-    private final Game game = new Game();
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private DiceManagerInterface diceManager;
-    private final Map<String, Set<String>> kickVotes = new ConcurrentHashMap<>();
     private static final String BOUGHT_PROPERTY_MSG = " bought property ";
     private static final String USERID = "userId";
+    private static final String ROOM_ID = "roomId";
+    private static final String PROTOCOL = "protocol";
+    private static final String DELTA_PROTOCOL = "delta";
+    private static final String RESUMABLE = "resumable";
 
     @Autowired
-    private GameHistoryService gameHistoryService;
-    @Autowired
-    private CardDeckService cardDeckService;
+    GameRoomRegistry roomRegistry;
     @Autowired
-    private PropertyTransactionService propertyTransactionService;
+    SessionOutboxRegistry outboxes;
     @Autowired
-    PropertyService propertyService;
+    private GameHistoryService gameHistoryService;
     @Autowired
     RentCollectionService rentCollectionService;
     @Autowired
     RentCalculationService rentCalculationService;
+    // Wird beim ersten Befehl mit den Miet-Services angelegt, die Engine selbst hält keinen Zustand
+    private volatile GameEngine engine;
     @Autowired
     private CheatService cheatService;
     @Autowired
-    private DealService dealService;
+    GameTimer gameTimer;
     @Autowired
-    private UserStatisticsService userStatisticsService;
+    GameMetrics metrics;
+    // So lange bleibt der Platz eines "resumable" Spielers nach einem Verbindungsabbruch frei
+    @Value("${monopoly.resume.window-ms:30000}")
+    long resumeWindowMillis = 30000;
+    // Zieht der Spieler so lange nicht, endet sein Zug automatisch, 0 schaltet den Zug-Timer ab
+    @Value("${monopoly.turn.timeout-ms:120000}")
+    long turnTimeoutMillis = 120000;
+    // So lange wartet ein Deal auf die Antwort, danach gilt er als abgelehnt, 0 schaltet das ab
+    @Value("${monopoly.deal.timeout-ms:60000}")
+    long dealTimeoutMillis = 60000;
 
     //*******************************************************************************//
     // ------------------ GameWebSocket ------------------ //
     //*******************************************************************************//
-    @PostConstruct
-    public void init() {
-        dealService.setGame(game);
-    }
-
     @Override
     public void afterConnectionEstablished(@NonNull WebSocketSession session) {
-        sessions.add(session);
-
-        diceManager = new DiceManager();
-        diceManager.initializeStandardDices();
+        // The session joins a room as soon as it sends INIT
+        logger.log(Level.INFO, "Session connected: {0}", session.getId());
     }
 
     protected void handleInitMessage(WebSocketSession session, JsonNode jsonNode) {
@@ -92,110 +87,447 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             String userId = jsonNode.get(this.USERID).asText();
             String name = jsonNode.get("name").asText();
 
-            if (userId == null || sessionToUserId.containsValue(userId)) {
+            if (userId == null || roomRegistry.isUserConnected(userId)) {
                 sendMessageToSession(session, createJsonError("Invalid user"));
                 return;
             }
 
-            // Spieler mit Firebase-ID hinzufügen
-            game.addPlayer(userId, name);
-            sessionToUserId.put(session.getId(), userId);
+            // Raum bestimmen, ohne roomId landen alle im Standardraum
+            JsonNode roomNode = jsonNode.get(ROOM_ID);
+            String roomId = roomNode == null || roomNode.isNull() || roomNode.asText().isBlank()
+                    ? GameRoomRegistry.DEFAULT_ROOM_ID
+                    : roomNode.asText();
+            // Optional: Delta-Protokoll statt vollständiger GAME_STATE-Frames
+            JsonNode protocolNode = jsonNode.get(PROTOCOL);
+            boolean useDeltas = protocolNode != null && DELTA_PROTOCOL.equalsIgnoreCase(protocolNode.asText());
+            // Optional: nummerierte Frames und Fortsetzen nach einem Verbindungsabbruch (RESUME)
+            JsonNode resumableNode = jsonNode.get(RESUMABLE);
+            boolean resumable = resumableNode != null && resumableNode.asBoolean();
+
+            // Sofort binden, damit folgende Nachrichten dieser Session in derselben Mailbox landen
+            GameRoom room = roomRegistry.joinRoom(roomId, session);
+            room.getMailbox().execute(() -> runCommand(room, () -> joinRoom(room, session, userId, name, useDeltas, resumable)));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error processing INIT: {0}", e.getMessage()); //bewusst geloggt aktuell
+        }
+    }
+
+    private void joinRoom(GameRoom room, WebSocketSession session, String userId, String name, boolean useDeltas,
+                          boolean resumable) {
+        // Die Prüfung in handleInitMessage lief noch vor der Mailbox, ein zweites INIT kann inzwischen gewonnen haben
+        if (!roomRegistry.claimUser(room, session.getId(), userId)) {
+            sendMessageToSession(session, createJsonError("Invalid user"));
+            roomRegistry.unbindSession(session);
+            roomRegistry.removeIfEmpty(room);
+            return;
+        }
+        // Spieler mit Firebase-ID hinzufügen
+        room.getGame().addPlayer(userId, name);
+        // Ein Spieler, dessen Platz freigehalten wird, kann auch mit INIT statt RESUME zurückkommen
+        GameRoom.AwaySeat away = room.awaySeats.remove(userId);
+        if (away != null) {
+            away.timeout().cancel();
+        }
+        if (resumable) {
+            room.resumableSessionIds.add(session.getId());
+            sendSessionInfo(room, session, room.issueResumeToken(userId), false, false);
+        }
+        if (useDeltas) {
+            room.deltaSessionIds.add(session.getId());
+            sendStateSnapshot(room, session);
+        }
+
+        logger.log(Level.INFO, "Player connected: {0} | Name: {1} | Room: {2}", new Object[]{userId, name, room.getId()}); //bewusst geloggt aktuell
+        broadcastMessage(room, "SYSTEM: " + name + " (" + userId + ") joined the game");
 
-            logger.log(Level.INFO, "Player connected: {0} | Name: {1}", new Object[]{userId, name}); //bewusst geloggt aktuell
-            broadcastMessage("SYSTEM: " + name + " (" + userId + ") joined the game");
+        // Spielstart-Logik anpassen
+        if (room.sessionToUserId.size() >= 2 && room.sessionToUserId.size() <= 4) {
+            startGame(room);
+        }
+
+        broadcastGameState(room);
+    }
 
-            // Spielstart-Logik anpassen
-            if (sessionToUserId.size() >= 2 && sessionToUserId.size() <= 4) {
-                startGame();
+    private void broadcastMessage(GameRoom room, String message) {
+        broadcastFrame(room, new TextMessage(message));
+    }
+
+    /**
+     * Sends the same, already encoded frame to every session of the room.
+     */
+    private void broadcastFrame(GameRoom room, TextMessage frame) {
+        broadcast(room, frame, ReplayBuffer.ALL);
+    }
+
+    /**
+     * Sends full-state frames only to sessions that did not opt into the delta protocol.
+     */
+    private void broadcastFullStateFrames(GameRoom room, TextMessage... frames) {
+        for (TextMessage frame : frames) {
+            broadcast(room, frame, ReplayBuffer.FULL_STATE);
+        }
+    }
+
+    /**
+     * Sends the frame to all sessions of the audience. Resumable sessions get the numbered frame,
+     * which the room keeps for clients that reconnect.
+     */
+    private void broadcast(GameRoom room, TextMessage frame, byte audience) {
+        long start = System.nanoTime();
+        int recipients = 0;
+        TextMessage numbered = room.numberFrame(frame, audience);
+        for (WebSocketSession session : room.sessions) {
+            if (audience != ReplayBuffer.ALL
+                    && (audience == ReplayBuffer.DELTA) != room.deltaSessionIds.contains(session.getId())) {
+                continue;
             }
+            boolean resumable = numbered != null && room.resumableSessionIds.contains(session.getId());
+            sendFrame(room, session, resumable ? numbered : frame);
+            recipients++;
+        }
+        metrics.broadcastSent(recipients, System.nanoTime() - start);
+    }
 
-            broadcastGameState();
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing INIT: {0}", e.getMessage()); //bewusst geloggt aktuell
+    private void sendFrame(GameRoom room, WebSocketSession session, TextMessage frame) {
+        // Langsame Clients werden von der Outbox getrennt und verlassen den Raum über afterConnectionClosed
+        if (!outboxes.send(session, frame) && !session.isOpen()) {
+            room.sessions.remove(session);
         }
     }
 
-    private void broadcastMessage(String message) {
-        for (WebSocketSession session : sessions) {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                } else {
-                    sessions.remove(session);
-                }
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error sending message: {0}", e.getMessage());//bewusst geloggt aktuell
+    void broadcastGameState(GameRoom room) {
+        if (room.isInCommand()) {
+            // Wird einmal am Ende des Befehls gesendet, egal wie oft er hier ankommt
+            room.markGameStateDirty();
+            return;
+        }
+        sendGameState(room);
+    }
+
+    /**
+     * Runs one client command for the room. All GAME_STATE updates requested while it runs
+     * are coalesced into a single GAME_STATE/PLAYER_TURN pair that is sent when it finishes.
+     * If the command changed whose turn it is, the turn timer starts again.
+     */
+    private void runCommand(GameRoom room, Runnable command) {
+        room.beginCommand();
+        try {
+            command.run();
+        } finally {
+            if (room.endCommand() && room.getGame().getCurrentPlayer() != null) {
+                sendGameState(room);
+            }
+            if (!room.isInCommand()) {
+                updateTurnTimer(room);
             }
         }
     }
 
-    void broadcastGameState() {
+    /**
+     * Keeps the turn timer on the current player. It only restarts when the turn passes to someone else,
+     * a player who rolled a pasch keeps the time of the turn.
+     */
+    private void updateTurnTimer(GameRoom room) {
+        Game game = room.getGame();
+        Player current = turnTimeoutMillis > 0 && game.isStarted() && game.getPlayers().size() > 1
+                ? game.getCurrentPlayer() : null;
+        String playerId = current == null ? null : current.getId();
+        if (Objects.equals(playerId, room.getTurnTimerPlayerId())) {
+            return;
+        }
+        if (playerId == null) {
+            room.cancelTurnTimer();
+            return;
+        }
+        long number = room.startTurnTimer(playerId);
+        room.setTurnTimeout(gameTimer.schedule(turnTimeoutMillis,
+                () -> room.getMailbox().execute(() -> runCommand(room, () -> expireTurn(room, number)))));
+    }
+
+    /**
+     * The current player let the time run out, the turn passes on as if the player had sent NEXT_TURN
+     */
+    void expireTurn(GameRoom room, long number) {
+        if (!room.isTurnTimer(number)) {
+            return;
+        }
+        String playerId = room.getTurnTimerPlayerId();
+        room.cancelTurnTimer();
+        if (!room.getGame().isPlayerTurn(playerId)) {
+            return;
+        }
+        logger.log(Level.INFO, "Turn of player {0} timed out in room {1}", new Object[]{playerId, room.getId()});
+        broadcastMessage(room, PLAYER_PREFIX + playerId + " ran out of time, the turn passes on");
+        handleNextTurn(room, null, playerId);
+    }
+
+    private void sendGameState(GameRoom room) {
         try {
-            String gameState = objectMapper.writeValueAsString(game.getPlayerInfo());
-            broadcastMessage("GAME_STATE:" + gameState);
-            broadcastMessage("PLAYER_TURN:" + game.getCurrentPlayer().getId());
+            Game game = room.getGame();
+            broadcastFullStateFrames(room, gameStateFrame(room),
+                    new TextMessage("PLAYER_TURN:" + game.getCurrentPlayer().getId()));
+            broadcastStateDelta(room);
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error broadcasting game state: {0}", e.getMessage());//bewusst geloggt aktuell
         }
     }
 
-    private void sendMessageToSession(WebSocketSession session, String message) {
+    /**
+     * Liefert den GAME_STATE-Frame des Raums. Solange sich am Spielerstand nichts geändert hat,
+     * wird der zuletzt serialisierte Frame wiederverwendet.
+     */
+    private TextMessage gameStateFrame(GameRoom room) throws JsonProcessingException {
+        List<PlayerInfo> snapshot = room.getGame().getPlayerInfo();
+        TextMessage frame = room.cachedGameStateFrame(snapshot);
+        if (frame == null) {
+            frame = new TextMessage("GAME_STATE:" + objectMapper.writeValueAsString(snapshot));
+            room.cacheGameStateFrame(snapshot, frame);
+        }
+        return frame;
+    }
+
+    private void broadcastStateDelta(GameRoom room) throws JsonProcessingException {
+        // Für Delta-Spieler ohne Verbindung werden die Deltas weiter erzeugt, sie bekommen sie beim RESUME nachgeliefert
+        if (room.deltaSessionIds.isEmpty() && !room.hasAwayDeltaSeat()) {
+            return;
+        }
+        Game game = room.getGame();
+        Player current = game.getCurrentPlayer();
+        ObjectNode delta = room.deltaTracker.nextDelta(objectMapper, game.getPlayerInfo(), room.getPropertyService(),
+                current == null ? null : current.getId());
+        if (delta == null) {
+            return;
+        }
+        broadcast(room, new TextMessage(objectMapper.writeValueAsString(delta)), ReplayBuffer.DELTA);
+    }
+
+    private void sendStateSnapshot(GameRoom room, WebSocketSession session) {
         try {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(message));
-            }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error sending message to session {0}: {1}", new Object[]{session.getId(), e.getMessage()});//bewusst geloggt aktuell
+            Game game = room.getGame();
+            Player current = game.getCurrentPlayer();
+            ObjectNode snapshot = room.deltaTracker.snapshot(objectMapper, game.getPlayerInfo(), room.getPropertyService(),
+                    current == null ? null : current.getId());
+            sendMessageToSession(session, objectMapper.writeValueAsString(snapshot));
+        } catch (JsonProcessingException e) {
+            logger.log(Level.SEVERE, "Error serializing state snapshot: {0}", e.getMessage());
         }
     }
 
+    private void sendMessageToSession(WebSocketSession session, String message) {
+        outboxes.send(session, new TextMessage(message));
+    }
+
     @Override
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
-        String userId = sessionToUserId.get(session.getId());
+        outboxes.remove(session);
+        GameRoom room = roomRegistry.getRoomForSession(session.getId());
+        if (room == null) {
+            return;
+        }
+        room.getMailbox().execute(() -> runCommand(room, () -> leaveRoom(room, session)));
+    }
+
+    private void leaveRoom(GameRoom room, WebSocketSession session) {
+        String userId = room.sessionToUserId.get(session.getId());
+        if (userId != null && room.resumableSessionIds.remove(session.getId())
+                && room.getGame().getPlayerById(userId).isPresent()) {
+            keepSeat(room, session, userId);
+            return;
+        }
         if (userId != null) {
-            game.removePlayer(userId);
-            sessionToUserId.remove(session.getId());
-            broadcastMessage("Player left: " + userId + " (Total: " + sessions.size() + ")");
-            broadcastGameState();
-            checkAllPlayersForBankruptcy();
+            room.getGame().removePlayer(userId);
+            room.sessionToUserId.remove(session.getId());
+            broadcastMessage(room, "Player left: " + userId + " (Total: " + room.sessions.size() + ")");
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
             logger.log(Level.INFO, "Player disconnected: {0}", userId);//bewusst geloggt aktuell
         }
-        sessions.remove(session);
+        roomRegistry.unbindSession(session);
+        roomRegistry.removeIfEmpty(room);
+    }
+
+    /**
+     * Keeps the seat of a resumable player for the resume window. The other players notice nothing,
+     * the broadcasts in between are kept so the player gets them on RESUME.
+     */
+    private void keepSeat(GameRoom room, WebSocketSession session, String userId) {
+        boolean delta = room.deltaSessionIds.contains(session.getId());
+        room.sessionToUserId.remove(session.getId());
+        roomRegistry.unbindSession(session);
+        awaitReturn(room, userId, delta);
+        logger.log(Level.INFO, "Player {0} lost the connection, keeping the seat for {1} ms", new Object[]{userId, resumeWindowMillis});
+    }
+
+    private void awaitReturn(GameRoom room, String userId, boolean delta) {
+        GameTimer.Timeout timeout = gameTimer.schedule(resumeWindowMillis,
+                () -> room.getMailbox().execute(() -> runCommand(room, () -> expireSeat(room, userId))));
+        room.awaySeats.put(userId, new GameRoom.AwaySeat(timeout, delta));
+    }
+
+    /**
+     * The rooms recovered from the journal start without sessions. Their players get the resume window
+     * to send INIT again, like after a disconnect, so a room nobody comes back to is removed with its journal.
+     */
+    @PostConstruct
+    void keepRecoveredSeats() {
+        for (GameRoom room : roomRegistry.getRooms()) {
+            room.getMailbox().execute(() -> runCommand(room, () -> keepRecoveredSeats(room)));
+        }
+    }
+
+    private void keepRecoveredSeats(GameRoom room) {
+        for (Player player : room.getGame().getPlayers()) {
+            String userId = player.getId();
+            if (!room.sessionToUserId.containsValue(userId) && !room.awaySeats.containsKey(userId)) {
+                awaitReturn(room, userId, false);
+            }
+        }
+        if (!room.awaySeats.isEmpty()) {
+            logger.log(Level.INFO, "Keeping {0} seats of recovered room {1} for {2} ms",
+                    new Object[]{room.awaySeats.size(), room.getId(), resumeWindowMillis});
+        }
+        roomRegistry.removeIfEmpty(room);
+    }
+
+    /**
+     * The player did not come back in time and leaves the game like on a normal disconnect
+     */
+    void expireSeat(GameRoom room, String userId) {
+        if (room.awaySeats.remove(userId) == null) {
+            return;
+        }
+        room.resumeTokens.values().remove(userId);
+        if (room.getGame().getPlayerById(userId).isPresent()) {
+            room.getGame().removePlayer(userId);
+            broadcastMessage(room, "Player left: " + userId + " (Total: " + room.sessions.size() + ")");
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
+            logger.log(Level.INFO, "Player did not reconnect: {0}", userId);
+        }
+        roomRegistry.removeIfEmpty(room);
+    }
+
+    /**
+     * Takes a kept seat over with the token from the SESSION message. The client gets the frames it missed
+     * after lastSeq, or the current state if they are no longer kept.
+     */
+    protected void handleResumeMessage(WebSocketSession session, JsonNode jsonNode) {
+        String roomId = jsonNode.path(ROOM_ID).asText(GameRoomRegistry.DEFAULT_ROOM_ID);
+        GameRoom room = roomRegistry.rejoinRoom(roomId, session);
+        if (room == null) {
+            sendMessageToSession(session, createJsonError("Resume failed, send INIT"));
+            return;
+        }
+        String token = jsonNode.path("token").asText();
+        long lastSeq = jsonNode.path("lastSeq").asLong(-1);
+        boolean useDeltas = DELTA_PROTOCOL.equalsIgnoreCase(jsonNode.path(PROTOCOL).asText());
+        room.getMailbox().execute(() -> runCommand(room, () -> resumeSeat(room, session, token, lastSeq, useDeltas)));
+    }
+
+    private void resumeSeat(GameRoom room, WebSocketSession session, String token, long lastSeq, boolean useDeltas) {
+        String userId = room.resumeTokens.get(token);
+        if (userId == null || room.getGame().getPlayerById(userId).isEmpty()) {
+            sendMessageToSession(session, createJsonError("Resume failed, send INIT"));
+            roomRegistry.unbindSession(session);
+            roomRegistry.removeIfEmpty(room);
+            return;
+        }
+        GameRoom.AwaySeat away = room.awaySeats.remove(userId);
+        if (away != null) {
+            away.timeout().cancel();
+        } else {
+            replaceOldSession(room, userId);
+        }
+
+        room.sessionToUserId.put(session.getId(), userId);
+        room.resumableSessionIds.add(session.getId());
+        if (useDeltas) {
+            room.deltaSessionIds.add(session.getId());
+        }
+        List<TextMessage> missed = room.getReplayBuffer().since(lastSeq, useDeltas);
+        sendSessionInfo(room, session, room.issueResumeToken(userId), true, missed == null);
+        if (missed != null) {
+            for (TextMessage frame : missed) {
+                sendFrame(room, session, frame);
+            }
+        } else if (useDeltas) {
+            sendStateSnapshot(room, session);
+        } else if (room.getGame().getCurrentPlayer() != null) {
+            try {
+                sendFrame(room, session, gameStateFrame(room));
+                sendMessageToSession(session, "PLAYER_TURN:" + room.getGame().getCurrentPlayer().getId());
+            } catch (JsonProcessingException e) {
+                logger.log(Level.SEVERE, "Error serializing game state: {0}", e.getMessage());
+            }
+        }
+        logger.log(Level.INFO, "Player {0} resumed in room {1}, {2} frames replayed",
+                new Object[]{userId, room.getId(), missed == null ? "no" : missed.size()});
+    }
+
+    /**
+     * The old connection may still look open (e.g. the phone switched networks), the new one takes the seat over
+     */
+    private void replaceOldSession(GameRoom room, String userId) {
+        WebSocketSession old = findSessionByPlayerId(room, userId);
+        room.sessionToUserId.values().remove(userId);
+        if (old == null) {
+            return;
+        }
+        room.resumableSessionIds.remove(old.getId());
+        roomRegistry.unbindSession(old);
+        try {
+            old.close(CloseStatus.POLICY_VIOLATION.withReason("Resumed on another connection"));
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Closing replaced session failed: {0}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tells a resumable client its token and the number of the last broadcast frame
+     */
+    private void sendSessionInfo(GameRoom room, WebSocketSession session, String token, boolean resumed, boolean snapshot) {
+        ObjectNode info = objectMapper.createObjectNode();
+        info.put("type", "SESSION");
+        info.put("token", token);
+        info.put("seq", room.getFrameSequence());
+        info.put("resumed", resumed);
+        info.put("snapshot", snapshot);
+        sendMessageToSession(session, info.toString());
     }
 
     //*******************************************************************************//
     // ------------------ WebSocketGameActions  ------------------ //
     //*******************************************************************************//
-    private void startGame() {
+    private void startGame(GameRoom room) {
         try {
-            String gameState = objectMapper.writeValueAsString(game.getPlayerInfo());
-            broadcastMessage("GAME_STATE:" + gameState);
-            broadcastMessage("Game started! " + sessions.size() + " players are connected.");
-            logger.log(Level.INFO, "Game started with {0} players!", sessions.size());//bewusst geloggt aktuell
+            Game game = room.getGame();
+            broadcastFullStateFrames(room, gameStateFrame(room));
+            broadcastMessage(room, "Game started! " + room.sessions.size() + " players are connected.");
+            logger.log(Level.INFO, "Game started with {0} players in room {1}, seed {2}!", new Object[]{room.sessions.size(), room.getId(), String.valueOf(room.getSeed())});//bewusst geloggt aktuell
             game.start();
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error sending game state: {0}", e.getMessage());//bewusst geloggt aktuell
         }
     }
 
-    private void handleTaxPayment(String payload, String userId) {
+    private void handleTaxPayment(GameRoom room, JsonNode json, String payload, String userId) {
         try {
-            TaxPaymentMessage taxMsg = objectMapper.readValue(payload, TaxPaymentMessage.class);
+            TaxPaymentMessage taxMsg = objectMapper.treeToValue(json, TaxPaymentMessage.class);
             logger.info(PLAYER_PREFIX + taxMsg.getPlayerId()
                     + " has to pay taxes"); //bewusst geloggt aktuell
 
             if (taxMsg.getPlayerId().equals(userId)) {
-                game.updatePlayerMoney(userId, -taxMsg.getAmount());
-                broadcastMessage(payload);
-                broadcastGameState();
-                checkAllPlayersForBankruptcy();
+                room.getGame().updatePlayerMoney(userId, -taxMsg.getAmount());
+                broadcastMessage(room, payload);
+                broadcastGameState(room);
+                checkAllPlayersForBankruptcy(room);
             }
         } catch (Exception e) {
             logger.log(Level.WARNING, "Error processing tax payment message: {0}", e.getMessage());//bewusst geloggt aktuell
         }
     }
 
-    private void handleManualRoll(String payload, String userId, WebSocketSession session) {
+    private void handleManualRoll(GameRoom room, String payload, String userId, WebSocketSession session) {
         try {
             int manualRoll = Integer.parseInt(payload.substring("MANUAL_ROLL:".length()));
             if (manualRoll < 1 || manualRoll > 39) {
@@ -207,15 +539,15 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
             DiceRollMessage drm = new DiceRollMessage(userId, manualRoll, true, false);
             String json = objectMapper.writeValueAsString(drm);
-            broadcastMessage(json);
+            broadcastMessage(room, json);
 
 
-            if (game.updatePlayerPosition(manualRoll, userId)) {
-                broadcastMessage(PLAYER_PREFIX + userId + " passed GO and collected €200");
+            if (room.getGame().updatePlayerPosition(manualRoll, userId)) {
+                broadcastMessage(room, PLAYER_PREFIX + userId + " passed GO and collected €200");
             }
 
-            broadcastGameState();
-            checkAllPlayersForBankruptcy();
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
         } catch (NumberFormatException e) {
             sendMessageToSession(session, createJsonError("Invalid manual roll format. Please provide a number between 1 and 39."));
         } catch (JsonProcessingException e) {
@@ -223,84 +555,44 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void handleUpdateMoney(String payload, String userId) {
+    private void handleUpdateMoney(GameRoom room, String payload, String userId) {
         try {
             int amount = Integer.parseInt(payload.substring("UPDATE_MONEY:".length()));
-            game.updatePlayerMoney(userId, amount);
-            broadcastGameState();
-            checkAllPlayersForBankruptcy();
+            room.getGame().updatePlayerMoney(userId, amount);
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
         } catch (NumberFormatException e) {
             logger.log(Level.SEVERE, "Invalid money update format: {0}", sanitizeForLog(payload));//bewusst geloggt aktuell
         }
     }
 
-    private void handleDiceRoll(WebSocketSession session, String userId) throws JsonProcessingException {
-        if (!game.isPlayerTurn(userId)) {
-            sendMessageToSession(session, createJsonError("Not your turn!"));
-            return;
-        }
-        Player player = game.getPlayerById(userId).orElse(null);
-        if (player == null) return;
-
-        if (player.isInJail()) {
-            sendMessageToSession(session,
-                    createJsonError("You are in jail and cannot roll. End your turn."));
-            return;
-        }
-
-        if (player.hasRolledThisTurn()) {
-            sendMessageToSession(session, createJsonError("You already rolled this turn."));
-            return;
-        }
-
-        int roll = diceManager.rollDices();
-        boolean isPasch = diceManager.isPasch();
-        if (logger.isLoggable(Level.INFO)) {
+    private void handleDiceRoll(GameRoom room, WebSocketSession session, String userId) throws JsonProcessingException {
+        List<GameEvent> events = new ArrayList<>(2);
+        boolean rolled = engine().roll(room, userId, events);
+        if (rolled && logger.isLoggable(Level.INFO)) {
+            GameEvent.DiceRolled roll = (GameEvent.DiceRolled) events.get(0);
             logger.info(String.format("Spieler %s hat geworfen: %s | Pasch: %s",
                     userId,
-                    diceManager.getLastRollValues().toString(),
-                    isPasch));
+                    room.getDiceManager().getLastRollValues(),
+                    roll.pasch()));
         }
-        player.setHasRolledThisTurn(!isPasch);
-        logger.log(Level.INFO, "Player {0} rolled {1}", new Object[]{userId, roll});//bewusst geloggt aktuell
-
-        DiceRollMessage drm = new DiceRollMessage(userId, roll, false, isPasch);
-        String json = objectMapper.writeValueAsString(drm);
-        broadcastMessage(json);
+        publish(room, session, events);
 
         // Update Position and broadcast Game-State:
-        if (game.updatePlayerPosition(roll, userId)) {
-            broadcastMessage(PLAYER_PREFIX + userId + " passed GO and collected €200");
+        if (rolled) {
+            room.getGame().getPlayerById(userId).ifPresent(player -> handlePlayerLanding(room, player));
         }
-        handlePlayerLanding(player);
     }
 
-    private void handleBuyProperty(WebSocketSession session, String userId, String payload) {
+    private void handleBuyProperty(GameRoom room, WebSocketSession session, String userId, String payload) {
         try {
             int propertyId = Integer.parseInt(payload.substring("BUY_PROPERTY:".length()));
-
-            Optional<Player> playerOpt = game.getPlayerById(userId);
-            if (playerOpt.isEmpty()) {
-                sendMessageToSession(session, createJsonError("Player not found."));
-                return;
-            }
-            Player player = playerOpt.get();
-
-            if (propertyTransactionService.canBuyProperty(player, propertyId)) {
-                boolean success = propertyTransactionService.buyProperty(player, propertyId);
-                if (success) {
-                    broadcastMessage(createJsonMessage(PLAYER_PREFIX + userId + BOUGHT_PROPERTY_MSG + propertyId));
-                    broadcastGameState();
-                    checkAllPlayersForBankruptcy();
-                } else {
-                    sendMessageToSession(session, createJsonError("Failed to buy property due to server error."));
-                }
-            } else {
-                if (!game.isPlayerTurn(userId)) {
-                    sendMessageToSession(session, createJsonError("Cannot buy property - it's not your turn."));
-                } else {
-                    sendMessageToSession(session, createJsonError("Cannot buy property (insufficient funds or already owned)."));
-                }
+            List<GameEvent> events = new ArrayList<>(1);
+            boolean bought = engine().buyProperty(room, userId, propertyId, events);
+            publish(room, session, events);
+            if (bought) {
+                broadcastGameState(room);
+                checkAllPlayersForBankruptcy(room);
             }
         } catch (NumberFormatException e) {
             sendMessageToSession(session, createJsonError("Invalid property ID format."));
@@ -309,52 +601,59 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void handleSellProperty(WebSocketSession session, String payload, String userId) {
+    private void handleSellProperty(GameRoom room, WebSocketSession session, String payload, String userId) {
         try {
-            int propertyId;
-            // Check if the payload is in JSON format
-            if (payload.contains("\"type\":\"SELL_PROPERTY\"")) {
-                JsonNode jsonNode = objectMapper.readTree(payload);
-                propertyId = jsonNode.get("propertyId").asInt();
-            } else {
-                // Handle string format
-                propertyId = Integer.parseInt(payload.substring("SELL_PROPERTY:".length()));
-            }
+            // Handle string format
+            int propertyId = Integer.parseInt(payload.substring("SELL_PROPERTY:".length()));
+            sellProperty(room, session, propertyId, userId);
+        } catch (NumberFormatException e) {
+            sendMessageToSession(session, createJsonError("Invalid property ID format."));
+        }
+    }
 
-            Optional<Player> playerOpt = game.getPlayerById(userId);
+    private void handleSellProperty(GameRoom room, WebSocketSession session, JsonNode json, String userId) {
+        JsonNode propertyIdNode = json.get("propertyId");
+        if (propertyIdNode == null) {
+            sendMessageToSession(session, createJsonError("Server error handling sell property request."));
+            return;
+        }
+        sellProperty(room, session, propertyIdNode.asInt(), userId);
+    }
+
+    private void sellProperty(GameRoom room, WebSocketSession session, int propertyId, String userId) {
+        try {
+            Optional<Player> playerOpt = room.getGame().getPlayerById(userId);
             if (playerOpt.isEmpty()) {
                 sendMessageToSession(session, createJsonError("Player not found."));
                 return;
             }
             Player player = playerOpt.get();
 
-            if (propertyTransactionService.sellProperty(player, propertyId)) {
-                broadcastMessage(createJsonMessage(PLAYER_PREFIX + userId + " sold property " + propertyId));
-                broadcastGameState();
-                checkAllPlayersForBankruptcy();
+            if (room.getPropertyTransactionService().sellProperty(player, propertyId)) {
+                broadcastMessage(room, createJsonMessage(PLAYER_PREFIX + userId + " sold property " + propertyId));
+                broadcastGameState(room);
+                checkAllPlayersForBankruptcy(room);
             } else {
                 sendMessageToSession(session, createJsonError("Cannot sell property (not owned by player)."));
             }
-        } catch (NumberFormatException e) {
-            sendMessageToSession(session, createJsonError("Invalid property ID format."));
         } catch (Exception e) {
             sendMessageToSession(session, createJsonError("Server error handling sell property request."));
         }
     }
 
-    void handleCheatMessage(String payload, String userId) throws JsonProcessingException {
-        CheatCodeMessage cheatCodeMessage = objectMapper.readValue(payload, CheatCodeMessage.class);
+    void handleCheatMessage(GameRoom room, CheatCodeMessage cheatCodeMessage, String userId) {
         String cheatCode = cheatCodeMessage.getMessage();
+        Game game = room.getGame();
         Optional<Player> optionalPlayer = game.getPlayerById(userId);
         if (optionalPlayer.isPresent()) {
             Player player = optionalPlayer.get();
             try {
                 int amount = cheatService.getAmount(cheatCode, player.getMoney());
                 game.updatePlayerMoney(userId, amount);
-                broadcastGameState();
-                checkAllPlayersForBankruptcy();
+                broadcastGameState(room);
+                checkAllPlayersForBankruptcy(room);
             } catch (NumberFormatException e) {
-                logger.log(Level.SEVERE, "Invalid money update format: {0}", sanitizeForLog(payload));
+                logger.log(Level.SEVERE, "Invalid money update format: {0}", sanitizeForLog(String.valueOf(cheatCode)));
             }
         } else {
             logger.log(Level.WARNING, "Player not found for cheat code handling (userId={0})", userId);
@@ -364,7 +663,8 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     /**
      * Behandelt die Beendigung eines Spiels und speichert die Spielhistorie
      */
-    private void handleEndGame() {
+    private void handleEndGame(GameRoom room) {
+        Game game = room.getGame();
         try {
             String winnerId = game.determineWinner();
 
@@ -376,20 +676,12 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             gameHistoryService.saveGameHistoryForAllPlayers(
                     game.getPlayers(),
                     durationMinutes,
-                    winnerId
+                    winnerId,
+                    room.getSeed()
             );
 
-
-            // Stats für beteiligte Spieler aktualisieren
-            List<String> playerIds = new ArrayList<>();
-            for (Player player : game.getPlayers()) {
-                playerIds.add(player.getId());
-            }
-            userStatisticsService.updateStatsForUsers(playerIds);
-
-
             // Informiere alle Spieler über das Spielende
-            broadcastMessage(createJsonMessage("Das Spiel wurde beendet. Der Gewinner ist " +
+            broadcastMessage(room, createJsonMessage("Das Spiel wurde beendet. Der Gewinner ist " +
                     game.getPlayerById(winnerId).map(Player::getName).orElse("unbekannt")));
 
             logger.info("Spiel beendet und Spielhistorie gespeichert");//bewusst geloggt aktuell
@@ -402,17 +694,17 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             String clearChatJson = objectMapper.writeValueAsString(clearChatMessage);
 
             // Senden der Nachricht an alle Clients
-            broadcastMessage(clearChatJson);
+            broadcastMessage(room, clearChatJson);
 
             logger.info("Sent chat clear signal to all clients");
 
             // Send a message to the client: Server is setting up a new game
             ObjectNode resetMsg = objectMapper.createObjectNode();
             resetMsg.put("type", "RESET");
-            broadcastMessage(objectMapper.writeValueAsString(resetMsg));
+            broadcastMessage(room, objectMapper.writeValueAsString(resetMsg));
 
             // Clear out the game state
-            resetGame();
+            resetGame(room);
 
 
         } catch (JsonProcessingException e) {
@@ -421,77 +713,70 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     }
 
-    private void resetGame() {
-        game.getPlayers().clear();
-
-        // New INITs will now be accepted
-        sessionToUserId.clear();
-
-        diceManager = new DiceManager();
-        diceManager.initializeStandardDices();
-
-        // Wieder JSON init für neue Runde
+    private void resetGame(GameRoom room) {
+        // New INITs will now be accepted, dice and properties are set up again for the next round
         try {
-            propertyService.init();
+            room.reset();
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Failed to reset property state: {0}", e.getMessage());
         }
     }
 
-    void handleGiveUpFromClient(WebSocketSession session, JsonNode jsonNode) {
+    void handleGiveUpFromClient(GameRoom room, WebSocketSession session, JsonNode jsonNode) {
         String quittingUserId = jsonNode.get(USERID).asText();
 
-        if (!game.isPlayerTurn(quittingUserId)) {
+        if (!room.getGame().isPlayerTurn(quittingUserId)) {
             sendMessageToSession(session,
                     createJsonError("You can only give up on your turn."));
             return;
         }
 
         logger.log(Level.INFO, "Player {0} has given up", quittingUserId);
-        processPlayerGiveUp(quittingUserId, 0,0);
+        processPlayerGiveUp(room, quittingUserId, 0,0);
     }
 
 
     // Helper method to handle giveUp
-    public void processPlayerGiveUp(String quittingUserId, int durationMinutes, int endMoney) {
-
+    public void processPlayerGiveUp(GameRoom room, String quittingUserId, int durationMinutes, int endMoney) {
         //mark player as looser for firebase
-        gameHistoryService.markPlayerAsLoser(quittingUserId, durationMinutes , endMoney);
+        gameHistoryService.markPlayerAsLoser(quittingUserId, durationMinutes , endMoney, room.getSeed());
 
         //handle give up in game logic
-        game.giveUp(quittingUserId);
+        List<GameEvent> events = new ArrayList<>(2);
+        engine().giveUp(room, quittingUserId, durationMinutes, endMoney, events);
 
         // Broadcast a GIVE_UP message
         try {
             GiveUpMessage giveUpMsg = new GiveUpMessage(quittingUserId);
             String json = objectMapper.writeValueAsString(giveUpMsg);
-            broadcastMessage(json);
+            broadcastMessage(room, json);
         } catch (JsonProcessingException e) {
             logger.log(Level.SEVERE, "Error serializing GIVE_UP for {0}: {1}",
                     new Object[]{ quittingUserId, e.getMessage() });
         }
 
         // Do we have a winner already?
-        if (game.getPlayers().size() == 1) {
-            String winnerId = game.getPlayers().get(0).getId();
+        if (events.get(events.size() - 1) instanceof GameEvent.GameWon won) {
             try {
-                HasWonMessage win = new HasWonMessage(winnerId);
+                HasWonMessage win = new HasWonMessage(won.winnerId());
                 String winJson = objectMapper.writeValueAsString(win);
-                broadcastMessage(winJson);
+                broadcastMessage(room, winJson);
             } catch (JsonProcessingException e) {
                 logger.log(Level.SEVERE, "Error serializing HAS_WON: {0}", e.getMessage());
             }
             // Wrap up the game
-            handleEndGame();
+            handleEndGame(room);
             return;
         }
 
-        broadcastGameState();
-        checkAllPlayersForBankruptcy();
+        broadcastGameState(room);
+        checkAllPlayersForBankruptcy(room);
     }
 
-    private void handleKickVote(WebSocketSession session, String payload, String voterId) {
+    private void handleKickVote(GameRoom room, WebSocketSession session, String payload, String voterId) {
         String targetName = payload.substring("KICK ".length()).trim();
+        Game game = room.getGame();
+        Map<String, Set<String>> kickVotes = room.kickVotes;
 
         Optional<Player> targetOpt = game.getPlayers().stream()
                 .filter(p -> p.getName().equals(targetName))
@@ -520,74 +805,81 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         int totalPlayers = game.getPlayers().size();
 
         // Broadcast:
-        broadcastMessage("SYSTEM: " + voterName
+        broadcastMessage(room, "SYSTEM: " + voterName
                 + " voted to kick " + targetName
                 + " (" + votesFor + "/" + totalPlayers + ")");
 
         // Wenn mehr als 50% der Spieler voten -> GIVE_UP = KICK
         if (votesFor > totalPlayers / 2.0) {
-            processPlayerGiveUp(targetId, 0, 0);
+            processPlayerGiveUp(room, targetId, 0, 0);
             kickVotes.remove(targetId);
         }
     }
 
 
-    private void handlePlayerLanding(Player player) {
+    private void handlePlayerLanding(GameRoom room, Player player) {
         try {
+            List<GameEvent> events = new ArrayList<>(2);
+            engine().land(room, player, events);
+            publish(room, null, events);
 
-            int position = player.getPosition();
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error handling player landing: {0}", e.getMessage());
+        }
+    }
 
-            // Check for tax squares
-            if (position == 30) {
-                game.sendToJail(player.getId());
-                broadcastMessage(PLAYER_PREFIX + player.getId() + " goes to jail!");
-            }
-            else if (position == 4) {  // Einkommensteuer
-                game.updatePlayerMoney(player.getId(), -200);  // Deduct money first
-                TaxPaymentMessage taxMsg = new TaxPaymentMessage(player.getId(), 200, "EINKOMMENSTEUER");
-                String jsonTax = objectMapper.writeValueAsString(taxMsg);
-                broadcastMessage(jsonTax);
-            } else if (position == 38) {  // Zusatzsteuer
-                game.updatePlayerMoney(player.getId(), -100);  // Deduct money first
-                TaxPaymentMessage taxMsg = new TaxPaymentMessage(player.getId(), 100, "ZUSATZSTEUER");
-                String jsonTax = objectMapper.writeValueAsString(taxMsg);
-                broadcastMessage(jsonTax);
-            }
-            // Check for property and collect rent if applicable
-            BaseProperty property = propertyService.getPropertyByPosition(position);
-            if (property != null) {
-                // Get the property owner first
-                Player owner = game.getPlayerById(property.getOwnerId()).orElse(null);
-                if (owner != null) {
-                    // Calculate rent amount
-                    int rentAmount = rentCalculationService.calculateRent(property, owner, player);
-
-                    // Create and broadcast rent payment message
-                    RentPaymentMessage rentMsg = new RentPaymentMessage(
-                            player.getId(),
-                            owner.getId(),
-                            property.getId(),
-                            property.getName(),
-                            rentAmount
-                    );
-                    String jsonRent = objectMapper.writeValueAsString(rentMsg);
-                    broadcastMessage(jsonRent);
-
-                    // Now try to collect the rent
-                    boolean rentCollected = rentCollectionService.collectRent(player, property, owner);
-                    if (rentCollected) {
-                        logger.log(Level.INFO, "Rent of {0} collected from player {1} for property {2}",
-                                new Object[]{rentAmount, player.getId(), property.getName()});
-                    } else {
-                        logger.warning("Failed to collect rent for property " + property.getName());
-                    }
+    /**
+     * Die Regeln liegen in der {@link GameEngine}, sie benutzt die Miet-Services dieses Handlers
+     */
+    GameEngine engine() {
+        GameEngine current = engine;
+        if (current == null) {
+            current = new GameEngine(rentCalculationService, rentCollectionService);
+            engine = current;
+        }
+        return current;
+    }
+
+    /**
+     * Übersetzt die Ereignisse der {@link GameEngine} in die Nachrichten, die die Clients schon kennen.
+     * Abgelehnte Befehle gehen nur an die Session, die sie geschickt hat.
+     */
+    private void publish(GameRoom room, WebSocketSession session, List<GameEvent> events) throws JsonProcessingException {
+        for (GameEvent event : events) {
+            if (event instanceof GameEvent.Rejected rejected) {
+                sendMessageToSession(session, createJsonError(rejected.reason()));
+            } else if (event instanceof GameEvent.DiceRolled rolled) {
+                logger.log(Level.INFO, "Player {0} rolled {1}", new Object[]{rolled.playerId(), rolled.roll()});//bewusst geloggt aktuell
+                DiceRollMessage drm = new DiceRollMessage(rolled.playerId(), rolled.roll(), false, rolled.pasch());
+                broadcastMessage(room, objectMapper.writeValueAsString(drm));
+            } else if (event instanceof GameEvent.PassedGo passed) {
+                broadcastMessage(room, PLAYER_PREFIX + passed.playerId() + " passed GO and collected €200");
+            } else if (event instanceof GameEvent.SentToJail jailed) {
+                broadcastMessage(room, PLAYER_PREFIX + jailed.playerId() + " goes to jail!");
+            } else if (event instanceof GameEvent.TaxPaid tax) {
+                TaxPaymentMessage taxMsg = new TaxPaymentMessage(tax.playerId(), tax.amount(), tax.taxType());
+                broadcastMessage(room, objectMapper.writeValueAsString(taxMsg));
+            } else if (event instanceof GameEvent.RentCharged rent) {
+                RentPaymentMessage rentMsg = new RentPaymentMessage(rent.playerId(), rent.ownerId(),
+                        rent.propertyId(), rent.propertyName(), rent.amount());
+                broadcastMessage(room, objectMapper.writeValueAsString(rentMsg));
+                if (rent.collected()) {
+                    logger.log(Level.INFO, "Rent of {0} collected from player {1} for property {2}",
+                            new Object[]{rent.amount(), rent.playerId(), rent.propertyName()});
+                } else {
+                    logger.warning("Failed to collect rent for property " + rent.propertyName());
                 }
+            } else if (event instanceof GameEvent.CardDrawn drawn) {
+                DrawnCardMessage reply = new DrawnCardMessage(drawn.playerId(), drawn.cardType().name(), drawn.card());
+                sendMessageToSession(session, objectMapper.writeValueAsString(reply));
+            } else if (event instanceof GameEvent.PropertyBought bought) {
+                broadcastMessage(room, createJsonMessage(PLAYER_PREFIX + bought.playerId() + BOUGHT_PROPERTY_MSG + bought.propertyId()));
+            } else if (event instanceof GameEvent.ReleasedFromJail released) {
+                broadcastMessage(room, PLAYER_PREFIX + released.playerId() + " is released from jail!");
             }
-
-            broadcastGameState();
-            checkAllPlayersForBankruptcy();
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error handling player landing: {0}", e.getMessage());
+            // Zugwechsel und Kontostände erfahren die Clients über GAME_STATE
         }
     }
 
@@ -597,37 +889,11 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     // ------------------ WebSocketHelper  ------------------ //
     //*******************************************************************************//
 
-    // Helper method to calculate the value of all owned properties
-    private int sumLiquidationValueOfOwnedProperties(String playerId) {
-        int total = 0;
-
-        // Houseable properties
-        for (HouseableProperty p : propertyService.getHouseableProperties()) {
-            if (playerId.equals(p.getOwnerId())) {
-                total += p.getPurchasePrice() / 2;
-            }
-        }
-        // Train stations
-        for (TrainStation ts : propertyService.getTrainStations()) {
-            if (playerId.equals(ts.getOwnerId())) {
-                total += ts.getPurchasePrice() / 2;
-            }
-        }
-        // Utilities
-        for (Utility u : propertyService.getUtilities()) {
-            if (playerId.equals(u.getOwnerId())) {
-                total += u.getPurchasePrice() / 2;
-            }
-        }
-
-        return total;
-    }
-
-    private WebSocketSession findSessionByPlayerId(String playerId) {
-        for (Map.Entry<String, String> entry : sessionToUserId.entrySet()) {
+    private WebSocketSession findSessionByPlayerId(GameRoom room, String playerId) {
+        for (Map.Entry<String, String> entry : room.sessionToUserId.entrySet()) {
             if (entry.getValue().equals(playerId)) {
                 String sessionId = entry.getKey();
-                for (WebSocketSession session : sessions) {
+                for (WebSocketSession session : room.sessions) {
                     if (session.getId().equals(sessionId)) {
                         return session;
                     }
@@ -638,37 +904,33 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     }
 
     // Helper method to check if any player is bankrupt
-    private void checkAllPlayersForBankruptcy() {
-        // Copy of the players list
-        List<Player> snapshot = new ArrayList<>(game.getPlayers());
-
-        for (Player p : snapshot) {
+    void checkAllPlayersForBankruptcy(GameRoom room) {
+        Game game = room.getGame();
+        // Eigene Kopie, GIVE_UP verändert die Spielerliste
+        for (Player p : engine().findBankruptPlayers(room)) {
+            if (!game.getPlayers().contains(p)) {
+                continue; // schon durch einen verschachtelten GIVE_UP entfernt
+            }
             String pid = p.getId();
+            int netWorth = GameEngine.netWorth(room.getPropertyService(), p);
 
-            // Net worth: cash + sum(property)
-            int cash = p.getMoney();
-            int assets = sumLiquidationValueOfOwnedProperties(pid);
-            int netWorth = cash + assets;
-
-            if (netWorth <= 0) {
-                logger.log(Level.INFO, "Player {0} is bankrupt (net worth {1}). Forcing GIVE_UP.",
-                        new Object[]{ pid, netWorth });
-
-                // Broadcast an IS_BANKRUPT
-                try {
-                    ObjectNode bankruptNotice = objectMapper.createObjectNode();
-                    bankruptNotice.put("type", "IS_BANKRUPT");
-                    bankruptNotice.put(USERID, pid);
-                    broadcastMessage(objectMapper.writeValueAsString(bankruptNotice));
-                } catch (JsonProcessingException e) {
-                    logger.log(Level.SEVERE, "Error serializing IS_BANKRUPT for {0}: {1}",
-                            new Object[]{ pid, e.getMessage() });
-                }
+            logger.log(Level.INFO, "Player {0} is bankrupt (net worth {1}). Forcing GIVE_UP.",
+                    new Object[]{ pid, netWorth });
 
-                int playedDuration = game.getDurationPlayed();
-                // Process GIVE_UP
-                processPlayerGiveUp(pid, playedDuration, p.getMoney());
+            // Broadcast an IS_BANKRUPT
+            try {
+                ObjectNode bankruptNotice = objectMapper.createObjectNode();
+                bankruptNotice.put("type", "IS_BANKRUPT");
+                bankruptNotice.put(USERID, pid);
+                broadcastMessage(room, objectMapper.writeValueAsString(bankruptNotice));
+            } catch (JsonProcessingException e) {
+                logger.log(Level.SEVERE, "Error serializing IS_BANKRUPT for {0}: {1}",
+                        new Object[]{ pid, e.getMessage() });
             }
+
+            int playedDuration = game.getDurationPlayed();
+            // Process GIVE_UP
+            processPlayerGiveUp(room, pid, playedDuration, p.getMoney());
         }
     }
 
@@ -703,274 +965,414 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     //*******************************************************************************//
     // ------------------ MessageParser  ------------------ //
     //*******************************************************************************//
+    @FunctionalInterface
+    private interface JsonCommand {
+        void handle(GameWebSocketHandler handler, GameRoom room, WebSocketSession session,
+                    String userId, JsonNode json, String payload) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface TextCommand {
+        void handle(GameWebSocketHandler handler, GameRoom room, WebSocketSession session,
+                    String userId, String payload) throws Exception;
+    }
+
+    // Befehle, die nur einen Raum brauchen (userId kann fehlen)
+    private static final Map<String, JsonCommand> ROOM_COMMANDS = new HashMap<>();
+    // Befehle eines registrierten Spielers, nach "type" gesucht
+    private static final Map<String, JsonCommand> PLAYER_COMMANDS = new HashMap<>();
+    // Alte Klartext-Befehle wie "Roll" oder "BUY_PROPERTY:12"
+    private static final PrefixTrie<TextRoute> TEXT_COMMANDS = new PrefixTrie<>();
+
+    /**
+     * A plain-text command with its canonical name, the text sent by the client may differ in case
+     */
+    private record TextRoute(String name, TextCommand command) {
+    }
+
+    private static void putExactText(String name, TextCommand command) {
+        TEXT_COMMANDS.putExact(name, new TextRoute(name, command));
+    }
+
+    private static void putPrefixText(String name, TextCommand command) {
+        TEXT_COMMANDS.putPrefix(name + ":", new TextRoute(name, command));
+    }
+
+    static {
+        ROOM_COMMANDS.put("END_GAME", (h, room, session, userId, json, payload) -> h.handleEndGame(room));
+        ROOM_COMMANDS.put("GIVE_UP", (h, room, session, userId, json, payload) -> h.handleGiveUpFromClient(room, session, json));
+        ROOM_COMMANDS.put("SELL_PROPERTY", (h, room, session, userId, json, payload) -> {
+            if (userId != null) {
+                h.handleSellProperty(room, session, json, userId);
+            }
+        });
+
+        PLAYER_COMMANDS.put("RESYNC", (h, room, session, userId, json, payload) -> h.sendStateSnapshot(room, session));
+        PLAYER_COMMANDS.put("SHAKE_REQUEST", (h, room, session, userId, json, payload) -> h.handleShake(room, session, userId, json));
+        PLAYER_COMMANDS.put("CHEAT_MESSAGE", (h, room, session, userId, json, payload) -> {
+            h.logger.log(Level.INFO, "Received cheat message from player {0}", userId);//bewusst geloggt aktuell
+            h.broadcastMessage(room, payload);
+            h.handleCheatMessage(room, h.objectMapper.treeToValue(json, CheatCodeMessage.class), userId);
+        });
+        PLAYER_COMMANDS.put("CHAT_MESSAGE", (h, room, session, userId, json, payload) ->
+                h.handleChatMessage(room, session, userId, h.objectMapper.treeToValue(json, ChatMessage.class), payload));
+        PLAYER_COMMANDS.put("TAX_PAYMENT", (h, room, session, userId, json, payload) -> h.handleTaxPayment(room, json, payload, userId));
+        PLAYER_COMMANDS.put("RENT_PAYMENT", (h, room, session, userId, json, payload) -> h.handleRentPayment(room, json));
+        PLAYER_COMMANDS.put("PULL_CARD", (h, room, session, userId, json, payload) ->
+                h.handlePullCard(room, session, userId, h.objectMapper.treeToValue(json, PullCardMessage.class)));
+        PLAYER_COMMANDS.put("DEAL_PROPOSAL", (h, room, session, userId, json, payload) ->
+                h.handleDealProposal(room, h.objectMapper.treeToValue(json, DealProposalMessage.class), payload));
+        PLAYER_COMMANDS.put("DEAL_RESPONSE", (h, room, session, userId, json, payload) ->
+                h.handleDealResponse(room, h.objectMapper.treeToValue(json, DealResponseMessage.class), payload));
+        PLAYER_COMMANDS.put("COUNTER_OFFER", (h, room, session, userId, json, payload) ->
+                h.handleCounterOffer(room, h.objectMapper.treeToValue(json, CounterProposalMessage.class), payload));
+
+        putExactText("ROLL", (h, room, session, userId, payload) -> h.handleDiceRoll(room, session, userId));
+        putExactText("NEXT_TURN", (h, room, session, userId, payload) -> h.handleNextTurn(room, session, userId));
+        putPrefixText("MANUAL_ROLL", (h, room, session, userId, payload) -> h.handleManualRoll(room, payload, userId, session));
+        putPrefixText("UPDATE_MONEY", (h, room, session, userId, payload) -> h.handleUpdateMoney(room, payload, userId));
+        putPrefixText("BUY_PROPERTY", (h, room, session, userId, payload) -> h.handleBuyProperty(room, session, userId, payload));
+        putPrefixText("SELL_PROPERTY", (h, room, session, userId, payload) -> h.handleSellProperty(room, session, payload, userId));
+    }
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         String payload = message.getPayload();
-        String sessionId = session.getId();
+        GameRoom room = roomRegistry.getRoomForSession(session.getId());
+        if (room == null) {
+            // Noch in keinem Raum, hier kann nur INIT sinnvoll verarbeitet werden
+            processTextMessage(null, session, payload);
+            return;
+        }
+        // Alle Spielaktionen eines Raums laufen nacheinander über dessen Mailbox
+        long queuedAt = System.nanoTime();
+        room.getMailbox().execute(() -> {
+            metrics.mailboxWaited(System.nanoTime() - queuedAt);
+            runCommand(room, () -> processTextMessage(room, session, payload));
+        });
+    }
 
-        try {
-            // Zuerst INIT-Check
-            JsonNode jsonNode = objectMapper.readTree(payload);
-            if (jsonNode.has("type")) {
-                String type = jsonNode.get("type").asText();
-                if ("INIT".equals(type)) {
-                    handleInitMessage(session, jsonNode);
-                    return;
-                } else if ("END_GAME".equals(type)) {
-                    handleEndGame();
-                    return;
-                } else if ("GIVE_UP".equals(type)) {
-                    handleGiveUpFromClient(session, jsonNode);
-                    return;
-                } else if ("SELL_PROPERTY".equals(type)) {
-                    String userId = sessionToUserId.get(sessionId);
-                    if (userId != null) {
-                        handleSellProperty(session, payload, userId);
-                    }
-                    return;
-                }
-            }
-        } catch (IOException e) {
-            // Kein JSON, normal weiter
+    private void processTextMessage(GameRoom room, WebSocketSession session, String payload) {
+        long start = System.nanoTime();
+        String type = dispatchTextMessage(room, session, payload);
+        metrics.messageHandled(type, System.nanoTime() - start);
+    }
+
+    /**
+     * @return the command the message was handled as, used to tag the message metrics
+     */
+    private String dispatchTextMessage(GameRoom room, WebSocketSession session, String payload) {
+        // JSON wird genau einmal geparst, Klartext-Befehle gar nicht
+        JsonNode json = parseJsonObject(payload);
+        JsonNode typeNode = json == null ? null : json.get("type");
+        String type = typeNode == null ? null : typeNode.asText();
+
+        if ("INIT".equals(type)) {
+            handleInitMessage(session, json);
+            return type;
+        }
+        if ("RESUME".equals(type)) {
+            handleResumeMessage(session, json);
+            return type;
+        }
+
+        String userId = room == null ? null : room.sessionToUserId.get(session.getId());
+        JsonCommand roomCommand = room == null || type == null ? null : ROOM_COMMANDS.get(type);
+        if (roomCommand != null) {
+            dispatch(room, session, userId, json, payload, roomCommand);
+            return type;
         }
 
-        String userId = sessionToUserId.get(sessionId);
         if (userId == null) {
             sendMessageToSession(session, createJsonError("Send INIT message first"));
-            return;
+            return "NOT_JOINED";
         }
 
-        // Shake message parsing:
-        if (payload.contains("\"type\":\"SHAKE_REQUEST\"")) {
-            try {
-                ShakeMessage shake = objectMapper.readValue(payload, ShakeMessage.class);
-
-                logger.log(Level.INFO, "Player {0} has shaken his device", shake.getPlayerId());
-                // Send a normal roll dice message:
-                handleDiceRoll(session, userId);
-            } catch (Exception ex) {
-                logger.log(Level.WARNING,
-                        "Error parsing SHAKE_MESSAGE from payload: {0}", ex.getMessage());
-            }
-            return;
+        JsonCommand playerCommand = type == null ? null : PLAYER_COMMANDS.get(type);
+        if (playerCommand != null) {
+            dispatch(room, session, userId, json, payload, playerCommand);
+            return type;
         }
 
+        String text = payload.trim();
+        TextRoute route = TEXT_COMMANDS.match(text);
         try {
-            if (payload.contains("\"type\":\"CHEAT_MESSAGE\"")) {
-                logger.log(Level.INFO, "Received cheat message from player {0}", userId);//bewusst geloggt aktuell
-                broadcastMessage(payload);
-                handleCheatMessage(payload, userId);
-                return;
+            if (route != null) {
+                route.command().handle(this, room, session, userId, text);
+            } else {
+                handleUnknownMessage(room, userId, payload);
             }
-            if (payload.contains("\"type\":\"CHAT_MESSAGE\"")) {
-                ChatMessage chat = objectMapper.readValue(payload, ChatMessage.class);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error handling message from player {0}: {1}", new Object[]{userId, e.getMessage()});//bewusst geloggt aktuell
+            sendMessageToSession(session, createJsonError("Server error processing your request."));
+        }
+        // Nie den Text des Clients als Tag verwenden, "roll" und "Roll" wären sonst eigene Zeitreihen
+        return route == null ? GameMetrics.UNKNOWN_TYPE : route.name();
+    }
 
-                // Enthält die Nachricht KICK am Beginn?
-                if (chat.getMessage().startsWith("KICK ")) {
-                    logger.log(Level.INFO, "Received kick request from {0}: {1}", new Object[]{userId, chat.getMessage()});
-                    handleKickVote(session, chat.getMessage(), userId);
-                } else {
-                    // Sonst: Normale Chat-Nachricht
-                    broadcastMessage(payload);
-                }
-                return;
-            }
-            if (payload.contains("\"type\":\"TAX_PAYMENT\"")) {
-                handleTaxPayment(payload, userId);
-                return;
-            }
-            if (payload.contains("\"type\":\"RENT_PAYMENT\"")) {
-                try {
-                    RentPaymentMessage rentMsg = objectMapper.readValue(payload, RentPaymentMessage.class);
-                    logger.info("Processing rent payment for property " + rentMsg.getPropertyId());
-                    
-                    // Get the property
-                    BaseProperty property = propertyTransactionService.findPropertyById(rentMsg.getPropertyId());
-                    if (property == null) {
-                        logger.warning("Property not found for ID: " + rentMsg.getPropertyId());
-                        return;
-                    }
+    private void dispatch(GameRoom room, WebSocketSession session, String userId, JsonNode json, String payload, JsonCommand command) {
+        try {
+            command.handle(this, room, session, userId, json, payload);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error handling message from player {0}: {1}", new Object[]{userId, e.getMessage()});//bewusst geloggt aktuell
+            sendMessageToSession(session, createJsonError("Server error processing your request."));
+        }
+    }
 
-                    // Get the players involved
-                    Player renter = game.getPlayerById(rentMsg.getPlayerId()).orElse(null);
-                    if (renter == null) {
-                        logger.warning("Renter not found: " + rentMsg.getPlayerId());
-                        return;
-                    }
+    /**
+     * Parses the payload if it looks like a JSON object, otherwise returns null
+     * without paying for a parser exception.
+     */
+    private JsonNode parseJsonObject(String payload) {
+        int start = 0;
+        while (start < payload.length() && Character.isWhitespace(payload.charAt(start))) {
+            start++;
+        }
+        if (start == payload.length() || payload.charAt(start) != '{') {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(payload);
+        } catch (IOException e) {
+            // Kein gültiges JSON, wird als Klartext behandelt
+            return null;
+        }
+    }
 
-                    // Get the property owner
-                    Player owner = game.getPlayerById(property.getOwnerId()).orElse(null);
-                    if (owner == null) {
-                        logger.warning("Property owner not found for property: " + property.getName());
-                        return;
-                    }
+    private void handleShake(GameRoom room, WebSocketSession session, String userId, JsonNode json) {
+        try {
+            ShakeMessage shake = objectMapper.treeToValue(json, ShakeMessage.class);
+
+            logger.log(Level.INFO, "Player {0} has shaken his device", shake.getPlayerId());
+            // Send a normal roll dice message:
+            handleDiceRoll(room, session, userId);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING,
+                    "Error parsing SHAKE_MESSAGE from payload: {0}", ex.getMessage());
+        }
+    }
 
-                    // Calculate rent amount
-                    int rentAmount = rentCalculationService.calculateRent(property, owner, renter);
-                    logger.info("Calculated rent amount: " + rentAmount + " for property " + property.getName());
-
-                    // Create complete rent payment message
-                    RentPaymentMessage completeRentMsg = new RentPaymentMessage(
-                        renter.getId(),
-                        owner.getId(),
-                        property.getId(),
-                        property.getName(),
-                        rentAmount
-                    );
-                    String jsonRent = objectMapper.writeValueAsString(completeRentMsg);
-                    broadcastMessage(jsonRent);
-                    checkAllPlayersForBankruptcy();
-                    // Process the rent collection
-                    boolean rentCollected = rentCollectionService.collectRent(renter, property, owner);
-                    if (rentCollected) {
-                        logger.info("Rent of " + rentAmount + " collected from player " + renter.getId() + 
-                            " for property " + property.getName());
-                        broadcastGameState();
-                        checkAllPlayersForBankruptcy();
-                    } else {
-                        logger.warning("Failed to collect rent for property " + property.getName());
-                    }
-                } catch (Exception e) {
-                    logger.log(Level.SEVERE, "Error processing rent payment message: {0}", e.getMessage());
-                }
+    private void handleChatMessage(GameRoom room, WebSocketSession session, String userId, ChatMessage chat, String payload) {
+        // Enthält die Nachricht KICK am Beginn?
+        if (chat.getMessage().startsWith("KICK ")) {
+            logger.log(Level.INFO, "Received kick request from {0}: {1}", new Object[]{userId, chat.getMessage()});
+            handleKickVote(room, session, chat.getMessage(), userId);
+        } else {
+            // Sonst: Normale Chat-Nachricht
+            broadcastMessage(room, payload);
+        }
+    }
+
+    private void handleRentPayment(GameRoom room, JsonNode json) {
+        try {
+            RentPaymentMessage rentMsg = objectMapper.treeToValue(json, RentPaymentMessage.class);
+            logger.info("Processing rent payment for property " + rentMsg.getPropertyId());
+
+            // Get the property
+            Game game = room.getGame();
+            BaseProperty property = room.getPropertyTransactionService().findPropertyById(rentMsg.getPropertyId());
+            if (property == null) {
+                logger.warning("Property not found for ID: " + rentMsg.getPropertyId());
                 return;
             }
-            if (payload.contains("\"type\":\"PULL_CARD\"")) {
-                PullCardMessage pull = objectMapper.readValue(payload, PullCardMessage.class);
-                logger.info(PLAYER_PREFIX + pull.getPlayerId()
-                        + " requested a " + pull.getCardType() + " card");//bewusst geloggt aktuell
-
-                model.cards.CardType deckType = model.cards.CardType.valueOf(pull.getCardType());
-                model.cards.Card card = cardDeckService.drawCard(deckType);
-
-                if (pull.getPlayerId().equals(userId)) {
-                    card.apply(game, pull.getPlayerId());
-
-                    DrawnCardMessage reply = new DrawnCardMessage(
-                            pull.getPlayerId(),
-                            pull.getCardType(),
-                            card
-                    );
-                    String jsonReply = objectMapper.writeValueAsString(reply);
-                    sendMessageToSession(session, jsonReply);
-                    logger.info(PLAYER_PREFIX + pull.getPlayerId() + " received a drawn card");//bewusst geloggt aktuell
-                    broadcastGameState();
-                    checkAllPlayersForBankruptcy();
-                }
+
+            // Get the players involved
+            Player renter = game.getPlayerById(rentMsg.getPlayerId()).orElse(null);
+            if (renter == null) {
+                logger.warning("Renter not found: " + rentMsg.getPlayerId());
                 return;
             }
 
-            if (payload.contains("\"type\":\"DEAL_PROPOSAL\"")) {
-                DealProposalMessage deal = objectMapper.readValue(payload, DealProposalMessage.class);
-                logger.info("Received deal proposal from " + deal.getFromPlayerId());
-                dealService.saveProposal(deal);
-
-                WebSocketSession targetSession = findSessionByPlayerId(deal.getToPlayerId());
-                if (targetSession != null) {
-                    sendMessageToSession(targetSession, payload);
-                } else {
-                    logger.warning("Target player session not found for deal proposal");
-                }
+            // Get the property owner
+            Player owner = game.getPlayerById(property.getOwnerId()).orElse(null);
+            if (owner == null) {
+                logger.warning("Property owner not found for property: " + property.getName());
                 return;
             }
 
-            if (payload.contains("\"type\":\"DEAL_RESPONSE\"")) {
-                DealResponseMessage response = objectMapper.readValue(payload, DealResponseMessage.class);
-                logger.info("Received deal response: " + response.getResponseType()
-                        + " from " + response.getFromPlayerId()
-                        + " to " + response.getToPlayerId());
+            // Calculate rent amount
+            int rentAmount = rentCalculationService.calculateRent(property, owner, renter);
+            logger.info("Calculated rent amount: " + rentAmount + " for property " + property.getName());
+
+            // Create complete rent payment message
+            RentPaymentMessage completeRentMsg = new RentPaymentMessage(
+                renter.getId(),
+                owner.getId(),
+                property.getId(),
+                property.getName(),
+                rentAmount
+            );
+            String jsonRent = objectMapper.writeValueAsString(completeRentMsg);
+            broadcastMessage(room, jsonRent);
+            checkAllPlayersForBankruptcy(room);
+            // Process the rent collection
+            boolean rentCollected = rentCollectionService.collectRent(renter, property, owner);
+            if (rentCollected) {
+                logger.info("Rent of " + rentAmount + " collected from player " + renter.getId() +
+                    " for property " + property.getName());
+                broadcastGameState(room);
+                checkAllPlayersForBankruptcy(room);
+            } else {
+                logger.warning("Failed to collect rent for property " + property.getName());
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error processing rent payment message: {0}", e.getMessage());
+        }
+    }
 
-                if (response.getResponseType() == DealResponseType.ACCEPT) {
+    private void handlePullCard(GameRoom room, WebSocketSession session, String userId, PullCardMessage pull) throws JsonProcessingException {
+        logger.info(PLAYER_PREFIX + pull.getPlayerId()
+                + " requested a " + pull.getCardType() + " card");//bewusst geloggt aktuell
 
-                    DealProposalMessage proposal = dealService.executeTrade(response);
+        // Für einen anderen Spieler wird nicht gezogen, die Karte wäre sonst ohne Wirkung aus dem Stapel verschwunden
+        if (!pull.getPlayerId().equals(userId)) {
+            return;
+        }
+        model.cards.CardType deckType = model.cards.CardType.valueOf(pull.getCardType());
+        List<GameEvent> events = new ArrayList<>(1);
+        boolean drawn = engine().drawCard(room, userId, new GameCommand.DrawCard(userId, deckType), events);
+        publish(room, session, events);
+        if (drawn) {
+            logger.info(PLAYER_PREFIX + userId + " received a drawn card");//bewusst geloggt aktuell
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
+        }
+    }
 
-                    if (proposal != null) {
-                        // Für jedes Property von Sender -> Empfänger:
-                        for (int propId : proposal.getOfferedPropertyIds()) {
-                            String msg = PLAYER_PREFIX + proposal.getToPlayerId() + BOUGHT_PROPERTY_MSG + propId;
-                            broadcastMessage(createJsonMessage(msg));
-                        }
+    private void handleDealProposal(GameRoom room, DealProposalMessage deal, String payload) {
+        logger.info("Received deal proposal from " + deal.getFromPlayerId());
+        room.getDealService().saveProposal(deal);
+        startDealTimer(room, deal);
 
-                        // Für jedes Property von Empfänger -> Sender:
-                        for (int propId : proposal.getRequestedPropertyIds()) {
-                            String msg = PLAYER_PREFIX + proposal.getFromPlayerId() + BOUGHT_PROPERTY_MSG + propId;
-                            broadcastMessage(createJsonMessage(msg));
-                        }
-                    }
+        WebSocketSession targetSession = findSessionByPlayerId(room, deal.getToPlayerId());
+        if (targetSession != null) {
+            sendMessageToSession(targetSession, payload);
+        } else {
+            logger.warning("Target player session not found for deal proposal");
+        }
+    }
+
+    private void handleDealResponse(GameRoom room, DealResponseMessage response, String payload) {
+        logger.info("Received deal response: " + response.getResponseType()
+                + " from " + response.getFromPlayerId()
+                + " to " + response.getToPlayerId());
+        cancelDealTimer(room, response.getFromPlayerId());
+        cancelDealTimer(room, response.getToPlayerId());
 
-                    broadcastGameState();
-                    checkAllPlayersForBankruptcy();
+        if (response.getResponseType() == DealResponseType.DECLINE) {
+            // Ein abgelehnter Deal darf später nicht mehr angenommen werden
+            room.getDealService().removeProposal(response.getFromPlayerId());
+        }
+        if (response.getResponseType() == DealResponseType.ACCEPT) {
+
+            DealProposalMessage proposal = room.getDealService().executeTrade(response);
+
+            if (proposal != null) {
+                // Für jedes Property von Sender -> Empfänger:
+                for (int propId : proposal.getOfferedPropertyIds()) {
+                    String msg = PLAYER_PREFIX + proposal.getToPlayerId() + BOUGHT_PROPERTY_MSG + propId;
+                    broadcastMessage(room, createJsonMessage(msg));
                 }
 
-                WebSocketSession targetSession = findSessionByPlayerId(response.getToPlayerId());
-                if (targetSession != null) {
-                    sendMessageToSession(targetSession, payload);
-                } else {
-                    logger.warning("Target player session not found for deal response");
+                // Für jedes Property von Empfänger -> Sender:
+                for (int propId : proposal.getRequestedPropertyIds()) {
+                    String msg = PLAYER_PREFIX + proposal.getFromPlayerId() + BOUGHT_PROPERTY_MSG + propId;
+                    broadcastMessage(room, createJsonMessage(msg));
                 }
-                return;
             }
 
-            if (payload.contains("\"type\":\"COUNTER_OFFER\"")) {
-                CounterProposalMessage counter = objectMapper.readValue(payload, CounterProposalMessage.class);
-                logger.info("Received counter offer from " + counter.getFromPlayerId());
+            broadcastGameState(room);
+            checkAllPlayersForBankruptcy(room);
+        }
 
-                dealService.saveCounterProposal(counter);
+        WebSocketSession targetSession = findSessionByPlayerId(room, response.getToPlayerId());
+        if (targetSession != null) {
+            sendMessageToSession(targetSession, payload);
+        } else {
+            logger.warning("Target player session not found for deal response");
+        }
+    }
 
-                WebSocketSession targetSession = findSessionByPlayerId(counter.getToPlayerId());
-                if (targetSession != null) {
-                    sendMessageToSession(targetSession, payload); // leite den Gegenvorschlag weiter
-                } else {
-                    logger.warning("Target player session not found for counter offer");
-                }
-                return;
-            }
+    private void handleCounterOffer(GameRoom room, CounterProposalMessage counter, String payload) {
+        logger.info("Received counter offer from " + counter.getFromPlayerId());
 
-            if (payload.trim().equalsIgnoreCase("Roll")) {
-                handleDiceRoll(session, userId);
-            } else if ("NEXT_TURN".equals(payload)) {
-                logger.log(Level.INFO, "Received NEXT_TURN from {0}", userId);
+        room.getDealService().saveCounterProposal(counter);
+        startDealTimer(room, counter);
 
-                if (!game.isPlayerTurn(userId)) {
-                    sendMessageToSession(session, createJsonError("Not your turn!"));
-                    return;
-                }
+        WebSocketSession targetSession = findSessionByPlayerId(room, counter.getToPlayerId());
+        if (targetSession != null) {
+            sendMessageToSession(targetSession, payload); // leite den Gegenvorschlag weiter
+        } else {
+            logger.warning("Target player session not found for counter offer");
+        }
+    }
 
-                Optional<Player> playerOpt = game.getPlayerById(userId);
-                if (playerOpt.isPresent()) {
-                    Player player = playerOpt.get();
-                    if (player.isInJail()) {
-                        player.reduceJailTurns();
-                        if (!player.isInJail()) {
-                            broadcastMessage(PLAYER_PREFIX + userId + " is released from jail!");
-                        }
-                        // Always advance to next player after jail turn
-                        game.nextPlayer();
-                    } else {
-                        game.nextPlayer(); // Normal turn advancement
-                    }
-                }
+    /**
+     * Waits for the answer to the deal, a newer proposal to the same player replaces the timer
+     */
+    private void startDealTimer(GameRoom room, DealProposalMessage deal) {
+        cancelDealTimer(room, deal.getToPlayerId());
+        if (dealTimeoutMillis <= 0) {
+            return;
+        }
+        room.dealTimeouts.put(deal.getToPlayerId(), gameTimer.schedule(dealTimeoutMillis,
+                () -> room.getMailbox().execute(() -> runCommand(room, () -> expireDeal(room, deal)))));
+    }
 
-                broadcastGameState();
-                checkAllPlayersForBankruptcy();
-
-            } else if (payload.startsWith("MANUAL_ROLL:")) {
-                handleManualRoll(payload, userId, session);
-            } else if (payload.startsWith("UPDATE_MONEY:")) {
-                handleUpdateMoney(payload, userId);
-            } else if (payload.startsWith("BUY_PROPERTY:")) {
-                handleBuyProperty(session, userId, payload);
-            } else if (payload.startsWith("SELL_PROPERTY:")) {
-                handleSellProperty(session, payload, userId);
-            } else {
-                String safePayload = sanitizeForLog(payload);
-                logger.log(Level.INFO, "Received unknown message format: {0} from player {1}", new Object[]{safePayload, userId});//bewusst geloggt aktuell
-                broadcastMessage(PLAYER_PREFIX + userId + ": " + safePayload);
-                checkAllPlayersForBankruptcy();
-            }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error handling message from player {0}: {1}", new Object[]{userId, e.getMessage()});//bewusst geloggt aktuell
-            sendMessageToSession(session, createJsonError("Server error processing your request."));
+    private void cancelDealTimer(GameRoom room, String receiverId) {
+        GameTimer.Timeout timeout = room.dealTimeouts.remove(receiverId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Nobody answered the deal in time. It is dropped and the proposer gets a DECLINE in the name of the receiver.
+     */
+    void expireDeal(GameRoom room, DealProposalMessage deal) {
+        String receiverId = deal.getToPlayerId();
+        // Schon beantwortet oder durch einen neueren Vorschlag ersetzt
+        if (room.getDealService().getProposalFor(receiverId) != deal) {
+            return;
+        }
+        room.dealTimeouts.remove(receiverId);
+        room.getDealService().removeProposal(receiverId);
+        logger.log(Level.INFO, "Deal from {0} to {1} timed out", new Object[]{deal.getFromPlayerId(), receiverId});
+
+        WebSocketSession proposerSession = findSessionByPlayerId(room, deal.getFromPlayerId());
+        if (proposerSession == null) {
+            return;
         }
+        try {
+            DealResponseMessage decline = new DealResponseMessage("DEAL_RESPONSE", receiverId, deal.getFromPlayerId(),
+                    DealResponseType.DECLINE, List.of(), 0);
+            sendMessageToSession(proposerSession, objectMapper.writeValueAsString(decline));
+        } catch (JsonProcessingException e) {
+            logger.log(Level.SEVERE, "Error serializing deal timeout: {0}", e.getMessage());
+        }
+    }
+
+    private void handleNextTurn(GameRoom room, WebSocketSession session, String userId) {
+        logger.log(Level.INFO, "Received NEXT_TURN from {0}", userId);
+        List<GameEvent> events = new ArrayList<>(2);
+        boolean ended = engine().endTurn(room, userId, events);
+        try {
+            publish(room, session, events);
+        } catch (JsonProcessingException e) {
+            logger.log(Level.SEVERE, "Error publishing NEXT_TURN: {0}", e.getMessage());
+        }
+        if (!ended) {
+            return;
+        }
+
+        broadcastGameState(room);
+        checkAllPlayersForBankruptcy(room);
+    }
+
+    private void handleUnknownMessage(GameRoom room, String userId, String payload) {
+        String safePayload = sanitizeForLog(payload);
+        logger.log(Level.INFO, "Received unknown message format: {0} from player {1}", new Object[]{safePayload, userId});//bewusst geloggt aktuell
+        broadcastMessage(room, PLAYER_PREFIX + userId + ": " + safePayload);
+        checkAllPlayersForBankruptcy(room);
     }
-}
\ No newline at end of file
+}
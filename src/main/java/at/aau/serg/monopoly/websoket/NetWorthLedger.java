@@ -0,0 +1,55 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.properties.BaseProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the liquidation value of every player's properties (half the purchase price each)
+ * up to date while ownership changes, so a player's net worth is available without
+ * walking the whole board. Ownership only changes on the room thread, so the ledger is not synchronized.
+ */
+public class NetWorthLedger implements BaseProperty.OwnershipListener {
+
+    private final Map<String, Integer> liquidationValues = new HashMap<>();
+
+    /**
+     * Registers the ledger on the given properties and recalculates all entries from their current owners.
+     */
+    public void attach(Iterable<? extends BaseProperty> properties) {
+        for (BaseProperty property : properties) {
+            property.setOwnershipListener(this);
+            if (property.getOwnerId() != null) {
+                add(property.getOwnerId(), liquidationValue(property));
+            }
+        }
+    }
+
+    public void clear() {
+        liquidationValues.clear();
+    }
+
+    @Override
+    public void ownerChanged(BaseProperty property, String previousOwnerId, String newOwnerId) {
+        int value = liquidationValue(property);
+        if (previousOwnerId != null) {
+            add(previousOwnerId, -value);
+        }
+        if (newOwnerId != null) {
+            add(newOwnerId, value);
+        }
+    }
+
+    public int getLiquidationValue(String playerId) {
+        return liquidationValues.getOrDefault(playerId, 0);
+    }
+
+    private void add(String playerId, int delta) {
+        liquidationValues.merge(playerId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static int liquidationValue(BaseProperty property) {
+        return property.getPurchasePrice() / 2;
+    }
+}
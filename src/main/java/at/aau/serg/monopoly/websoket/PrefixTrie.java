@@ -0,0 +1,73 @@
+package at.aau.serg.monopoly.websoket;
+
+/**
+ * Small ASCII trie used to route the legacy plain-text commands ("Roll", "NEXT_TURN",
+ * "BUY_PROPERTY:12", ...) without a chain of startsWith/equals checks.
+ * Keys are matched case-insensitively. A key registered as prefix matches every text
+ * that starts with it, an exact key only matches the whole text.
+ */
+public class PrefixTrie<T> {
+    private static final int ALPHABET = 128;
+
+    private static final class Node<T> {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private final Node<T>[] children = new Node[ALPHABET];
+        private T exactValue;
+        private T prefixValue;
+    }
+
+    private final Node<T> root = new Node<>();
+
+    public void putExact(String key, T value) {
+        nodeFor(key).exactValue = value;
+    }
+
+    public void putPrefix(String key, T value) {
+        nodeFor(key).prefixValue = value;
+    }
+
+    /**
+     * Returns the value of the exact key equal to the text or, if there is none,
+     * of the longest prefix key the text starts with. Returns null if nothing matches.
+     */
+    public T match(CharSequence text) {
+        Node<T> node = root;
+        T best = null;
+        for (int i = 0; i < text.length(); i++) {
+            if (node.prefixValue != null) {
+                best = node.prefixValue;
+            }
+            int c = fold(text.charAt(i));
+            if (c < 0 || node.children[c] == null) {
+                return best;
+            }
+            node = node.children[c];
+        }
+        if (node.exactValue != null) {
+            return node.exactValue;
+        }
+        return node.prefixValue != null ? node.prefixValue : best;
+    }
+
+    private Node<T> nodeFor(String key) {
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            int c = fold(key.charAt(i));
+            if (c < 0) {
+                throw new IllegalArgumentException("Only ASCII keys are supported: " + key);
+            }
+            if (node.children[c] == null) {
+                node.children[c] = new Node<>();
+            }
+            node = node.children[c];
+        }
+        return node;
+    }
+
+    private static int fold(char c) {
+        if (c >= ALPHABET) {
+            return -1;
+        }
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+}
@@ -6,6 +6,8 @@ import model.Game;
 import model.Player;
 import model.properties.BaseProperty;
 import model.properties.HouseableProperty;
+import model.properties.PropertyGroup;
+import model.properties.PropertyState;
 import model.properties.TrainStation;
 import model.properties.Utility;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,7 @@ import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -25,7 +28,11 @@ public class PropertyService {
         // only for tests / fallback
     }
 
+    public static final int BOARD_SIZE = 40;
+
     private static final Logger logger = Logger.getLogger(PropertyService.class.getName());
+    // propertyData.json wird nur einmal gelesen, die Vorlagen werden nie verändert oder herausgegeben
+    private static PropertyDataWrapper templates;
     private Game game;
     @Getter
     private List<HouseableProperty> houseableProperties;
@@ -33,6 +40,13 @@ public class PropertyService {
     private List<TrainStation> trainStations;
     @Getter
     private List<Utility> utilities;
+    // Nachschlagetabellen, werden in init() aus den Listen aufgebaut
+    private BaseProperty[] propertiesByPosition = new BaseProperty[BOARD_SIZE];
+    private BaseProperty[] propertiesById = new BaseProperty[0];
+    // Besitzer und Hypotheken dieses Spiels, indiziert nach Property-ID
+    private PropertyState state;
+    @Getter
+    private final NetWorthLedger netWorthLedger = new NetWorthLedger();
 
 
     @Autowired(required = false)
@@ -40,27 +54,118 @@ public class PropertyService {
         this.game = game;
     }
 
+    /**
+     * Sets up the properties of this game. The first call copies the shared templates,
+     * every further call (a new round) only clears owners and mortgages.
+     */
     @PostConstruct
     public void init() {
+        if (state != null) {
+            state.reset();
+            netWorthLedger.clear();
+            return;
+        }
+        PropertyDataWrapper wrapper = loadTemplates();
+        this.houseableProperties = copyOf(wrapper.getProperties());
+        this.trainStations = copyOf(wrapper.getTrainStations());
+        this.utilities = copyOf(wrapper.getUtilities());
+        buildIndex();
+    }
+
+    private static synchronized PropertyDataWrapper loadTemplates() {
+        if (templates != null) {
+            return templates;
+        }
         ObjectMapper mapper = new ObjectMapper();
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("propertyData.json")) {
+        try (InputStream is = PropertyService.class.getClassLoader().getResourceAsStream("propertyData.json")) {
             if (is == null) {
                 throw new IllegalStateException("propertyData.json not found in resources folder");
             }
-            PropertyDataWrapper wrapper = mapper.readValue(is, PropertyDataWrapper.class);
-            this.houseableProperties = wrapper.getProperties();
-            this.trainStations = wrapper.getTrainStations();
-            this.utilities = wrapper.getUtilities();
+            templates = mapper.readValue(is, PropertyDataWrapper.class);
+            return templates;
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to initialize property data", e);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T extends BaseProperty> List<T> copyOf(List<T> properties) {
+        List<T> copies = new ArrayList<>(properties.size());
+        for (T property : properties) {
+            copies.add((T) property.copy());
+        }
+        return copies;
+    }
+
+    private void buildIndex() {
+        int maxId = 0;
+        for (List<? extends BaseProperty> list : List.of(houseableProperties, trainStations, utilities)) {
+            for (BaseProperty property : list) {
+                maxId = Math.max(maxId, property.getId());
+            }
+        }
+        BaseProperty[] byPosition = new BaseProperty[BOARD_SIZE];
+        BaseProperty[] byId = new BaseProperty[maxId + 1];
+        for (List<? extends BaseProperty> list : List.of(houseableProperties, trainStations, utilities)) {
+            for (BaseProperty property : list) {
+                int position = property.getPosition();
+                if (position < 0 || position >= BOARD_SIZE || byPosition[position] != null) {
+                    throw new IllegalStateException("Invalid or duplicate board position " + position + " in propertyData.json");
+                }
+                if (property.getId() < 0 || byId[property.getId()] != null) {
+                    throw new IllegalStateException("Invalid or duplicate property id " + property.getId() + " in propertyData.json");
+                }
+                byPosition[position] = property;
+                byId[property.getId()] = property;
+            }
+        }
+        this.propertiesByPosition = byPosition;
+        this.propertiesById = byId;
+
+        this.state = new PropertyState(byId.length);
+        for (BaseProperty property : byId) {
+            if (property != null) {
+                state.assignGroup(property.getId(), PropertyGroup.of(property));
+                property.bind(state);
+            }
+        }
+
+        netWorthLedger.clear();
+        netWorthLedger.attach(houseableProperties);
+        netWorthLedger.attach(trainStations);
+        netWorthLedger.attach(utilities);
+    }
+
     public HouseableProperty getHouseablePropertyById(int id) {
-        return houseableProperties.stream()
-                .filter(property -> property.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return getPropertyById(id) instanceof HouseableProperty houseable ? houseable : null;
+    }
+
+    /**
+     * Gets any property (street, train station or utility) by its ID
+     * @param id The ID of the property
+     * @return The property if found, null otherwise
+     */
+    public BaseProperty getPropertyById(int id) {
+        return id >= 0 && id < propertiesById.length ? propertiesById[id] : null;
+    }
+
+    /**
+     * Gets the liquidation value of all properties a player owns
+     * @param playerId The ID of the owner
+     * @return Half the purchase price of every owned property, 0 if the player owns nothing
+     */
+    public int getLiquidationValue(String playerId) {
+        return netWorthLedger.getLiquidationValue(playerId);
+    }
+
+    /**
+     * Gets how many properties of a group a player owns, e.g. {@link PropertyGroup#TRAIN_STATIONS}
+     * @param playerId The ID of the owner
+     * @param group The group, see {@link PropertyGroup}
+     * @return The number of owned properties of that group
+     */
+    public int getOwnedCount(String playerId, int group) {
+        return state == null ? 0 : state.getOwnedCount(playerId, group);
     }
 
     /**
@@ -89,31 +194,6 @@ public class PropertyService {
      * @return The property if found, null otherwise
      */
     public BaseProperty getPropertyByPosition(int position) {
-        // Check houseable properties
-        BaseProperty property = houseableProperties.stream()
-                .filter(p -> p.getPosition() == position)
-                .findFirst()
-                .orElse(null);
-
-        if (property != null) {
-            return property;
-        }
-
-        // Check train stations
-        property = trainStations.stream()
-                .filter(p -> p.getPosition() == position)
-                .findFirst()
-                .orElse(null);
-
-        if (property != null) {
-            return property;
-        }
-
-        // Check utilities
-        return utilities.stream()
-                .filter(p -> p.getPosition() == position)
-                .findFirst()
-                .orElse(null);
+        return position >= 0 && position < BOARD_SIZE ? propertiesByPosition[position] : null;
     }
 }
-
@@ -127,25 +127,6 @@ public class PropertyTransactionService {
      * Helper method to find a property by its ID across all property types
      */
     BaseProperty findPropertyById(int propertyId) {
-        // Check houseable properties
-        BaseProperty property = propertyService.getHouseablePropertyById(propertyId);
-        if (property != null) {
-            return property;
-        }
-
-        // Check train stations
-        property = propertyService.getTrainStations().stream()
-                .filter(p -> p.getId() == propertyId)
-                .findFirst()
-                .orElse(null);
-        if (property != null) {
-            return property;
-        }
-
-        // Check utilities
-        return propertyService.getUtilities().stream()
-                .filter(p -> p.getId() == propertyId)
-                .findFirst()
-                .orElse(null);
+        return propertyService.getPropertyById(propertyId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Numbers the frames a room broadcasts and keeps the last ones, so a client that reconnects
+ * gets exactly the frames it missed. Older frames are overwritten, a client that is further behind needs a snapshot.
+ * <p>
+ * Resumable sessions receive every broadcast as {@code SEQ:<number>:<frame>}. Because full-state and delta clients
+ * get different frames, each kept frame remembers its audience. The numbers of one client can therefore have gaps.
+ */
+class ReplayBuffer {
+    static final String PREFIX = "SEQ:";
+    // Empfänger eines Frames
+    static final byte ALL = 0;
+    static final byte FULL_STATE = 1;
+    static final byte DELTA = 2;
+
+    private final TextMessage[] frames;
+    private final byte[] audiences;
+    // Nummer des neuesten Frames, 0 solange noch keiner gesendet wurde
+    private long sequence;
+
+    ReplayBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Replay buffer needs room for at least one frame!");
+        }
+        this.frames = new TextMessage[capacity];
+        this.audiences = new byte[capacity];
+    }
+
+    /**
+     * Numbers the frame and keeps it
+     * @return the frame as resumable sessions receive it
+     */
+    TextMessage add(TextMessage frame, byte audience) {
+        sequence++;
+        TextMessage numbered = new TextMessage(PREFIX + sequence + ':' + frame.getPayload());
+        int index = (int) (sequence % frames.length);
+        frames[index] = numbered;
+        audiences[index] = audience;
+        return numbered;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @param lastSeen number of the last frame the client received
+     * @param delta    whether the client uses the delta protocol
+     * @return the frames after lastSeen that were sent to this kind of client,
+     * or null if some of them are already overwritten (or lastSeen is unknown).
+     * Like in the outbox, only the newest GAME_STATE is replayed, it replaces all earlier ones.
+     */
+    List<TextMessage> since(long lastSeen, boolean delta) {
+        if (lastSeen > sequence || lastSeen < sequence - Math.min(sequence, frames.length)) {
+            return null;
+        }
+        byte own = delta ? DELTA : FULL_STATE;
+        long lastGameState = 0;
+        for (long seq = sequence; seq > lastSeen && lastGameState == 0; seq--) {
+            int index = (int) (seq % frames.length);
+            if (audiences[index] == own && SessionOutbox.isGameState(frames[index])) {
+                lastGameState = seq;
+            }
+        }
+        List<TextMessage> missed = new ArrayList<>();
+        for (long seq = lastSeen + 1; seq <= sequence; seq++) {
+            int index = (int) (seq % frames.length);
+            if (audiences[index] != ALL && audiences[index] != own) {
+                continue;
+            }
+            if (seq != lastGameState && audiences[index] == own && SessionOutbox.isGameState(frames[index])) {
+                continue;
+            }
+            missed.add(frames[index]);
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,656 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.Game;
+import model.Player;
+import model.properties.BaseProperty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of one room. At the end of every command the journal compares the room with the state
+ * it has written so far and appends only what changed (money, position, jail, owners, turn, joined or
+ * removed players) as compact binary records. Every {@code snapshotEvery} records the whole state goes
+ * into a snapshot file and the log starts over, so recovery only reads the snapshot and a short tail.
+ * <p>
+ * Log file: magic, the sequence number of the snapshot it continues, then one batch per command.
+ * Snapshot file: magic, its sequence number, one batch that builds the whole state from an empty room.
+ * A batch is its length, its record count and the records. A batch cut off by a crash is dropped on recovery.
+ * <p>
+ * Only the thread working on the room appends. Closing may come from another thread, so both are synchronized.
+ */
+class RoomJournal {
+    static final int LOG_MAGIC = 0x4D4A4C31; // "MJL1"
+    static final int SNAPSHOT_MAGIC = 0x4D4A5331; // "MJS1"
+    private static final int FILE_HEADER = Integer.BYTES + Long.BYTES;
+    private static final int BATCH_HEADER = Integer.BYTES + Short.BYTES;
+
+    // Record-Typen
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte MONEY = 3;
+    private static final byte POSITION = 4;
+    private static final byte STATUS = 5;
+    private static final byte OWNER = 6;
+    private static final byte MORTGAGE = 7;
+    private static final byte TURN = 8;
+    private static final byte STARTED = 9;
+
+    // Besitzer werden als Slot geschrieben, diese beiden Werte sind keine Slots
+    private static final int NO_OWNER = 0xFF;
+    private static final int OTHER_OWNER = 0xFE;
+    private static final int MAX_SLOTS = OTHER_OWNER;
+
+    private static final Logger logger = Logger.getLogger(RoomJournal.class.getName());
+
+    private static final int IN_JAIL = 1;
+    private static final int HAS_ROLLED = 2;
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final int snapshotEvery;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(512);
+
+    // Zuletzt geschriebener Stand. Spieler liegen in Slots, damit ein Record ein Byte statt der ID braucht.
+    private final List<String> order = new ArrayList<>();
+    private String[] ids = new String[4];
+    private String[] names = new String[4];
+    private int[] money = new int[4];
+    private int[] positions = new int[4];
+    private int[] status = new int[4];
+    private final String[] owners;
+    private final boolean[] mortgaged;
+    private int currentIndex;
+    private boolean started;
+    private long startTime = -1;
+
+    private long sequence;
+    private int sinceSnapshot;
+
+    private RoomJournal(Path logFile, Path snapshotFile, int propertySlots, int snapshotEvery) {
+        this.logFile = logFile;
+        this.snapshotFile = snapshotFile;
+        this.snapshotEvery = snapshotEvery;
+        this.owners = new String[propertySlots];
+        this.mortgaged = new boolean[propertySlots];
+    }
+
+    /**
+     * Starts an empty journal for a new room, old files of a room with the same id are replaced
+     */
+    static RoomJournal create(Path logFile, Path snapshotFile, GameRoom room, int snapshotEvery) throws IOException {
+        RoomJournal journal = new RoomJournal(logFile, snapshotFile, propertySlots(room.getPropertyService()), snapshotEvery);
+        Files.deleteIfExists(snapshotFile);
+        journal.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        journal.writeLogHeader();
+        return journal;
+    }
+
+    /**
+     * Rebuilds the room from snapshot and log and continues appending to the log
+     */
+    static RoomJournal recover(Path logFile, Path snapshotFile, GameRoom room, int snapshotEvery) throws IOException {
+        RoomJournal journal = new RoomJournal(logFile, snapshotFile, propertySlots(room.getPropertyService()), snapshotEvery);
+        if (Files.exists(snapshotFile)) {
+            ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+            if (snapshot.remaining() < FILE_HEADER || snapshot.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot: " + snapshotFile);
+            }
+            long snapshotSequence = snapshot.getLong();
+            journal.readBatches(snapshot, 0);
+            if (snapshot.hasRemaining()) {
+                throw new IOException("Incomplete snapshot: " + snapshotFile);
+            }
+            journal.sequence = snapshotSequence;
+        }
+
+        journal.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        int applied = 0;
+        if (log.remaining() >= FILE_HEADER && log.getInt() == LOG_MAGIC) {
+            long baseSequence = log.getLong();
+            // Liegt der Absturz zwischen Snapshot und Kürzen des Logs, sind die ersten Records schon im Snapshot
+            long alreadyApplied = journal.sequence - baseSequence;
+            if (alreadyApplied < 0) {
+                throw new IOException("Log " + logFile + " continues a snapshot that is missing");
+            }
+            applied = journal.readBatches(log, alreadyApplied);
+        }
+        if (applied == 0) {
+            journal.channel.truncate(0);
+            journal.writeLogHeader();
+        } else {
+            // Ein abgeschnittener letzter Batch wird verworfen
+            journal.channel.truncate(log.position());
+            journal.channel.position(log.position());
+            journal.sequence += applied;
+            journal.sinceSnapshot = applied;
+        }
+        journal.restore(room);
+        return journal;
+    }
+
+    /**
+     * Appends the changes of the last command. Writes a snapshot once enough records have piled up.
+     * A journal that cannot be written is closed, the game goes on without it.
+     */
+    synchronized void append(GameRoom room) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            appendChanges(room);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot write journal of room {0}, stopping it: {1}", new Object[]{room.getId(), e.getMessage()});
+            try {
+                close();
+            } catch (IOException closeError) {
+                logger.log(Level.WARNING, "Cannot close journal: {0}", closeError.getMessage());
+            }
+        }
+    }
+
+    private void appendChanges(GameRoom room) throws IOException {
+        buffer.clear();
+        buffer.position(BATCH_HEADER);
+        int count = writeChanges(room);
+        if (count == 0) {
+            return;
+        }
+        writeBatch(count);
+        sequence += count;
+        sinceSnapshot += count;
+        if (sinceSnapshot >= snapshotEvery) {
+            snapshot();
+        }
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Closes the journal and removes its files, e.g. when the room was closed normally
+     */
+    synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    private void snapshot() throws IOException {
+        buffer.clear();
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putLong(sequence);
+        int batchStart = buffer.position();
+        buffer.position(batchStart + BATCH_HEADER);
+        int count = writeState();
+        buffer.putInt(batchStart, buffer.position() - batchStart - BATCH_HEADER);
+        buffer.putShort(batchStart + Integer.BYTES, (short) count);
+        buffer.flip();
+
+        // Erst der vollständige Snapshot ersetzt den alten, danach darf das Log gekürzt werden
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, buffer);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.truncate(0);
+        writeLogHeader();
+        sinceSnapshot = 0;
+    }
+
+    private void writeLogHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+        header.putInt(LOG_MAGIC);
+        header.putLong(sequence);
+        header.flip();
+        channel.position(0);
+        writeFully(channel, header);
+    }
+
+    private void writeBatch(int count) throws IOException {
+        if (count > Short.MAX_VALUE) {
+            throw new IOException("Too many records for one batch: " + count);
+        }
+        buffer.putInt(0, buffer.position() - BATCH_HEADER);
+        buffer.putShort(Integer.BYTES, (short) count);
+        buffer.flip();
+        writeFully(channel, buffer);
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+    }
+
+    // ------------------ Schreiben ------------------ //
+
+    /**
+     * Writes records for everything that differs from the journal's state and updates that state
+     * @return number of records written
+     */
+    private int writeChanges(GameRoom room) throws IOException {
+        Game game = room.getGame();
+        List<Player> players = game.getPlayers();
+        int count = 0;
+
+        for (int i = order.size() - 1; i >= 0; i--) {
+            if (indexOf(players, order.get(i)) < 0) {
+                writeRemove(slotOf(order.get(i)));
+                count++;
+            }
+        }
+        // Game hängt neue Spieler nur hinten an, bei jeder anderen Reihenfolge werden alle neu angelegt
+        for (int i = 0; i < order.size(); i++) {
+            if (!order.get(i).equals(players.get(i).getId())) {
+                for (int j = order.size() - 1; j >= 0; j--) {
+                    writeRemove(slotOf(order.get(j)));
+                    count++;
+                }
+                break;
+            }
+        }
+
+        for (Player player : players) {
+            int slot = slotOf(player.getId());
+            int playerStatus = statusOf(player);
+            if (slot < 0) {
+                slot = freeSlot();
+                putByte(ADD);
+                putByte(slot);
+                putString(player.getId());
+                putString(player.getName());
+                putInt(player.getMoney());
+                putByte(player.getPosition());
+                putShort(playerStatus);
+                add(slot, player.getId(), player.getName(), player.getMoney(), player.getPosition(), playerStatus);
+                count++;
+                continue;
+            }
+            if (money[slot] != player.getMoney()) {
+                putByte(MONEY);
+                putByte(slot);
+                putInt(player.getMoney());
+                money[slot] = player.getMoney();
+                count++;
+            }
+            if (positions[slot] != player.getPosition()) {
+                putByte(POSITION);
+                putByte(slot);
+                putByte(player.getPosition());
+                positions[slot] = player.getPosition();
+                count++;
+            }
+            if (status[slot] != playerStatus) {
+                putByte(STATUS);
+                putByte(slot);
+                putShort(playerStatus);
+                status[slot] = playerStatus;
+                count++;
+            }
+        }
+
+        PropertyService properties = room.getPropertyService();
+        for (int id = 0; id < owners.length; id++) {
+            BaseProperty property = properties.getPropertyById(id);
+            if (property == null) {
+                continue;
+            }
+            String owner = property.getOwnerId();
+            if (!Objects.equals(owners[id], owner)) {
+                writeOwner(id, owner);
+                count++;
+            }
+            if (mortgaged[id] != property.isMortgaged()) {
+                writeMortgage(id, property.isMortgaged());
+                count++;
+            }
+        }
+
+        if (currentIndex != game.getCurrentPlayerIndex()) {
+            writeTurn(game.getCurrentPlayerIndex());
+            count++;
+        }
+        long gameStart = game.getStartTime() == null ? -1 : game.getStartTime().getTime();
+        if (started != game.isStarted() || startTime != gameStart) {
+            writeStarted(game.isStarted(), gameStart);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the journal's whole state as records that rebuild it from an empty room
+     */
+    private int writeState() {
+        int count = 0;
+        for (String id : order) {
+            int slot = slotOf(id);
+            putByte(ADD);
+            putByte(slot);
+            putString(id);
+            putString(names[slot]);
+            putInt(money[slot]);
+            putByte(positions[slot]);
+            putShort(status[slot]);
+            count++;
+        }
+        for (int id = 0; id < owners.length; id++) {
+            if (owners[id] != null) {
+                putByte(OWNER);
+                putByte(id);
+                putOwner(owners[id]);
+                count++;
+            }
+            if (mortgaged[id]) {
+                putByte(MORTGAGE);
+                putByte(id);
+                putByte(1);
+                count++;
+            }
+        }
+        putByte(TURN);
+        putByte(currentIndex);
+        putByte(STARTED);
+        putByte(started ? 1 : 0);
+        putLong(startTime);
+        return count + 2;
+    }
+
+    private void writeRemove(int slot) {
+        putByte(REMOVE);
+        putByte(slot);
+        remove(slot);
+    }
+
+    private void writeOwner(int propertyId, String owner) {
+        putByte(OWNER);
+        putByte(propertyId);
+        putOwner(owner);
+        owners[propertyId] = owner;
+    }
+
+    private void putOwner(String owner) {
+        int slot = owner == null ? NO_OWNER : slotOf(owner);
+        if (slot < 0) {
+            // Besitzer, der nicht mehr mitspielt
+            putByte(OTHER_OWNER);
+            putString(owner);
+        } else {
+            putByte(slot);
+        }
+    }
+
+    private void writeMortgage(int propertyId, boolean isMortgaged) {
+        putByte(MORTGAGE);
+        putByte(propertyId);
+        putByte(isMortgaged ? 1 : 0);
+        mortgaged[propertyId] = isMortgaged;
+    }
+
+    private void writeTurn(int index) {
+        putByte(TURN);
+        putByte(index);
+        currentIndex = index;
+    }
+
+    private void writeStarted(boolean isStarted, long time) {
+        putByte(STARTED);
+        putByte(isStarted ? 1 : 0);
+        putLong(time);
+        started = isStarted;
+        startTime = time;
+    }
+
+    // ------------------ Lesen ------------------ //
+
+    /**
+     * Applies all complete batches to the journal's state, the first {@code skip} records are only skipped.
+     * Stops in front of a batch that was cut off, the buffer's position is then the end of the last complete one.
+     *
+     * @return number of applied records
+     */
+    private int readBatches(ByteBuffer in, long skip) throws IOException {
+        int applied = 0;
+        while (in.remaining() >= BATCH_HEADER) {
+            int start = in.position();
+            int length = in.getInt();
+            int count = in.getShort();
+            if (length < 0 || count < 0 || in.remaining() < length) {
+                in.position(start);
+                return applied;
+            }
+            int end = in.position() + length;
+            if (skip >= count) {
+                skip -= count;
+                in.position(end);
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                readRecord(in);
+            }
+            if (in.position() != end) {
+                throw new IOException("Corrupt batch in " + logFile + " at " + start);
+            }
+            applied += count;
+        }
+        return applied;
+    }
+
+    private void readRecord(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        switch (type) {
+            case ADD -> {
+                int slot = Byte.toUnsignedInt(in.get());
+                String id = getString(in);
+                String name = getString(in);
+                int playerMoney = in.getInt();
+                int position = Byte.toUnsignedInt(in.get());
+                add(slot, id, name, playerMoney, position, in.getShort());
+            }
+            case REMOVE -> remove(Byte.toUnsignedInt(in.get()));
+            case MONEY -> money[Byte.toUnsignedInt(in.get())] = in.getInt();
+            case POSITION -> {
+                int slot = Byte.toUnsignedInt(in.get());
+                positions[slot] = Byte.toUnsignedInt(in.get());
+            }
+            case STATUS -> {
+                int slot = Byte.toUnsignedInt(in.get());
+                status[slot] = in.getShort();
+            }
+            case OWNER -> {
+                int propertyId = Byte.toUnsignedInt(in.get());
+                int slot = Byte.toUnsignedInt(in.get());
+                if (slot == NO_OWNER) {
+                    owners[propertyId] = null;
+                } else if (slot == OTHER_OWNER) {
+                    owners[propertyId] = getString(in);
+                } else {
+                    owners[propertyId] = ids[slot];
+                }
+            }
+            case MORTGAGE -> {
+                int propertyId = Byte.toUnsignedInt(in.get());
+                mortgaged[propertyId] = in.get() != 0;
+            }
+            case TURN -> currentIndex = Byte.toUnsignedInt(in.get());
+            case STARTED -> {
+                started = in.get() != 0;
+                startTime = in.getLong();
+            }
+            default -> throw new IOException("Unknown record type " + type + " in " + logFile);
+        }
+    }
+
+    /**
+     * Puts the journal's state into the freshly created room
+     */
+    private void restore(GameRoom room) {
+        Game game = room.getGame();
+        game.getPlayers().clear();
+        for (String id : order) {
+            int slot = slotOf(id);
+            Player player = new Player(id, names[slot]);
+            player.setMoney(money[slot]);
+            player.setPosition(positions[slot]);
+            player.setInJail((status[slot] & IN_JAIL) != 0);
+            player.setHasRolledThisTurn((status[slot] & HAS_ROLLED) != 0);
+            player.setJailTurns(status[slot] >> 2);
+            game.getPlayers().add(player);
+        }
+        game.setCurrentPlayerIndex(currentIndex);
+        game.setStarted(started);
+        game.setStartTime(startTime < 0 ? null : new Date(startTime));
+
+        PropertyService properties = room.getPropertyService();
+        for (int id = 0; id < owners.length; id++) {
+            BaseProperty property = properties.getPropertyById(id);
+            if (property != null) {
+                property.setOwnerId(owners[id]);
+                property.setMortgaged(mortgaged[id]);
+            }
+        }
+    }
+
+    // ------------------ Spieler-Slots ------------------ //
+
+    private void add(int slot, String id, String name, int playerMoney, int position, int playerStatus) {
+        if (slot >= ids.length) {
+            int size = Math.max(slot + 1, ids.length * 2);
+            ids = Arrays.copyOf(ids, size);
+            names = Arrays.copyOf(names, size);
+            money = Arrays.copyOf(money, size);
+            positions = Arrays.copyOf(positions, size);
+            status = Arrays.copyOf(status, size);
+        }
+        ids[slot] = id;
+        names[slot] = name;
+        money[slot] = playerMoney;
+        positions[slot] = position;
+        status[slot] = playerStatus;
+        order.add(id);
+    }
+
+    private void remove(int slot) {
+        order.remove(ids[slot]);
+        ids[slot] = null;
+        names[slot] = null;
+    }
+
+    private int slotOf(String playerId) {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (playerId.equals(ids[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot() throws IOException {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] == null) {
+                return slot;
+            }
+        }
+        if (ids.length >= MAX_SLOTS) {
+            throw new IOException("Too many players for the journal: " + ids.length);
+        }
+        return ids.length;
+    }
+
+    private static int indexOf(List<Player> players, String playerId) {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getId().equals(playerId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int statusOf(Player player) {
+        return (player.isInJail() ? IN_JAIL : 0)
+                | (player.hasRolledThisTurn() ? HAS_ROLLED : 0)
+                | (player.getJailTurns() << 2);
+    }
+
+    private static int propertySlots(PropertyService properties) {
+        int maxId = -1;
+        for (int position = 0; position < PropertyService.BOARD_SIZE; position++) {
+            BaseProperty property = properties.getPropertyByPosition(position);
+            if (property != null) {
+                maxId = Math.max(maxId, property.getId());
+            }
+        }
+        return maxId + 1;
+    }
+
+    // ------------------ Puffer ------------------ //
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private void putByte(int value) {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    private void putShort(int value) {
+        ensure(Short.BYTES);
+        buffer.putShort((short) value);
+    }
+
+    private void putInt(int value) {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    private void putLong(long value) {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        putShort(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package at.aau.serg.monopoly.websoket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serial executor for everything that mutates the state of one game room.
+ * Tasks are queued and drained in submission order by at most one thread at a time,
+ * so game, player and property objects never need locks. Many mailboxes can share
+ * one worker pool, which lets different rooms run on different cores.
+ */
+public class RoomMailbox implements Executor {
+    // Nach so vielen Tasks wird der Worker an andere Räume abgegeben
+    static final int MAX_BATCH = 64;
+
+    private static final Logger logger = Logger.getLogger(RoomMailbox.class.getName());
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Executor worker;
+
+    public RoomMailbox(Executor worker) {
+        this.worker = worker;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    /**
+     * Queues the task without starting a worker. As long as no other thread knows the mailbox,
+     * this makes it the first task. It runs with {@link #start()} or the next {@link #execute}.
+     */
+    void enqueue(Runnable task) {
+        tasks.add(task);
+    }
+
+    /**
+     * Starts a worker for the tasks queued with {@link #enqueue}
+     */
+    void start() {
+        if (!tasks.isEmpty()) {
+            schedule();
+        }
+    }
+
+    public int pendingTasks() {
+        return tasks.size();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            int processed = 0;
+            while (processed < MAX_BATCH && (task = tasks.poll()) != null) {
+                runSafely(task);
+                processed++;
+            }
+        } finally {
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Room task failed: {0}", e.getMessage());
+        }
+    }
+}
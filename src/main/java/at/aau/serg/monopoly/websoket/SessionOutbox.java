@@ -0,0 +1,200 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded send queue of a single WebSocket session.
+ * Frames are written by a sender thread, so a slow client never blocks the room that produced them.
+ * A queued GAME_STATE frame is dropped as soon as a newer one arrives. Numbered frames of resumable sessions
+ * ("SEQ:17:GAME_STATE:...") are never dropped, the client would see a gap in the numbers. A client whose queue overflows,
+ * or whose current send takes longer than the time limit, is disconnected. The send time is checked on every offer
+ * and periodically by {@link SessionOutboxRegistry}, the close itself runs on a sender thread.
+ */
+public class SessionOutbox {
+    static final String GAME_STATE_PREFIX = "GAME_STATE:";
+
+    private static final Logger logger = Logger.getLogger(SessionOutbox.class.getName());
+    private final WebSocketSession session;
+    private final Executor sender;
+    private final int capacity;
+    private final long sendTimeLimitNanos;
+    private final OutboxListener listener;
+
+    // Alles unterhalb wird über "this" synchronisiert
+    private final Deque<TextMessage> queue = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+    private long sendStartedAt;
+
+    /**
+     * Callbacks used for the outbound metrics.
+     */
+    interface OutboxListener {
+        void framesDropped(int count);
+
+        void sessionEvicted(WebSocketSession session);
+
+        void sendFailed();
+    }
+
+    SessionOutbox(WebSocketSession session, Executor sender, int capacity, long sendTimeLimitMillis, OutboxListener listener) {
+        this.session = session;
+        this.sender = sender;
+        this.capacity = capacity;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.listener = listener;
+    }
+
+    /**
+     * Queues the frame for sending.
+     * @return false if the session was evicted or is already closed
+     */
+    public boolean offer(TextMessage frame) {
+        boolean overflow;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (isUnnumberedGameState(frame)) {
+                dropSupersededGameStates();
+            }
+            overflow = queue.size() >= capacity || isSendTooSlow();
+            if (!overflow) {
+                queue.add(frame);
+                if (draining) {
+                    return true;
+                }
+                draining = true;
+            } else {
+                closed = true;
+                queue.clear();
+            }
+        }
+        if (overflow) {
+            evict();
+            return false;
+        }
+        startDrain();
+        return true;
+    }
+
+    /**
+     * Disconnects the session if its current send has been running longer than the time limit.
+     * @return true if the session was evicted
+     */
+    boolean evictIfTooSlow() {
+        synchronized (this) {
+            if (closed || !isSendTooSlow()) {
+                return false;
+            }
+            closed = true;
+            queue.clear();
+        }
+        evict();
+        return true;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void startDrain() {
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                draining = false;
+            }
+            logger.log(Level.WARNING, "Outbound sender rejected session {0}", session.getId());
+            listener.sendFailed();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            TextMessage next;
+            synchronized (this) {
+                next = closed ? null : queue.poll();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                session.sendMessage(next);
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.SEVERE, "Error sending message to session {0}: {1}", new Object[]{session.getId(), e.getMessage()});//bewusst geloggt aktuell
+                listener.sendFailed();
+            } finally {
+                synchronized (this) {
+                    sendStartedAt = 0;
+                }
+            }
+        }
+    }
+
+    private void dropSupersededGameStates() {
+        int before = queue.size();
+        queue.removeIf(SessionOutbox::isUnnumberedGameState);
+        int dropped = before - queue.size();
+        if (dropped > 0) {
+            listener.framesDropped(dropped);
+        }
+    }
+
+    private boolean isSendTooSlow() {
+        return sendStartedAt != 0 && System.nanoTime() - sendStartedAt > sendTimeLimitNanos;
+    }
+
+    private void evict() {
+        logger.log(Level.WARNING, "Disconnecting slow client {0}", session.getId());
+        listener.sessionEvicted(session);
+        // Nicht auf dem Raum-Thread schließen, das Schließen kann selbst am langsamen Client hängen
+        try {
+            sender.execute(this::closeSession);
+        } catch (RejectedExecutionException e) {
+            closeSession();
+        }
+    }
+
+    private void closeSession() {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error closing slow session {0}: {1}", new Object[]{session.getId(), e.getMessage()});
+        }
+    }
+
+    private static boolean isUnnumberedGameState(TextMessage frame) {
+        return frame.getPayload().startsWith(GAME_STATE_PREFIX);
+    }
+
+    /**
+     * Also recognizes GAME_STATE frames numbered for resumable sessions ("SEQ:17:GAME_STATE:...")
+     */
+    static boolean isGameState(TextMessage frame) {
+        String payload = frame.getPayload();
+        if (payload.startsWith(ReplayBuffer.PREFIX)) {
+            int colon = payload.indexOf(':', ReplayBuffer.PREFIX.length());
+            return colon > 0 && payload.startsWith(GAME_STATE_PREFIX, colon + 1);
+        }
+        return payload.startsWith(GAME_STATE_PREFIX);
+    }
+}
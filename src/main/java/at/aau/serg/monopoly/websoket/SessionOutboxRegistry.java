@@ -0,0 +1,181 @@
+package at.aau.serg.monopoly.websoket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the outbound queue of every connected session and the threads that write them.
+ * Without Spring (e.g. in unit tests) frames are written directly on the calling thread.
+ * With Spring a scheduled check also disconnects clients whose send hangs while no new frame arrives for them.
+ * Also collects the numbers needed to spot slow clients: queue depths, dropped frames, evictions and failed sends,
+ * with Spring they are exported as metrics.
+ */
+@Component
+public class SessionOutboxRegistry implements SessionOutbox.OutboxListener, MeterBinder {
+    private static final Logger logger = Logger.getLogger(SessionOutboxRegistry.class.getName());
+    private final Map<WebSocketSession, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong evictedSessions = new AtomicLong();
+    // Frames, die nicht geschrieben werden konnten: Fehler beim Senden bzw. Session schon geschlossen
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong closedSends = new AtomicLong();
+
+    @Value("${monopoly.outbound.buffer-size:256}")
+    private int bufferSize = 256;
+    @Value("${monopoly.outbound.send-time-limit-ms:5000}")
+    private long sendTimeLimitMillis = 5000;
+    @Value("${monopoly.outbound.sender-threads:4}")
+    private int senderThreads = 0;
+    private Executor sender = Runnable::run;
+    private ExecutorService senderPool;
+
+    @PostConstruct
+    void startSenders() {
+        if (senderThreads <= 0) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        senderPool = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "ws-sender-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        sender = senderPool;
+        logger.log(Level.INFO, "Started {0} outbound sender threads", senderThreads);
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        if (senderPool != null) {
+            senderPool.shutdown();
+        }
+    }
+
+    /**
+     * Queues the frame for the session.
+     * @return false if the session is closed or was disconnected for being too slow
+     */
+    public boolean send(WebSocketSession session, TextMessage frame) {
+        boolean queued = session.isOpen() && outboxes.computeIfAbsent(session,
+                s -> new SessionOutbox(s, sender, bufferSize, sendTimeLimitMillis, this)).offer(frame);
+        if (!queued) {
+            closedSends.incrementAndGet();
+        }
+        return queued;
+    }
+
+    /**
+     * Disconnects every session whose current send has exceeded the time limit
+     * @return the number of evicted sessions
+     */
+    @Scheduled(fixedDelayString = "${monopoly.outbound.check-interval-ms:1000}",
+            initialDelayString = "${monopoly.outbound.check-interval-ms:1000}")
+    public int evictSlowSessions() {
+        int evicted = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            if (outbox.evictIfTooSlow()) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public void remove(WebSocketSession session) {
+        SessionOutbox outbox = outboxes.remove(session);
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    public int getQueueDepth(WebSocketSession session) {
+        SessionOutbox outbox = outboxes.get(session);
+        return outbox == null ? 0 : outbox.size();
+    }
+
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            max = Math.max(max, outbox.size());
+        }
+        return max;
+    }
+
+    public long getTotalQueueDepth() {
+        long total = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            total += outbox.size();
+        }
+        return total;
+    }
+
+    public int getSessionCount() {
+        return outboxes.size();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getEvictedSessions() {
+        return evictedSessions.get();
+    }
+
+    public long getFailedSends() {
+        return failedSends.get();
+    }
+
+    public long getClosedSends() {
+        return closedSends.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("monopoly.outbound.queue.depth", this, SessionOutboxRegistry::getTotalQueueDepth)
+                .description("Frames waiting in all outboxes").register(registry);
+        Gauge.builder("monopoly.outbound.queue.depth.max", this, SessionOutboxRegistry::getMaxQueueDepth)
+                .description("Frames waiting in the fullest outbox").register(registry);
+        FunctionCounter.builder("monopoly.outbound.dropped", this, SessionOutboxRegistry::getDroppedFrames)
+                .description("GAME_STATE frames replaced by a newer one before they were sent").register(registry);
+        FunctionCounter.builder("monopoly.outbound.evicted", this, SessionOutboxRegistry::getEvictedSessions)
+                .description("Sessions disconnected for being too slow").register(registry);
+        FunctionCounter.builder("monopoly.send.failures", this, SessionOutboxRegistry::getFailedSends)
+                .tag("reason", "error").description("Frames that could not be sent").register(registry);
+        FunctionCounter.builder("monopoly.send.failures", this, SessionOutboxRegistry::getClosedSends)
+                .tag("reason", "closed").description("Frames that could not be sent").register(registry);
+    }
+
+    @Override
+    public void framesDropped(int count) {
+        droppedFrames.addAndGet(count);
+    }
+
+    @Override
+    public void sessionEvicted(WebSocketSession session) {
+        evictedSessions.incrementAndGet();
+        outboxes.remove(session);
+    }
+
+    @Override
+    public void sendFailed() {
+        failedSends.incrementAndGet();
+    }
+}
@@ -0,0 +1,163 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import data.PlayerInfo;
+import model.properties.BaseProperty;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Builds the messages of the delta protocol for one room.
+ * Clients that opt in receive one STATE_SNAPSHOT when they join (or ask for a RESYNC)
+ * and afterwards only numbered STATE_DELTA messages with the fields that changed.
+ * Deltas carry absolute values, so applying a delta that overlaps a snapshot is harmless.
+ */
+class StateDeltaTracker {
+    static final String SNAPSHOT_TYPE = "STATE_SNAPSHOT";
+    static final String DELTA_TYPE = "STATE_DELTA";
+
+    private static final String SEQ = "seq";
+    private static final String PLAYERS = "players";
+    private static final String OWNERS = "owners";
+    private static final String CURRENT_PLAYER = "currentPlayerId";
+
+    // Stand, den die Delta-Clients zuletzt bekommen haben
+    private final Map<String, PlayerInfo> players = new HashMap<>();
+    private final Map<Integer, String> owners = new HashMap<>();
+    private String currentPlayerId;
+    private long sequence;
+
+    ObjectNode snapshot(ObjectMapper mapper, List<PlayerInfo> playerInfo, PropertyService properties, String currentId) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("type", SNAPSHOT_TYPE);
+        node.put(SEQ, sequence);
+        node.put(CURRENT_PLAYER, currentId);
+        node.set(PLAYERS, mapper.valueToTree(playerInfo));
+
+        ObjectNode ownerNode = node.putObject(OWNERS);
+        forEachProperty(properties, property -> {
+            if (property.getOwnerId() != null) {
+                ownerNode.put(String.valueOf(property.getId()), property.getOwnerId());
+            }
+        });
+        return node;
+    }
+
+    /**
+     * Compares the current state with the last one sent and advances the baseline.
+     * @return the delta message, or null if nothing changed
+     */
+    ObjectNode nextDelta(ObjectMapper mapper, List<PlayerInfo> playerInfo, PropertyService properties, String currentId) {
+        ArrayNode changedPlayers = mapper.createArrayNode();
+        Set<String> present = new HashSet<>();
+
+        for (PlayerInfo info : playerInfo) {
+            present.add(info.getId());
+            ObjectNode changes = playerChanges(mapper, players.get(info.getId()), info);
+            if (changes != null) {
+                changedPlayers.add(changes);
+                players.put(info.getId(), info);
+            }
+        }
+
+        ArrayNode removedPlayers = mapper.createArrayNode();
+        players.keySet().removeIf(id -> {
+            if (present.contains(id)) {
+                return false;
+            }
+            removedPlayers.add(id);
+            return true;
+        });
+
+        ObjectNode changedOwners = mapper.createObjectNode();
+        forEachProperty(properties, property -> {
+            String owner = property.getOwnerId();
+            if (!Objects.equals(owners.get(property.getId()), owner)) {
+                changedOwners.put(String.valueOf(property.getId()), owner);
+                if (owner == null) {
+                    owners.remove(property.getId());
+                } else {
+                    owners.put(property.getId(), owner);
+                }
+            }
+        });
+
+        boolean turnChanged = !Objects.equals(currentPlayerId, currentId);
+        currentPlayerId = currentId;
+
+        if (changedPlayers.isEmpty() && removedPlayers.isEmpty() && changedOwners.isEmpty() && !turnChanged) {
+            return null;
+        }
+
+        ObjectNode node = mapper.createObjectNode();
+        node.put("type", DELTA_TYPE);
+        node.put(SEQ, ++sequence);
+        if (!changedPlayers.isEmpty()) {
+            node.set(PLAYERS, changedPlayers);
+        }
+        if (!removedPlayers.isEmpty()) {
+            node.set("removedPlayers", removedPlayers);
+        }
+        if (!changedOwners.isEmpty()) {
+            node.set(OWNERS, changedOwners);
+        }
+        if (turnChanged) {
+            node.put(CURRENT_PLAYER, currentId);
+        }
+        return node;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void reset() {
+        players.clear();
+        owners.clear();
+        currentPlayerId = null;
+    }
+
+    private ObjectNode playerChanges(ObjectMapper mapper, PlayerInfo before, PlayerInfo now) {
+        if (now.equals(before)) {
+            return null;
+        }
+        ObjectNode changes = mapper.createObjectNode();
+        changes.put("id", now.getId());
+        if (before == null || !Objects.equals(before.getName(), now.getName())) {
+            changes.put("name", now.getName());
+        }
+        if (before == null || before.getMoney() != now.getMoney()) {
+            changes.put("money", now.getMoney());
+        }
+        if (before == null || before.getPosition() != now.getPosition()) {
+            changes.put("position", now.getPosition());
+        }
+        if (before == null || before.isInJail() != now.isInJail()) {
+            changes.put("inJail", now.isInJail());
+        }
+        if (before == null || before.getJailTurns() != now.getJailTurns()) {
+            changes.put("jailTurns", now.getJailTurns());
+        }
+        return changes;
+    }
+
+    private static void forEachProperty(PropertyService properties, Consumer<BaseProperty> action) {
+        forEach(properties.getHouseableProperties(), action);
+        forEach(properties.getTrainStations(), action);
+        forEach(properties.getUtilities(), action);
+    }
+
+    private static void forEach(List<? extends BaseProperty> list, Consumer<BaseProperty> action) {
+        if (list != null) {
+            list.forEach(action);
+        }
+    }
+}
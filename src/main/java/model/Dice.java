@@ -1,15 +1,19 @@
 package model;
 
-import java.security.SecureRandom;
-
 public record Dice(int sides) {
+    // Nur für roll() ohne eigene Quelle, SecureRandom ist thread-safe
+    private static final RandomSource SHARED_RANDOM = RandomSource.secure();
+
     public Dice {
         if (sides < 1){
             throw new IllegalArgumentException("A dice must have at least one side!");
         }
     }
     public int roll(){
-        SecureRandom random = new SecureRandom();
+        return roll(SHARED_RANDOM);
+    }
+
+    public int roll(RandomSource random){
         return random.nextInt(sides) + 1;
     }
 }
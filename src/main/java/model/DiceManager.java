@@ -4,13 +4,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class DiceManager implements DiceManagerInterface {
-    private static List<Dice> dices;
-    private static List<Integer> rollHistory;
-    private List<Integer> lastRollValues;
+    public static final int DEFAULT_HISTORY_CAPACITY = 256;
+
+    // Würfel und Historie gehören zu genau einem Raum
+    private final List<Dice> dices = new ArrayList<>();
+    private final RollHistory rollHistory;
+    private final RandomSource random;
+    // Augen des letzten Wurfs, das Array wird bei jedem Wurf wiederverwendet
+    private int[] lastRollValues = new int[0];
+    private int lastRollCount;
 
     public DiceManager() {
-        dices = new ArrayList<>();
-        rollHistory = new ArrayList<>();
+        this(RandomSource.secure());
+    }
+
+    public DiceManager(RandomSource random) {
+        this(random, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public DiceManager(RandomSource random, int historyCapacity) {
+        this.random = random;
+        this.rollHistory = new RollHistory(historyCapacity);
     }
 
     public void initializeStandardDices() {
@@ -29,29 +43,58 @@ public class DiceManager implements DiceManagerInterface {
     @Override
     public int rollDices() {
         int rollResult = 0;
-        lastRollValues = new ArrayList<>();
+        if (lastRollValues.length < dices.size()) {
+            lastRollValues = new int[dices.size()];
+        }
+        lastRollCount = 0;
         for (Dice dice : dices) {
-            int value = dice.roll();
-            lastRollValues.add(value);
+            int value = dice.roll(random);
+            lastRollValues[lastRollCount++] = value;
             rollResult += value;
         }
         rollHistory.add(rollResult);
         return rollResult;
     }
 
+    /**
+     * @return the values of the last roll as a new list, null if nothing was rolled yet
+     */
     public List<Integer> getLastRollValues() {
-        return lastRollValues;
+        if (lastRollCount == 0) {
+            return null;
+        }
+        List<Integer> values = new ArrayList<>(lastRollCount);
+        for (int i = 0; i < lastRollCount; i++) {
+            values.add(lastRollValues[i]);
+        }
+        return values;
+    }
+
+    public int getLastRollValue(int index) {
+        if (index < 0 || index >= lastRollCount) {
+            throw new IndexOutOfBoundsException("No value for dice " + index);
+        }
+        return lastRollValues[index];
+    }
+
+    public int getLastRollCount() {
+        return lastRollCount;
     }
 
         @Override
         public boolean isPasch() {
-            return lastRollValues != null &&
-                    lastRollValues.size() == 2 &&
-                    lastRollValues.get(0).equals(lastRollValues.get(1));
+            return lastRollCount == 2 && lastRollValues[0] == lastRollValues[1];
         }
 
+    /**
+     * @return the kept roll results from oldest to newest, at most the history capacity
+     */
     @Override
     public List<Integer> getRollHistory() {
+        return rollHistory.toList();
+    }
+
+    public RollHistory getRollHistoryBuffer() {
         return rollHistory;
     }
 
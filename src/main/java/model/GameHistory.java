@@ -17,4 +17,6 @@ public class GameHistory {
     private int levelGained;
     private Date timestamp;
     private boolean won;
+    // Seed der Runde (Würfel und Kartenmischung), null wenn mit SecureRandom gespielt wurde
+    private Long seed;
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package model;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Source of random numbers for the dice.
+ * Every room gets its own instance, so rolls in different rooms never share (or contend on) one generator.
+ */
+@FunctionalInterface
+public interface RandomSource {
+    String SECURE = "secure";
+    String FAST = "fast";
+
+    /**
+     * @return a uniformly distributed value between 0 (inclusive) and bound (exclusive)
+     */
+    int nextInt(int bound);
+
+    /**
+     * Shuffles the list in place (Fisher-Yates), so a seeded source always produces the same order
+     */
+    default <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+    /**
+     * Cryptographically strong source, the SecureRandom is created once and reused for every roll
+     */
+    static RandomSource secure() {
+        return new SecureRandom()::nextInt;
+    }
+
+    /**
+     * Fast, non-cryptographic source, seeded once from SecureRandom.
+     * Not thread-safe, which is fine because a room handles its commands one after another.
+     */
+    static RandomSource fast() {
+        return seeded(new SecureRandom().nextLong());
+    }
+
+    /**
+     * Reproducible source, the same seed always yields the same sequence (used for replays)
+     */
+    static RandomSource seeded(long seed) {
+        return new SplittableRandom(seed)::nextInt;
+    }
+
+    /**
+     * Creates a source by its configured name ("secure" or "fast")
+     */
+    static RandomSource of(String name) {
+        return switch (name) {
+            case SECURE -> secure();
+            case FAST -> fast();
+            default -> throw new IllegalArgumentException("Unknown random source: " + name);
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Fixed-capacity ring buffer of roll results.
+ * Once full, every new roll overwrites the oldest one, so memory stays flat however long a game runs.
+ * Overwritten values can be handed to a spill consumer (e.g. the game event log) before they are lost.
+ */
+public class RollHistory {
+    private final int[] values;
+    private int next;
+    private int size;
+    private long totalRolls;
+    private IntConsumer spill = value -> { };
+
+    public RollHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Roll history needs room for at least one roll!");
+        }
+        this.values = new int[capacity];
+    }
+
+    public void add(int roll) {
+        if (size == values.length) {
+            spill.accept(values[next]);
+        } else {
+            size++;
+        }
+        values[next] = roll;
+        next = (next + 1) % values.length;
+        totalRolls++;
+    }
+
+    /**
+     * @param index 0 is the oldest roll still kept
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No roll at index " + index);
+        }
+        return values[(next - size + index + values.length) % values.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * @return number of rolls ever added, including the overwritten ones
+     */
+    public long getTotalRolls() {
+        return totalRolls;
+    }
+
+    public void setSpill(IntConsumer spill) {
+        this.spill = spill != null ? spill : value -> { };
+    }
+
+    /**
+     * @return the kept rolls from oldest to newest as a new list
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+}
@@ -1,14 +1,19 @@
 package model.properties;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Setter;
+import lombok.ToString;
 import model.Player;
 
+import java.util.Objects;
+
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public abstract class BaseProperty {
     protected int id;
     protected String ownerId; // Changed from Integer to String
@@ -21,6 +26,100 @@ public abstract class BaseProperty {
     @JsonProperty("isMortgaged")
     protected boolean isMortgaged;
 
+    // Wird bei jedem Besitzerwechsel benachrichtigt (z.B. das Vermögensbuch)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient OwnershipListener ownershipListener;
+
+    // Solange gesetzt, liegen Besitzer und Hypothek im Zustand des Spiels statt in den Feldern oben
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private transient PropertyState state;
+
+    /**
+     * Receives every change of {@link #ownerId}.
+     */
+    public interface OwnershipListener {
+        void ownerChanged(BaseProperty property, String previousOwnerId, String newOwnerId);
+    }
+
+    protected BaseProperty(int id, String ownerId, String name, int purchasePrice, int mortgageValue,
+                           String image, int position, boolean isMortgaged) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.name = name;
+        this.purchasePrice = purchasePrice;
+        this.mortgageValue = mortgageValue;
+        this.image = image;
+        this.position = position;
+        this.isMortgaged = isMortgaged;
+    }
+
+    /**
+     * Moves owner and mortgage of this property into the given game state.
+     * Copies are bound to the state of their room, the parsed templates never are.
+     */
+    public void bind(PropertyState state) {
+        state.setOwner(id, ownerId);
+        state.setMortgaged(id, isMortgaged);
+        this.state = state;
+    }
+
+    public String getOwnerId() {
+        return state != null ? state.getOwner(id) : ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        String previous = getOwnerId();
+        if (state != null) {
+            state.setOwner(id, ownerId);
+        } else {
+            this.ownerId = ownerId;
+        }
+        if (ownershipListener != null && !Objects.equals(previous, ownerId)) {
+            ownershipListener.ownerChanged(this, previous, ownerId);
+        }
+    }
+
+    public boolean isMortgaged() {
+        return state != null ? state.isMortgaged(id) : isMortgaged;
+    }
+
+    public void setMortgaged(boolean isMortgaged) {
+        if (state != null) {
+            state.setMortgaged(id, isMortgaged);
+        } else {
+            this.isMortgaged = isMortgaged;
+        }
+    }
+
+    /**
+     * @return how many properties of this property's group the owner holds, 0 if unowned or not bound to a game
+     */
+    protected int ownedInGroup() {
+        String owner = getOwnerId();
+        if (state == null || owner == null || state.getGroup(id) == PropertyGroup.NONE) {
+            return 0;
+        }
+        return state.getOwnedCount(owner, state.getGroup(id));
+    }
+
+    /**
+     * @return true if the owner holds every property of this property's group
+     */
+    protected boolean ownerHoldsWholeGroup() {
+        int owned = ownedInGroup();
+        return owned > 0 && owned == state.getGroupSize(state.getGroup(id));
+    }
+
+    /**
+     * @return an unbound copy with the same static data, owner and mortgage
+     */
+    public abstract BaseProperty copy();
+
     /**
      * Calculates the rent for this property based on its type and owner
      * @param owner The owner of the property
@@ -29,4 +128,3 @@ public abstract class BaseProperty {
      */
     public abstract int calculateRent(Player owner, Player renter);
 }
-
@@ -31,9 +31,16 @@ public class HouseableProperty extends BaseProperty {
         this.hotelPrice = hotelPrice;
     }
 
+    @Override
+    public HouseableProperty copy() {
+        return new HouseableProperty(id, getOwnerId(), name, purchasePrice,
+                baseRent, rent1House, rent2Houses, rent3Houses, rent4Houses, rentHotel, housePrice, hotelPrice,
+                mortgageValue, isMortgaged(), image, position);
+    }
+
     @Override
     public int calculateRent(Player owner, Player renter) {
-        // For now, just return base rent
-        return baseRent;
+        // Without houses the base rent doubles once the owner holds the whole colour group
+        return ownerHoldsWholeGroup() ? baseRent * 2 : baseRent;
     }
 }
@@ -0,0 +1,37 @@
+package model.properties;
+
+/**
+ * Groups of properties whose count per owner matters for the rent:
+ * the eight colour groups of the streets, the train stations and the utilities.
+ */
+public final class PropertyGroup {
+    public static final int NONE = -1;
+    public static final int TRAIN_STATIONS = 8;
+    public static final int UTILITIES = 9;
+    public static final int COUNT = 10;
+
+    // Farbgruppe (0 = braun ... 7 = dunkelblau) je Feld des Standard-Spielbretts, NONE für alle anderen Felder
+    private static final int[] COLOR_GROUP_BY_POSITION = {
+            NONE, 0, NONE, 0, NONE, NONE, 1, NONE, 1, 1,
+            NONE, 2, NONE, 2, 2, NONE, 3, NONE, 3, 3,
+            NONE, 4, NONE, 4, 4, NONE, 5, 5, NONE, 5,
+            NONE, 6, 6, NONE, 6, NONE, NONE, 7, NONE, 7
+    };
+
+    private PropertyGroup() {
+    }
+
+    /**
+     * @return the group the property belongs to, NONE if it is not part of one
+     */
+    public static int of(BaseProperty property) {
+        if (property instanceof TrainStation) {
+            return TRAIN_STATIONS;
+        }
+        if (property instanceof Utility) {
+            return UTILITIES;
+        }
+        int position = property.getPosition();
+        return position >= 0 && position < COLOR_GROUP_BY_POSITION.length ? COLOR_GROUP_BY_POSITION[position] : NONE;
+    }
+}
@@ -0,0 +1,97 @@
+package model.properties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mutable per-game state of all properties, stored in arrays indexed by property id.
+ * The static data (prices, rents, positions) stays on the property objects, so resetting
+ * a game only has to clear these arrays.
+ * It also counts how many properties of each {@link PropertyGroup} every player owns,
+ * so rent never has to scan the board.
+ */
+public class PropertyState {
+    private final String[] owners;
+    private final boolean[] mortgaged;
+    private final int[] groups;
+    private final int[] groupSizes = new int[PropertyGroup.COUNT];
+    // Spieler -> Anzahl besessener Grundstücke je Gruppe
+    private final Map<String, int[]> ownedPerGroup = new HashMap<>();
+
+    /**
+     * @param size highest property id + 1
+     */
+    public PropertyState(int size) {
+        this.owners = new String[size];
+        this.mortgaged = new boolean[size];
+        this.groups = new int[size];
+        Arrays.fill(groups, PropertyGroup.NONE);
+    }
+
+    /**
+     * Puts a property into its group, has to happen before the property gets an owner
+     */
+    public void assignGroup(int propertyId, int group) {
+        if (groups[propertyId] != PropertyGroup.NONE) {
+            groupSizes[groups[propertyId]]--;
+        }
+        groups[propertyId] = group;
+        if (group != PropertyGroup.NONE) {
+            groupSizes[group]++;
+        }
+    }
+
+    public String getOwner(int propertyId) {
+        return owners[propertyId];
+    }
+
+    public void setOwner(int propertyId, String ownerId) {
+        String previous = owners[propertyId];
+        owners[propertyId] = ownerId;
+        int group = groups[propertyId];
+        if (group == PropertyGroup.NONE) {
+            return;
+        }
+        if (previous != null) {
+            int[] counts = ownedPerGroup.get(previous);
+            counts[group]--;
+        }
+        if (ownerId != null) {
+            ownedPerGroup.computeIfAbsent(ownerId, id -> new int[PropertyGroup.COUNT])[group]++;
+        }
+    }
+
+    public boolean isMortgaged(int propertyId) {
+        return mortgaged[propertyId];
+    }
+
+    public void setMortgaged(int propertyId, boolean isMortgaged) {
+        mortgaged[propertyId] = isMortgaged;
+    }
+
+    /**
+     * @return how many properties of the group the player owns
+     */
+    public int getOwnedCount(String ownerId, int group) {
+        int[] counts = ownedPerGroup.get(ownerId);
+        return counts == null ? 0 : counts[group];
+    }
+
+    public int getGroup(int propertyId) {
+        return groups[propertyId];
+    }
+
+    public int getGroupSize(int group) {
+        return groupSizes[group];
+    }
+
+    /**
+     * Clears all owners and mortgages for a new game
+     */
+    public void reset() {
+        Arrays.fill(owners, null);
+        Arrays.fill(mortgaged, false);
+        ownedPerGroup.clear();
+    }
+}
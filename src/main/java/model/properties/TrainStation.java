@@ -22,9 +22,19 @@ public class TrainStation extends BaseProperty {
         this.rent4Stations = rent4Stations;
     }
 
+    @Override
+    public TrainStation copy() {
+        return new TrainStation(id, getOwnerId(), name, purchasePrice,
+                baseRent, rent2Stations, rent3Stations, rent4Stations, mortgageValue, isMortgaged(), image, position);
+    }
+
     @Override
     public int calculateRent(Player owner, Player renter) {
-        // For now, just return base rent
-        return baseRent;
+        return switch (ownedInGroup()) {
+            case 2 -> rent2Stations;
+            case 3 -> rent3Stations;
+            case 4 -> rent4Stations;
+            default -> baseRent;
+        };
     }
 }
@@ -3,8 +3,6 @@ package model.properties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import model.Player;
-import at.aau.serg.monopoly.websoket.PropertyService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 @Data
 @NoArgsConstructor
@@ -12,9 +10,6 @@ public class Utility extends BaseProperty {
     private int rentOneUtilityMultiplier;
     private int rentTwoUtilitiesMultiplier;
 
-    @Autowired
-    private PropertyService propertyService;
-
     public Utility(int id, String ownerId, String name, int purchasePrice,
                    int rentOneUtilityMultiplier, int rentTwoUtilitiesMultiplier,
                    int mortgageValue, boolean isMortgaged, String image, int position) {
@@ -24,20 +19,16 @@ public class Utility extends BaseProperty {
     }
 
     @Override
-    public int calculateRent(Player owner, Player renter) {
-        if (propertyService == null) {
-            return rentOneUtilityMultiplier; // Default to single utility rent if service not available
-        }
-
-        // Get the number of utilities owned by the owner
-        int ownedUtilities = propertyService.getUtilities().stream()
-                .filter(u -> owner.getId().equals(u.getOwnerId()))
-                .toList()
-                .size();
+    public Utility copy() {
+        return new Utility(id, getOwnerId(), name, purchasePrice,
+                rentOneUtilityMultiplier, rentTwoUtilitiesMultiplier, mortgageValue, isMortgaged(), image, position);
+    }
 
-        // Calculate rent based on number of utilities owned
-        return ownedUtilities == 1 ? 
-            rentOneUtilityMultiplier : 
-            rentTwoUtilitiesMultiplier;
+    @Override
+    public int calculateRent(Player owner, Player renter) {
+        // Single utility rent if the utility is not part of a game or the owner only holds this one
+        return ownedInGroup() >= 2 ?
+            rentTwoUtilitiesMultiplier :
+            rentOneUtilityMultiplier;
     }
 }
@@ -1,6 +1,8 @@
 package at.aau.serg.monopoly.firebase;
 
+import at.aau.serg.monopoly.websoket.GameMetrics;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
 import org.junit.jupiter.api.*;
@@ -9,6 +11,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Method;
 import java.util.*;
@@ -37,10 +40,17 @@ class LeaderboardServiceTest {
     @BeforeEach
     void setup() {
         firestore = mock(Firestore.class);
-        leaderboardService = new LeaderboardService();
+        leaderboardService = newService();
         firestoreClientMock.when(FirestoreClient::getFirestore).thenReturn(firestore);
     }
 
+    static LeaderboardService newService() {
+        LeaderboardService service = new LeaderboardService();
+        ReflectionTestUtils.setField(service, "firestoreProvider", new FirestoreProvider());
+        ReflectionTestUtils.setField(service, "metrics", new GameMetrics());
+        return service;
+    }
+
     @Test
     void testUpdateLeaderboard_success() throws Exception {
         CollectionReference users = mock(CollectionReference.class);
@@ -65,52 +75,30 @@ class LeaderboardServiceTest {
 
         CollectionReference lb = mock(CollectionReference.class);
         DocumentReference docRef = mock(DocumentReference.class);
-        Query lbLimit = mock(Query.class);
-        ApiFuture<QuerySnapshot> lbFuture = mock(ApiFuture.class);
-        QuerySnapshot lbSnapshot = mock(QuerySnapshot.class);
+        DocumentReference staleRef = mock(DocumentReference.class);
+        WriteBatch batch = mockBatch(firestore);
 
         when(firestore.collection("leaderboard_wins")).thenReturn(lb);
-        when(lb.limit(100)).thenReturn(lbLimit);
-        when(lbLimit.get()).thenReturn(lbFuture);
-        when(lbFuture.get()).thenReturn(lbSnapshot);
-        when(lbSnapshot.getDocuments()).thenReturn(Collections.emptyList());
-
-        when(lb.document(anyString())).thenReturn(docRef);
+        when(lb.document(anyString())).thenReturn(staleRef);
+        when(lb.document("1")).thenReturn(docRef);
 
         leaderboardService.updateLeaderboard(firestore, "wins", "leaderboard_wins");
 
-        verify(docRef).set(argThat((Map<String, Object> m) ->
+        verify(batch).set(eq(docRef), argThat((Map<String, Object> m) ->
                 m.get("name").equals("Tester") &&
                         m.get("userId").equals("123") &&
-                        m.get("wins").equals(3) &&
+                        m.get("wins").equals(3L) &&
                         m.get("rank").equals(1)
         ));
-    }
-
-    @Test
-    void testDeleteCollection_recursive() throws Exception {
-        CollectionReference collection = mock(CollectionReference.class);
-        Query limitedQuery = mock(Query.class);
-        ApiFuture<QuerySnapshot> future1 = mock(ApiFuture.class);
-        QuerySnapshot snap1 = mock(QuerySnapshot.class);
-        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
-        DocumentReference docRef = mock(DocumentReference.class);
-
-        when(firestore.collection("some")).thenReturn(collection);
-        when(collection.limit(100)).thenReturn(limitedQuery);
-        when(limitedQuery.get()).thenReturn(future1);
-        when(future1.get()).thenReturn(snap1);
-        when(doc.getReference()).thenReturn(docRef);
-        when(snap1.getDocuments()).thenReturn(Collections.nCopies(100, doc));
-
-        leaderboardService.deleteCollection(firestore, "some");
-
-        verify(docRef, times(100)).delete();
+        // Alte Plätze 2..50 werden im selben Batch gelöscht, statt die Collection einzeln zu leeren
+        verify(batch, times(49)).delete(staleRef);
+        verify(batch).commit();
+        Assertions.assertEquals(1, leaderboardService.getLeaderboard("wins").size());
     }
 
     @Test
     void testUpdateAllLeaderboards_success() {
-        leaderboardService = spy(new LeaderboardService());
+        leaderboardService = spy(newService());
         doNothing().when(leaderboardService).updateWinsLeaderboard(any());
         doNothing().when(leaderboardService).updateLevelLeaderboard(any());
         doNothing().when(leaderboardService).updateMoneyLeaderboard(any());
@@ -144,43 +132,18 @@ class LeaderboardServiceTest {
         when(userDoc.getData()).thenReturn(null); // wichtig!
 
         CollectionReference lb = mock(CollectionReference.class);
-        Query lbLimit = mock(Query.class);
-        ApiFuture<QuerySnapshot> lbFuture = mock(ApiFuture.class);
-        QuerySnapshot lbSnapshot = mock(QuerySnapshot.class);
-
+        WriteBatch batch = mockBatch(firestore);
         when(firestore.collection("leaderboard_wins")).thenReturn(lb);
-        when(lb.limit(100)).thenReturn(lbLimit);
-        when(lbLimit.get()).thenReturn(lbFuture);
-        when(lbFuture.get()).thenReturn(lbSnapshot);
-        when(lbSnapshot.getDocuments()).thenReturn(Collections.emptyList());
 
         leaderboardService.updateLeaderboard(firestore, "wins", "leaderboard_wins");
         // Erwartung: kein Set-Aufruf, da getData() == null
-        verify(lb, never()).document(anyString());
-    }
-
-    @Test
-    void testDeleteCollection_empty() throws Exception {
-        CollectionReference collection = mock(CollectionReference.class);
-        Query limitedQuery = mock(Query.class);
-        ApiFuture<QuerySnapshot> future = mock(ApiFuture.class);
-        QuerySnapshot snapshot = mock(QuerySnapshot.class);
-
-        when(firestore.collection("empty")).thenReturn(collection);
-        when(collection.limit(100)).thenReturn(limitedQuery);
-        when(limitedQuery.get()).thenReturn(future);
-        when(future.get()).thenReturn(snapshot);
-        when(snapshot.getDocuments()).thenReturn(Collections.emptyList());
-
-        leaderboardService.deleteCollection(firestore, "empty");
-        // Erwartung: kein Aufruf von delete()
-        verify(collection).limit(100);
-        verify(limitedQuery).get();
+        verify(batch, never()).set(any(DocumentReference.class), anyMap());
+        Assertions.assertTrue(leaderboardService.getLeaderboard("wins").isEmpty());
     }
 
     @Test
     void testUpdateWinsLeaderboard_callsUpdateLeaderboard() {
-        LeaderboardService spyService = Mockito.spy(new LeaderboardService());
+        LeaderboardService spyService = Mockito.spy(newService());
         doNothing().when(spyService).updateLeaderboard(any(), eq("wins"), eq("leaderboard_wins"));
 
         spyService.updateWinsLeaderboard(firestore);
@@ -195,22 +158,6 @@ class LeaderboardServiceTest {
         Assertions.assertDoesNotThrow(() -> leaderboardService.updateAllLeaderboards());
     }
 
-    @Test
-    void testDeleteCollection_firestoreThrowsException() throws Exception {
-        CollectionReference collection = mock(CollectionReference.class);
-        Query limitedQuery = mock(Query.class);
-        ApiFuture<QuerySnapshot> future = mock(ApiFuture.class);
-
-        when(firestore.collection("some")).thenReturn(collection);
-        when(collection.limit(100)).thenReturn(limitedQuery);
-        when(limitedQuery.get()).thenReturn(future);
-        when(future.get()).thenThrow(new ExecutionException(new RuntimeException("Fehler")));
-
-        Assertions.assertThrows(ExecutionException.class, () -> {
-            leaderboardService.deleteCollection(firestore, "some");
-        });
-    }
-
     @ParameterizedTest
     @CsvSource({
             "updateWinsLeaderboard,wins,leaderboard_wins",
@@ -220,7 +167,7 @@ class LeaderboardServiceTest {
             "updateGamesPlayedLeaderboard,gamesPlayed,leaderboard_gamesPlayed"
     })
     void testUpdateXLeaderboardCallsCorrectUpdate(String methodName, String field, String collection) throws Exception {
-        LeaderboardService spyService = Mockito.spy(new LeaderboardService());
+        LeaderboardService spyService = Mockito.spy(newService());
         Method method = LeaderboardService.class.getDeclaredMethod(methodName, Firestore.class);
         doNothing().when(spyService).updateLeaderboard(any(), eq(field), eq(collection));
 
@@ -270,20 +217,110 @@ class LeaderboardServiceTest {
         when(snapshot.getDocuments()).thenReturn(List.of(userDoc));
 
         CollectionReference lb = mock(CollectionReference.class);
-        Query lbLimit = mock(Query.class);
-        ApiFuture<QuerySnapshot> lbFuture = mock(ApiFuture.class);
-        QuerySnapshot lbSnapshot = mock(QuerySnapshot.class);
-
+        WriteBatch batch = mockBatch(firestoreMock);
         when(firestoreMock.collection("leaderboard_wins")).thenReturn(lb);
-        when(lb.limit(100)).thenReturn(lbLimit);
-        when(lbLimit.get()).thenReturn(lbFuture);
-        when(lbFuture.get()).thenReturn(lbSnapshot);
-        when(lbSnapshot.getDocuments()).thenReturn(Collections.emptyList());
 
         leaderboardService.updateLeaderboard(firestoreMock, "wins", "leaderboard_wins");
 
         // sollte keine neuen Dokumente schreiben
-        verify(lb, never()).document(anyString());
+        verify(batch, never()).set(any(DocumentReference.class), anyMap());
+    }
+
+    @Test
+    void testOnStatsUpdated_updatesAllBoardsInMemory() {
+        UserStats stats = new UserStats();
+        stats.setName("Tester");
+        stats.record(2000, true);
+        stats.record(1000, false);
+
+        leaderboardService.onStatsUpdated("123", stats);
+
+        TopKBoard.Entry wins = leaderboardService.getLeaderboard("wins").get(0);
+        Assertions.assertEquals("123", wins.userId());
+        Assertions.assertEquals("Tester", wins.name());
+        Assertions.assertEquals(1, wins.value());
+        Assertions.assertEquals(1500, leaderboardService.getLeaderboard("averageMoney").get(0).value());
+        Assertions.assertEquals(2000, leaderboardService.getLeaderboard("highestMoney").get(0).value());
+        Assertions.assertEquals(2, leaderboardService.getLeaderboard("gamesPlayed").get(0).value());
+        Assertions.assertEquals(1, leaderboardService.getLeaderboard("level").get(0).value());
+        Assertions.assertTrue(leaderboardService.getLeaderboard("unknown").isEmpty());
+    }
+
+    @Test
+    void testFlushLeaderboards_writesAllChangedBoardsInOneBatch() {
+        CollectionReference lb = mock(CollectionReference.class);
+        when(firestore.collection(anyString())).thenReturn(lb);
+        when(lb.document(anyString())).thenReturn(mock(DocumentReference.class));
+        WriteBatch batch = mockBatch(firestore);
+
+        seedBoards();
+        UserStats stats = new UserStats();
+        stats.record(1500, true);
+        leaderboardService.onStatsUpdated("123", stats);
+        leaderboardService.flushLeaderboards();
+
+        verify(firestore, times(1)).batch();
+        verify(batch, times(5)).set(any(DocumentReference.class), anyMap());
+        verify(batch).commit();
+
+        // Ohne Änderung wird nichts geschrieben
+        leaderboardService.flushLeaderboards();
+        verify(firestore, times(1)).batch();
+    }
+
+    @Test
+    void testFlushLeaderboards_failedCommitIsRetried() throws Exception {
+        CollectionReference lb = mock(CollectionReference.class);
+        when(firestore.collection(anyString())).thenReturn(lb);
+        when(lb.document(anyString())).thenReturn(mock(DocumentReference.class));
+        WriteBatch batch = mock(WriteBatch.class);
+        when(firestore.batch()).thenReturn(batch);
+        ApiFuture<List<WriteResult>> failed = mock(ApiFuture.class);
+        when(failed.get()).thenThrow(new ExecutionException(new RuntimeException("offline")));
+        when(batch.commit()).thenReturn(failed);
+
+        seedBoards();
+        UserStats stats = new UserStats();
+        stats.record(1500, true);
+        leaderboardService.onStatsUpdated("123", stats);
+        leaderboardService.flushLeaderboards();
+        leaderboardService.flushLeaderboards();
+
+        verify(batch, times(2)).commit();
+    }
+
+    @Test
+    void testFlushLeaderboards_skipsBoardsNotLoadedYet() {
+        UserStats stats = new UserStats();
+        stats.record(1500, true);
+        leaderboardService.onStatsUpdated("123", stats);
+        leaderboardService.getBoard("wins").replaceAll(List.of());
+        leaderboardService.onStatsUpdated("123", stats);
+
+        CollectionReference lb = mock(CollectionReference.class);
+        when(firestore.collection("leaderboard_wins")).thenReturn(lb);
+        when(lb.document(anyString())).thenReturn(mock(DocumentReference.class));
+        WriteBatch batch = mockBatch(firestore);
+
+        leaderboardService.flushLeaderboards();
+
+        // Nur die geladene Rangliste wird geschrieben, die anderen würden Firestore auf einen Benutzer kürzen
+        verify(batch, times(1)).set(any(DocumentReference.class), anyMap());
+        verify(firestore, never()).collection("leaderboard_level");
+        Assertions.assertTrue(leaderboardService.getBoard("level").isDirty());
+    }
+
+    private void seedBoards() {
+        for (String field : List.of("wins", "level", "averageMoney", "highestMoney", "gamesPlayed")) {
+            leaderboardService.getBoard(field).replaceAll(List.of());
+        }
+    }
+
+    private static WriteBatch mockBatch(Firestore firestore) {
+        WriteBatch batch = mock(WriteBatch.class);
+        when(firestore.batch()).thenReturn(batch);
+        when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+        return batch;
     }
 
 }
@@ -0,0 +1,71 @@
+package at.aau.serg.monopoly.firebase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKBoardTest {
+
+    @Test
+    void keepsOnlyTheBestEntriesInOrder() {
+        TopKBoard board = new TopKBoard("wins", "leaderboard_wins", 2);
+
+        assertTrue(board.update("a", "A", 1));
+        assertTrue(board.update("b", "B", 3));
+        assertTrue(board.update("c", "C", 2));
+        assertFalse(board.update("d", "D", 0));
+
+        List<TopKBoard.Entry> entries = board.getEntries();
+        assertEquals(List.of("b", "c"), entries.stream().map(TopKBoard.Entry::userId).toList());
+    }
+
+    @Test
+    void updateMovesExistingUser() {
+        TopKBoard board = new TopKBoard("wins", "leaderboard_wins", 3);
+        board.update("a", "A", 1);
+        board.update("b", "B", 2);
+
+        board.update("a", "A", 5);
+
+        assertEquals(List.of("a", "b"), board.getEntries().stream().map(TopKBoard.Entry::userId).toList());
+        assertFalse(board.update("a", "A", 5));
+    }
+
+    @Test
+    void equalValuesAreOrderedByUserId() {
+        TopKBoard board = new TopKBoard("wins", "leaderboard_wins", 3);
+        board.update("b", "B", 1);
+        board.update("a", "A", 1);
+
+        assertEquals("a", board.getEntries().get(0).userId());
+    }
+
+    @Test
+    void takeDocumentsBuildsRanksAndClearsDirtyFlag() {
+        TopKBoard board = new TopKBoard("wins", "leaderboard_wins", 3);
+        board.update("a", null, 4);
+        assertTrue(board.isDirty());
+
+        List<Map<String, Object>> documents = board.takeDocuments();
+
+        assertFalse(board.isDirty());
+        assertEquals(1, documents.get(0).get("rank"));
+        assertEquals("Unbekannt", documents.get(0).get("name"));
+        assertEquals(4L, documents.get(0).get("wins"));
+    }
+
+    @Test
+    void replaceAllTrimsToCapacity() {
+        TopKBoard board = new TopKBoard("wins", "leaderboard_wins", 1);
+
+        board.update("c", "C", 5);
+        assertFalse(board.isSeeded());
+        board.replaceAll(List.of(new TopKBoard.Entry("a", "A", 1), new TopKBoard.Entry("b", "B", 2)));
+
+        assertEquals(List.of(new TopKBoard.Entry("b", "B", 2)), board.getEntries());
+        assertTrue(board.isSeeded());
+    }
+}
@@ -1,5 +1,6 @@
 package at.aau.serg.monopoly.firebase;
 
+import at.aau.serg.monopoly.websoket.GameMetrics;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
@@ -35,6 +37,9 @@ class UserStatisticsServiceTest {
     void setup() {
         firestore = mock(Firestore.class);
         userStatisticsService = new UserStatisticsService();
+        ReflectionTestUtils.setField(userStatisticsService, "leaderboardService", LeaderboardServiceTest.newService());
+        ReflectionTestUtils.setField(userStatisticsService, "firestoreProvider", new FirestoreProvider());
+        ReflectionTestUtils.setField(userStatisticsService, "metrics", new GameMetrics());
         firestoreClientMock.when(FirestoreClient::getFirestore).thenReturn(firestore);
     }
 
@@ -222,4 +227,39 @@ class UserStatisticsServiceTest {
                 userStatisticsService.updateUserStats("uid", firestore)
         );
     }
+
+    @Test
+    void testRebuildAllUserStats_recomputesEveryUserIncludingMoneySum() throws Exception {
+        CollectionReference users = mock(CollectionReference.class);
+        DocumentReference userDoc = mock(DocumentReference.class);
+        CollectionReference history = mock(CollectionReference.class);
+        ApiFuture<QuerySnapshot> future = mock(ApiFuture.class);
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        QueryDocumentSnapshot doc1 = mock(QueryDocumentSnapshot.class);
+        QueryDocumentSnapshot doc2 = mock(QueryDocumentSnapshot.class);
+        DocumentSnapshot userSnapshot = mock(DocumentSnapshot.class);
+        ApiFuture<DocumentSnapshot> userFuture = mock(ApiFuture.class);
+
+        when(firestore.collection("users")).thenReturn(users);
+        when(users.listDocuments()).thenReturn(List.of(userDoc));
+        when(userDoc.getId()).thenReturn("legacy");
+        when(users.document("legacy")).thenReturn(userDoc);
+        when(userDoc.collection("gameHistory")).thenReturn(history);
+        when(history.get()).thenReturn(future);
+        when(future.get()).thenReturn(snapshot);
+        when(snapshot.getDocuments()).thenReturn(List.of(doc1, doc2));
+        when(doc1.getData()).thenReturn(Map.of("won", true, "endMoney", 2001));
+        when(doc2.getData()).thenReturn(Map.of("won", false, "endMoney", 1000));
+        when(userDoc.get()).thenReturn(userFuture);
+        when(userFuture.get()).thenReturn(userSnapshot);
+        when(userSnapshot.exists()).thenReturn(false);
+
+        userStatisticsService.rebuildAllUserStats();
+
+        verify(userDoc).set(argThat((Map<String, Object> map) ->
+                map.get("moneySum").equals(3001L) &&
+                        map.get("averageMoney").equals(1500) &&
+                        map.get("gamesPlayed").equals(2)
+        ), any(SetOptions.class));
+    }
 }
@@ -0,0 +1,139 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Dice;
+import model.DiceManager;
+import model.Game;
+import model.Player;
+import model.RandomSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+
+    private GameEngine engine;
+    private GameRoom room;
+    private Game game;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GameEngine();
+        room = new GameRoom("engine", new ObjectMapper(), Runnable::run, RandomSource.FAST, 7L);
+        game = room.getGame();
+        game.addPlayer("p0", "Alice");
+        game.addPlayer("p1", "Bob");
+        game.start();
+    }
+
+    /**
+     * Jeder Würfel zeigt immer {@code face}
+     */
+    private void fixDice(int dice, int face) {
+        DiceManager diceManager = new DiceManager(bound -> face - 1);
+        for (int i = 0; i < dice; i++) {
+            diceManager.addDicesToGame(List.of(new Dice(6)));
+        }
+        ReflectionTestUtils.setField(room, "diceManager", diceManager);
+    }
+
+    @Test
+    void testRollIsRejectedWhenNotPlayersTurn() {
+        List<GameEvent> events = engine.execute(room, new GameCommand.Roll("p1"));
+
+        assertEquals(List.of(new GameEvent.Rejected("p1", "Not your turn!")), events);
+        assertEquals(0, game.getPlayerById("p1").orElseThrow().getPosition());
+    }
+
+    @Test
+    void testRollOntoIncomeTaxChargesPlayer() {
+        fixDice(2, 2);
+        Player player = game.getPlayerById("p0").orElseThrow();
+        int money = player.getMoney();
+
+        List<GameEvent> events = engine.execute(room, new GameCommand.Roll("p0"));
+
+        assertEquals(List.of(new GameEvent.DiceRolled("p0", 4, true),
+                new GameEvent.TaxPaid("p0", 200, "EINKOMMENSTEUER")), events);
+        assertEquals(money - 200, player.getMoney());
+        // Nach einem Pasch darf noch einmal gewürfelt werden
+        assertFalse(player.hasRolledThisTurn());
+    }
+
+    @Test
+    void testBuyAfterLandingAndRentForOpponent() {
+        fixDice(1, 1);
+        engine.execute(room, new GameCommand.Roll("p0"));
+        int propertyId = room.getPropertyService().getPropertyByPosition(1).getId();
+
+        assertEquals(List.of(new GameEvent.PropertyBought("p0", propertyId)),
+                engine.execute(room, new GameCommand.BuyProperty("p0", propertyId)));
+        assertEquals("p0", room.getPropertyService().getPropertyById(propertyId).getOwnerId());
+
+        List<GameEvent> endTurn = engine.execute(room, new GameCommand.EndTurn("p0"));
+        assertEquals(List.of(new GameEvent.TurnEnded("p0", "p1")), endTurn);
+
+        List<GameEvent> events = engine.execute(room, new GameCommand.Roll("p1"));
+        GameEvent.RentCharged rent = assertInstanceOf(GameEvent.RentCharged.class, events.get(1));
+        assertEquals("p0", rent.ownerId());
+        assertTrue(rent.collected());
+    }
+
+    @Test
+    void testBankruptPlayerIsEliminatedAndOpponentWins() {
+        fixDice(2, 2);
+        game.getPlayerById("p0").orElseThrow().setMoney(150);
+
+        List<GameEvent> events = engine.execute(room, new GameCommand.Roll("p0"));
+
+        assertEquals(new GameEvent.PlayerBankrupt("p0", -50), events.get(2));
+        assertEquals(new GameEvent.PlayerGaveUp("p0", 0, -50), events.get(3));
+        assertEquals(new GameEvent.GameWon("p1"), events.get(4));
+        assertEquals(5, events.size());
+        assertEquals(1, game.getPlayers().size());
+    }
+
+    @Test
+    void testSimulationIsReproducibleAndRunsInParallel() {
+        GameSimulator simulator = new GameSimulator(engine, 4, 500, 80);
+
+        assertEquals(simulator.play(42), simulator.play(42));
+
+        GameSimulator.Summary summary = simulator.run(40, 1, new ForkJoinPool(4));
+        assertEquals(40, summary.games());
+        assertTrue(summary.turns() > 0);
+        // Partien ohne Bankrott entscheidet am Ende das Bargeld, jede Partie hat also einen Gewinner
+        assertEquals(40, Arrays.stream(summary.winsBySeat()).sum());
+
+        GameSimulator.Summary again = simulator.run(40, 1, ForkJoinPool.commonPool());
+        assertEquals(summary.finished(), again.finished());
+        assertEquals(summary.turns(), again.turns());
+    }
+
+    @Test
+    void testEndGameDeclaresRichestPlayerWinner() {
+        game.getPlayerById("p1").orElseThrow().setMoney(5000);
+
+        assertEquals(List.of(new GameEvent.GameWon("p1")), engine.execute(room, new GameCommand.EndGame("p0")));
+    }
+
+    @Test
+    void testNoRentOnOwnProperty() {
+        fixDice(1, 1);
+        Player player = game.getPlayerById("p0").orElseThrow();
+        int propertyId = room.getPropertyService().getPropertyByPosition(1).getId();
+        room.getPropertyService().getPropertyById(propertyId).setOwnerId("p0");
+        int money = player.getMoney();
+
+        List<GameEvent> events = engine.execute(room, new GameCommand.Roll("p0"));
+
+        assertEquals(List.of(new GameEvent.DiceRolled("p0", 1, false)), events);
+        assertEquals(money, player.getMoney());
+    }
+}
@@ -1,266 +1,265 @@
 package at.aau.serg.monopoly.websoket;
 
+import at.aau.serg.monopoly.firebase.FirestoreProvider;
+import at.aau.serg.monopoly.firebase.LeaderboardService;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
 import data.GameHistoryRequest;
 import model.GameHistory;
 import model.Player;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 class GameHistoryServiceTest {
 
-    @Test
-    void testSaveGameHistory_successful() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
+    private Firestore firestore;
+    private Transaction transaction;
+    private CollectionReference users;
+    private DocumentReference userDoc;
+    private CollectionReference history;
+    private DocumentReference gameDoc;
+    private DocumentSnapshot userSnapshot;
+    private DocumentSnapshot gameSnapshot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        firestore = mock(Firestore.class);
+        transaction = mock(Transaction.class);
+        users = mock(CollectionReference.class);
+        userDoc = mock(DocumentReference.class);
+        history = mock(CollectionReference.class);
+        gameDoc = mock(DocumentReference.class);
+        userSnapshot = mock(DocumentSnapshot.class);
+        gameSnapshot = mock(DocumentSnapshot.class);
 
         when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-
+        when(users.document(anyString())).thenReturn(userDoc);
         when(userDoc.collection("gameHistory")).thenReturn(history);
         when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenReturn(mock(WriteResult.class));
 
+        // Transaktion läuft direkt auf dem Test-Thread
+        when(firestore.runTransaction(any())).thenAnswer(invocation -> {
+            Transaction.Function<?> function = invocation.getArgument(0);
+            return ApiFutures.immediateFuture(function.updateCallback(transaction));
+        });
+        // Erst alle Benutzerdokumente, dann alle Historie-Dokumente
+        when(transaction.getAll(any(DocumentReference[].class))).thenAnswer(invocation -> {
+            List<DocumentSnapshot> result = new ArrayList<>();
+            for (Object ref : invocation.getArguments()) {
+                result.add(ref == userDoc ? userSnapshot : gameSnapshot);
+            }
+            return ApiFutures.immediateFuture(result);
+        });
+        when(userSnapshot.exists()).thenReturn(false);
+        when(gameSnapshot.exists()).thenReturn(false);
+    }
+
+    private static GameHistoryService newService() {
+        GameHistoryService service = new GameHistoryService();
+        LeaderboardService leaderboardService = new LeaderboardService();
+        ReflectionTestUtils.setField(leaderboardService, "firestoreProvider", new FirestoreProvider());
+        ReflectionTestUtils.setField(leaderboardService, "metrics", new GameMetrics());
+        ReflectionTestUtils.setField(service, "leaderboardService", leaderboardService);
+        ReflectionTestUtils.setField(service, "firestoreProvider", new FirestoreProvider());
+        ReflectionTestUtils.setField(service, "metrics", new GameMetrics());
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> savedStats() {
+        ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(transaction).set(eq(userDoc), captor.capture(), any(SetOptions.class));
+        return captor.getValue();
+    }
+
+    @Test
+    void testSaveGameHistory_successful() {
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
+            GameHistoryService service = newService();
             boolean result = service.saveGameHistory(new GameHistoryRequest("123", 45, 1500, false));
 
             assertTrue(result);
-            verify(gameDoc).set(any(GameHistory.class));
+            verify(transaction).set(eq(gameDoc), any(GameHistory.class));
+            verify(users).document("123");
         }
     }
 
     @Test
     void testSaveGameHistory_executionException() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenThrow(new ExecutionException("failed", new Throwable()));
+        ApiFuture<Object> failed = ApiFutures.immediateFailedFuture(new IllegalStateException("failed"));
+        doReturn(failed).when(firestore).runTransaction(any());
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            boolean result = service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, true));
-            assertFalse(result);
+            GameHistoryService service = newService();
+            assertFalse(service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, true)));
         }
     }
 
     @Test
     void testSaveGameHistory_interruptedException() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
+        ApiFuture<Object> future = mock(ApiFuture.class);
         when(future.get()).thenThrow(new InterruptedException("interrupted"));
+        doReturn(future).when(firestore).runTransaction(any());
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            boolean result = service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, false));
+            GameHistoryService service = newService();
+            assertFalse(service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, false)));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void testSaveGameHistory_firestoreNotInitialized() {
+        try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
+            client.when(FirestoreClient::getFirestore).thenThrow(new IllegalStateException("no app"));
 
-            assertFalse(result);
+            GameHistoryService service = newService();
+            assertFalse(service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, false)));
         }
     }
 
     @Test
     void testSaveGameHistoryForAllPlayers_emptyList() {
-        GameHistoryService service = new GameHistoryService();
+        GameHistoryService service = newService();
         assertDoesNotThrow(() -> service.saveGameHistoryForAllPlayers(null, 30, "winnerId"));
         assertDoesNotThrow(() -> service.saveGameHistoryForAllPlayers(List.of(), 30, "winnerId"));
     }
 
     @Test
-    void testSaveGameHistoryForAllPlayers_multiplePlayers() throws Exception {
+    void testSaveGameHistoryForAllPlayers_multiplePlayers() {
         Player p1 = new Player("p1", "Alice");
         Player p2 = new Player("p2", "Bob");
-        p1.addMoney(100);
-        p2.addMoney(200);
-
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-
-        when(firestore.collection(anyString())).thenReturn(users);
-        when(users.document(anyString())).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-        when(userDoc.collection(anyString())).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenReturn(mock(WriteResult.class));
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
+            GameHistoryService service = newService();
             service.saveGameHistoryForAllPlayers(List.of(p1, p2), 40, "p2");
 
-            verify(gameDoc, atLeastOnce()).set(any(GameHistory.class));
+            verify(transaction, times(2)).set(eq(gameDoc), any(GameHistory.class));
         }
     }
 
     @Test
-    void testSaveGameHistoryWhenUserDocumentNotExists() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-        ApiFuture<WriteResult> setFuture = mock(ApiFuture.class);
-
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(false); // Dokument existiert nicht
+    void testSeedIsStoredWithTheGame() {
+        try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
+            client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-        when(userDoc.set(Collections.emptyMap())).thenReturn(setFuture);
-        when(setFuture.get()).thenReturn(mock(WriteResult.class));
+            newService().saveGameHistoryForAllPlayers(List.of(new Player("p1", "Alice")), 40, "p1", 42L);
 
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenReturn(mock(WriteResult.class));
+            verify(transaction).set(eq(gameDoc), argThat((GameHistory entry) -> Long.valueOf(42L).equals(entry.getSeed())));
+        }
+    }
 
+    @Test
+    void testNewUserStartsAggregates() {
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            boolean result = service.saveGameHistory(new GameHistoryRequest("123", 45, 1500, false));
+            newService().saveGameHistory(new GameHistoryRequest("123", 45, 1500, true));
 
-            assertTrue(result);
-            verify(userDoc).set(Collections.emptyMap());
-            verify(gameDoc).set(any(GameHistory.class));
+            Map<String, Object> stats = savedStats();
+            assertEquals(1, stats.get("gamesPlayed"));
+            assertEquals(1, stats.get("wins"));
+            assertEquals(1500L, stats.get("moneySum"));
+            assertEquals(1500, stats.get("highestMoney"));
+            assertEquals(1500, stats.get("averageMoney"));
+            assertEquals(0, stats.get("level"));
         }
     }
 
     @Test
-    void testEnsureGameHistorySubcollectionThrowsException() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
+    void testExistingAggregatesAreUpdatedWithoutReadingHistory() {
+        when(userSnapshot.exists()).thenReturn(true);
+        when(userSnapshot.getLong("gamesPlayed")).thenReturn(3L);
+        when(userSnapshot.getLong("wins")).thenReturn(1L);
+        when(userSnapshot.getLong("moneySum")).thenReturn(3000L);
+        when(userSnapshot.getLong("highestMoney")).thenReturn(2000L);
 
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenThrow(new ExecutionException("test", new Exception()));
+        try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
+            client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-        // Mock für die spätere Speicherung der Historie hinzufügen
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
+            newService().markPlayerAsLoser("123", 20, 1000);
 
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenThrow(new ExecutionException("failed", new Throwable()));
+            Map<String, Object> stats = savedStats();
+            assertEquals(4, stats.get("gamesPlayed"));
+            assertEquals(1, stats.get("wins"));
+            assertEquals(4000L, stats.get("moneySum"));
+            assertEquals(2000, stats.get("highestMoney"));
+            assertEquals(1000, stats.get("averageMoney"));
+            assertEquals(2, stats.get("level"));
+            verify(history, never()).get();
+        }
+    }
+
+    @Test
+    void testLegacyUserWithoutMoneySumContinuesFromAverage() {
+        when(userSnapshot.exists()).thenReturn(true);
+        when(userSnapshot.getLong("gamesPlayed")).thenReturn(2L);
+        when(userSnapshot.getLong("averageMoney")).thenReturn(1000L);
+        when(userSnapshot.getLong("moneySum")).thenReturn(null);
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            boolean result = service.saveGameHistory(new GameHistoryRequest("123", 30, 1000, true));
+            newService().saveGameHistory(new GameHistoryRequest("123", 20, 4000, false));
 
-            assertFalse(result);
+            Map<String, Object> stats = savedStats();
+            assertEquals(6000L, stats.get("moneySum"));
+            assertEquals(2000, stats.get("averageMoney"));
         }
     }
 
     @Test
-    void testMarkPlayerAsLoser_successful() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
+    void testAlreadyWrittenEntryIsNotCountedTwice() {
+        when(gameSnapshot.exists()).thenReturn(true);
 
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
+        try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
+            client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenReturn(mock(WriteResult.class));
+            newService().saveGameHistory(new GameHistoryRequest("123", 20, 4000, false));
 
+            verify(transaction, never()).set(eq(gameDoc), any(GameHistory.class));
+            assertEquals(0, savedStats().get("gamesPlayed"));
+        }
+    }
+
+    @Test
+    void testMarkPlayerAsLoser_successful() {
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            service.markPlayerAsLoser("123",0,0);
+            GameHistoryService service = newService();
+            service.markPlayerAsLoser("123", 0, 0);
 
             ArgumentCaptor<GameHistory> captor = ArgumentCaptor.forClass(GameHistory.class);
-            verify(gameDoc).set(captor.capture());
+            verify(transaction).set(eq(gameDoc), captor.capture());
             GameHistory savedHistory = captor.getValue();
             assertEquals("123", savedHistory.getUserId());
             assertEquals(0, savedHistory.getDurationMinutes());
@@ -272,66 +271,34 @@ class GameHistoryServiceTest {
     }
 
     @Test
-    void testMarkPlayerAsLoser_interruptedException() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenThrow(new InterruptedException());
+    void testMarkPlayerAsLoser_executionException() throws Exception {
+        ApiFuture<Object> future = mock(ApiFuture.class);
+        when(future.get()).thenThrow(new ExecutionException("test", new Exception()));
+        doReturn(future).when(firestore).runTransaction(any());
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            assertDoesNotThrow(() -> service.markPlayerAsLoser("123",0,0));
-        } finally {
-            Thread.interrupted();
+            GameHistoryService service = newService();
+            assertDoesNotThrow(() -> service.markPlayerAsLoser("123", 0, 0));
         }
     }
 
     @Test
-    void testMarkPlayerAsLoser_executionException() throws Exception {
-        Firestore firestore = mock(Firestore.class);
-        CollectionReference users = mock(CollectionReference.class);
-        DocumentReference userDoc = mock(DocumentReference.class);
-        CollectionReference history = mock(CollectionReference.class);
-        DocumentReference gameDoc = mock(DocumentReference.class);
-        ApiFuture<WriteResult> future = mock(ApiFuture.class);
-        ApiFuture<DocumentSnapshot> getFuture = mock(ApiFuture.class);
-        DocumentSnapshot documentSnapshot = mock(DocumentSnapshot.class);
-
-        when(firestore.collection("users")).thenReturn(users);
-        when(users.document("123")).thenReturn(userDoc);
-        when(userDoc.get()).thenReturn(getFuture);
-        when(getFuture.get()).thenReturn(documentSnapshot);
-        when(documentSnapshot.exists()).thenReturn(true);
-
-        when(userDoc.collection("gameHistory")).thenReturn(history);
-        when(history.document(anyString())).thenReturn(gameDoc);
-        when(gameDoc.set(any(GameHistory.class))).thenReturn(future);
-        when(future.get()).thenThrow(new ExecutionException("test", new Exception()));
+    void testWriteBatch_groupsAllEntriesInOneTransaction() throws Exception {
+        GameHistory first = new GameHistory("g1", "p1", 10, 100, 0, new Date(), true, null);
+        GameHistory second = new GameHistory("g2", "p2", 10, 0, 0, new Date(), false, null);
 
         try (MockedStatic<FirestoreClient> client = Mockito.mockStatic(FirestoreClient.class)) {
             client.when(FirestoreClient::getFirestore).thenReturn(firestore);
 
-            GameHistoryService service = new GameHistoryService();
-            assertDoesNotThrow(() -> service.markPlayerAsLoser("123", 0, 0));
-        } finally {
-            Thread.interrupted();
+            newService().writeBatch(List.of(first, second));
+
+            verify(firestore, times(1)).runTransaction(any());
+            verify(transaction, times(1)).getAll(any(DocumentReference[].class));
+            verify(transaction).set(gameDoc, first);
+            verify(transaction).set(gameDoc, second);
+            verify(userDoc, never()).get();
         }
     }
 }
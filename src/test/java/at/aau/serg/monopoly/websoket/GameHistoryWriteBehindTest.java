@@ -0,0 +1,209 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.GameHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameHistoryWriteBehindTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GameHistoryWriteBehind writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop(1000);
+        }
+    }
+
+    private static GameHistory entry(String userId) {
+        return new GameHistory(userId + "-game", userId, 10, 1500, 0, new Date(), false, null);
+    }
+
+    @Test
+    void testQueuedEntriesAreWrittenInBatches() throws Exception {
+        List<List<GameHistory>> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        writer = new GameHistoryWriteBehind(batch -> {
+            release.await();
+            written.add(new ArrayList<>(batch));
+            batch.forEach(e -> done.countDown());
+        }, 10, 10, 1, 1, tempDir.resolve("spill"));
+        writer.start();
+
+        writer.enqueue(entry("a"));
+        writer.enqueue(entry("b"));
+        writer.enqueue(entry("c"));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        int total = written.stream().mapToInt(List::size).sum();
+        assertEquals(3, total);
+        assertTrue(written.size() <= 2, "b and c must share a batch");
+    }
+
+    @Test
+    void testFailedWriteIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        writer = new GameHistoryWriteBehind(batch -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("offline");
+            }
+            done.countDown();
+        }, 10, 10, 5, 1, tempDir.resolve("spill"));
+        writer.start();
+
+        writer.enqueue(entry("a"));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertFalse(Files.exists(tempDir.resolve("spill")));
+    }
+
+    @Test
+    void testUnreachableBackendSpillsAndReplaysOnRestart() throws Exception {
+        Path spill = tempDir.resolve("spill");
+        CountDownLatch failed = new CountDownLatch(2);
+        writer = new GameHistoryWriteBehind(batch -> {
+            failed.countDown();
+            throw new IllegalStateException("offline");
+        }, 10, 10, 2, 1, spill);
+        writer.start();
+        writer.enqueue(entry("a"));
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(spill) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.stop(1000);
+        assertEquals(1, Files.readAllLines(spill).size());
+
+        List<GameHistory> replayed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        writer = new GameHistoryWriteBehind(batch -> {
+            replayed.addAll(batch);
+            done.countDown();
+        }, 10, 10, 1, 1, spill);
+        writer.start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("a", replayed.get(0).getUserId());
+        assertEquals("a-game", replayed.get(0).getId());
+        assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    void testSpillFileIsKeptUntilReplayWasWritten() throws Exception {
+        Path spill = tempDir.resolve("spill");
+        Path replaying = tempDir.resolve("spill.replaying");
+        // Übrig von einem Lauf, der während des Nachschreibens abgebrochen wurde
+        Files.writeString(replaying, "{\"id\":\"old-game\",\"userId\":\"old\"}\n");
+        Files.writeString(spill, "{\"id\":\"a-game\",\"userId\":\"a\"}\n");
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> fileKept = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        writer = new GameHistoryWriteBehind(batch -> {
+            fileKept.add(Files.exists(replaying));
+            batch.forEach(e -> written.add(e.getUserId()));
+            batch.forEach(e -> done.countDown());
+        }, 10, 10, 1, 1, spill);
+        writer.start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        writer.stop(1000);
+        writer = null;
+        assertEquals(List.of("old", "a"), written);
+        assertEquals(List.of(true, true), fileKept);
+        assertFalse(Files.exists(replaying));
+        assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    void testFullQueueIsSpilledByWorker() throws Exception {
+        Path spill = tempDir.resolve("spill");
+        List<GameHistory> written = Collections.synchronizedList(new ArrayList<>());
+        // Worker wird erst später gestartet, die Queue läuft also voll
+        writer = new GameHistoryWriteBehind(written::addAll, 1, 10, 1, 1, spill);
+
+        writer.enqueue(entry("a"));
+        writer.enqueue(entry("b"));
+
+        assertEquals(2, writer.pending());
+        assertFalse(Files.exists(spill), "the caller must not write the spill file");
+
+        writer.start();
+        writer.stop(5000);
+        writer = null;
+        assertEquals("a", written.get(0).getUserId());
+        assertEquals(1, Files.readAllLines(spill).size());
+    }
+
+    @Test
+    void testStopWritesQueueBeforeTimeout() throws Exception {
+        List<GameHistory> written = Collections.synchronizedList(new ArrayList<>());
+        writer = new GameHistoryWriteBehind(batch -> {
+            Thread.sleep(20);
+            written.addAll(batch);
+        }, 10, 1, 1, 1, tempDir.resolve("spill"));
+        writer.start();
+        writer.enqueue(entry("a"));
+        writer.enqueue(entry("b"));
+        writer.enqueue(entry("c"));
+
+        writer.stop(5000);
+        writer = null;
+
+        assertEquals(3, written.size());
+        assertFalse(Files.exists(tempDir.resolve("spill")));
+    }
+
+    @Test
+    void testStopDoesNotInterruptRunningWrite() throws Exception {
+        Path spill = tempDir.resolve("spill");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        List<Boolean> interrupted = Collections.synchronizedList(new ArrayList<>());
+        writer = new GameHistoryWriteBehind(batch -> {
+            writing.countDown();
+            try {
+                release.await();
+                interrupted.add(false);
+            } catch (InterruptedException e) {
+                interrupted.add(true);
+            } finally {
+                finished.countDown();
+            }
+        }, 10, 1, 1, 1, spill);
+        writer.start();
+        writer.enqueue(entry("a"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        writer.enqueue(entry("b"));
+
+        writer.stop(50);
+        writer = null;
+        // Was noch in der Queue lag, ist gesichert, der laufende Batch darf fertig werden
+        assertEquals(1, Files.readAllLines(spill).size());
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(false), interrupted);
+    }
+}
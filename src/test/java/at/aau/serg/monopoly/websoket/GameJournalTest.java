@@ -0,0 +1,244 @@
+package at.aau.serg.monopoly.websoket;
+
+import data.PlayerInfo;
+import model.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private GameJournal journal;
+    private GameRoomRegistry registry;
+    private final GameEngine engine = new GameEngine();
+
+    @BeforeEach
+    void setUp() {
+        journal = newJournal(1000);
+        registry = newRegistry(journal);
+    }
+
+    private GameJournal newJournal(int snapshotEvery) {
+        GameJournal gameJournal = new GameJournal();
+        ReflectionTestUtils.setField(gameJournal, "directory", dir.toString());
+        ReflectionTestUtils.setField(gameJournal, "snapshotEvery", snapshotEvery);
+        return gameJournal;
+    }
+
+    private static GameRoomRegistry newRegistry(GameJournal gameJournal) {
+        GameRoomRegistry gameRoomRegistry = new GameRoomRegistry();
+        gameRoomRegistry.journal = gameJournal;
+        return gameRoomRegistry;
+    }
+
+    /**
+     * Führt einen Befehl wie der Handler innerhalb von begin/endCommand aus
+     */
+    private void run(GameRoom room, GameCommand command) {
+        room.beginCommand();
+        try {
+            engine.execute(room, command);
+        } finally {
+            room.endCommand();
+        }
+    }
+
+    private GameRoom startedRoom(String id) {
+        GameRoom room = registry.getOrCreateRoom(id);
+        room.beginCommand();
+        room.getGame().addPlayer("p0", "Alice");
+        room.getGame().addPlayer("p1", "Bob");
+        room.getGame().addPlayer("p2", "Carol");
+        room.getGame().start();
+        room.endCommand();
+        return room;
+    }
+
+    /**
+     * Spielt ein paar Runden, jeder kauft, was er kann
+     */
+    private void play(GameRoom room, int turns) {
+        for (int i = 0; i < turns; i++) {
+            Player player = room.getGame().getCurrentPlayer();
+            run(room, new GameCommand.Roll(player.getId()));
+            var property = room.getPropertyService().getPropertyByPosition(player.getPosition());
+            if (property != null && property.getOwnerId() == null) {
+                run(room, new GameCommand.BuyProperty(player.getId(), property.getId()));
+            }
+            run(room, new GameCommand.EndTurn(player.getId()));
+        }
+    }
+
+    private GameRoom restart(GameJournal gameJournal, String roomId) {
+        journal.close();
+        GameRoomRegistry restarted = newRegistry(gameJournal);
+        restarted.recoverRooms();
+        return restarted.getRoom(roomId);
+    }
+
+    private static void assertSameState(GameRoom expected, GameRoom actual) {
+        List<PlayerInfo> players = expected.getGame().getPlayerInfo();
+        assertEquals(players, actual.getGame().getPlayerInfo());
+        assertEquals(expected.getGame().getCurrentPlayerIndex(), actual.getGame().getCurrentPlayerIndex());
+        assertEquals(expected.getGame().isStarted(), actual.getGame().isStarted());
+        assertEquals(expected.getGame().getStartTime(), actual.getGame().getStartTime());
+        for (int position = 0; position < PropertyService.BOARD_SIZE; position++) {
+            var property = expected.getPropertyService().getPropertyByPosition(position);
+            if (property != null) {
+                var recovered = actual.getPropertyService().getPropertyById(property.getId());
+                assertEquals(property.getOwnerId(), recovered.getOwnerId(), property.getName());
+                assertEquals(property.isMortgaged(), recovered.isMortgaged(), property.getName());
+            }
+        }
+        for (PlayerInfo player : players) {
+            assertEquals(expected.getPropertyService().getLiquidationValue(player.getId()),
+                    actual.getPropertyService().getLiquidationValue(player.getId()));
+        }
+    }
+
+    @Test
+    void testRoomIsRecoveredFromLog() {
+        GameRoom room = startedRoom("table 1");
+        play(room, 30);
+        room.getPropertyService().getPropertyByPosition(1).setMortgaged(true);
+        room.beginCommand();
+        room.getGame().giveUp("p1");
+        room.endCommand();
+
+        GameRoom recovered = restart(newJournal(1000), "table 1");
+
+        assertNotNull(recovered);
+        assertNotSame(room, recovered);
+        assertSameState(room, recovered);
+    }
+
+    @Test
+    void testSnapshotShortensLogAndRecoveryContinuesIt() throws IOException {
+        journal = newJournal(20);
+        registry = newRegistry(journal);
+        GameRoom room = startedRoom("snap");
+        play(room, 40);
+
+        Path log;
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> all = files.toList();
+            assertTrue(all.stream().anyMatch(file -> file.toString().endsWith(".snap")));
+            log = all.stream().filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        long sequence = room.getJournal().getSequence();
+        assertTrue(Files.size(log) < 200, "log should only hold the records since the last snapshot");
+
+        GameJournal second = newJournal(20);
+        GameRoom recovered = restart(second, "snap");
+        assertSameState(room, recovered);
+        assertEquals(sequence, recovered.getJournal().getSequence());
+
+        // Nach der Wiederherstellung geht das Spiel weiter und lässt sich erneut wiederherstellen
+        play(recovered, 15);
+        second.close();
+        GameRoomRegistry third = newRegistry(newJournal(20));
+        third.recoverRooms();
+        assertSameState(recovered, third.getRoom("snap"));
+    }
+
+    @Test
+    void testBatchCutOffByCrashIsDropped() throws IOException {
+        GameRoom room = startedRoom("crash");
+        play(room, 5);
+        List<PlayerInfo> beforeLastTurn = room.getGame().getPlayerInfo();
+        Path log;
+        try (Stream<Path> files = Files.list(dir)) {
+            log = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        long validSize = Files.size(log);
+        play(room, 1);
+        journal.close();
+
+        // Der letzte Zug ist nur halb auf der Platte angekommen
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize + 3);
+        }
+
+        GameRoomRegistry restarted = newRegistry(newJournal(1000));
+        restarted.recoverRooms();
+        assertEquals(beforeLastTurn, restarted.getRoom("crash").getGame().getPlayerInfo());
+        assertEquals(validSize, Files.size(log));
+    }
+
+    @Test
+    void testJournalIsDeletedWhenRoomIsRemovedButKeptOnShutdown() throws IOException {
+        GameRoom closedRoom = registry.getOrCreateRoom("closed");
+        startedRoom("running");
+
+        registry.removeIfEmpty(closedRoom);
+        journal.onApplicationEvent(null);
+        registry.removeIfEmpty(registry.getRoom("running"));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".log")).count());
+        }
+        GameRoomRegistry restarted = newRegistry(newJournal(1000));
+        restarted.recoverRooms();
+        assertNull(restarted.getRoom("closed"));
+        assertEquals(3, restarted.getRoom("running").getGame().getPlayers().size());
+    }
+
+    private static long logFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+    @Test
+    void testJournalIsAttachedAsFirstMailboxTask() throws IOException {
+        List<Runnable> pending = new ArrayList<>();
+        ReflectionTestUtils.setField(registry, "roomExecutor", (Executor) pending::add);
+
+        GameRoom room = registry.getOrCreateRoom("queued");
+        room.getMailbox().execute(() -> assertNotNull(room.getJournal()));
+        assertNull(room.getJournal());
+        assertEquals(0, logFiles(dir));
+
+        pending.forEach(Runnable::run);
+        assertNotNull(room.getJournal());
+        assertEquals(1, logFiles(dir));
+    }
+
+    @Test
+    void testRoomRemovedBeforeAttachLeavesNoFiles() throws IOException {
+        List<Runnable> pending = new ArrayList<>();
+        ReflectionTestUtils.setField(registry, "roomExecutor", (Executor) pending::add);
+
+        GameRoom room = registry.getOrCreateRoom("gone");
+        registry.removeIfEmpty(room);
+        pending.forEach(Runnable::run);
+
+        assertNull(room.getJournal());
+        assertEquals(0, logFiles(dir));
+    }
+
+    @Test
+    void testDisabledWithoutDirectory() {
+        GameRoomRegistry plain = TestWiring.roomRegistry();
+        GameRoom room = plain.getOrCreateRoom("a");
+
+        assertFalse(plain.journal.isEnabled());
+        assertNull(room.getJournal());
+    }
+}
@@ -0,0 +1,98 @@
+package at.aau.serg.monopoly.websoket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GameMetricsTest {
+
+    private GameWebSocketHandler handler;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        handler = TestWiring.handler();
+        registry = handler.metrics.getRegistry();
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private long messages(String type) {
+        var timer = registry.find("monopoly.messages").tag("type", type).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void testMessagesAreCountedByCommand() {
+        WebSocketSession session = session("1");
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"Alice\"}"));
+        handler.handleTextMessage(session, new TextMessage("UPDATE_MONEY:50"));
+        handler.handleTextMessage(session, new TextMessage("update_Money:20"));
+        handler.handleTextMessage(session, new TextMessage("whatever 123"));
+
+        assertEquals(1, messages("INIT"));
+        assertEquals(2, messages("UPDATE_MONEY"));
+        // Beliebiger Text erzeugt keine eigene Zeitreihe
+        assertEquals(1, messages(GameMetrics.UNKNOWN_TYPE));
+        assertEquals(0, messages("update_Money"));
+        assertEquals(3, registry.find("monopoly.room.mailbox.wait").timer().count());
+    }
+
+    @Test
+    void testBroadcastFanOutIsRecorded() {
+        handler.handleTextMessage(session("1"), new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"Alice\"}"));
+        handler.handleTextMessage(session("2"), new TextMessage("{\"type\":\"INIT\",\"userId\":\"u2\",\"name\":\"Bob\"}"));
+
+        var recipients = registry.find("monopoly.broadcast.recipients").summary();
+        assertTrue(recipients.count() > 0);
+        assertEquals(2, recipients.max());
+        assertEquals(recipients.count(), registry.find("monopoly.broadcast.duration").timer().count());
+    }
+
+    @Test
+    void testFirestoreCallsAreTaggedWithOutcome() throws Exception {
+        GameMetrics metrics = new GameMetrics();
+
+        assertEquals("ok", metrics.firestore("history.write", () -> "ok"));
+        assertThrows(ExecutionException.class, () -> metrics.firestore("history.write", () -> {
+            throw new ExecutionException("offline", null);
+        }));
+
+        MeterRegistry meters = metrics.getRegistry();
+        assertEquals(1, meters.find("monopoly.firestore").tags("operation", "history.write", "outcome", "success").timer().count());
+        assertEquals(1, meters.find("monopoly.firestore").tags("operation", "history.write", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void testRegistriesExposeGauges() throws Exception {
+        handler.handleTextMessage(session("1"), new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"Alice\"}"));
+        WebSocketSession closed = session("2");
+        when(closed.isOpen()).thenReturn(false);
+        handler.outboxes.send(closed, new TextMessage("hello"));
+        WebSocketSession broken = session("3");
+        doThrow(new java.io.IOException("reset")).when(broken).sendMessage(any());
+        handler.outboxes.send(broken, new TextMessage("hello"));
+
+        MeterRegistry meters = new SimpleMeterRegistry();
+        handler.roomRegistry.bindTo(meters);
+        handler.outboxes.bindTo(meters);
+
+        assertEquals(1, meters.get("monopoly.rooms.active").gauge().value());
+        assertEquals(1, meters.get("monopoly.sessions.active").gauge().value());
+        assertEquals(1, meters.get("monopoly.send.failures").tag("reason", "closed").functionCounter().count());
+        assertEquals(1, meters.get("monopoly.send.failures").tag("reason", "error").functionCounter().count());
+    }
+}
@@ -0,0 +1,117 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GameRoomRegistryTest {
+
+    private GameRoomRegistry registry;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        registry = TestWiring.roomRegistry();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+    }
+
+    @Test
+    void testGetOrCreateRoomReturnsSameRoomForSameId() {
+        GameRoom first = registry.getOrCreateRoom("table-1");
+        GameRoom second = registry.getOrCreateRoom("table-1");
+
+        assertSame(first, second);
+        assertEquals(1, registry.getRoomCount());
+    }
+
+    @Test
+    void testRoomsAreIndependent() {
+        GameRoom a = registry.getOrCreateRoom("a");
+        GameRoom b = registry.getOrCreateRoom("b");
+
+        a.getGame().addPlayer("u1", "Alice");
+
+        assertNotSame(a.getGame(), b.getGame());
+        assertNotSame(a.getPropertyService(), b.getPropertyService());
+        assertTrue(b.getGame().getPlayers().isEmpty());
+    }
+
+    @Test
+    void testBindSessionMovesSessionBetweenRooms() {
+        GameRoom a = registry.getOrCreateRoom("a");
+        GameRoom b = registry.getOrCreateRoom("b");
+
+        registry.bindSession(session, a);
+        a.sessionToUserId.put("s1", "u1");
+        registry.bindSession(session, b);
+
+        assertSame(b, registry.getRoomForSession("s1"));
+        assertTrue(b.sessions.contains(session));
+        assertNull(registry.getRoom("a"), "empty previous room should be dropped");
+    }
+
+    @Test
+    void testUnbindAndRemoveIfEmpty() {
+        GameRoom room = registry.getOrCreateRoom("a");
+        registry.bindSession(session, room);
+
+        assertSame(room, registry.unbindSession(session));
+        registry.removeIfEmpty(room);
+
+        assertNull(registry.getRoomForSession("s1"));
+        assertEquals(0, registry.getRoomCount());
+    }
+
+    @Test
+    void testIsUserConnectedLooksAtAllRooms() {
+        GameRoom room = registry.getOrCreateRoom("a");
+        room.sessionToUserId.put("s1", "u1");
+
+        assertTrue(registry.isUserConnected("u1"));
+        assertFalse(registry.isUserConnected("u2"));
+    }
+
+    @Test
+    void testRoomThatWasJoinedMeanwhileIsNotRemoved() {
+        GameRoom room = registry.joinRoom("a", session);
+        registry.unbindSession(session);
+        // Eine zweite Session tritt bei, bevor die Mailbox removeIfEmpty ausführt
+        WebSocketSession second = mock(WebSocketSession.class);
+        when(second.getId()).thenReturn("s2");
+        assertSame(room, registry.joinRoom("a", second));
+
+        registry.removeIfEmpty(room);
+
+        assertSame(room, registry.getRoom("a"));
+        assertSame(room, registry.getRoomForSession("s2"));
+    }
+
+    @Test
+    void testJoinAfterRemovalGetsRegisteredRoom() {
+        GameRoom old = registry.joinRoom("a", session);
+        registry.unbindSession(session);
+        registry.removeIfEmpty(old);
+
+        GameRoom fresh = registry.joinRoom("a", session);
+
+        assertNotSame(old, fresh);
+        assertSame(fresh, registry.getRoom("a"));
+        // Ein verspätetes removeIfEmpty des alten Raums trifft den neuen nicht
+        registry.removeIfEmpty(old);
+        assertSame(fresh, registry.getRoom("a"));
+    }
+
+    @Test
+    void testRejoinOnlyJoinsExistingRoom() {
+        assertNull(registry.rejoinRoom("a", session));
+        assertEquals(0, registry.getRoomCount());
+
+        GameRoom room = registry.getOrCreateRoom("a");
+        assertSame(room, registry.rejoinRoom("a", session));
+        assertTrue(room.sessions.contains(session));
+    }
+}
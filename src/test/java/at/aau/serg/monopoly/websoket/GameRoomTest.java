@@ -0,0 +1,108 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.PlayerInfo;
+import model.RandomSource;
+import model.cards.Card;
+import model.cards.CardType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRoomTest {
+
+    private GameRoom room;
+
+    @BeforeEach
+    void setUp() {
+        room = new GameRoom("r1", new ObjectMapper(), Runnable::run);
+        room.getGame().addPlayer("u1", "Alice");
+    }
+
+    @Test
+    void testGameStateFrameIsReusedWhileStateIsUnchanged() {
+        List<PlayerInfo> snapshot = room.getGame().getPlayerInfo();
+        TextMessage frame = new TextMessage("GAME_STATE:[]");
+
+        assertNull(room.cachedGameStateFrame(snapshot));
+        room.cacheGameStateFrame(snapshot, frame);
+
+        assertSame(frame, room.cachedGameStateFrame(room.getGame().getPlayerInfo()));
+    }
+
+    @Test
+    void testGameStateFrameIsInvalidatedByChange() {
+        room.cacheGameStateFrame(room.getGame().getPlayerInfo(), new TextMessage("GAME_STATE:[]"));
+
+        room.getGame().updatePlayerMoney("u1", 100);
+
+        assertNull(room.cachedGameStateFrame(room.getGame().getPlayerInfo()));
+    }
+
+    @Test
+    void testResetDropsCachedFrame() {
+        List<PlayerInfo> empty = List.of();
+        room.cacheGameStateFrame(empty, new TextMessage("GAME_STATE:[]"));
+
+        room.reset();
+
+        assertNull(room.cachedGameStateFrame(empty));
+    }
+
+    @Test
+    void testDirtyGameStateIsReportedOnlyByOutermostCommand() {
+        room.beginCommand();
+        room.beginCommand();
+        room.markGameStateDirty();
+
+        assertFalse(room.endCommand());
+        assertTrue(room.isInCommand());
+        assertTrue(room.endCommand());
+        assertFalse(room.isInCommand());
+
+        room.beginCommand();
+        assertFalse(room.endCommand(), "flag must be cleared after the flush");
+    }
+
+    @Test
+    void testSameSeedReplaysDiceAndCards() {
+        assertEquals(recordRound(42L), recordRound(42L));
+        assertNotEquals(recordRound(42L), recordRound(43L));
+    }
+
+    @Test
+    void testRoundsGetANewSeedUnlessFixed() {
+        Long first = room.getSeed();
+        assertNotNull(first);
+        room.reset();
+        assertNotEquals(first, room.getSeed());
+
+        GameRoom replay = new GameRoom("replay", new ObjectMapper(), Runnable::run, RandomSource.FAST, 7L);
+        replay.reset();
+        assertEquals(7L, replay.getSeed());
+    }
+
+    @Test
+    void testSecureRoomsHaveNoSeed() {
+        GameRoom secure = new GameRoom("secure", new ObjectMapper(), Runnable::run, RandomSource.SECURE, null);
+        assertNull(secure.getSeed());
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRoom("bad", new ObjectMapper(), Runnable::run, "dice-tower", null));
+    }
+
+    private List<Object> recordRound(long seed) {
+        GameRoom seeded = new GameRoom("seeded", new ObjectMapper(), Runnable::run, RandomSource.FAST, seed);
+        List<Object> sequence = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sequence.add(seeded.getDiceManager().rollDices());
+            Card card = seeded.getCardDeckService().drawCard(i % 2 == 0 ? CardType.CHANCE : CardType.COMMUNITY_CHEST);
+            sequence.add(card.getId());
+        }
+        return sequence;
+    }
+}
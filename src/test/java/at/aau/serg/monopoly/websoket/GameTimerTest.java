@@ -0,0 +1,91 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTimerTest {
+
+    private GameTimer timer;
+    private final List<String> ran = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        timer = new GameTimer();
+        timer.tickMillis = 10;
+        timer.wheelSize = 8;
+    }
+
+    private void ticks(int count) {
+        for (int i = 0; i < count; i++) {
+            timer.tick();
+        }
+    }
+
+    @Test
+    void testTasksRunInOrderOfTheirDelay() {
+        timer.schedule(30, () -> ran.add("c"));
+        timer.schedule(10, () -> ran.add("a"));
+        timer.schedule(20, () -> ran.add("b"));
+
+        ticks(2);
+        assertEquals(List.of("a"), ran);
+        ticks(2);
+        assertEquals(List.of("a", "b", "c"), ran);
+        assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    void testDelayLongerThanTheWheelWaitsForMoreRounds() {
+        // 8 Buckets zu 10 ms, 200 ms sind zweieinhalb Umdrehungen
+        timer.schedule(200, () -> ran.add("late"));
+
+        ticks(20);
+        assertTrue(ran.isEmpty());
+        ticks(1);
+        assertEquals(List.of("late"), ran);
+    }
+
+    @Test
+    void testCancelledTaskNeverRunsAndIsRemoved() {
+        GameTimer.Timeout waiting = timer.schedule(20, () -> ran.add("waiting"));
+        GameTimer.Timeout inWheel = timer.schedule(50, () -> ran.add("in wheel"));
+        timer.schedule(50, () -> ran.add("kept"));
+        waiting.cancel();
+        ticks(1);
+        inWheel.cancel();
+        ticks(1);
+
+        assertEquals(1, timer.getPending());
+        timer.runPending();
+        assertEquals(List.of("kept"), ran);
+    }
+
+    @Test
+    void testTaskCanScheduleTheNextOne() {
+        timer.schedule(10, () -> {
+            ran.add("first");
+            timer.schedule(10, () -> ran.add("second"));
+        });
+
+        timer.runPending();
+        assertEquals(List.of("first"), ran);
+        timer.runPending();
+        assertEquals(List.of("first", "second"), ran);
+    }
+
+    @Test
+    void testFailingTaskDoesNotStopTheWheel() {
+        timer.schedule(10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        timer.schedule(10, () -> ran.add("after"));
+
+        timer.runPending();
+        assertEquals(List.of("after"), ran);
+    }
+}
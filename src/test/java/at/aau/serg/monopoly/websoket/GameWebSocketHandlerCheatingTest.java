@@ -1,6 +1,8 @@
 package at.aau.serg.monopoly.websoket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.CheatCodeMessage;
 import model.Game;
 import model.Player;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,17 +28,20 @@ import static org.mockito.Mockito.*;
 class GameWebSocketHandlerCheatingTest {
 
     @InjectMocks
-    private GameWebSocketHandler handler;
+    private GameWebSocketHandler handler = TestWiring.handler();
 
     @Mock private Game game;
     @Mock private CheatService cheatService;
     @Mock private WebSocketSession session;
     @Mock private Player player;
     @Captor private ArgumentCaptor<TextMessage> messageCaptor;
+    private GameRoom room;
+    private final ObjectMapper mapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(handler, "game",         game);
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room,    "game",         game);
         ReflectionTestUtils.setField(handler, "cheatService", cheatService);
 
         lenient().when(session.getId()).thenReturn("session1");
@@ -50,8 +55,8 @@ class GameWebSocketHandlerCheatingTest {
                 .thenReturn(Optional.of(player));
         lenient().when(player.getMoney()).thenReturn(1000);
 
-        handler.sessions.add(session);
-        handler.sessionToUserId.put("session1", "session1");
+        handler.roomRegistry.bindSession(session, room);
+        room.sessionToUserId.put("session1", "session1");
     }
 
     @Test
@@ -61,7 +66,7 @@ class GameWebSocketHandlerCheatingTest {
         when(cheatService.getAmount("100", 1000)).thenReturn(100);
 
         // Act
-        handler.handleCheatMessage(payload, "session1");
+        handler.handleCheatMessage(room, mapper.readValue(payload, CheatCodeMessage.class), "session1");
 
         // Assert
         verify(cheatService).getAmount("100", 1000);
@@ -76,7 +81,7 @@ class GameWebSocketHandlerCheatingTest {
                 .thenThrow(new NumberFormatException("bad"));
 
         // Act
-        handler.handleCheatMessage(payload, "session1");
+        handler.handleCheatMessage(room, mapper.readValue(payload, CheatCodeMessage.class), "session1");
 
         // Assert
         verify(game, never()).updatePlayerMoney(any(), anyInt());
@@ -13,8 +13,6 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.mockito.Mockito.*;
 
@@ -25,10 +23,11 @@ class GameWebSocketHandlerDealTest {
     private WebSocketSession fromSession;
     private WebSocketSession toSession;
     private ObjectMapper objectMapper;
+    private GameRoom room;
 
     @BeforeEach
     void setUp() {
-        handler = new GameWebSocketHandler();
+        handler = TestWiring.handler();
         dealService = mock(DealService.class);
         Game game = new Game();
         objectMapper = new ObjectMapper();
@@ -49,20 +48,14 @@ class GameWebSocketHandlerDealTest {
         game.addPlayer("toPlayer", "Bob");
 
 
-        ConcurrentHashMap<String, String> sessionMap = new ConcurrentHashMap<>();
-        sessionMap.put("session-from", "fromPlayer");
-        sessionMap.put("session-to", "toPlayer");
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "game", game);
+        handler.roomRegistry.bindSession(fromSession, room);
+        handler.roomRegistry.bindSession(toSession, room);
+        room.sessionToUserId.put("session-from", "fromPlayer");
+        room.sessionToUserId.put("session-to", "toPlayer");
 
-        ReflectionTestUtils.setField(handler, "game", game);
-        ReflectionTestUtils.setField(handler, "sessionToUserId", sessionMap);
-
-
-        CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-        sessions.add(fromSession);
-        sessions.add(toSession);
-        ReflectionTestUtils.setField(handler, "sessions", sessions);
-
-        ReflectionTestUtils.setField(handler, "dealService", dealService);
+        ReflectionTestUtils.setField(room, "dealService", dealService);
     }
 
     @Test
@@ -146,9 +139,7 @@ class GameWebSocketHandlerDealTest {
         response.setCounterPropertyIds(List.of());
         response.setCounterMoney(0);
 
-        CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-        sessions.add(fromSession); // Only one session now
-        ReflectionTestUtils.setField(handler, "sessions", sessions);
+        room.sessions.remove(toSession); // Only one session now
 
         String json = objectMapper.writeValueAsString(response);
 
@@ -170,9 +161,7 @@ class GameWebSocketHandlerDealTest {
         String json = objectMapper.writeValueAsString(proposal);
 
         // Ensure that the session for "missingPlayer" is not present
-        CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-        sessions.add(fromSession); // Only fromSession is present
-        ReflectionTestUtils.setField(handler, "sessions", sessions);
+        room.sessions.remove(toSession); // Only fromSession is present
 
         handler.handleTextMessage(fromSession, new TextMessage(json));
 
@@ -254,9 +243,7 @@ class GameWebSocketHandlerDealTest {
         String json = objectMapper.writeValueAsString(counter);
 
         // Only fromSession is connected
-        CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-        sessions.add(fromSession);
-        ReflectionTestUtils.setField(handler, "sessions", sessions);
+        room.sessions.remove(toSession);
 
         handler.handleTextMessage(fromSession, new TextMessage(json));
 
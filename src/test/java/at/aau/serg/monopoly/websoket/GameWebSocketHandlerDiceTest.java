@@ -31,17 +31,21 @@ class GameWebSocketHandlerDiceTest {
     GameWebSocketHandler handler;
     ObjectMapper mapper = new ObjectMapper();
 
+    private GameRoom room() {
+        return handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+    }
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        handler = new GameWebSocketHandler();
+        handler = TestWiring.handler();
 
-        ReflectionTestUtils.setField(handler, "propertyTransactionService", propertyTransactionService);
-        ReflectionTestUtils.setField(handler, "propertyService", propertyService);
+        ReflectionTestUtils.setField(room(), "propertyTransactionService", propertyTransactionService);
+        ReflectionTestUtils.setField(room(), "propertyService", propertyService);
         ReflectionTestUtils.setField(handler, "rentCollectionService", rentCollectionService);
         ReflectionTestUtils.setField(handler, "rentCalculationService", rentCalculationService);
         ReflectionTestUtils.setField(handler, "gameHistoryService", gameHistoryService);
-        ReflectionTestUtils.setField(handler, "cardDeckService", cardDeckService);
+        ReflectionTestUtils.setField(room(), "cardDeckService", cardDeckService);
 
         when(session.getId()).thenReturn("session-1");
         when(session.isOpen()).thenReturn(true);
@@ -100,7 +104,7 @@ class GameWebSocketHandlerDiceTest {
         DiceManagerInterface mockDice = mock(DiceManagerInterface.class);
         when(mockDice.rollDices()).thenReturn(8);
         when(mockDice.getLastRollValues()).thenReturn(List.of(4, 4));
-        ReflectionTestUtils.setField(handler, "diceManager", mockDice);
+        ReflectionTestUtils.setField(room(), "diceManager", mockDice);
 
         clearInvocations(session);
 
@@ -135,7 +139,7 @@ class GameWebSocketHandlerDiceTest {
         // Mock diceManager
         DiceManagerInterface mockDice = mock(DiceManagerInterface.class);
         when(mockDice.rollDices()).thenThrow(new RuntimeException("boom"));
-        ReflectionTestUtils.setField(handler, "diceManager", mockDice);
+        ReflectionTestUtils.setField(room(), "diceManager", mockDice);
 
         clearInvocations(session);
 
@@ -158,13 +162,13 @@ class GameWebSocketHandlerDiceTest {
         when(s1.isOpen()).thenReturn(true);
         when(s2.isOpen()).thenReturn(true);
 
-        handler = new GameWebSocketHandler();
-        ReflectionTestUtils.setField(handler, "propertyTransactionService", propertyTransactionService);
-        ReflectionTestUtils.setField(handler, "propertyService", propertyService);
+        handler = TestWiring.handler();
+        ReflectionTestUtils.setField(room(), "propertyTransactionService", propertyTransactionService);
+        ReflectionTestUtils.setField(room(), "propertyService", propertyService);
         ReflectionTestUtils.setField(handler, "rentCollectionService", rentCollectionService);
         ReflectionTestUtils.setField(handler, "rentCalculationService", rentCalculationService);
         ReflectionTestUtils.setField(handler, "gameHistoryService", gameHistoryService);
-        ReflectionTestUtils.setField(handler, "cardDeckService", cardDeckService);
+        ReflectionTestUtils.setField(room(), "cardDeckService", cardDeckService);
 
         handler.afterConnectionEstablished(s1);
         handler.afterConnectionEstablished(s2);
@@ -183,7 +187,7 @@ class GameWebSocketHandlerDiceTest {
         DiceManagerInterface mockDice = mock(DiceManagerInterface.class);
         when(mockDice.rollDices()).thenReturn(12);
         when(mockDice.getLastRollValues()).thenReturn(List.of(6, 6)); // simulate Pasch (6+6)
-        ReflectionTestUtils.setField(handler, "diceManager", mockDice);
+        ReflectionTestUtils.setField(room(), "diceManager", mockDice);
 
         clearInvocations(s1, s2);
 
@@ -291,7 +295,7 @@ class GameWebSocketHandlerDiceTest {
         // Manipuliert Spiellogik, damit Spieler nicht dran ist
         Game spyGame = spy(new Game());
         spyGame.addPlayer("u1", "Alice");
-        ReflectionTestUtils.setField(handler, "game", spyGame);
+        ReflectionTestUtils.setField(room(), "game", spyGame);
 
         doReturn(false).when(spyGame).isPlayerTurn("u1");
 
@@ -318,7 +322,7 @@ class GameWebSocketHandlerDiceTest {
 
         Game spyGame = spy(new Game());
         spyGame.addPlayer("u1", "Alice");
-        ReflectionTestUtils.setField(handler, "game", spyGame);
+        ReflectionTestUtils.setField(room(), "game", spyGame);
 
         doReturn(true).when(spyGame).isPlayerTurn("u1");
 
@@ -369,7 +373,7 @@ class GameWebSocketHandlerDiceTest {
         when(mockDice.rollDices()).thenReturn(12); // 6+6
         when(mockDice.isPasch()).thenReturn(true);
         when(mockDice.getLastRollValues()).thenReturn(List.of(6, 6));
-        ReflectionTestUtils.setField(handler, "diceManager", mockDice);
+        ReflectionTestUtils.setField(room(), "diceManager", mockDice);
 
         clearInvocations(session);
         handler.handleTextMessage(session, new TextMessage("Roll"));
@@ -402,7 +406,7 @@ class GameWebSocketHandlerDiceTest {
         when(mockDice.rollDices()).thenReturn(7);
         when(mockDice.getLastRollValues()).thenReturn(List.of(3, 4));
         when(mockDice.isPasch()).thenReturn(false);
-        ReflectionTestUtils.setField(handler, "diceManager", mockDice);
+        ReflectionTestUtils.setField(room(), "diceManager", mockDice);
 
         clearInvocations(session);
 
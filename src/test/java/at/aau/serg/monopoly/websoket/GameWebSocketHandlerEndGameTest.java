@@ -2,9 +2,6 @@ package at.aau.serg.monopoly.websoket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import model.properties.HouseableProperty;
-import model.properties.TrainStation;
-import model.properties.Utility;
 import model.Player;
 import model.Game;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,7 +25,7 @@ import static org.mockito.Mockito.*;
 class GameWebSocketHandlerEndGameTest {
 
     @InjectMocks
-    private GameWebSocketHandler handler;
+    private GameWebSocketHandler handler = TestWiring.handler();
     @Mock
     private PropertyService propertyService;
     @Mock
@@ -36,48 +33,17 @@ class GameWebSocketHandlerEndGameTest {
     @Mock
     private Game mockGame;
     private final ObjectMapper mapper = new ObjectMapper();
+    private GameRoom room;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(handler, "game", mockGame);
-        ReflectionTestUtils.setField(handler, "propertyService", propertyService);
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "game", mockGame);
+        ReflectionTestUtils.setField(room, "propertyService", propertyService);
 
         when(session.getId()).thenReturn("sess-1");
         when(session.isOpen()).thenReturn(true);
-        handler.sessions.clear();
-        handler.sessions.add(session);
-    }
-
-    @Test
-    void testSumLiquidationValueOfOwnedProperties() {
-        // Arrange
-        HouseableProperty hp = mock(HouseableProperty.class);
-        when(hp.getOwnerId()).thenReturn("p1");
-        when(hp.getPurchasePrice()).thenReturn(100);
-
-        TrainStation ts = mock(TrainStation.class);
-        when(ts.getOwnerId()).thenReturn("p1");
-        when(ts.getPurchasePrice()).thenReturn(200);
-
-        Utility u = mock(Utility.class);
-        when(u.getOwnerId()).thenReturn("otherOwner");
-        when(u.getPurchasePrice()).thenReturn(300);
-
-        when(propertyService.getHouseableProperties())
-                .thenReturn(Collections.singletonList(hp));
-        when(propertyService.getTrainStations())
-                .thenReturn(Collections.singletonList(ts));
-        when(propertyService.getUtilities())
-                .thenReturn(Collections.singletonList(u));
-
-        Integer total = ReflectionTestUtils.invokeMethod(
-                handler,
-                "sumLiquidationValueOfOwnedProperties",
-                "p1"
-        );
-        assertNotNull(total);
-        // hp contributes 100/2 = 50, ts contributes 200/2 = 100, utility is ignored => 150
-        assertEquals(150, total.intValue());
+        handler.roomRegistry.bindSession(session, room);
     }
 
     @Test
@@ -94,26 +60,14 @@ class GameWebSocketHandlerEndGameTest {
         when(mockGame.getPlayers())
                 .thenReturn(Arrays.asList(bankruptPlayer, solventPlayer));
 
-        HouseableProperty p = mock(HouseableProperty.class);
-        when(p.getOwnerId()).thenReturn("bankruptId");
-        when(p.getPurchasePrice()).thenReturn(20);
-
-        when(propertyService.getHouseableProperties())
-                .thenReturn(Collections.singletonList(p));
-        when(propertyService.getTrainStations())
-                .thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities())
-                .thenReturn(Collections.emptyList());
-
+        // owns a property worth 10 when sold, still below zero
+        when(propertyService.getLiquidationValue("bankruptId")).thenReturn(10);
 
         GameWebSocketHandler spyHandler = spy(handler);
-        doNothing().when(spyHandler).processPlayerGiveUp(anyString(), anyInt(), anyInt());
-
-        spyHandler.sessions.clear();
-        spyHandler.sessions.add(session);
+        doNothing().when(spyHandler).processPlayerGiveUp(any(), anyString(), anyInt(), anyInt());
 
         // Act
-        ReflectionTestUtils.invokeMethod(spyHandler, "checkAllPlayersForBankruptcy");
+        ReflectionTestUtils.invokeMethod(spyHandler, "checkAllPlayersForBankruptcy", room);
 
         // Assert
         ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
@@ -134,10 +88,6 @@ class GameWebSocketHandlerEndGameTest {
 
         when(mockGame.getPlayers()).thenReturn(Collections.singletonList(bankruptPlayer));
 
-        when(propertyService.getHouseableProperties()).thenReturn(Collections.emptyList());
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
-
         ObjectMapper realMapper = new ObjectMapper();
         ObjectMapper spyMapper = spy(realMapper);
         when(spyMapper.writeValueAsString(any())).thenThrow(
@@ -146,13 +96,10 @@ class GameWebSocketHandlerEndGameTest {
         ReflectionTestUtils.setField(handler, "objectMapper", spyMapper);
 
         GameWebSocketHandler spyHandler = spy(handler);
-        doNothing().when(spyHandler).processPlayerGiveUp(anyString(),anyInt(), anyInt());
-
-        spyHandler.sessions.clear();
-        spyHandler.sessions.add(session);
+        doNothing().when(spyHandler).processPlayerGiveUp(any(), anyString(), anyInt(), anyInt());
 
         // Act
-        ReflectionTestUtils.invokeMethod(spyHandler, "checkAllPlayersForBankruptcy");
+        ReflectionTestUtils.invokeMethod(spyHandler, "checkAllPlayersForBankruptcy", room);
 
         // Assert
         verify(session, never()).sendMessage(any(TextMessage.class));
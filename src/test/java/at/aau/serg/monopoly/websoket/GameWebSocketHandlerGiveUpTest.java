@@ -27,7 +27,7 @@ import static org.mockito.Mockito.*;
 class GameWebSocketHandlerGiveUpTest {
 
     @InjectMocks
-    private GameWebSocketHandler handler;
+    private GameWebSocketHandler handler = TestWiring.handler();
 
     @Mock private Game game;
     @Mock private WebSocketSession session;
@@ -45,19 +45,19 @@ class GameWebSocketHandlerGiveUpTest {
     @Captor
     private ArgumentCaptor<TextMessage> messageCaptor;
     private final ObjectMapper mapper = new ObjectMapper();
+    private GameRoom room;
 
     @BeforeEach
     void setUp() {
-        // inject our mocks
-        ReflectionTestUtils.setField(handler, "game", game);
-        handler.sessions.clear();
-        handler.sessions.add(session);
-
         when(session.getId()).thenReturn("session1");
         when(session.isOpen()).thenReturn(true);
 
-        handler.sessionToUserId.clear();
-        handler.sessionToUserId.put("session1", "session1");
+        // inject our mocks
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "game", game);
+        ReflectionTestUtils.setField(room, "propertyService", propertyService);
+        handler.roomRegistry.bindSession(session, room);
+        room.sessionToUserId.put("session1", "session1");
 
         when(propertyService.getHouseableProperties()).thenReturn(Collections.emptyList());
         when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
@@ -75,7 +75,7 @@ class GameWebSocketHandlerGiveUpTest {
         when(game.isPlayerTurn("session1")).thenReturn(false);
 
         // Act
-        handler.handleGiveUpFromClient(session, json);
+        handler.handleGiveUpFromClient(room, session, json);
 
         // Assert: error sent back to same session
         verify(session, times(1)).sendMessage(messageCaptor.capture());
@@ -99,7 +99,7 @@ class GameWebSocketHandlerGiveUpTest {
         when(remainingPlayer.getId()).thenReturn("remainingId");
 
         // Act
-        handler.handleGiveUpFromClient(session, json);
+        handler.handleGiveUpFromClient(room, session, json);
 
         // Assert: game.giveUp called
         verify(game).giveUp("session1");
@@ -136,7 +136,7 @@ class GameWebSocketHandlerGiveUpTest {
         when(remainingPlayer.getId()).thenReturn("winner1");
 
         // Act
-        handler.handleGiveUpFromClient(session, json);
+        handler.handleGiveUpFromClient(room, session, json);
 
         // Assert: game.giveUp called
         verify(game).giveUp("session1");
@@ -187,7 +187,7 @@ class GameWebSocketHandlerGiveUpTest {
                 .thenThrow(new com.fasterxml.jackson.core.JsonProcessingException("fail") {});
 
         // Act
-        handler.handleGiveUpFromClient(session, json);
+        handler.handleGiveUpFromClient(room, session, json);
 
         // Assert: game.giveUp(...) was called
         verify(game).giveUp("session1");
@@ -15,7 +15,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import java.util.Collections;
 
 @ExtendWith(MockitoExtension.class)
 class GameWebSocketHandlerPullTest {
@@ -32,23 +31,19 @@ class GameWebSocketHandlerPullTest {
 
     @BeforeEach
     void setUp() {
-        handler = spy(new GameWebSocketHandler());
+        handler = spy(TestWiring.handler());
 
         // Inject:
-        ReflectionTestUtils.setField(handler, "cardDeckService", cardDeckService);
-        ReflectionTestUtils.setField(handler, "propertyTransactionService", propertyTransactionService);
+        GameRoom room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "cardDeckService", cardDeckService);
+        ReflectionTestUtils.setField(room, "propertyTransactionService", propertyTransactionService);
         ReflectionTestUtils.setField(handler, "gameHistoryService", gameHistoryService);
-        ReflectionTestUtils.setField(handler, "propertyService", propertyService);
-
-        when(propertyService.getHouseableProperties()).thenReturn(Collections.emptyList());
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(room, "propertyService", propertyService);
 
         when(session.getId()).thenReturn("sess-1");
         when(session.isOpen()).thenReturn(true);
 
         // INIT handshake
-        handler.afterConnectionEstablished(session);
         String initJson = mapper.createObjectNode()
                 .put("type", "INIT")
                 .put("userId", "u1")
@@ -59,7 +54,7 @@ class GameWebSocketHandlerPullTest {
         // Clear INIT messages
         clearInvocations(session);
 
-        doNothing().when(handler).broadcastGameState();
+        lenient().doNothing().when(handler).broadcastGameState(any());
     }
 
     @Test
@@ -94,4 +89,17 @@ class GameWebSocketHandlerPullTest {
         assertTrue(jsonReply.contains("\"description\":\"Advance to Go\""),
                 "must include card.description");
     }
+
+    @Test
+    void testPullCard_forOtherPlayerDrawsNothing() throws Exception {
+        PullCardMessage pull = new PullCardMessage();
+        pull.setType("PULL_CARD");
+        pull.setPlayerId("u2");
+        pull.setCardType("COMMUNITY_CHEST");
+
+        handler.handleTextMessage(session, new TextMessage(mapper.writeValueAsString(pull)));
+
+        verify(cardDeckService, never()).drawCard(any());
+        verify(session, never()).sendMessage(any());
+    }
 }
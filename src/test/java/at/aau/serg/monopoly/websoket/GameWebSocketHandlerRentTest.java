@@ -33,6 +33,7 @@ class GameWebSocketHandlerRentTest {
     private PropertyService propertyService;
 
     private GameWebSocketHandler handler;
+    private GameRoom room;
     private Player renter;
     private Player owner;
     private BaseProperty property;
@@ -45,17 +46,18 @@ class GameWebSocketHandlerRentTest {
         MockitoAnnotations.openMocks(this);
         
         // Create handler with mocked dependencies
-        handler = new GameWebSocketHandler();
+        handler = TestWiring.handler();
         
         // Initialize objectMapper first
         ObjectMapper objectMapper = new ObjectMapper();
         
         // Use reflection to set private fields
-        setPrivateField(handler, "propertyTransactionService", propertyTransactionService);
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        setPrivateField(room, "propertyTransactionService", propertyTransactionService);
         setPrivateField(handler, "rentCalculationService", rentCalculationService);
         setPrivateField(handler, "rentCollectionService", rentCollectionService);
-        setPrivateField(handler, "game", game);
-        setPrivateField(handler, "propertyService", propertyService);
+        setPrivateField(room, "game", game);
+        setPrivateField(room, "propertyService", propertyService);
         setPrivateField(handler, "objectMapper", objectMapper);
 
         // Setup session
@@ -90,7 +92,8 @@ class GameWebSocketHandlerRentTest {
         owner.setMoney(1000);
 
         // Setup session to user ID mapping
-        handler.sessionToUserId.put(SESSION_ID, RENTER_ID);
+        handler.roomRegistry.bindSession(session, room);
+        room.sessionToUserId.put(SESSION_ID, RENTER_ID);
         
         // Setup game state
         when(game.getPlayerById(RENTER_ID)).thenReturn(Optional.of(renter));
@@ -286,12 +289,12 @@ class GameWebSocketHandlerRentTest {
 
     @Test
     void testHandlePlayerLanding_RentCollectionScenarios() throws Exception {
-        var method = GameWebSocketHandler.class.getDeclaredMethod("handlePlayerLanding", Player.class);
+        var method = GameWebSocketHandler.class.getDeclaredMethod("handlePlayerLanding", GameRoom.class, Player.class);
         method.setAccessible(true);
 
         GameWebSocketHandler spyHandler = spy(handler);
-        doNothing().when(spyHandler).broadcastGameState();
-        doNothing().when(spyHandler).processPlayerGiveUp(anyString(), anyInt(), anyInt());
+        doNothing().when(spyHandler).broadcastGameState(any());
+        doNothing().when(spyHandler).processPlayerGiveUp(any(), anyString(), anyInt(), anyInt());
 
         // Common mocks
         int position = 7;
@@ -304,14 +307,14 @@ class GameWebSocketHandlerRentTest {
         when(mockProperty.getName()).thenReturn("Boardwalk");
         Player mockOwner = mock(Player.class);
         when(mockOwner.getId()).thenReturn("owner1");
-        when(spyHandler.propertyService.getPropertyByPosition(position)).thenReturn(mockProperty);
+        when(room.getPropertyService().getPropertyByPosition(position)).thenReturn(mockProperty);
         when(spyHandler.rentCalculationService.calculateRent(mockProperty, mockOwner, testPlayer)).thenReturn(100);
 
         // --- Case 1: Enough money, rent collected successfully ---
         when(game.getPlayerById("owner1")).thenReturn(Optional.of(mockOwner));
         when(testPlayer.getMoney()).thenReturn(200);
         when(spyHandler.rentCollectionService.collectRent(testPlayer, mockProperty, mockOwner)).thenReturn(true);
-        method.invoke(spyHandler, testPlayer);
+        method.invoke(spyHandler, room, testPlayer);
         verify(spyHandler.rentCollectionService).collectRent(testPlayer, mockProperty, mockOwner);
         // Info log for successful collection is not easily verifiable without a logger mock
 
@@ -323,8 +326,8 @@ class GameWebSocketHandlerRentTest {
         when(testPlayer.getId()).thenReturn("player1");
         when(mockProperty.getOwnerId()).thenReturn("owner2");
         when(game.getPlayerById("owner2")).thenReturn(Optional.empty());
-        when(spyHandler.propertyService.getPropertyByPosition(position)).thenReturn(mockProperty);
-        method.invoke(spyHandler, testPlayer);
+        when(room.getPropertyService().getPropertyByPosition(position)).thenReturn(mockProperty);
+        method.invoke(spyHandler, room, testPlayer);
         verify(spyHandler.rentCollectionService, never()).collectRent(any(), any(), any());
 
         // --- Case 3: Rent collection fails (collectRent returns false) ---
@@ -335,9 +338,9 @@ class GameWebSocketHandlerRentTest {
         when(game.getPlayerById("owner1")).thenReturn(Optional.of(mockOwner));
         when(testPlayer.getMoney()).thenReturn(200);
         when(spyHandler.rentCalculationService.calculateRent(mockProperty, mockOwner, testPlayer)).thenReturn(100);
-        when(spyHandler.propertyService.getPropertyByPosition(position)).thenReturn(mockProperty);
+        when(room.getPropertyService().getPropertyByPosition(position)).thenReturn(mockProperty);
         when(spyHandler.rentCollectionService.collectRent(testPlayer, mockProperty, mockOwner)).thenReturn(false);
-        method.invoke(spyHandler, testPlayer);
+        method.invoke(spyHandler, room, testPlayer);
         verify(spyHandler.rentCollectionService).collectRent(testPlayer, mockProperty, mockOwner);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,213 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GameWebSocketHandlerResumeTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private GameWebSocketHandler handler;
+    private WebSocketSession classic;
+    private WebSocketSession resumable;
+    private GameRoom room;
+
+    @BeforeEach
+    void setUp() {
+        handler = TestWiring.handler();
+        classic = session("1");
+        resumable = session("2");
+        handler.handleTextMessage(classic, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"Alice\"}"));
+        room = handler.roomRegistry.getRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private List<String> payloads(WebSocketSession session) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    private JsonNode sessionInfo(WebSocketSession session) throws Exception {
+        for (String payload : payloads(session)) {
+            if (payload.contains("\"type\":\"SESSION\"")) {
+                return mapper.readTree(payload);
+            }
+        }
+        return fail("no SESSION message");
+    }
+
+    private JsonNode joinResumable() throws Exception {
+        handler.handleTextMessage(resumable, new TextMessage(
+                "{\"type\":\"INIT\",\"userId\":\"u2\",\"name\":\"Bob\",\"resumable\":true}"));
+        return sessionInfo(resumable);
+    }
+
+    private void resume(WebSocketSession session, String token, long lastSeq) {
+        handler.handleTextMessage(session, new TextMessage(String.format(
+                "{\"type\":\"RESUME\",\"roomId\":\"default\",\"token\":\"%s\",\"lastSeq\":%d}", token, lastSeq)));
+    }
+
+    @Test
+    void testResumableSessionReceivesNumberedFrames() throws Exception {
+        joinResumable();
+        clearInvocations(classic, resumable);
+
+        handler.handleTextMessage(classic, new TextMessage("UPDATE_MONEY:50"));
+
+        assertTrue(payloads(resumable).stream().allMatch(p -> p.startsWith("SEQ:")));
+        assertTrue(payloads(resumable).stream().anyMatch(p -> p.matches("SEQ:\\d+:GAME_STATE:.*")));
+        assertTrue(payloads(classic).stream().anyMatch(p -> p.startsWith("GAME_STATE:")));
+        assertTrue(payloads(classic).stream().noneMatch(p -> p.startsWith("SEQ:")));
+    }
+
+    @Test
+    void testSeatIsKeptAndMissedFramesAreReplayed() throws Exception {
+        JsonNode info = joinResumable();
+        String token = info.get("token").asText();
+        // Letzte Nummer, die der Client vor dem Abbruch gesehen hat
+        long lastSeq = room.getFrameSequence();
+
+        handler.afterConnectionClosed(resumable, CloseStatus.GOING_AWAY);
+        clearInvocations(classic);
+        handler.handleTextMessage(classic, new TextMessage("UPDATE_MONEY:50"));
+
+        assertTrue(room.getGame().getPlayerById("u2").isPresent());
+        assertTrue(payloads(classic).stream().noneMatch(p -> p.startsWith("Player left")));
+
+        WebSocketSession reconnected = session("3");
+        resume(reconnected, token, lastSeq);
+
+        List<String> received = payloads(reconnected);
+        JsonNode resumed = mapper.readTree(received.get(0));
+        assertEquals("SESSION", resumed.get("type").asText());
+        assertTrue(resumed.get("resumed").asBoolean());
+        assertFalse(resumed.get("snapshot").asBoolean());
+        assertNotEquals(token, resumed.get("token").asText());
+        assertTrue(received.stream().anyMatch(p -> p.matches("SEQ:\\d+:GAME_STATE:.*\"money\":1550.*")));
+        assertEquals("u2", room.sessionToUserId.get("3"));
+        assertTrue(room.awaySeats.isEmpty());
+
+        // Das alte Token gilt nicht mehr
+        WebSocketSession stranger = session("4");
+        resume(stranger, token, lastSeq);
+        assertTrue(payloads(stranger).get(0).contains("Resume failed"));
+    }
+
+    @Test
+    void testClientTooFarBehindGetsCurrentState() throws Exception {
+        room.replayCapacity = 2;
+        String token = joinResumable().get("token").asText();
+
+        handler.afterConnectionClosed(resumable, CloseStatus.GOING_AWAY);
+        for (int i = 0; i < 3; i++) {
+            handler.handleTextMessage(classic, new TextMessage("UPDATE_MONEY:10"));
+        }
+
+        WebSocketSession reconnected = session("3");
+        resume(reconnected, token, 0);
+
+        List<String> received = payloads(reconnected);
+        assertTrue(mapper.readTree(received.get(0)).get("snapshot").asBoolean());
+        assertTrue(received.get(1).startsWith("GAME_STATE:"));
+        assertTrue(received.get(2).startsWith("PLAYER_TURN:"));
+    }
+
+    @Test
+    void testSeatIsGivenUpWhenWindowExpires() throws Exception {
+        joinResumable();
+        handler.afterConnectionClosed(resumable, CloseStatus.GOING_AWAY);
+        clearInvocations(classic);
+
+        handler.gameTimer.runPending();
+
+        assertTrue(room.getGame().getPlayerById("u2").isEmpty());
+        assertTrue(room.resumeTokens.isEmpty());
+        assertTrue(payloads(classic).stream().anyMatch(p -> p.startsWith("Player left: u2")));
+    }
+
+    @Test
+    void testInitCancelsKeptSeat() throws Exception {
+        joinResumable();
+        handler.afterConnectionClosed(resumable, CloseStatus.GOING_AWAY);
+
+        WebSocketSession again = session("3");
+        handler.handleTextMessage(again, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u2\",\"name\":\"Bob\"}"));
+        handler.gameTimer.runPending();
+
+        assertTrue(room.getGame().getPlayerById("u2").isPresent());
+        assertEquals("u2", room.sessionToUserId.get("3"));
+    }
+
+    /**
+     * Ein Raum wie nach der Wiederherstellung aus dem Journal: Spieler ohne Sessions
+     */
+    private GameRoom recoveredRoom() {
+        GameRoom recovered = handler.roomRegistry.getOrCreateRoom("recovered");
+        recovered.getGame().addPlayer("u3", "Carol");
+        recovered.getGame().addPlayer("u4", "Dave");
+        recovered.getGame().start();
+        return recovered;
+    }
+
+    @Test
+    void testRecoveredRoomKeepsSeatsForReturningPlayers() {
+        GameRoom recovered = recoveredRoom();
+        handler.keepRecoveredSeats();
+        assertEquals(2, recovered.awaySeats.size());
+        assertTrue(room.awaySeats.isEmpty());
+
+        WebSocketSession back = session("3");
+        handler.handleTextMessage(back, new TextMessage(
+                "{\"type\":\"INIT\",\"userId\":\"u3\",\"name\":\"Carol\",\"roomId\":\"recovered\"}"));
+        handler.gameTimer.runPending();
+
+        assertTrue(recovered.getGame().getPlayerById("u3").isPresent());
+        assertTrue(recovered.getGame().getPlayerById("u4").isEmpty());
+        assertSame(recovered, handler.roomRegistry.getRoom("recovered"));
+    }
+
+    @Test
+    void testRecoveredRoomNobodyReturnsToIsRemoved() {
+        recoveredRoom();
+        handler.keepRecoveredSeats();
+
+        handler.gameTimer.runPending();
+
+        assertNull(handler.roomRegistry.getRoom("recovered"));
+        assertSame(room, handler.roomRegistry.getRoom(GameRoomRegistry.DEFAULT_ROOM_ID));
+    }
+
+    @Test
+    void testClassicSessionStillLeavesImmediately() {
+        handler.afterConnectionClosed(classic, CloseStatus.GOING_AWAY);
+
+        assertTrue(room.getGame().getPlayerById("u1").isEmpty());
+        assertTrue(room.awaySeats.isEmpty());
+    }
+
+    @Test
+    void testResumeWithUnknownTokenFails() throws Exception {
+        WebSocketSession stranger = session("3");
+        resume(stranger, "nope", 0);
+
+        assertTrue(payloads(stranger).get(0).contains("Resume failed"));
+        assertNull(handler.roomRegistry.getRoomForSession("3"));
+    }
+}
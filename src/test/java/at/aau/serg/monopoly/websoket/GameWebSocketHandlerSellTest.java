@@ -16,8 +16,6 @@ import org.springframework.web.socket.WebSocketSession;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -39,30 +37,25 @@ class GameWebSocketHandlerSellTest {
 
     @BeforeEach
     void setUp() {
-        handler = new GameWebSocketHandler();
+        handler = TestWiring.handler();
         mapper = new ObjectMapper();
 
         // Set up test game state
         when(game.getPlayerById(TEST_USER_ID)).thenReturn(Optional.of(player));
         
         // Use reflection to set the private fields
-        ReflectionTestUtils.setField(handler, "game", game);
-        ReflectionTestUtils.setField(handler, "propertyTransactionService", propertyTransactionService);
-        
-        // Set up session mapping
-        ConcurrentHashMap<String, String> sessionMap = new ConcurrentHashMap<>();
-        sessionMap.put("testSessionId", TEST_USER_ID);
-        ReflectionTestUtils.setField(handler, "sessionToUserId", sessionMap);
-        
-        // Set up sessions list
-        CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-        sessions.add(session);
-        ReflectionTestUtils.setField(handler, "sessions", sessions);
+        GameRoom room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "game", game);
+        ReflectionTestUtils.setField(room, "propertyTransactionService", propertyTransactionService);
 
         // Set up session ID
         when(session.getId()).thenReturn("testSessionId");
         when(session.isOpen()).thenReturn(true);
 
+        // Set up session mapping
+        handler.roomRegistry.bindSession(session, room);
+        room.sessionToUserId.put("testSessionId", TEST_USER_ID);
+
         // Send INIT message to register the player
         String initJson = mapper.createObjectNode()
             .put("type", "INIT")
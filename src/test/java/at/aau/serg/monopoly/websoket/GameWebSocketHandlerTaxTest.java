@@ -12,11 +12,11 @@ import org.springframework.web.socket.WebSocketSession;
 import static org.mockito.Mockito.*;
 import java.lang.reflect.Field;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class GameWebSocketHandlerTaxTest {
     private GameWebSocketHandler handler;
+    private GameRoom room;
     private Game game;
     private WebSocketSession session;
     private ObjectMapper objectMapper;
@@ -25,7 +25,7 @@ class GameWebSocketHandlerTaxTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        handler = new GameWebSocketHandler();
+        handler = TestWiring.handler();
         game = new Game();
         session = mock(WebSocketSession.class);
         objectMapper = new ObjectMapper();
@@ -34,24 +34,22 @@ class GameWebSocketHandlerTaxTest {
         game.addPlayer(TEST_USER_ID, TEST_PLAYER_NAME);
         
         // Use reflection to set the private fields
-        Field sessionToUserIdField = GameWebSocketHandler.class.getDeclaredField("sessionToUserId");
-        sessionToUserIdField.setAccessible(true);
-        ConcurrentHashMap<String, String> sessionMap = new ConcurrentHashMap<>();
-        sessionToUserIdField.set(handler, sessionMap);
-        
-        Field gameField = GameWebSocketHandler.class.getDeclaredField("game");
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+
+        Field gameField = GameRoom.class.getDeclaredField("game");
         gameField.setAccessible(true);
-        gameField.set(handler, game);
+        gameField.set(room, game);
 
         // Set up session ID
         when(session.getId()).thenReturn("testSessionId");
-        sessionMap.put("testSessionId", TEST_USER_ID);
+        handler.roomRegistry.bindSession(session, room);
+        room.sessionToUserId.put("testSessionId", TEST_USER_ID);
 
         // Mock dice manager
         DiceManagerInterface diceManager = mock(DiceManagerInterface.class);
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        diceManagerField.set(handler, diceManager);
+        diceManagerField.set(room, diceManager);
 
         // Send INIT message to register the player
         String initJson = objectMapper.createObjectNode()
@@ -151,9 +149,9 @@ class GameWebSocketHandlerTaxTest {
         spyGame.addPlayer(TEST_USER_ID, "TestPlayer");
 
 
-        Field gameField = GameWebSocketHandler.class.getDeclaredField("game");
+        Field gameField = GameRoom.class.getDeclaredField("game");
         gameField.setAccessible(true);
-        gameField.set(handler, spyGame);
+        gameField.set(room, spyGame);
 
         Player player = spyGame.getPlayerById(TEST_USER_ID).orElseThrow();
         player.setPosition(0);
@@ -165,9 +163,9 @@ class GameWebSocketHandlerTaxTest {
         when(mockDiceManager.isPasch()).thenReturn(false);
         when(mockDiceManager.getLastRollValues()).thenReturn(List.of(4));
 
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        diceManagerField.set(handler, mockDiceManager);
+        diceManagerField.set(room, mockDiceManager);
 
         doReturn(true).when(spyGame).updatePlayerPosition(4, TEST_USER_ID);
         player.setPosition(4);
@@ -185,9 +183,9 @@ class GameWebSocketHandlerTaxTest {
         Game spyGame = spy(new Game());
         spyGame.addPlayer(TEST_USER_ID, "TestPlayer");
 
-        Field gameField = GameWebSocketHandler.class.getDeclaredField("game");
+        Field gameField = GameRoom.class.getDeclaredField("game");
         gameField.setAccessible(true);
-        gameField.set(handler, spyGame);
+        gameField.set(room, spyGame);
 
         Player player = spyGame.getPlayerById(TEST_USER_ID).orElseThrow();
         player.setPosition(0);
@@ -199,9 +197,9 @@ class GameWebSocketHandlerTaxTest {
         when(mockDiceManager.isPasch()).thenReturn(false);
         when(mockDiceManager.getLastRollValues()).thenReturn(List.of(38));
 
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        diceManagerField.set(handler, mockDiceManager);
+        diceManagerField.set(room, mockDiceManager);
 
         doReturn(true).when(spyGame).updatePlayerPosition(38, TEST_USER_ID);
         player.setPosition(38);
@@ -221,9 +219,9 @@ class GameWebSocketHandlerTaxTest {
         int initialMoney = player.getMoney();
 
         // Mock dice roll to land on a non-tax position
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        DiceManagerInterface diceManager = (DiceManagerInterface) diceManagerField.get(handler);
+        DiceManagerInterface diceManager = (DiceManagerInterface) diceManagerField.get(room);
         when(diceManager.rollDices()).thenReturn(5);
 
         // Act - Simulate dice roll
@@ -241,9 +239,9 @@ class GameWebSocketHandlerTaxTest {
         int initialMoney = player.getMoney();
 
         // Mock dice roll to pass GO and land on Einkommensteuer
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        DiceManagerInterface diceManager = (DiceManagerInterface) diceManagerField.get(handler);
+        DiceManagerInterface diceManager = (DiceManagerInterface) diceManagerField.get(room);
         when(diceManager.rollDices()).thenReturn(5); // 39 + 5 = 44, wraps around to 4 (Einkommensteuer)
 
         // Act - Simulate dice roll that passes GO and lands on Einkommensteuer
@@ -261,9 +259,9 @@ class GameWebSocketHandlerTaxTest {
         String otherPlayerId = "otherPlayerId";
         spyGame.addPlayer(otherPlayerId, "Other Player");
 
-        Field gameField = GameWebSocketHandler.class.getDeclaredField("game");
+        Field gameField = GameRoom.class.getDeclaredField("game");
         gameField.setAccessible(true);
-        gameField.set(handler, spyGame);
+        gameField.set(room, spyGame);
 
         Player currentPlayer = spyGame.getPlayerById(TEST_USER_ID).orElseThrow();
         Player otherPlayer = spyGame.getPlayerById(otherPlayerId).orElseThrow();
@@ -278,9 +276,9 @@ class GameWebSocketHandlerTaxTest {
         when(mockDiceManager.isPasch()).thenReturn(false);
         when(mockDiceManager.getLastRollValues()).thenReturn(List.of(4));
 
-        Field diceManagerField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        Field diceManagerField = GameRoom.class.getDeclaredField("diceManager");
         diceManagerField.setAccessible(true);
-        diceManagerField.set(handler, mockDiceManager);
+        diceManagerField.set(room, mockDiceManager);
 
 
         doReturn(true).when(spyGame).updatePlayerPosition(4, TEST_USER_ID);
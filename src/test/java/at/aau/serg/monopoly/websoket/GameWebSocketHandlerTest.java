@@ -28,6 +28,7 @@ import static org.mockito.Mockito.*;
 class GameWebSocketHandlerTest {
 
     private GameWebSocketHandler handler;
+    private GameRoom room;
 
     @Mock
     private WebSocketSession session;
@@ -47,25 +48,26 @@ class GameWebSocketHandlerTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        handler = new GameWebSocketHandler();
-        handler.propertyService = mock(PropertyService.class);
+        handler = TestWiring.handler();
+        room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        ReflectionTestUtils.setField(room, "propertyService", mock(PropertyService.class));
         handler.rentCalculationService = mock(RentCalculationService.class);
         handler.rentCollectionService = mock(RentCollectionService.class);
         // Inject mocks
-        var gameField = GameWebSocketHandler.class.getDeclaredField("game");
+        var gameField = GameRoom.class.getDeclaredField("game");
         gameField.setAccessible(true);
-        gameField.set(handler, game);
-        var propField = GameWebSocketHandler.class.getDeclaredField("propertyTransactionService");
+        gameField.set(room, game);
+        var propField = GameRoom.class.getDeclaredField("propertyTransactionService");
         propField.setAccessible(true);
-        propField.set(handler, propertyTransactionService);
+        propField.set(room, propertyTransactionService);
 
         game.addPlayer("player1", "Player 1");
         when(game.getPlayerById("player1")).thenReturn(Optional.of(player));
         when(game.getCurrentPlayer()).thenReturn(player);
 
-        var diceField = GameWebSocketHandler.class.getDeclaredField("diceManager");
+        var diceField = GameRoom.class.getDeclaredField("diceManager");
         diceField.setAccessible(true);
-        diceField.set(handler, diceManager);
+        diceField.set(room, diceManager);
         // Initialize dice manager
         when(diceManager.rollDices()).thenReturn(5); // Default roll value
         // Common session stubbing
@@ -75,7 +77,7 @@ class GameWebSocketHandlerTest {
         String initJson = "{\"type\":\"INIT\",\"userId\":\"player1\",\"name\":\"Player1\"}";
         handler.handleTextMessage(session, new TextMessage(initJson));
         // PropertyService mocken
-        when(handler.propertyService.getPropertyByPosition(anyInt())).thenReturn(null);
+        when(room.getPropertyService().getPropertyByPosition(anyInt())).thenReturn(null);
         // Clear initial broadcasts
         clearInvocations(session);
     }
@@ -136,24 +138,19 @@ class GameWebSocketHandlerTest {
         when(diceManager.rollDices()).thenReturn(roll);
         when(diceManager.getLastRollValues()).thenReturn(List.of(roll));
 
-        // Reflect diceManager und game in Handler setzen
-        ReflectionTestUtils.setField(handler, "diceManager", diceManager);
-        ReflectionTestUtils.setField(handler, "game", game);
+        // Reflect diceManager und game in den Raum setzen
+        ReflectionTestUtils.setField(room, "diceManager", diceManager);
+        ReflectionTestUtils.setField(room, "game", game);
 
-        // Füge Session zur sessions-Liste hinzu
-        Field sessionsField = GameWebSocketHandler.class.getDeclaredField("sessions");
-        sessionsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        CopyOnWriteArrayList<WebSocketSession> sessions =
-                (CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(handler);
-        sessions.add(session);
+        // Füge Session zum Raum hinzu
+        handler.roomRegistry.bindSession(session, room);
 
         // Setze sessionToUserId-Eintrag
-        Field sessionToUserIdField = GameWebSocketHandler.class.getDeclaredField("sessionToUserId");
+        Field sessionToUserIdField = GameRoom.class.getDeclaredField("sessionToUserId");
         sessionToUserIdField.setAccessible(true);
         @SuppressWarnings("unchecked")
         Map<String, String> sessionToUserId =
-                (Map<String, String>) sessionToUserIdField.get(handler);
+                (Map<String, String>) sessionToUserIdField.get(room);
         sessionToUserId.put("session1", "player1");
 
         // Act
@@ -180,12 +177,12 @@ class GameWebSocketHandlerTest {
         when(player.getId()).thenReturn("player1");
         when(game.getPlayerInfo()).thenReturn(new ArrayList<>());
         
-        // Add session to handler's sessions list
-        var sessionsField = GameWebSocketHandler.class.getDeclaredField("sessions");
+        // Add session to the room's sessions list
+        var sessionsField = GameRoom.class.getDeclaredField("sessions");
         sessionsField.setAccessible(true);
         @SuppressWarnings("unchecked")
-        var sessions = (CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(handler);
-        sessions.add(session);
+        var sessions = (CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(room);
+        sessions.addIfAbsent(session);
 
         // Act
         handler.handleTextMessage(session, new TextMessage("Roll"));
@@ -237,12 +234,12 @@ class GameWebSocketHandlerTest {
         when(propertyTransactionService.canBuyProperty(player, 1)).thenReturn(true);
         when(propertyTransactionService.buyProperty(player, 1)).thenReturn(true);
 
-        Field sessionsField = GameWebSocketHandler.class.getDeclaredField("sessions");
+        Field sessionsField = GameRoom.class.getDeclaredField("sessions");
         sessionsField.setAccessible(true);
         @SuppressWarnings("unchecked")
         CopyOnWriteArrayList<WebSocketSession> sessions =
-                (CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(handler);
-        sessions.add(session);
+                (CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(room);
+        sessions.addIfAbsent(session);
 
         handler.handleTextMessage(session, new TextMessage("BUY_PROPERTY:1"));
 
@@ -0,0 +1,145 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.deals.DealProposalMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GameWebSocketHandlerTimeoutTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private GameWebSocketHandler handler;
+    private WebSocketSession alice;
+    private WebSocketSession bob;
+    private GameRoom room;
+
+    @BeforeEach
+    void setUp() {
+        handler = TestWiring.handler();
+        alice = session("1");
+        bob = session("2");
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private void startGame() {
+        handler.handleTextMessage(alice, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"Alice\"}"));
+        handler.handleTextMessage(bob, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u2\",\"name\":\"Bob\"}"));
+        room = handler.roomRegistry.getRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+    }
+
+    private List<String> payloads(WebSocketSession session) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    private String currentPlayer() {
+        return room.getGame().getCurrentPlayer().getId();
+    }
+
+    private void proposeDeal() throws Exception {
+        DealProposalMessage deal = new DealProposalMessage("DEAL_PROPOSAL", "u1", "u2", List.of(), List.of(), 100);
+        handler.handleTextMessage(alice, new TextMessage(mapper.writeValueAsString(deal)));
+    }
+
+    @Test
+    void testIdleTurnPassesOn() throws Exception {
+        startGame();
+        String idle = currentPlayer();
+        assertEquals(idle, room.getTurnTimerPlayerId());
+        clearInvocations(alice, bob);
+
+        handler.gameTimer.runPending();
+
+        assertNotEquals(idle, currentPlayer());
+        assertTrue(payloads(bob).contains("Player " + idle + " ran out of time, the turn passes on"));
+        assertTrue(payloads(bob).contains("PLAYER_TURN:" + currentPlayer()));
+        // Der nächste Spieler bekommt wieder die volle Zeit
+        assertEquals(currentPlayer(), room.getTurnTimerPlayerId());
+    }
+
+    @Test
+    void testTurnTimerFollowsTheTurn() {
+        startGame();
+        String first = currentPlayer();
+        WebSocketSession firstSession = "u1".equals(first) ? alice : bob;
+
+        handler.handleTextMessage(firstSession, new TextMessage("NEXT_TURN"));
+
+        assertNotEquals(first, currentPlayer());
+        assertEquals(currentPlayer(), room.getTurnTimerPlayerId());
+        // Nur der Timer des aktuellen Zugs bleibt im Rad
+        handler.gameTimer.tick();
+        assertEquals(1, handler.gameTimer.getPending());
+    }
+
+    @Test
+    void testNoTurnTimerWhenDisabled() {
+        handler.turnTimeoutMillis = 0;
+        startGame();
+
+        assertNull(room.getTurnTimerPlayerId());
+        handler.gameTimer.tick();
+        assertEquals(0, handler.gameTimer.getPending());
+    }
+
+    @Test
+    void testTurnTimerStopsWhenOnlyOnePlayerIsLeft() {
+        startGame();
+
+        handler.afterConnectionClosed(bob, CloseStatus.GOING_AWAY);
+
+        assertNull(room.getTurnTimerPlayerId());
+        handler.gameTimer.tick();
+        assertEquals(0, handler.gameTimer.getPending());
+    }
+
+    @Test
+    void testUnansweredDealIsDeclined() throws Exception {
+        handler.turnTimeoutMillis = 0;
+        startGame();
+        proposeDeal();
+        assertNotNull(room.getDealService().getProposalFor("u2"));
+        clearInvocations(alice);
+
+        handler.gameTimer.runPending();
+
+        assertNull(room.getDealService().getProposalFor("u2"));
+        assertTrue(room.dealTimeouts.isEmpty());
+        JsonNode decline = mapper.readTree(payloads(alice).get(0));
+        assertEquals("DEAL_RESPONSE", decline.get("type").asText());
+        assertEquals("DECLINE", decline.get("responseType").asText());
+        assertEquals("u2", decline.get("fromPlayerId").asText());
+    }
+
+    @Test
+    void testAnsweredDealStopsItsTimer() throws Exception {
+        handler.turnTimeoutMillis = 0;
+        startGame();
+        proposeDeal();
+
+        handler.handleTextMessage(bob, new TextMessage(
+                "{\"type\":\"DEAL_RESPONSE\",\"fromPlayerId\":\"u2\",\"toPlayerId\":\"u1\",\"responseType\":\"DECLINE\"}"));
+
+        assertTrue(room.dealTimeouts.isEmpty());
+        assertNull(room.getDealService().getProposalFor("u2"));
+        handler.gameTimer.tick();
+        assertEquals(0, handler.gameTimer.getPending());
+    }
+}
@@ -4,14 +4,20 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.List;
+import java.util.ArrayDeque;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,7 +30,7 @@ class GameWebSocketHandlerUnitTest {
 
     @BeforeEach
     void setUp() {
-        gameWebSocketHandler = new GameWebSocketHandler();
+        gameWebSocketHandler = TestWiring.handler();
         session = mock(WebSocketSession.class);
         when(session.getId()).thenReturn("1");
         when(session.isOpen()).thenReturn(true);
@@ -137,9 +143,10 @@ class GameWebSocketHandlerUnitTest {
         gameWebSocketHandler.afterConnectionEstablished(s);
         clearInvocations(s);
 
-        Field f = GameWebSocketHandler.class.getDeclaredField("sessionToUserId");
+        GameRoom room = gameWebSocketHandler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        Field f = GameRoom.class.getDeclaredField("sessionToUserId");
         f.setAccessible(true);
-        Map<String, String> sessionToUserId = (Map<String, String>) f.get(gameWebSocketHandler);
+        Map<String, String> sessionToUserId = (Map<String, String>) f.get(room);
 
         gameWebSocketHandler.handleInitMessage(s, mockNode);
 
@@ -154,9 +161,10 @@ class GameWebSocketHandlerUnitTest {
         when(s.getId()).thenReturn("1");
         when(s.isOpen()).thenReturn(true);
 
-        Field f = GameWebSocketHandler.class.getDeclaredField("sessionToUserId");
+        GameRoom room = gameWebSocketHandler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        Field f = GameRoom.class.getDeclaredField("sessionToUserId");
         f.setAccessible(true);
-        Map<String, String> sessionToUserId = (Map<String, String>) f.get(gameWebSocketHandler);
+        Map<String, String> sessionToUserId = (Map<String, String>) f.get(room);
         sessionToUserId.put("anotherSession", "user123");
 
         JsonNode mockNode = mock(JsonNode.class);
@@ -173,15 +181,44 @@ class GameWebSocketHandlerUnitTest {
         verify(s).sendMessage(argThat(msg -> ((TextMessage) msg).getPayload().contains("Invalid user")));
     }
 
+    @Test
+    void testSameUserInitTwiceBeforeMailboxRuns() throws Exception {
+        GameWebSocketHandler handler = TestWiring.handler();
+        // Die Mailboxen laufen erst, wenn der Test es erlaubt
+        Queue<Runnable> pending = new ArrayDeque<>();
+        ReflectionTestUtils.setField(handler.roomRegistry, "roomExecutor", (Executor) pending::add);
+        WebSocketSession first = mock(WebSocketSession.class);
+        when(first.getId()).thenReturn("a");
+        when(first.isOpen()).thenReturn(true);
+        WebSocketSession second = mock(WebSocketSession.class);
+        when(second.getId()).thenReturn("b");
+        when(second.isOpen()).thenReturn(true);
+
+        handler.handleTextMessage(first, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"A\"}"));
+        handler.handleTextMessage(second, new TextMessage("{\"type\":\"INIT\",\"userId\":\"u1\",\"name\":\"B\",\"roomId\":\"other\"}"));
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+
+        verify(second).sendMessage(argThat(msg -> ((TextMessage) msg).getPayload().contains("Invalid user")));
+        GameRoom room = handler.roomRegistry.getRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        assertEquals(Map.of("a", "u1"), room.sessionToUserId);
+        assertEquals(1, room.getGame().getPlayers().size());
+        assertNull(handler.roomRegistry.getRoomForSession("b"));
+        assertNull(handler.roomRegistry.getRoom("other"));
+    }
+
     @Test
     void testInvalidMessageHandling() throws Exception {
-        GameWebSocketHandler handler = new GameWebSocketHandler();
+        GameWebSocketHandler handler = TestWiring.handler();
         when(session.getId()).thenReturn("test-session-id");
         when(session.isOpen()).thenReturn(true);
 
-        Field sessionsField = GameWebSocketHandler.class.getDeclaredField("sessions");
+        GameRoom room = handler.roomRegistry.getOrCreateRoom(GameRoomRegistry.DEFAULT_ROOM_ID);
+        Field sessionsField = GameRoom.class.getDeclaredField("sessions");
         sessionsField.setAccessible(true);
-        ((CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(handler)).add(session);
+        ((CopyOnWriteArrayList<WebSocketSession>) sessionsField.get(room)).addIfAbsent(session);
 
         // Init
         handler.handleTextMessage(session, new TextMessage("{\"type\":\"INIT\",\"userId\":\"user123\",\"name\":\"TestUser\"}"));
@@ -197,7 +234,7 @@ class GameWebSocketHandlerUnitTest {
 
     @Test
     void testPlayerDisconnect() throws Exception {
-        GameWebSocketHandler handler = new GameWebSocketHandler();
+        GameWebSocketHandler handler = TestWiring.handler();
         when(session.getId()).thenReturn("123");
         when(session.isOpen()).thenReturn(true);
 
@@ -244,4 +281,54 @@ class GameWebSocketHandlerUnitTest {
         verify(session2).sendMessage(argThat(msg -> ((TextMessage) msg).getPayload().contains(expected)));
     }
 
+
+    @Test
+    void testGameStateIsSentOncePerCommand() throws Exception {
+        WebSocketSession session2 = mock(WebSocketSession.class);
+        when(session2.getId()).thenReturn("2");
+        when(session2.isOpen()).thenReturn(true);
+        WebSocketSession session3 = mock(WebSocketSession.class);
+        when(session3.getId()).thenReturn("3");
+        when(session3.isOpen()).thenReturn(true);
+        ReflectionTestUtils.setField(gameWebSocketHandler, "gameHistoryService", mock(GameHistoryService.class));
+        sendInit(session2, "2", "Player2");
+        sendInit(session3, "3", "Player3");
+        clearInvocations(session, session2, session3);
+
+        // Macht Spieler 1 bankrott: Geldupdate und GIVE_UP wollen beide den Spielstand senden
+        gameWebSocketHandler.handleTextMessage(session, new TextMessage("UPDATE_MONEY:-5000"));
+
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session2, atLeastOnce()).sendMessage(captor.capture());
+        List<String> payloads = captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+
+        assertTrue(payloads.stream().anyMatch(p -> p.contains("\"type\":\"GIVE_UP\"")));
+        assertEquals(1, payloads.stream().filter(p -> p.startsWith("GAME_STATE:")).count());
+        assertEquals(1, payloads.stream().filter(p -> p.startsWith("PLAYER_TURN:")).count());
+        // Der Spielstand kommt als letztes, nach allen anderen Nachrichten des Befehls
+        assertTrue(payloads.get(payloads.size() - 1).startsWith("PLAYER_TURN:"));
+    }
+
+    @Test
+    void testDeltaClientReceivesSnapshotAndDeltasInsteadOfGameState() throws Exception {
+        WebSocketSession deltaSession = mock(WebSocketSession.class);
+        when(deltaSession.getId()).thenReturn("2");
+        when(deltaSession.isOpen()).thenReturn(true);
+        gameWebSocketHandler.handleTextMessage(deltaSession, new TextMessage(
+                "{\"type\":\"INIT\",\"userId\":\"2\",\"name\":\"Player2\",\"protocol\":\"delta\"}"));
+
+        gameWebSocketHandler.handleTextMessage(session, new TextMessage("UPDATE_MONEY:50"));
+
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(deltaSession, atLeastOnce()).sendMessage(captor.capture());
+        List<String> payloads = captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+
+        assertTrue(payloads.stream().noneMatch(p -> p.startsWith("GAME_STATE:") || p.startsWith("PLAYER_TURN:")));
+        assertTrue(payloads.stream().anyMatch(p -> p.contains("\"type\":\"STATE_SNAPSHOT\"")));
+        assertTrue(payloads.get(payloads.size() - 1).contains("\"money\":1550"));
+
+        // Der klassische Client bekommt weiterhin den vollen Spielstand
+        verify(session, atLeastOnce()).sendMessage(argThat(msg -> ((TextMessage) msg).getPayload().startsWith("GAME_STATE:")));
+    }
+
 }
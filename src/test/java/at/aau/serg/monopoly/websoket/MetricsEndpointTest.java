@@ -0,0 +1,35 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsEndpointTest {
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testPrometheusEndpointExportsGameMetrics() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(new URI("http://localhost:" + port + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body())
+                .contains("monopoly_rooms_active")
+                .contains("monopoly_sessions_active")
+                .contains("monopoly_send_failures_total")
+                .contains("monopoly_history_pending_writes")
+                .contains("monopoly_broadcast_duration_seconds");
+    }
+}
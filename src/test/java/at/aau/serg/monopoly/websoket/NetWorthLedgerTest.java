@@ -0,0 +1,85 @@
+package at.aau.serg.monopoly.websoket;
+
+import model.Game;
+import model.Player;
+import model.properties.BaseProperty;
+import model.properties.HouseableProperty;
+import model.properties.TrainStation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetWorthLedgerTest {
+
+    private PropertyService propertyService;
+    private HouseableProperty street;
+    private TrainStation station;
+
+    @BeforeEach
+    void setUp() {
+        propertyService = new PropertyService(new Game());
+        propertyService.init();
+        street = propertyService.getHouseableProperties().get(0);
+        station = propertyService.getTrainStations().get(0);
+    }
+
+    @Test
+    void testOwnershipChangesUpdateLiquidationValue() {
+        street.setOwnerId("p1");
+        station.setOwnerId("p1");
+        assertEquals(street.getPurchasePrice() / 2 + station.getPurchasePrice() / 2,
+                propertyService.getLiquidationValue("p1"));
+
+        station.setOwnerId("p2");
+        assertEquals(street.getPurchasePrice() / 2, propertyService.getLiquidationValue("p1"));
+        assertEquals(station.getPurchasePrice() / 2, propertyService.getLiquidationValue("p2"));
+
+        street.setOwnerId(null);
+        assertEquals(0, propertyService.getLiquidationValue("p1"));
+    }
+
+    @Test
+    void testSettingSameOwnerTwiceCountsOnce() {
+        street.setOwnerId("p1");
+        street.setOwnerId("p1");
+
+        assertEquals(street.getPurchasePrice() / 2, propertyService.getLiquidationValue("p1"));
+    }
+
+    @Test
+    void testBuyAndSellThroughTransactionServiceAreTracked() {
+        PropertyTransactionService transactions = new PropertyTransactionService(propertyService);
+        Player player = new Player("p1", "Alice");
+        player.setPosition(street.getPosition());
+
+        assertTrue(transactions.buyProperty(player, street.getId()));
+        assertEquals(1500 - street.getPurchasePrice() / 2, GameEngine.netWorth(propertyService, player));
+
+        assertTrue(transactions.sellProperty(player, street.getId()));
+        assertEquals(1500 - street.getPurchasePrice() / 2, GameEngine.netWorth(propertyService, player));
+        assertEquals(0, propertyService.getLiquidationValue("p1"));
+    }
+
+    @Test
+    void testInitRebuildsLedgerFromFreshData() {
+        street.setOwnerId("p1");
+
+        propertyService.init();
+
+        assertEquals(0, propertyService.getLiquidationValue("p1"));
+        BaseProperty reloaded = propertyService.getPropertyById(street.getId());
+        reloaded.setOwnerId("p1");
+        assertEquals(reloaded.getPurchasePrice() / 2, propertyService.getLiquidationValue("p1"));
+    }
+
+    @Test
+    void testAttachCountsExistingOwners() {
+        NetWorthLedger ledger = new NetWorthLedger();
+        street.setOwnerId("p1");
+
+        ledger.attach(propertyService.getHouseableProperties());
+
+        assertEquals(street.getPurchasePrice() / 2, ledger.getLiquidationValue("p1"));
+    }
+}
@@ -0,0 +1,52 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+
+    private PrefixTrie<String> trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new PrefixTrie<>();
+        trie.putExact("ROLL", "roll");
+        trie.putExact("NEXT_TURN", "next");
+        trie.putPrefix("BUY_PROPERTY:", "buy");
+        trie.putPrefix("SELL_PROPERTY:", "sell");
+    }
+
+    @Test
+    void testExactKeyMatchesCaseInsensitive() {
+        assertEquals("roll", trie.match("Roll"));
+        assertEquals("roll", trie.match("ROLL"));
+        assertEquals("next", trie.match("NEXT_TURN"));
+    }
+
+    @Test
+    void testExactKeyDoesNotMatchLongerText() {
+        assertNull(trie.match("Rolling"));
+        assertNull(trie.match("NEXT_TURN_NOW"));
+    }
+
+    @Test
+    void testPrefixKeyMatchesTextWithSuffix() {
+        assertEquals("buy", trie.match("BUY_PROPERTY:12"));
+        assertEquals("sell", trie.match("SELL_PROPERTY:"));
+    }
+
+    @Test
+    void testUnknownOrPartialTextDoesNotMatch() {
+        assertNull(trie.match("BUY_PROP"));
+        assertNull(trie.match("Hello"));
+        assertNull(trie.match(""));
+        assertNull(trie.match("Röll"));
+    }
+
+    @Test
+    void testNonAsciiKeyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> trie.putExact("ZÜGE", "x"));
+    }
+}
@@ -3,6 +3,7 @@ import model.Game;
 import model.Player;
 import model.properties.BaseProperty;
 import model.properties.HouseableProperty;
+import model.properties.PropertyGroup;
 import model.properties.TrainStation;
 import model.properties.Utility;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +19,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -152,34 +154,13 @@ class PropertyServiceTest {
 
     @Test
     void getPropertyByPosition_WithHouseableProperty_ReturnsProperty() {
-        // Arrange
-        HouseableProperty houseableProperty = new HouseableProperty(
-            1,                // id
-            null,            // ownerId
-            "Test Street",    // name
-            100,             // purchasePrice
-            10,              // baseRent
-            50,              // rent1House
-            150,             // rent2Houses
-            450,             // rent3Houses
-            625,             // rent4Houses
-            750,             // rentHotel
-            50,              // housePrice
-            50,              // hotelPrice
-            50,              // mortgageValue
-            false,           // isMortgaged
-            "test_image",    // image
-            5                // position
-        );
-        propertyService.getHouseableProperties().add(houseableProperty);
-
         // Act
-        BaseProperty result = propertyService.getPropertyByPosition(5);
+        BaseProperty result = propertyService.getPropertyByPosition(1);
 
         // Assert
-        assertNotNull(result, "Should find houseable property at position 5");
+        assertNotNull(result, "Should find houseable property at position 1");
         assertTrue(result instanceof HouseableProperty, "Should return HouseableProperty");
-        assertEquals(5, result.getPosition(), "Should return property at correct position");
+        assertEquals(1, result.getPosition(), "Should return property at correct position");
     }
 
     @Test
@@ -246,49 +227,107 @@ class PropertyServiceTest {
     }
 
     @Test
-    void getPropertyByPosition_WithMultiplePropertiesAtSamePosition_ReturnsFirstFound() {
-        // Arrange
-        HouseableProperty houseableProperty = new HouseableProperty(
-            1,                // id
-            null,            // ownerId
-            "Test Street",    // name
-            100,             // purchasePrice
-            10,              // baseRent
-            50,              // rent1House
-            150,             // rent2Houses
-            450,             // rent3Houses
-            625,             // rent4Houses
-            750,             // rentHotel
-            50,              // housePrice
-            50,              // hotelPrice
-            50,              // mortgageValue
-            false,           // isMortgaged
-            "test_image",    // image
-            5                // position
-        );
-        TrainStation trainStation = new TrainStation(
-            2,                // id
-            null,            // ownerId
-            "Test Station",   // name
-            200,             // purchasePrice
-            25,              // baseRent
-            50,              // rent2Stations
-            100,             // rent3Stations
-            200,             // rent4Stations
-            100,             // mortgageValue
-            false,           // isMortgaged
-            "test_image",    // image
-            5                // position
-        );
-        propertyService.getHouseableProperties().add(houseableProperty);
-        propertyService.getTrainStations().add(trainStation);
+    void getPropertyByPosition_WithSquareWithoutProperty_ReturnsNull() {
+        assertNull(propertyService.getPropertyByPosition(0), "Los has no property");
+        assertNull(propertyService.getPropertyByPosition(4), "Tax square has no property");
+        assertNull(propertyService.getPropertyByPosition(-1));
+        assertNull(propertyService.getPropertyByPosition(PropertyService.BOARD_SIZE));
+    }
 
-        // Act
-        BaseProperty result = propertyService.getPropertyByPosition(5);
+    @Test
+    void indexContainsEveryLoadedProperty() {
+        List<BaseProperty> all = new ArrayList<>(propertyService.getHouseableProperties());
+        all.addAll(propertyService.getTrainStations());
+        all.addAll(propertyService.getUtilities());
+
+        for (BaseProperty property : all) {
+            assertSame(property, propertyService.getPropertyById(property.getId()));
+            assertSame(property, propertyService.getPropertyByPosition(property.getPosition()));
+        }
+        assertNull(propertyService.getPropertyById(999));
+        assertNull(propertyService.getPropertyById(-1));
+    }
 
-        // Assert
-        assertNotNull(result, "Should find property at position 5");
-        assertTrue(result instanceof HouseableProperty, "Should return first found property (HouseableProperty)");
-        assertEquals(5, result.getPosition(), "Should return property at correct position");
+    @Test
+    void getHouseablePropertyById_WithTrainStationId_ReturnsNull() {
+        int stationId = propertyService.getTrainStations().get(0).getId();
+
+        assertNull(propertyService.getHouseablePropertyById(stationId));
+        assertNotNull(propertyService.getPropertyById(stationId));
+    }
+
+    @Test
+    void init_AgainOnlyClearsOwnershipAndKeepsProperties() {
+        HouseableProperty property = propertyService.getHouseableProperties().get(0);
+        property.setOwnerId("player1");
+        property.setMortgaged(true);
+
+        propertyService.init();
+
+        assertSame(property, propertyService.getHouseableProperties().get(0));
+        assertNull(property.getOwnerId());
+        assertFalse(property.isMortgaged());
+        assertEquals(0, propertyService.getLiquidationValue("player1"));
+    }
+
+    @Test
+    void ownershipIsNotSharedBetweenGames() {
+        PropertyService other = new PropertyService(game);
+        other.init();
+
+        propertyService.getTrainStations().get(0).setOwnerId("player1");
+
+        assertNull(other.getTrainStations().get(0).getOwnerId());
+        assertNotSame(propertyService.getTrainStations().get(0), other.getTrainStations().get(0));
+        assertEquals(propertyService.getTrainStations().get(0).getName(), other.getTrainStations().get(0).getName());
+    }
+
+    @Test
+    void copy_KeepsStaticDataAndState() {
+        Utility utility = propertyService.getUtilities().get(0);
+        utility.setOwnerId("player2");
+
+        BaseProperty copy = utility.copy();
+        copy.setOwnerId("player1");
+
+        assertEquals(utility.getPurchasePrice(), copy.getPurchasePrice());
+        assertEquals("player2", utility.getOwnerId());
+        assertEquals("player1", copy.getOwnerId());
+    }
+
+    @Test
+    void trainStationRent_DependsOnOwnedStations() {
+        List<TrainStation> stations = propertyService.getTrainStations();
+        Player owner = new Player("player1", "Owner");
+        for (int i = 0; i < stations.size(); i++) {
+            stations.get(i).setOwnerId("player1");
+        }
+        TrainStation station = stations.get(0);
+        assertEquals(station.getRent4Stations(), station.calculateRent(owner, null));
+
+        stations.get(3).setOwnerId("player2");
+        assertEquals(station.getRent3Stations(), station.calculateRent(owner, null));
+        stations.get(2).setOwnerId(null);
+        assertEquals(station.getRent2Stations(), station.calculateRent(owner, null));
+        stations.get(1).setOwnerId("player2");
+        assertEquals(station.getBaseRent(), station.calculateRent(owner, null));
+        assertEquals(2, propertyService.getOwnedCount("player2", PropertyGroup.TRAIN_STATIONS));
+    }
+
+    @Test
+    void houseableRent_DoublesForWholeColourGroup() {
+        HouseableProperty first = (HouseableProperty) propertyService.getPropertyByPosition(1);
+        HouseableProperty second = (HouseableProperty) propertyService.getPropertyByPosition(3);
+        Player owner = new Player("player1", "Owner");
+
+        first.setOwnerId("player1");
+        assertEquals(first.getBaseRent(), first.calculateRent(owner, null));
+
+        second.setOwnerId("player1");
+        assertEquals(first.getBaseRent() * 2, first.calculateRent(owner, null));
+        assertEquals(2, propertyService.getOwnedCount("player1", PropertyGroup.of(first)));
+
+        propertyService.init();
+        assertEquals(0, propertyService.getOwnedCount("player1", PropertyGroup.of(first)));
     }
 }
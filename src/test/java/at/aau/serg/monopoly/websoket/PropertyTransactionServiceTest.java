@@ -12,7 +12,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -46,10 +45,8 @@ class PropertyTransactionServiceTest {
                 MORTGAGE_VALUE, false, "image", 1 // Added position parameter
         );
 
-        // Make all property service lookups lenient
-        lenient().when(propertyService.getHouseablePropertyById(anyInt())).thenReturn(null);
-        lenient().when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        lenient().when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        // Make the property lookup lenient
+        lenient().when(propertyService.getPropertyById(anyInt())).thenReturn(null);
     }
 
     // --- Tests for canBuyProperty ---
@@ -58,7 +55,7 @@ class PropertyTransactionServiceTest {
     void canBuyProperty_SufficientFunds_Unowned_ReturnsTrue() {
         testPlayer.setMoney(PURCHASE_PRICE + 50); // Player has more than enough
         testPlayer.setPosition(1); // Set player position to match property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         assertTrue(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
     }
@@ -67,7 +64,7 @@ class PropertyTransactionServiceTest {
     void canBuyProperty_ExactFunds_Unowned_ReturnsTrue() {
         testPlayer.setMoney(PURCHASE_PRICE); // Player has exact amount
         testPlayer.setPosition(1); // Set player position to match property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         assertTrue(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
     }
@@ -76,7 +73,7 @@ class PropertyTransactionServiceTest {
     void canBuyProperty_InsufficientFunds_Unowned_ReturnsFalse() {
         testPlayer.setMoney(PURCHASE_PRICE - 1); // Player has less than needed
         testPlayer.setPosition(1); // Set player position to match property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         assertFalse(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
     }
@@ -86,7 +83,7 @@ class PropertyTransactionServiceTest {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testPlayer.setPosition(1); // Set player position to match property position
         testProperty.setOwnerId("anotherPlayer"); // Property is already owned
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         assertFalse(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
     }
@@ -96,23 +93,18 @@ class PropertyTransactionServiceTest {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testPlayer.setPosition(1); // Set player position to match property position
         // Mock to return null when property ID is requested
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        // Ensure other lookups also return null/empty
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(null);
 
         assertFalse(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
         // Verify that all property lookup methods were potentially called by findPropertyById
-        verify(propertyService).getHouseablePropertyById(PROPERTY_ID);
-        verify(propertyService).getTrainStations();
-        verify(propertyService).getUtilities();
+        verify(propertyService).getPropertyById(PROPERTY_ID);
     }
 
     @Test
     void canBuyProperty_WrongPosition_ReturnsFalse() {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testPlayer.setPosition(2); // Set player position to different from property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         assertFalse(propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID));
     }
@@ -123,7 +115,7 @@ class PropertyTransactionServiceTest {
     void buyProperty_SuccessfulPurchase() {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testPlayer.setPosition(1); // Set player position to match property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         boolean result = propertyTransactionService.buyProperty(testPlayer, PROPERTY_ID);
 
@@ -135,7 +127,7 @@ class PropertyTransactionServiceTest {
     @Test
     void buyProperty_InsufficientFunds_FailsPreCheck() {
         testPlayer.setMoney(PURCHASE_PRICE - 1);
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         boolean result = propertyTransactionService.buyProperty(testPlayer, PROPERTY_ID);
 
@@ -148,7 +140,7 @@ class PropertyTransactionServiceTest {
     void buyProperty_AlreadyOwned_FailsPreCheck() {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testProperty.setOwnerId("anotherPlayer");
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         boolean result = propertyTransactionService.buyProperty(testPlayer, PROPERTY_ID);
 
@@ -160,10 +152,7 @@ class PropertyTransactionServiceTest {
     @Test
     void buyProperty_PropertyNotFound_FailsPreCheck() {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        // Ensure other lookups also return null/empty
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(null);
 
 
         boolean result = propertyTransactionService.buyProperty(testPlayer, PROPERTY_ID);
@@ -176,7 +165,7 @@ class PropertyTransactionServiceTest {
     void buyProperty_WrongPosition_FailsPreCheck() {
         testPlayer.setMoney(PURCHASE_PRICE + 50);
         testPlayer.setPosition(2); // Set player position to different from property position
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         boolean result = propertyTransactionService.buyProperty(testPlayer, PROPERTY_ID);
 
@@ -187,15 +176,13 @@ class PropertyTransactionServiceTest {
 
     @Test
     void findPropertyById_FindsHouseableProperty() {
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
 
         BaseProperty found = propertyTransactionService.findPropertyById(PROPERTY_ID);
 
         assertNotNull(found);
         assertEquals(PROPERTY_ID, found.getId());
-        verify(propertyService).getHouseablePropertyById(PROPERTY_ID);
-        verify(propertyService, never()).getTrainStations(); // Should not be called if found earlier
-        verify(propertyService, never()).getUtilities();     // Should not be called if found earlier
+        verify(propertyService).getPropertyById(PROPERTY_ID);
     }
 
     @Test
@@ -216,34 +203,26 @@ class PropertyTransactionServiceTest {
             5      // Added position parameter
         );
         
-        // Mock houseable property to return null (not found)
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        // Mock train stations to include our test station
-        when(propertyService.getTrainStations()).thenReturn(Collections.singletonList(trainStation));
+        // The index returns the train station for its id
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(trainStation);
 
         BaseProperty found = propertyTransactionService.findPropertyById(PROPERTY_ID);
 
         assertNotNull(found);
         assertEquals(PROPERTY_ID, found.getId());
         assertEquals("Test Station", found.getName());
-        verify(propertyService).getHouseablePropertyById(PROPERTY_ID);
-        verify(propertyService).getTrainStations();
-        verify(propertyService, never()).getUtilities(); // Should not be called if found in train stations
+        verify(propertyService).getPropertyById(PROPERTY_ID);
     }
 
     @Test
     void findPropertyById_PropertyNotFound_ReturnsNull() {
-        // Mock all property lookups to return null or empty
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        // Mock the property lookup to return null
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(null);
 
         BaseProperty found = propertyTransactionService.findPropertyById(PROPERTY_ID);
 
         assertNull(found);
-        verify(propertyService).getHouseablePropertyById(PROPERTY_ID);
-        verify(propertyService).getTrainStations();
-        verify(propertyService).getUtilities();
+        verify(propertyService).getPropertyById(PROPERTY_ID);
     }
 
     @Test
@@ -262,19 +241,15 @@ class PropertyTransactionServiceTest {
             12     // Added position parameter
         );
         
-        // Mock houseable property and train stations to return null/empty (not found)
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.singletonList(utility));
+        // The index returns the utility for its id
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(utility);
 
         BaseProperty found = propertyTransactionService.findPropertyById(PROPERTY_ID);
 
         assertNotNull(found);
         assertEquals(PROPERTY_ID, found.getId());
         assertEquals("Test Utility", found.getName());
-        verify(propertyService).getHouseablePropertyById(PROPERTY_ID);
-        verify(propertyService).getTrainStations();
-        verify(propertyService).getUtilities();
+        verify(propertyService).getPropertyById(PROPERTY_ID);
     }
 
     // --- Tests for sellProperty ---
@@ -283,7 +258,7 @@ class PropertyTransactionServiceTest {
     void sellProperty_SuccessfulSale() {
         // Arrange
         testProperty.setOwnerId(PLAYER_ID);
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
         int initialMoney = 100;
         testPlayer.setMoney(initialMoney);
 
@@ -299,9 +274,7 @@ class PropertyTransactionServiceTest {
     @Test
     void sellProperty_PropertyNotFound_ReturnsFalse() {
         // Arrange
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(null);
         int initialMoney = 100;
         testPlayer.setMoney(initialMoney);
 
@@ -317,7 +290,7 @@ class PropertyTransactionServiceTest {
     void sellProperty_NotOwnedByPlayer_ReturnsFalse() {
         // Arrange
         testProperty.setOwnerId("differentPlayer");
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(testProperty);
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(testProperty);
         int initialMoney = 100;
         testPlayer.setMoney(initialMoney);
 
@@ -347,9 +320,7 @@ class PropertyTransactionServiceTest {
             "train_image",
             5      // position
         );
-        lenient().when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        lenient().when(propertyService.getTrainStations()).thenReturn(Collections.singletonList(trainStation));
-        lenient().when(propertyService.getUtilities()).thenReturn(Collections.emptyList());
+        lenient().when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(trainStation);
         int initialMoney = 100;
         testPlayer.setMoney(initialMoney);
 
@@ -377,9 +348,7 @@ class PropertyTransactionServiceTest {
             "utility_image",
             12     // position
         );
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null);
-        when(propertyService.getTrainStations()).thenReturn(Collections.emptyList());
-        when(propertyService.getUtilities()).thenReturn(Collections.singletonList(utility));
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(utility);
         int initialMoney = 100;
         testPlayer.setMoney(initialMoney);
 
@@ -397,7 +366,7 @@ class PropertyTransactionServiceTest {
         // Arrange
         testPlayer.setPosition(1);
         testPlayer.setMoney(PURCHASE_PRICE);
-        when(propertyService.getHouseablePropertyById(PROPERTY_ID)).thenReturn(null); // Property = null
+        when(propertyService.getPropertyById(PROPERTY_ID)).thenReturn(null); // Property = null
 
         // Act
         boolean result = propertyTransactionService.canBuyProperty(testPlayer, PROPERTY_ID);
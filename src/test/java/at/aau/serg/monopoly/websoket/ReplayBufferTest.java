@@ -0,0 +1,59 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayBufferTest {
+
+    private static List<String> payloads(List<TextMessage> frames) {
+        return frames.stream().map(TextMessage::getPayload).toList();
+    }
+
+    @Test
+    void testFramesAreNumbered() {
+        ReplayBuffer buffer = new ReplayBuffer(4);
+
+        assertEquals("SEQ:1:hello", buffer.add(new TextMessage("hello"), ReplayBuffer.ALL).getPayload());
+        assertEquals("SEQ:2:PLAYER_TURN:p1", buffer.add(new TextMessage("PLAYER_TURN:p1"), ReplayBuffer.FULL_STATE).getPayload());
+        assertEquals(2, buffer.getSequence());
+    }
+
+    @Test
+    void testSinceReturnsOnlyMissedFramesOfOwnAudience() {
+        ReplayBuffer buffer = new ReplayBuffer(8);
+        buffer.add(new TextMessage("chat 1"), ReplayBuffer.ALL);
+        buffer.add(new TextMessage("PLAYER_TURN:p1"), ReplayBuffer.FULL_STATE);
+        buffer.add(new TextMessage("{\"type\":\"STATE_DELTA\"}"), ReplayBuffer.DELTA);
+        buffer.add(new TextMessage("chat 2"), ReplayBuffer.ALL);
+
+        assertEquals(List.of("SEQ:2:PLAYER_TURN:p1", "SEQ:4:chat 2"), payloads(buffer.since(1, false)));
+        assertEquals(List.of("SEQ:3:{\"type\":\"STATE_DELTA\"}", "SEQ:4:chat 2"), payloads(buffer.since(1, true)));
+        assertTrue(buffer.since(4, false).isEmpty());
+    }
+
+    @Test
+    void testOnlyNewestGameStateIsReplayed() {
+        ReplayBuffer buffer = new ReplayBuffer(8);
+        buffer.add(new TextMessage("GAME_STATE:[1]"), ReplayBuffer.FULL_STATE);
+        buffer.add(new TextMessage("chat"), ReplayBuffer.ALL);
+        buffer.add(new TextMessage("GAME_STATE:[2]"), ReplayBuffer.FULL_STATE);
+
+        assertEquals(List.of("SEQ:2:chat", "SEQ:3:GAME_STATE:[2]"), payloads(buffer.since(0, false)));
+    }
+
+    @Test
+    void testOverwrittenOrUnknownFramesNeedSnapshot() {
+        ReplayBuffer buffer = new ReplayBuffer(2);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(new TextMessage("chat " + i), ReplayBuffer.ALL);
+        }
+
+        assertNull(buffer.since(2, false));
+        assertEquals(2, buffer.since(3, false).size());
+        assertNull(buffer.since(6, false));
+    }
+}
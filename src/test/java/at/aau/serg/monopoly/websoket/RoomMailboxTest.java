@@ -0,0 +1,82 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomMailboxTest {
+
+    @Test
+    void testTasksRunInSubmissionOrderOnCallingThread() {
+        RoomMailbox mailbox = new RoomMailbox(Runnable::run);
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            mailbox.execute(() -> order.add(n));
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    void testNestedTaskRunsAfterCurrentTask() {
+        RoomMailbox mailbox = new RoomMailbox(Runnable::run);
+        List<String> order = new ArrayList<>();
+
+        mailbox.execute(() -> {
+            order.add("outer-start");
+            mailbox.execute(() -> order.add("inner"));
+            order.add("outer-end");
+        });
+
+        assertEquals(List.of("outer-start", "outer-end", "inner"), order);
+    }
+
+    @Test
+    void testFailingTaskDoesNotBlockMailbox() {
+        RoomMailbox mailbox = new RoomMailbox(Runnable::run);
+        AtomicInteger counter = new AtomicInteger();
+
+        mailbox.execute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        mailbox.execute(counter::incrementAndGet);
+
+        assertEquals(1, counter.get());
+        assertEquals(0, mailbox.pendingTasks());
+    }
+
+    @Test
+    void testTasksNeverOverlapOnWorkerPool() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        RoomMailbox mailbox = new RoomMailbox(pool);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        int tasks = RoomMailbox.MAX_BATCH * 4;
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        try {
+            for (int i = 0; i < tasks; i++) {
+                pool.execute(() -> mailbox.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    running.decrementAndGet();
+                    done.countDown();
+                }));
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+}
@@ -0,0 +1,155 @@
+package at.aau.serg.monopoly.websoket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionOutboxTest {
+
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private WebSocketSession session;
+    private SessionOutbox.OutboxListener listener;
+    private SessionOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        listener = mock(SessionOutbox.OutboxListener.class);
+        // Sender läuft erst, wenn der Test es erlaubt
+        outbox = new SessionOutbox(session, pending::add, 3, 5000, listener);
+    }
+
+    private void runSender() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void testFramesAreSentInOrderBySender() throws Exception {
+        TextMessage first = new TextMessage("a");
+        TextMessage second = new TextMessage("b");
+
+        assertTrue(outbox.offer(first));
+        assertTrue(outbox.offer(second));
+        assertEquals(2, outbox.size());
+        assertEquals(1, pending.size(), "only one drain task per batch");
+        verify(session, never()).sendMessage(any());
+
+        runSender();
+
+        InOrder order = inOrder(session);
+        order.verify(session).sendMessage(first);
+        order.verify(session).sendMessage(second);
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    void testNewerGameStateReplacesQueuedOne() throws Exception {
+        outbox.offer(new TextMessage("GAME_STATE:[1]"));
+        outbox.offer(new TextMessage("CHAT_MESSAGE"));
+        TextMessage latest = new TextMessage("GAME_STATE:[2]");
+        outbox.offer(latest);
+
+        assertEquals(2, outbox.size());
+        verify(listener).framesDropped(1);
+
+        runSender();
+        verify(session, times(2)).sendMessage(any());
+        verify(session).sendMessage(latest);
+    }
+
+    @Test
+    void testNumberedGameStatesAreNotDropped() throws Exception {
+        outbox.offer(new TextMessage("SEQ:1:GAME_STATE:[1]"));
+        outbox.offer(new TextMessage("SEQ:2:GAME_STATE:[2]"));
+
+        assertEquals(2, outbox.size());
+        verify(listener, never()).framesDropped(anyInt());
+
+        runSender();
+        verify(session, times(2)).sendMessage(any());
+    }
+
+    @Test
+    void testOverflowDisconnectsSession() throws Exception {
+        outbox.offer(new TextMessage("a"));
+        outbox.offer(new TextMessage("b"));
+        outbox.offer(new TextMessage("c"));
+
+        assertFalse(outbox.offer(new TextMessage("d")));
+
+        verify(listener).sessionEvicted(session);
+        assertEquals(0, outbox.size());
+        assertFalse(outbox.offer(new TextMessage("e")));
+        // Geschlossen wird erst vom Sender, nicht vom aufrufenden Thread
+        verify(session, never()).close(any());
+
+        runSender();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void testHangingSendIsEvictedWithoutNewFrames() throws Exception {
+        SessionOutbox strict = new SessionOutbox(session, pending::add, 3, 0, listener);
+        TextMessage hanging = new TextMessage("a");
+        // Die periodische Prüfung läuft, während der Sender noch im sendMessage hängt
+        doAnswer(invocation -> {
+            Thread.sleep(1);
+            assertTrue(strict.evictIfTooSlow());
+            return null;
+        }).when(session).sendMessage(hanging);
+
+        assertFalse(strict.evictIfTooSlow());
+        strict.offer(hanging);
+        strict.offer(new TextMessage("b"));
+        runSender();
+
+        verify(listener).sessionEvicted(session);
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, times(1)).sendMessage(any());
+        assertFalse(strict.evictIfTooSlow());
+    }
+
+    @Test
+    void testSendErrorDoesNotStopQueue() throws Exception {
+        TextMessage broken = new TextMessage("x");
+        TextMessage next = new TextMessage("y");
+        doThrow(new java.io.IOException("boom")).when(session).sendMessage(broken);
+
+        outbox.offer(broken);
+        outbox.offer(next);
+        runSender();
+
+        verify(session).sendMessage(next);
+    }
+
+    @Test
+    void testRegistryCountsDepthAndDrops() {
+        when(session.isOpen()).thenReturn(true);
+        SessionOutboxRegistry registry = new SessionOutboxRegistry();
+
+        assertTrue(registry.send(session, new TextMessage("GAME_STATE:[]")));
+
+        // Ohne Spring wird direkt gesendet, es bleibt nichts in der Queue
+        assertEquals(0, registry.getQueueDepth(session));
+        assertEquals(1, registry.getSessionCount());
+        registry.remove(session);
+        assertEquals(0, registry.getSessionCount());
+        assertEquals(0, registry.getEvictedSessions());
+        assertEquals(0, registry.evictSlowSessions());
+    }
+}
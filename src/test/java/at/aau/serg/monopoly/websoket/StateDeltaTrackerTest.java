@@ -0,0 +1,94 @@
+package at.aau.serg.monopoly.websoket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import data.PlayerInfo;
+import model.Game;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateDeltaTrackerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private StateDeltaTracker tracker;
+    private PropertyService propertyService;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new StateDeltaTracker();
+        propertyService = new PropertyService(new Game());
+        propertyService.init();
+    }
+
+    private PlayerInfo player(String id, int money, int position) {
+        return new PlayerInfo(id, "Name-" + id, money, position, false, 0);
+    }
+
+    @Test
+    void testFirstDeltaContainsFullPlayerData() {
+        ObjectNode delta = tracker.nextDelta(mapper, List.of(player("a", 1500, 0)), propertyService, "a");
+
+        assertNotNull(delta);
+        assertEquals(StateDeltaTracker.DELTA_TYPE, delta.get("type").asText());
+        assertEquals(1, delta.get("seq").asLong());
+        assertEquals("Name-a", delta.get("players").get(0).get("name").asText());
+        assertEquals("a", delta.get("currentPlayerId").asText());
+    }
+
+    @Test
+    void testDeltaOnlyContainsChangedFields() {
+        tracker.nextDelta(mapper, List.of(player("a", 1500, 0), player("b", 1500, 0)), propertyService, "a");
+
+        ObjectNode delta = tracker.nextDelta(mapper, List.of(player("a", 1300, 0), player("b", 1500, 0)), propertyService, "a");
+
+        assertNotNull(delta);
+        assertEquals(2, delta.get("seq").asLong());
+        assertEquals(1, delta.get("players").size());
+        ObjectNode changed = (ObjectNode) delta.get("players").get(0);
+        assertEquals("a", changed.get("id").asText());
+        assertEquals(1300, changed.get("money").asInt());
+        assertFalse(changed.has("position"));
+        assertFalse(delta.has("currentPlayerId"));
+        assertFalse(delta.has("owners"));
+    }
+
+    @Test
+    void testNoDeltaWhenNothingChanged() {
+        List<PlayerInfo> players = List.of(player("a", 1500, 0));
+        tracker.nextDelta(mapper, players, propertyService, "a");
+
+        assertNull(tracker.nextDelta(mapper, List.of(player("a", 1500, 0)), propertyService, "a"));
+        assertEquals(1, tracker.getSequence());
+    }
+
+    @Test
+    void testOwnershipTurnAndRemovalAreReported() {
+        tracker.nextDelta(mapper, List.of(player("a", 1500, 0), player("b", 1500, 0)), propertyService, "a");
+        propertyService.getHouseableProperties().get(0).setOwnerId("a");
+        int propertyId = propertyService.getHouseableProperties().get(0).getId();
+
+        ObjectNode delta = tracker.nextDelta(mapper, List.of(player("a", 1500, 0)), propertyService, "a");
+        assertEquals("a", delta.get("owners").get(String.valueOf(propertyId)).asText());
+        assertEquals("b", delta.get("removedPlayers").get(0).asText());
+
+        propertyService.getHouseableProperties().get(0).setOwnerId(null);
+        delta = tracker.nextDelta(mapper, List.of(player("a", 1500, 0)), propertyService, null);
+        assertTrue(delta.get("owners").get(String.valueOf(propertyId)).isNull());
+        assertTrue(delta.get("currentPlayerId").isNull());
+    }
+
+    @Test
+    void testSnapshotContainsAllPlayersAndOwnedProperties() {
+        propertyService.getTrainStations().get(0).setOwnerId("a");
+
+        ObjectNode snapshot = tracker.snapshot(mapper, List.of(player("a", 1500, 5)), propertyService, "a");
+
+        assertEquals(StateDeltaTracker.SNAPSHOT_TYPE, snapshot.get("type").asText());
+        assertEquals(5, snapshot.get("players").get(0).get("position").asInt());
+        assertEquals(1, snapshot.get("owners").size());
+    }
+}
@@ -0,0 +1,25 @@
+package at.aau.serg.monopoly.websoket;
+
+/**
+ * Verdrahtet Handler und Registry ohne Spring-Kontext, so wie es Spring über die {@code @Autowired}-Felder tut.
+ */
+final class TestWiring {
+
+    private TestWiring() {
+    }
+
+    static GameRoomRegistry roomRegistry() {
+        GameRoomRegistry roomRegistry = new GameRoomRegistry();
+        roomRegistry.journal = new GameJournal();
+        return roomRegistry;
+    }
+
+    static GameWebSocketHandler handler() {
+        GameWebSocketHandler handler = new GameWebSocketHandler();
+        handler.roomRegistry = roomRegistry();
+        handler.outboxes = new SessionOutboxRegistry();
+        handler.gameTimer = new GameTimer();
+        handler.metrics = new GameMetrics();
+        return handler;
+    }
+}
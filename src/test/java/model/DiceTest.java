@@ -8,6 +8,7 @@ import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import java.util.ArrayList;
 import java.util.List;
 
 class DiceTest {
@@ -76,6 +77,55 @@ class DiceTest {
         assertTrue(fixedManager.isPasch());
     }
 
+    @Test
+    void testRollUsesGivenRandomSource() {
+        DiceManager fixedManager = new DiceManager(bound -> bound - 1);
+        fixedManager.initializeStandardDices();
+        assertNull(fixedManager.getLastRollValues());
+
+        assertEquals(12, fixedManager.rollDices());
+        assertEquals(List.of(6, 6), fixedManager.getLastRollValues());
+        assertEquals(2, fixedManager.getLastRollCount());
+        assertEquals(6, fixedManager.getLastRollValue(1));
+        assertTrue(fixedManager.isPasch());
+        assertThrows(IndexOutOfBoundsException.class, () -> fixedManager.getLastRollValue(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {RandomSource.SECURE, RandomSource.FAST})
+    void testConfiguredRandomSourcesStayInRange(String name) {
+        RandomSource random = RandomSource.of(name);
+        for (int i = 0; i < 100; i++) {
+            int roll = firstDice.roll(random);
+            assertTrue(roll >= 1 && roll <= sides);
+        }
+    }
+
+    @Test
+    void testUnknownRandomSourceThrows() {
+        assertThrows(IllegalArgumentException.class, () -> RandomSource.of("dice-tower"));
+    }
+
+    @Test
+    void testRollHistoryIsBoundedAndPerManager() {
+        DiceManager bounded = new DiceManager(bound -> 0, 3);
+        bounded.addDicesToGame(List.of(new Dice(6)));
+        DiceManager other = new DiceManager(bound -> 5, 3);
+        other.initializeStandardDices();
+        List<Integer> spilled = new ArrayList<>();
+        bounded.getRollHistoryBuffer().setSpill(spilled::add);
+
+        for (int i = 0; i < 5; i++) {
+            bounded.rollDices();
+        }
+        other.rollDices();
+
+        assertEquals(List.of(1, 1, 1), bounded.getRollHistory());
+        assertEquals(List.of(1, 1), spilled);
+        assertEquals(5, bounded.getRollHistoryBuffer().getTotalRolls());
+        assertEquals(List.of(12), other.getRollHistory());
+    }
+
     @AfterEach
     void tearDown() {
         firstDice = null;
@@ -0,0 +1,48 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollHistoryTest {
+
+    @Test
+    void keepsRollsInOrderUntilFull() {
+        RollHistory history = new RollHistory(3);
+        history.add(4);
+        history.add(7);
+
+        assertEquals(2, history.size());
+        assertEquals(4, history.get(0));
+        assertEquals(List.of(4, 7), history.toList());
+    }
+
+    @Test
+    void overwritesOldestRollAndSpillsIt() {
+        RollHistory history = new RollHistory(2);
+        List<Integer> spilled = new ArrayList<>();
+        history.setSpill(spilled::add);
+
+        history.add(2);
+        history.add(3);
+        history.add(4);
+        history.add(5);
+
+        assertEquals(List.of(4, 5), history.toList());
+        assertEquals(List.of(2, 3), spilled);
+        assertEquals(4, history.getTotalRolls());
+        assertEquals(2, history.capacity());
+    }
+
+    @Test
+    void rejectsInvalidCapacityAndIndex() {
+        assertThrows(IllegalArgumentException.class, () -> new RollHistory(0));
+        RollHistory history = new RollHistory(2);
+        history.add(6);
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(-1));
+    }
+}